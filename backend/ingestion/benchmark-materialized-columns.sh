@@ -0,0 +1,97 @@
+#!/bin/bash
+# Materialized Columns Benchmark
+# Times the interaction metrics on a synthetic otel_traces-like table, reading the attributes from the
+# SpanAttributes map (before) and from the MATERIALIZED columns (after).
+#
+# Usage: ./benchmark-materialized-columns.sh [rows]   (default 20000000)
+# Connection: CLICKHOUSE_HOST, CLICKHOUSE_PORT, CLICKHOUSE_USER, CLICKHOUSE_PASSWORD
+
+set -e
+
+ROWS="${1:-20000000}"
+RUNS=5
+DB=pulse_bench
+
+ch() {
+    clickhouse-client --host="${CLICKHOUSE_HOST:-localhost}" --port="${CLICKHOUSE_PORT:-9000}" \
+        --user="${CLICKHOUSE_USER:-pulse_user}" --password="${CLICKHOUSE_PASSWORD:-pulse_password}" "$@"
+}
+
+echo "Creating $DB.spans with $ROWS rows..."
+ch --multiquery <<SQL
+CREATE DATABASE IF NOT EXISTS $DB;
+DROP TABLE IF EXISTS $DB.spans;
+CREATE TABLE $DB.spans
+(
+    \`Timestamp\` DateTime64(9, 'UTC'),
+    \`SpanName\` LowCardinality(String),
+    \`StatusCode\` LowCardinality(String),
+    \`SpanAttributes\` Map(LowCardinality(String), String) CODEC(ZSTD(1)),
+    \`ApdexScore\` Nullable(Float64) MATERIALIZED toFloat64OrNull(SpanAttributes['pulse.interaction.apdex_score']),
+    \`UserCategory\` LowCardinality(String) MATERIALIZED ifNull(SpanAttributes['pulse.interaction.user_category'], ''),
+    \`FrozenFrameCount\` Float64 MATERIALIZED toFloat64OrZero(SpanAttributes['app.interaction.frozen_frame_count']),
+    \`AnalysedFrameCount\` Float64 MATERIALIZED toFloat64OrZero(SpanAttributes['app.interaction.analysed_frame_count']),
+    \`UnanalysedFrameCount\` Float64 MATERIALIZED toFloat64OrZero(SpanAttributes['app.interaction.unanalysed_frame_count'])
+)
+ENGINE = MergeTree
+PARTITION BY toYYYYMMDD(Timestamp)
+ORDER BY (SpanName, Timestamp);
+
+-- About 20 attributes per span, as the SDKs send, of which five are the interaction attributes
+INSERT INTO $DB.spans (Timestamp, SpanName, StatusCode, SpanAttributes)
+SELECT
+    toDateTime64('2024-01-01 00:00:00', 9, 'UTC') + toIntervalSecond(number % 604800),
+    concat('interaction_', toString(number % 50)),
+    if(number % 20 = 0, 'Error', 'Ok'),
+    mapFromArrays(
+        ['pulse.interaction.apdex_score', 'pulse.interaction.user_category', 'app.interaction.frozen_frame_count',
+         'app.interaction.analysed_frame_count', 'app.interaction.unanalysed_frame_count', 'pulse.interaction.name',
+         'pulse.type', 'session.id', 'user.id', 'screen.name', 'http.url', 'http.method', 'http.status_code',
+         'network.carrier.name', 'geo.country.iso_code', 'geo.region.iso_code', 'device.battery', 'thread.name',
+         'pulse.interaction.ids', 'pulse.interaction.complete_time'],
+        [toString(round(randCanonical(), 2)), ['Excellent', 'Good', 'Average', 'Poor'][number % 4 + 1],
+         toString(rand() % 5), toString(60 + rand() % 300), toString(rand() % 10),
+         concat('interaction_', toString(number % 50)), 'interaction', generateUUIDv4(), toString(rand() % 100000),
+         concat('Screen', toString(number % 30)), concat('https://api.example.com/v1/items/', toString(rand())),
+         'GET', '200', 'carrier', 'IN', 'KA', toString(rand() % 100), 'main', toString(number), toString(rand())])
+FROM numbers($ROWS);
+
+OPTIMIZE TABLE $DB.spans FINAL;
+SQL
+
+# name|before|after
+QUERIES=(
+"apdex|avgIf(toFloat64OrNull(SpanAttributes['pulse.interaction.apdex_score']), StatusCode != 'Error')|avgIf(ApdexScore, StatusCode != 'Error')"
+"poor_user_rate|(countIf(ifNull(SpanAttributes['pulse.interaction.user_category'], '') = 'Poor')/countIf(ifNull(SpanAttributes['pulse.interaction.user_category'], '') != '')) * 100|(countIf(UserCategory = 'Poor')/countIf(UserCategory != '')) * 100"
+"frozen_frame_rate|(sum(toFloat64OrZero(SpanAttributes['app.interaction.frozen_frame_count']))/(sum(toFloat64OrZero(SpanAttributes['app.interaction.analysed_frame_count'])) + sum(toFloat64OrZero(SpanAttributes['app.interaction.unanalysed_frame_count'])))) * 100|(sum(FrozenFrameCount)/(sum(AnalysedFrameCount) + sum(UnanalysedFrameCount))) * 100"
+)
+
+RUN_ID="mc-$(date +%s)"
+for entry in "${QUERIES[@]}"; do
+    IFS='|' read -r name before after <<< "$entry"
+    for variant in before after; do
+        expression="${!variant}"
+        echo "Running $name ($variant)..."
+        for _ in $(seq "$RUNS"); do
+            ch --format=Null --query="SELECT SpanName, $expression FROM $DB.spans GROUP BY SpanName
+                SETTINGS log_comment = '$RUN_ID:$name:$variant'"
+        done
+    done
+done
+
+ch --query="SYSTEM FLUSH LOGS"
+echo ""
+ch --format=PrettyCompact --query="
+    SELECT
+        splitByChar(':', log_comment)[2] AS metric,
+        splitByChar(':', log_comment)[3] AS variant,
+        quantileExact(0.5)(query_duration_ms) AS median_ms,
+        formatReadableSize(max(read_bytes)) AS read,
+        formatReadableSize(max(memory_usage)) AS memory
+    FROM system.query_log
+    WHERE type = 'QueryFinish' AND startsWith(log_comment, '$RUN_ID:')
+    GROUP BY metric, variant
+    ORDER BY metric, variant DESC"
+
+echo ""
+echo "Drop the data with: DROP DATABASE $DB"
@@ -34,14 +34,35 @@ CREATE TABLE IF NOT EXISTS otel.otel_traces
     `DeviceModel` LowCardinality(String) MATERIALIZED ifNull(ResourceAttributes['device.model.name'], ''),
     `NetworkProvider` LowCardinality(String) MATERIALIZED ifNull(SpanAttributes['network.carrier.name'], ''),
     `UserId` String MATERIALIZED ifNull(SpanAttributes['user.id'], ''), 
+    `InteractionName` LowCardinality(String) MATERIALIZED ifNull(SpanAttributes['pulse.interaction.name'], ''),
+    `ApdexScore` Nullable(Float64) MATERIALIZED toFloat64OrNull(SpanAttributes['pulse.interaction.apdex_score']),
+    `UserCategory` LowCardinality(String) MATERIALIZED ifNull(SpanAttributes['pulse.interaction.user_category'], ''),
+    `FrozenFrameCount` Float64 MATERIALIZED toFloat64OrZero(SpanAttributes['app.interaction.frozen_frame_count']),
+    `AnalysedFrameCount` Float64 MATERIALIZED toFloat64OrZero(SpanAttributes['app.interaction.analysed_frame_count']),
+    `UnanalysedFrameCount` Float64 MATERIALIZED toFloat64OrZero(SpanAttributes['app.interaction.unanalysed_frame_count']),
     INDEX idx_trace_id TraceId TYPE bloom_filter(0.001) GRANULARITY 1,
-    INDEX idx_user_id UserId TYPE bloom_filter(0.001) GRANULARITY 1
+    INDEX idx_user_id UserId TYPE bloom_filter(0.001) GRANULARITY 1,
+    INDEX idx_session_id SessionId TYPE bloom_filter(0.001) GRANULARITY 1
 )
 ENGINE = MergeTree
 PARTITION BY toYYYYMMDD(Timestamp)
 ORDER BY (ServiceName, PulseType, SpanName, Timestamp)
 SETTINGS index_granularity = 8192;
 
+-- Adds the interaction attribute columns to tables created before them. Parts written earlier compute the values from
+-- SpanAttributes when read; ALTER TABLE otel.otel_traces MATERIALIZE COLUMN <name> stores them for those parts too.
+ALTER TABLE otel.otel_traces
+    ADD COLUMN IF NOT EXISTS `InteractionName` LowCardinality(String) MATERIALIZED ifNull(SpanAttributes['pulse.interaction.name'], ''),
+    ADD COLUMN IF NOT EXISTS `ApdexScore` Nullable(Float64) MATERIALIZED toFloat64OrNull(SpanAttributes['pulse.interaction.apdex_score']),
+    ADD COLUMN IF NOT EXISTS `UserCategory` LowCardinality(String) MATERIALIZED ifNull(SpanAttributes['pulse.interaction.user_category'], ''),
+    ADD COLUMN IF NOT EXISTS `FrozenFrameCount` Float64 MATERIALIZED toFloat64OrZero(SpanAttributes['app.interaction.frozen_frame_count']),
+    ADD COLUMN IF NOT EXISTS `AnalysedFrameCount` Float64 MATERIALIZED toFloat64OrZero(SpanAttributes['app.interaction.analysed_frame_count']),
+    ADD COLUMN IF NOT EXISTS `UnanalysedFrameCount` Float64 MATERIALIZED toFloat64OrZero(SpanAttributes['app.interaction.unanalysed_frame_count']);
+
+-- Session lookups filter on SessionId, which is not in the sort key. For tables created before the index, only parts
+-- written afterwards are indexed; ALTER TABLE otel.otel_traces MATERIALIZE INDEX idx_session_id builds it for the rest.
+ALTER TABLE otel.otel_traces ADD INDEX IF NOT EXISTS idx_session_id SessionId TYPE bloom_filter(0.001) GRANULARITY 1;
+
 CREATE TABLE IF NOT EXISTS otel.otel_logs
 (
     `Timestamp` DateTime64(9) CODEC(Delta(8), ZSTD(1)),
@@ -71,13 +92,16 @@ CREATE TABLE IF NOT EXISTS otel.otel_logs
     `UserId` String MATERIALIZED ifNull(LogAttributes['user.id'], ''),
     `PulseType` LowCardinality(String) MATERIALIZED ifNull(LogAttributes['pulse.type'], 'otel'),
     `EventName` LowCardinality(String) CODEC(ZSTD(1)),
-    INDEX idx_trace_id TraceId TYPE bloom_filter(0.001) GRANULARITY 1
+    INDEX idx_trace_id TraceId TYPE bloom_filter(0.001) GRANULARITY 1,
+    INDEX idx_session_id SessionId TYPE bloom_filter(0.001) GRANULARITY 1
 )
 ENGINE = MergeTree
 PARTITION BY toYYYYMMDD(Timestamp)
 ORDER BY (ServiceName, PulseType, EventName, SeverityText, toUnixTimestamp(Timestamp), TraceId)
 SETTINGS index_granularity = 8192;
 
+ALTER TABLE otel.otel_logs ADD INDEX IF NOT EXISTS idx_session_id SessionId TYPE bloom_filter(0.001) GRANULARITY 1;
+
 CREATE TABLE IF NOT EXISTS otel.otel_metrics_gauge
 (
     `ResourceAttributes` Map(LowCardinality(String), String) CODEC(ZSTD(1)),
@@ -161,4 +185,87 @@ CREATE TABLE IF NOT EXISTS otel.stack_trace_events
 ENGINE = MergeTree
 PARTITION BY toYYYYMMDD(Timestamp)
 ORDER BY (GroupId, ExceptionType, toUnixTimestamp(Timestamp))
-SETTINGS index_granularity = 8192;
\ No newline at end of file
+SETTINGS index_granularity = 8192;
+-- Per-minute rollup of otel_traces for the interaction metrics in Functions. The server answers trace queries from it
+-- when every select, filter and grouping maps onto the columns below and the time range is on whole minutes.
+CREATE TABLE IF NOT EXISTS otel.otel_traces_1m
+(
+    `Bucket` DateTime('UTC') CODEC(Delta(4), ZSTD(1)),
+    `ServiceName` LowCardinality(String),
+    `PulseType` LowCardinality(String),
+    `SpanName` LowCardinality(String),
+    `AppVersion` LowCardinality(String),
+    `Platform` LowCardinality(String),
+    `OsVersion` LowCardinality(String),
+    `GeoState` LowCardinality(String),
+    `GeoCountry` LowCardinality(String),
+    `DeviceModel` LowCardinality(String),
+    `NetworkProvider` LowCardinality(String),
+    `Spans` SimpleAggregateFunction(sum, UInt64),
+    `ErrorSpans` SimpleAggregateFunction(sum, UInt64),
+    `CrashSpans` SimpleAggregateFunction(sum, UInt64),
+    `AnrSpans` SimpleAggregateFunction(sum, UInt64),
+    `ExcellentSpans` SimpleAggregateFunction(sum, UInt64),
+    `GoodSpans` SimpleAggregateFunction(sum, UInt64),
+    `AverageSpans` SimpleAggregateFunction(sum, UInt64),
+    `PoorSpans` SimpleAggregateFunction(sum, UInt64),
+    `CategorisedSpans` SimpleAggregateFunction(sum, UInt64),
+    `FrozenFrames` SimpleAggregateFunction(sum, Float64),
+    `AnalysedFrames` SimpleAggregateFunction(sum, Float64),
+    `UnanalysedFrames` SimpleAggregateFunction(sum, Float64),
+    `Net0Events` SimpleAggregateFunction(sum, UInt64),
+    `Net2xxEvents` SimpleAggregateFunction(sum, UInt64),
+    `Net3xxEvents` SimpleAggregateFunction(sum, UInt64),
+    `Net4xxEvents` SimpleAggregateFunction(sum, UInt64),
+    `Net5xxEvents` SimpleAggregateFunction(sum, UInt64),
+    `DurationMsSum` SimpleAggregateFunction(sum, Float64),
+    `Apdex` AggregateFunction(avgIf, Nullable(Float64), UInt8),
+    `DurationMs` AggregateFunction(quantileTDigestIf(0.5), Float64, UInt8),
+    `Users` AggregateFunction(uniqCombined, String),
+    `Sessions` AggregateFunction(uniqCombined, String)
+)
+ENGINE = AggregatingMergeTree
+PARTITION BY toYYYYMMDD(Bucket)
+ORDER BY (ServiceName, PulseType, SpanName, Bucket, AppVersion, Platform, OsVersion, GeoState, GeoCountry, DeviceModel,
+          NetworkProvider);
+
+-- Only spans inserted after the view exists are rolled up. To cover older data, run the SELECT below once as
+-- INSERT INTO otel.otel_traces_1m SELECT ... FROM otel.otel_traces WHERE Timestamp < <view creation time> GROUP BY ...
+CREATE MATERIALIZED VIEW IF NOT EXISTS otel.otel_traces_1m_mv TO otel.otel_traces_1m AS
+SELECT
+    toStartOfMinute(toDateTime(Timestamp, 'UTC')) AS Bucket,
+    ServiceName,
+    PulseType,
+    SpanName,
+    AppVersion,
+    Platform,
+    OsVersion,
+    GeoState,
+    GeoCountry,
+    DeviceModel,
+    NetworkProvider,
+    count() AS Spans,
+    countIf(StatusCode = 'Error') AS ErrorSpans,
+    countIf(has(Events.Name, 'device.crash')) AS CrashSpans,
+    countIf(has(Events.Name, 'device.anr')) AS AnrSpans,
+    countIf(UserCategory = 'Excellent') AS ExcellentSpans,
+    countIf(UserCategory = 'Good') AS GoodSpans,
+    countIf(UserCategory = 'Average') AS AverageSpans,
+    countIf(UserCategory = 'Poor') AS PoorSpans,
+    countIf(UserCategory != '') AS CategorisedSpans,
+    sum(FrozenFrameCount) AS FrozenFrames,
+    sum(AnalysedFrameCount) AS AnalysedFrames,
+    sum(UnanalysedFrameCount) AS UnanalysedFrames,
+    sum(arrayCount(x -> x = 'network.0', Events.Name)) AS Net0Events,
+    sum(arrayCount(x -> x LIKE 'network.2%', Events.Name)) AS Net2xxEvents,
+    sum(arrayCount(x -> x LIKE 'network.3%', Events.Name)) AS Net3xxEvents,
+    sum(arrayCount(x -> x LIKE 'network.4%', Events.Name)) AS Net4xxEvents,
+    sum(arrayCount(x -> x LIKE 'network.5%', Events.Name)) AS Net5xxEvents,
+    sum(Duration / 1e6) AS DurationMsSum,
+    avgIfState(ApdexScore, StatusCode != 'Error') AS Apdex,
+    quantileTDigestIfState(0.5)(Duration / 1e6, StatusCode != 'Error') AS DurationMs,
+    uniqCombinedState(UserId) AS Users,
+    uniqCombinedState(SessionId) AS Sessions
+FROM otel.otel_traces
+GROUP BY Bucket, ServiceName, PulseType, SpanName, AppVersion, Platform, OsVersion, GeoState, GeoCountry, DeviceModel,
+         NetworkProvider;
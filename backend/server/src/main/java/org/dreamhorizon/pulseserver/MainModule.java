@@ -1,5 +1,6 @@
 package org.dreamhorizon.pulseserver;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MapperFeature;
@@ -13,13 +14,18 @@ import org.dreamhorizon.pulseserver.client.S3BucketClient;
 import org.dreamhorizon.pulseserver.client.mysql.MysqlClient;
 import org.dreamhorizon.pulseserver.client.mysql.MysqlClientImpl;
 import org.dreamhorizon.pulseserver.errorgrouping.Symbolicator;
+import org.dreamhorizon.pulseserver.errorgrouping.service.ArtifactAvailabilityIndex;
 import org.dreamhorizon.pulseserver.errorgrouping.service.ErrorGroupingService;
-import org.dreamhorizon.pulseserver.errorgrouping.service.MysqlSymbolFileService;
+import org.dreamhorizon.pulseserver.errorgrouping.service.GroupingWorkerPool;
+import org.dreamhorizon.pulseserver.errorgrouping.service.LocalSymbolFileService;
 import org.dreamhorizon.pulseserver.errorgrouping.service.SourceMapCache;
+import org.dreamhorizon.pulseserver.errorgrouping.service.SymbolicationResultCache;
 import org.dreamhorizon.pulseserver.errorgrouping.service.SymbolFileService;
 import org.dreamhorizon.pulseserver.module.VertxAbstractModule;
+import org.dreamhorizon.pulseserver.service.alert.core.AlertStateStore;
 import org.dreamhorizon.pulseserver.service.configs.ICloudFrontClient;
 import org.dreamhorizon.pulseserver.service.configs.IS3BucketClient;
+import org.dreamhorizon.pulseserver.service.interaction.TelemetryFilterValuesCache;
 import org.dreamhorizon.pulseserver.vertx.SharedDataUtils;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
@@ -43,10 +49,16 @@ public class MainModule extends VertxAbstractModule {
     bind(io.vertx.rxjava3.core.Vertx.class)
         .toInstance(io.vertx.rxjava3.core.Vertx.newInstance(vertx));
     bind(ObjectMapper.class).toInstance(getObjectMapper());
+    bind(MetricRegistry.class).toInstance(new MetricRegistry());
     bind(WebClient.class).toProvider(() -> SharedDataUtils.get(vertx, WebClient.class));
     bind(MysqlClient.class).toProvider(() -> SharedDataUtils.get(vertx, MysqlClientImpl.class));
-    bind(SymbolFileService.class).to(MysqlSymbolFileService.class).in(Singleton.class);
+    bind(SymbolFileService.class).to(LocalSymbolFileService.class).in(Singleton.class);
     bind(SourceMapCache.class).in(Singleton.class);
+    bind(ArtifactAvailabilityIndex.class).in(Singleton.class);
+    bind(SymbolicationResultCache.class).in(Singleton.class);
+    bind(TelemetryFilterValuesCache.class).in(Singleton.class);
+    bind(AlertStateStore.class).in(Singleton.class);
+    bind(GroupingWorkerPool.class).in(Singleton.class);
     bind(ErrorGroupingService.class).in(Singleton.class);
     bind(Symbolicator.class).in(Singleton.class);
     bind(S3AsyncClient.class).toProvider(this::loadS3Client).in(Singleton.class);
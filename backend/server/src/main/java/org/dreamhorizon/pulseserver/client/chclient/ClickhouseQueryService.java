@@ -1,23 +1,38 @@
 package org.dreamhorizon.pulseserver.client.chclient;
 
-import com.clickhouse.client.api.insert.InsertResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.google.inject.Inject;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.function.Supplier;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.dreamhorizon.pulseserver.config.ClickhouseConfig;
 import org.dreamhorizon.pulseserver.dto.response.GetRawUserEventsResponseDto;
 import org.dreamhorizon.pulseserver.dto.response.universalquerying.GetQueryDataResponseDto;
+import org.dreamhorizon.pulseserver.error.ServiceError;
 import org.dreamhorizon.pulseserver.errorgrouping.model.StackTraceEvent;
+import org.dreamhorizon.pulseserver.model.JobCreationMode;
+import org.dreamhorizon.pulseserver.model.JobReference;
 import org.dreamhorizon.pulseserver.model.QueryConfiguration;
+import org.dreamhorizon.pulseserver.model.QueryJobPage;
+import org.dreamhorizon.pulseserver.model.QueryLane;
 import org.dreamhorizon.pulseserver.model.QueryResultResponse;
 import org.dreamhorizon.pulseserver.service.IAnalyticalStoreClient;
 
@@ -25,89 +40,289 @@ import org.dreamhorizon.pulseserver.service.IAnalyticalStoreClient;
 @Data
 @RequiredArgsConstructor(onConstructor = @__({@Inject}))
 public class ClickhouseQueryService implements IAnalyticalStoreClient<GetRawUserEventsResponseDto> {
+  private static final int DEFAULT_MAX_RESULT_ROWS = 100_000;
+  private static final long DEFAULT_MAX_RESULT_BYTES = 64L * 1024 * 1024;
+  private static final int DEFAULT_JOB_MAX_RESULT_ROWS = 10_000_000;
+  private static final long DEFAULT_JOB_MAX_RESULT_BYTES = 4L * 1024 * 1024 * 1024;
+  private static final String JOB_TAG_FORMAT = "/* pulse-query-job %s */\n";
+  private static final String KILL_JOB_QUERY =
+      "KILL QUERY WHERE query LIKE concat('%pulse-query-job ', :job_id, '%') ASYNC";
+
   private final ClickhouseReadClient clickhouseReadClient;
-  private final ClickhouseWriteClient clickhouseWriteClient;
+  private final StackTraceEventBatchWriter stackTraceEventBatchWriter;
+  private final ClickhouseConfig clickhouseConfig;
+  private final QueryJobStore queryJobStore;
   private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
 
+  /**
+   * Emits the rows of the query as they arrive from ClickHouse, mapped by {@code mapper}; nothing is collected here.
+   * The query runs on a connection of its {@link QueryLane}, with its parameters bound by name. Its ClickHouse settings
+   * are added as a {@code SETTINGS} clause, over the lane's settings profile, over
+   * {@code clickhouse.queryMaxExecutionTimeSeconds} and {@code clickhouse.queryMaxMemoryUsage}.
+   * Fails with {@link QueryResultBudget.ResultTooLargeException} once the result goes over
+   * {@code clickhouse.queryMaxResultRows} rows or (estimated) {@code clickhouse.queryMaxResultBytes}. The connection is
+   * returned to the pool when the stream completes, fails or is cancelled.
+   */
+  public <T> Flowable<T> streamQuery(QueryConfiguration queryConfig, RowMapper<T> mapper) {
+    return streamQuery(queryConfig, this::newBudget, mapper);
+  }
+
+  private <T> Flowable<T> streamQuery(QueryConfiguration queryConfig, Supplier<QueryResultBudget> budget,
+                                      RowMapper<T> mapper) {
+    Map<String, Object> settings = new LinkedHashMap<>();
+    Optional.ofNullable(clickhouseConfig.getQueryMaxExecutionTimeSeconds())
+        .ifPresent(seconds -> settings.put("max_execution_time", seconds));
+    Optional.ofNullable(clickhouseConfig.getQueryMaxMemoryUsage())
+        .ifPresent(bytes -> settings.put("max_memory_usage", bytes));
+    settings.putAll(clickhouseReadClient.settings(queryConfig.getLane()));
+    settings.putAll(queryConfig.getSettings());
+    return stream(queryConfig.getLane(), withSettings(queryConfig.getQuery(), settings), queryConfig.getParameters(),
+        budget, mapper);
+  }
+
+  private <T> Flowable<T> stream(QueryLane lane, String sql, Map<String, Object> parameters,
+                                 Supplier<QueryResultBudget> newBudget, RowMapper<T> mapper) {
+    return clickhouseReadClient.withConnection(lane, conn -> {
+      QueryResultBudget budget = newBudget.get();
+      Statement statement = conn.createStatement(sql);
+      parameters.forEach((name, value) -> {
+        if (value == null) {
+          statement.bindNull(name, String.class);
+        } else {
+          statement.bind(name, value);
+        }
+      });
+      return Flowable.fromPublisher(statement.execute())
+          .concatMap(result -> {
+            ColumnNames columns = new ColumnNames();
+            return Flowable.fromPublisher(result.map((row, md) -> {
+              List<String> names = columns.of(md);
+              Object[] values = new Object[names.size()];
+              for (int i = 0; i < values.length; i++) {
+                values[i] = row.get(i);
+              }
+              budget.charge(values);
+              return mapper.map(names, values);
+            }));
+          });
+    });
+  }
+
+  /**
+   * Runs the query as a {@link QueryJob}, waiting up to its {@code timeoutMs}. Emits the finished job, or the job the
+   * query continues as in the background if it is still running then; that one is read with {@link #getJobPage} and
+   * stopped with {@link #cancelJob}. Fails if the query fails within the timeout.
+   *
+   * <p>Rows are held in memory only within {@code clickhouse.queryMaxResultRows} and {@code queryMaxResultBytes}; a job
+   * that reads more is moved to its spool file before the timeout. Spooled, a job may read up to
+   * {@code clickhouse.queryJobMaxResultRows} rows and (estimated) {@code clickhouse.queryJobMaxResultBytes}.
+   */
+  public Single<QueryJob> executeAsJob(QueryConfiguration queryConfig) {
+    QueryJob job = queryJobStore.create(newBudget());
+    QueryConfiguration tagged = queryConfig.withQuery(
+        String.format(JOB_TAG_FORMAT, job.getId()) + queryConfig.getQuery());
+    Completable rows = streamQuery(tagged, this::newJobBudget, (columns, values) -> {
+      job.add(columns, values);
+      return values;
+    }).ignoreElements();
+    job.start(rows, killQuery(job.getId()));
+    return queryJobStore.awaitOrDetach(job, queryConfig.getTimeoutMs());
+  }
+
+  /**
+   * Rows of a job returned by {@link #executeAsJob} that was still running at its timeout.
+   */
+  public Single<QueryJobPage> getJobPage(String jobId, long offset, int limit) {
+    return Single.fromCallable(() -> queryJobStore.get(jobId)
+            .orElseThrow(() -> ServiceError.NOT_FOUND.getCustomException("Query job not found"))
+            .page(offset, limit))
+        .subscribeOn(Schedulers.io());
+  }
+
+  /**
+   * Kills the query of a job if it is still running and deletes the job's rows.
+   */
+  public Completable cancelJob(String jobId) {
+    return Completable.fromAction(() -> {
+      if (!queryJobStore.remove(jobId)) {
+        throw ServiceError.NOT_FOUND.getCustomException("Query job not found");
+      }
+    });
+  }
+
+  // Matches the tag the job's query starts with. The pattern is assembled by ClickHouse so that the KILL statement's
+  // own text, which is also in system.processes, does not contain it
+  private Completable killQuery(String jobId) {
+    return Completable.defer(() -> stream(QueryLane.INTERACTIVE, KILL_JOB_QUERY, Map.of("job_id", jobId),
+        this::newBudget, (columns, values) -> values).ignoreElements());
+  }
+
+  // The settings are numbers set through QueryConfiguration or ClickhouseConfig, never request input
+  static String withSettings(String sql, Map<String, Object> settings) {
+    if (settings.isEmpty()) {
+      return sql;
+    }
+    String statement = sql.strip();
+    if (statement.endsWith(";")) {
+      statement = statement.substring(0, statement.length() - 1);
+    }
+    StringJoiner clause = new StringJoiner(", ", statement + "\nSETTINGS ", "");
+    settings.forEach((name, value) -> clause.add(name + " = " + value));
+    return clause.toString();
+  }
 
+  /**
+   * Runs the query, as a job if {@code jobCreationMode} is {@code JOB_CREATION_OPTIONAL}: a query still running after
+   * {@code timeoutMs} is answered with {@code jobComplete} false and a {@code jobReference} to poll instead of rows.
+   */
   @Override
   public Single<GetQueryDataResponseDto<GetRawUserEventsResponseDto>> executeQueryOrCreateJob(QueryConfiguration queryConfig) {
-    final List<GetRawUserEventsResponseDto.Field> schemaFields = new ArrayList<>();
-
-    return Single.fromPublisher(clickhouseReadClient.getPool().create())
-        .flatMap(conn -> {
-          return Flowable.fromPublisher(conn.createStatement(queryConfig.getQuery()).execute())
-              .flatMap(result -> {
-                return result.map((row, md) -> {
-                  if (schemaFields.isEmpty()) {
-                    for (int i = 0; i < md.getColumnMetadatas().size(); i++) {
-                      schemaFields.add(new GetRawUserEventsResponseDto.Field(
-                          md.getColumnMetadatas().get(i).getName()
-                      ));
-                    }
-                  }
-                  List<GetRawUserEventsResponseDto.RowField> rowFields = new ArrayList<>();
-                  for (int i = 0; i < md.getColumnMetadatas().size(); i++) {
-                    rowFields.add(new GetRawUserEventsResponseDto.RowField(row.get(i)));
-                  }
-                  return new GetRawUserEventsResponseDto.Row(rowFields);
-                });
-              })
-              .toList()
-              .map(rows -> {
-                GetRawUserEventsResponseDto.Schema schema = new GetRawUserEventsResponseDto.Schema(schemaFields);
-                GetRawUserEventsResponseDto responseData = GetRawUserEventsResponseDto.builder()
-                    .schema(schema)
-                    .rows(rows)
-                    .totalRows((long) rows.size())
-                    .build();
-                return GetQueryDataResponseDto.<GetRawUserEventsResponseDto>builder()
-                    .data(responseData)
-                    .jobComplete(true)
-                    .build();
-              })
-              .doFinally(() -> Completable.fromPublisher(conn.close()).subscribe());
-        })
-        .onErrorResumeNext(err -> {
-          return Single.error(new Exception("Failed to execute query", err));
-        });
+    Single<GetQueryDataResponseDto<GetRawUserEventsResponseDto>> response;
+    if (queryConfig.getJobCreationMode() == JobCreationMode.JOB_CREATION_OPTIONAL) {
+      response = executeAsJob(queryConfig).map(job -> !job.isSpooled()
+          ? toRawResponse(job.getColumns(), job.getRows())
+          : GetQueryDataResponseDto.<GetRawUserEventsResponseDto>builder()
+              .jobComplete(false)
+              .jobReference(new GetQueryDataResponseDto.JobReference(job.getId()))
+              .build());
+    } else {
+      response = streamQuery(queryConfig, CollectedRow::new)
+          .toList()
+          .map(rows -> toRawResponse(rows.isEmpty() ? List.of() : rows.get(0).columns(),
+              rows.stream().map(CollectedRow::values).toList()));
+    }
+    return response.onErrorResumeNext(err -> {
+      return Single.error(new Exception("Failed to execute query", err));
+    });
   }
 
+  private GetQueryDataResponseDto<GetRawUserEventsResponseDto> toRawResponse(List<String> columns,
+                                                                             List<Object[]> rows) {
+    List<GetRawUserEventsResponseDto.Field> schemaFields = new ArrayList<>();
+    if (!rows.isEmpty()) {
+      for (String column : columns) {
+        schemaFields.add(new GetRawUserEventsResponseDto.Field(column));
+      }
+    }
+    List<GetRawUserEventsResponseDto.Row> rawRows = new ArrayList<>(rows.size());
+    for (Object[] values : rows) {
+      List<GetRawUserEventsResponseDto.RowField> rowFields = new ArrayList<>(values.length);
+      for (Object value : values) {
+        rowFields.add(new GetRawUserEventsResponseDto.RowField(value));
+      }
+      rawRows.add(new GetRawUserEventsResponseDto.Row(rowFields));
+    }
+    GetRawUserEventsResponseDto responseData = GetRawUserEventsResponseDto.builder()
+        .schema(new GetRawUserEventsResponseDto.Schema(schemaFields))
+        .rows(rawRows)
+        .totalRows((long) rawRows.size())
+        .build();
+    return GetQueryDataResponseDto.<GetRawUserEventsResponseDto>builder()
+        .data(responseData)
+        .jobComplete(true)
+        .build();
+  }
+
+  /**
+   * Like {@link #executeQueryOrCreateJob(QueryConfiguration)}, with each row bound to {@code clazz}.
+   */
   @Override
   public <T> Single<QueryResultResponse<T>> executeQueryOrCreateJob(QueryConfiguration queryConfig, Class<T> clazz) {
+    ObjectReader reader = objectMapper.readerFor(clazz);
+
+    Single<QueryResultResponse<T>> response;
+    if (queryConfig.getJobCreationMode() == JobCreationMode.JOB_CREATION_OPTIONAL) {
+      response = executeAsJob(queryConfig).map(job -> {
+        if (job.isSpooled()) {
+          return QueryResultResponse.<T>builder()
+              .jobComplete(false)
+              .jobReference(JobReference.builder().jobId(job.getId()).build())
+              .rows(List.of())
+              .build();
+        }
+        List<T> mappedRows = new ArrayList<>(job.getRows().size());
+        for (Object[] values : job.getRows()) {
+          mappedRows.add(this.<T>readRow(reader, job.getColumns(), values));
+        }
+        return QueryResultResponse.<T>builder()
+            .jobComplete(true)
+            .rows(mappedRows)
+            .build();
+      });
+    } else {
+      response = streamQuery(queryConfig, (columns, values) -> this.<T>readRow(reader, columns, values))
+          .toList()
+          .map(mappedRows -> QueryResultResponse.<T>builder()
+              .jobComplete(true)
+              .rows(mappedRows)
+              .build());
+    }
+    return response.onErrorResumeNext(err -> {
+      return Single.error(new Exception("Failed to execute query", err));
+    });
+  }
 
-    return Single.fromPublisher(clickhouseReadClient.getPool().create())
-        .flatMap(conn ->
-            Flowable.fromPublisher(conn.createStatement(queryConfig.getQuery()).execute())
-                .flatMap(result -> result.map((row, md) -> {
-                  Map<String, Object> m = new LinkedHashMap<>();
-                  for (int i = 0; i < md.getColumnMetadatas().size(); i++) {
-                    m.put(md.getColumnMetadatas().get(i).getName(), row.get(i).toString());
-                  }
-                  return m;
-                }))
-                .toList()
-                .flatMap(maps -> {
-                  List<T> mappedRows = new ArrayList<>(maps.size());
-                  for (Map<String, Object> map : maps) {
-                    mappedRows.add(objectMapper.convertValue(map, clazz));
-                  }
-                  return Single.just(
-                      QueryResultResponse.<T>builder()
-                          .jobComplete(true)
-                          .rows(mappedRows)
-                          .build()
-                  );
-                })
-                .doFinally(() -> Completable.fromPublisher(conn.close()).subscribe())
-        )
-        .onErrorResumeNext(err -> {
-          return Single.error(new Exception("Failed to execute query", err));
-        });
+  // Binds the row to the target type through a token stream of (column, text) pairs: the same result as converting a
+  // Map of the stringified cells, without building the map
+  private <T> T readRow(ObjectReader reader, List<String> columns, Object[] values) {
+    try {
+      TokenBuffer buffer = new TokenBuffer(objectMapper, false);
+      buffer.writeStartObject();
+      for (int i = 0; i < values.length; i++) {
+        buffer.writeFieldName(columns.get(i));
+        if (values[i] == null) {
+          buffer.writeNull();
+        } else {
+          buffer.writeString(values[i].toString());
+        }
+      }
+      buffer.writeEndObject();
+      return reader.readValue(buffer.asParser());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
   }
 
   public Single<Long> insertStackTraces(List<StackTraceEvent> events) {
-    return clickhouseWriteClient.insert(events)
-        .map(InsertResponse::getWrittenRows);
+    return stackTraceEventBatchWriter.write(events);
+  }
+
+  private QueryResultBudget newBudget() {
+    return new QueryResultBudget(
+        Optional.ofNullable(clickhouseConfig.getQueryMaxResultRows()).orElse(DEFAULT_MAX_RESULT_ROWS),
+        Optional.ofNullable(clickhouseConfig.getQueryMaxResultBytes()).orElse(DEFAULT_MAX_RESULT_BYTES));
+  }
+
+  private QueryResultBudget newJobBudget() {
+    return new QueryResultBudget(
+        Optional.ofNullable(clickhouseConfig.getQueryJobMaxResultRows()).orElse(DEFAULT_JOB_MAX_RESULT_ROWS),
+        Optional.ofNullable(clickhouseConfig.getQueryJobMaxResultBytes()).orElse(DEFAULT_JOB_MAX_RESULT_BYTES));
+  }
+
+  /**
+   * Maps one result row. {@code columns} is shared by all rows of a result; {@code values} are the decoded cells.
+   */
+  @FunctionalInterface
+  public interface RowMapper<T> {
+    T map(List<String> columns, Object[] values);
+  }
+
+  private record CollectedRow(List<String> columns, Object[] values) {
+  }
+
+  // Column names are read from the metadata of the first row only
+  private static final class ColumnNames {
+    private List<String> names;
+
+    List<String> of(RowMetadata md) {
+      if (names == null) {
+        List<String> list = new ArrayList<>(md.getColumnMetadatas().size());
+        for (int i = 0; i < md.getColumnMetadatas().size(); i++) {
+          list.add(md.getColumnMetadatas().get(i).getName());
+        }
+        names = List.copyOf(list);
+      }
+      return names;
+    }
   }
 }
@@ -3,23 +3,46 @@ package org.dreamhorizon.pulseserver.client.chclient;
 import static io.r2dbc.spi.ConnectionFactoryOptions.PASSWORD;
 import static io.r2dbc.spi.ConnectionFactoryOptions.USER;
 
+import com.codahale.metrics.MetricRegistry;
 import io.r2dbc.pool.ConnectionPool;
 import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
 import io.r2dbc.spi.ConnectionFactories;
 import io.r2dbc.spi.ConnectionFactory;
 import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.reactivex.rxjava3.core.Flowable;
 import java.time.Duration;
-import lombok.Getter;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
 import org.dreamhorizon.pulseserver.config.ClickhouseConfig;
+import org.dreamhorizon.pulseserver.config.QueryLaneConfig;
+import org.dreamhorizon.pulseserver.model.QueryLane;
 
-
+/**
+ * ClickHouse read connections, pooled per {@link QueryLane} so that alert evaluation cannot take the connections
+ * dashboards need. Each lane is configured under {@code clickhouse.lanes.<lane>}; the interactive lane defaults to
+ * {@code initsize}/{@code maxsize} connections. Connections are validated with
+ * {@code clickhouse.readPoolValidationQuery} when handed out, replaced after {@code clickhouse.readPoolMaxLifeMinutes},
+ * and a lane's initial connections are opened at startup.
+ */
 @Slf4j
-@Getter
 public class ClickhouseReadClient {
-  private final ConnectionPool pool;
+  private static final long DEFAULT_MAX_ACQUIRE_MS = 10_000;
+  private static final int DEFAULT_MAX_LIFE_MINUTES = 30;
+  private static final String DEFAULT_VALIDATION_QUERY = "SELECT 1";
+  private static final String METRIC_PREFIX = "clickhouse.read_pool.";
+
+  private static final QueryLaneConfig BATCH_DEFAULTS = new QueryLaneConfig(4, 1, 1000, 60_000L, null, 4, 5);
 
-  public ClickhouseReadClient(ClickhouseConfig clickhouseConfig) {
+  private final Map<QueryLane, QueryLanePool> lanes = new EnumMap<>(QueryLane.class);
+
+  public ClickhouseReadClient(ClickhouseConfig clickhouseConfig, MetricRegistry metricRegistry) {
     String r2dbcUrl = clickhouseConfig.getR2dbcUrl();
     String username = clickhouseConfig.getUsername();
     String password = clickhouseConfig.getPassword();
@@ -29,11 +52,69 @@ public class ClickhouseReadClient {
         .option(PASSWORD, password != null ? password : "")
         .build();
     ConnectionFactory connectionFactory = ConnectionFactories.get(options);
-    ConnectionPoolConfiguration poolConfiguration = ConnectionPoolConfiguration.builder(connectionFactory)
-        .initialSize(clickhouseConfig.getInitsize())
-        .maxSize(clickhouseConfig.getMaxsize())
-        .maxIdleTime(Duration.ofMinutes(5))
-        .build();
-    this.pool = new ConnectionPool(poolConfiguration);
+
+    long maxAcquireMs = Optional.ofNullable(clickhouseConfig.getReadPoolMaxAcquireMs()).orElse(DEFAULT_MAX_ACQUIRE_MS);
+    QueryLaneConfig interactiveDefaults = new QueryLaneConfig(clickhouseConfig.getMaxsize(),
+        clickhouseConfig.getInitsize(), 100, maxAcquireMs, null, null, 1);
+    Map<String, QueryLaneConfig> configured = Optional.ofNullable(clickhouseConfig.getLanes()).orElse(Map.of());
+    for (QueryLane lane : QueryLane.values()) {
+      String name = lane.name().toLowerCase(Locale.ROOT);
+      QueryLaneConfig laneConfig = withDefaults(configured.get(name),
+          lane == QueryLane.INTERACTIVE ? interactiveDefaults : BATCH_DEFAULTS);
+      ConnectionPoolConfiguration poolConfiguration = ConnectionPoolConfiguration.builder(connectionFactory)
+          .name("clickhouse-" + name)
+          .initialSize(laneConfig.getInitialConnections())
+          .maxSize(laneConfig.getMaxConnections())
+          .maxIdleTime(Duration.ofMinutes(5))
+          .maxLifeTime(Duration.ofMinutes(
+              Optional.ofNullable(clickhouseConfig.getReadPoolMaxLifeMinutes()).orElse(DEFAULT_MAX_LIFE_MINUTES)))
+          .maxAcquireTime(Duration.ofMillis(laneConfig.getMaxWaitMs()))
+          .validationQuery(
+              Optional.ofNullable(clickhouseConfig.getReadPoolValidationQuery()).orElse(DEFAULT_VALIDATION_QUERY))
+          .build();
+      QueryLanePool lanePool = new QueryLanePool(lane, new ConnectionPool(poolConfiguration),
+          laneConfig.getMaxConnections(), laneConfig.getMaxQueued(), settingsProfile(laneConfig), metricRegistry,
+          METRIC_PREFIX + name + ".");
+      lanePool.warmup();
+      lanes.put(lane, lanePool);
+    }
+  }
+
+  /**
+   * Runs {@code work} with a connection of the lane, which is closed when the returned stream terminates or is
+   * cancelled. Fails with {@link QueryLanePool.QueueFullException} if the lane's queue is full.
+   */
+  public <T> Flowable<T> withConnection(QueryLane lane, Function<Connection, Flowable<T>> work) {
+    return lanes.get(lane).withConnection(work);
+  }
+
+  /**
+   * The ClickHouse settings every query of the lane runs with, unless the query sets them itself.
+   */
+  public Map<String, Object> settings(QueryLane lane) {
+    return lanes.get(lane).getSettings();
+  }
+
+  private static QueryLaneConfig withDefaults(QueryLaneConfig config, QueryLaneConfig defaults) {
+    if (config == null) {
+      return defaults;
+    }
+    return new QueryLaneConfig(
+        Optional.ofNullable(config.getMaxConnections()).orElse(defaults.getMaxConnections()),
+        Optional.ofNullable(config.getInitialConnections()).orElse(defaults.getInitialConnections()),
+        Optional.ofNullable(config.getMaxQueued()).orElse(defaults.getMaxQueued()),
+        Optional.ofNullable(config.getMaxWaitMs()).orElse(defaults.getMaxWaitMs()),
+        Optional.ofNullable(config.getMaxExecutionTimeSeconds()).orElse(defaults.getMaxExecutionTimeSeconds()),
+        Optional.ofNullable(config.getMaxThreads()).orElse(defaults.getMaxThreads()),
+        Optional.ofNullable(config.getPriority()).orElse(defaults.getPriority()));
+  }
+
+  private static Map<String, Object> settingsProfile(QueryLaneConfig config) {
+    Map<String, Object> settings = new LinkedHashMap<>();
+    Optional.ofNullable(config.getMaxExecutionTimeSeconds())
+        .ifPresent(seconds -> settings.put("max_execution_time", seconds));
+    Optional.ofNullable(config.getMaxThreads()).ifPresent(threads -> settings.put("max_threads", threads));
+    Optional.ofNullable(config.getPriority()).ifPresent(priority -> settings.put("priority", priority));
+    return Collections.unmodifiableMap(settings);
   }
-}
\ No newline at end of file
+}
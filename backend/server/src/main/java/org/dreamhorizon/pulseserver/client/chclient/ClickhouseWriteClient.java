@@ -7,15 +7,8 @@ import com.clickhouse.client.api.ConnectionReuseStrategy;
 import com.clickhouse.client.api.enums.Protocol;
 import com.clickhouse.client.api.insert.InsertResponse;
 import com.clickhouse.client.api.insert.InsertSettings;
-import com.clickhouse.data.ClickHouseFormat;
-import com.fasterxml.jackson.annotation.JsonSetter;
-import com.fasterxml.jackson.annotation.Nulls;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SequenceWriter;
 import io.reactivex.rxjava3.core.Single;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import lombok.SneakyThrows;
@@ -24,11 +17,10 @@ import org.dreamhorizon.pulseserver.errorgrouping.model.StackTraceEvent;
 
 public class ClickhouseWriteClient {
   private final Client client;
-  private final ObjectMapper mapper = new ObjectMapper();
+  private final StackTraceEventEncoder encoder;
 
   public ClickhouseWriteClient(ClickhouseConfig config) {
-    mapper.configOverride(String.class)
-        .setSetterInfo(JsonSetter.Value.forValueNulls(Nulls.AS_EMPTY));
+    encoder = StackTraceEventEncoder.forFormat(config.getInsertFormat());
     client = new Client.Builder()
         .addEndpoint(Protocol.HTTP, config.getHost(), config.getPort(), false)
         .setUsername(config.getUsername())
@@ -48,18 +40,8 @@ public class ClickhouseWriteClient {
   public Single<InsertResponse> insert(List<StackTraceEvent> events) {
     CompletableFuture<InsertResponse> future = client.insert(
         "otel.stack_trace_events",
-        (OutputStream out) -> {
-          try (OutputStreamWriter w = new OutputStreamWriter(out, StandardCharsets.UTF_8);
-               SequenceWriter seq = mapper.writer()
-                   .withRootValueSeparator("\n") // NDJSON
-                   .writeValues(w)) {
-            for (StackTraceEvent e : events) {
-              seq.write(e); // serialize object -> one JSON line
-            }
-            // seq/w auto-flush/close here
-          }
-        },
-        ClickHouseFormat.JSONEachRow,
+        (OutputStream out) -> encoder.encode(events, out),
+        encoder.format(),
         new InsertSettings()
     );
 
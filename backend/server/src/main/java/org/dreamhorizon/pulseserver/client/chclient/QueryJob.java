@@ -0,0 +1,309 @@
+package org.dreamhorizon.pulseserver.client.chclient;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.subjects.CompletableSubject;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.dreamhorizon.pulseserver.model.QueryJobPage;
+
+/**
+ * One ClickHouse query run by {@link ClickhouseQueryService#executeAsJob}.
+ *
+ * <p>Rows are kept in memory while the caller waits, up to the job's inline budget. If the query outlives the caller's
+ * timeout, or its rows go over that budget first, the job is {@link #detach detached}: the rows so far, and every later
+ * row, are appended to a spool file as JSON lines (one array of cell strings per row, null cells as {@code ""}), which
+ * {@link #page} reads back. A sparse index of line offsets keeps paging from rereading the file from the start.
+ */
+@Slf4j
+public class QueryJob {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final TypeReference<List<String>> ROW_TYPE = new TypeReference<>() {
+  };
+  private static final int INDEX_STRIDE = 1024;
+  private static final byte NEWLINE = '\n';
+
+  @Getter
+  private final String id;
+  private final CompletableSubject finished = CompletableSubject.create();
+  private final CompletableSubject overflowed = CompletableSubject.create();
+  private final QueryResultBudget inlineBudget;
+  private List<String> columns = List.of();
+  private List<Object[]> rows = new ArrayList<>();
+  private long rowCount;
+  private Status status = Status.RUNNING;
+  private Throwable failure;
+  private Disposable subscription = Disposable.disposed();
+  private Completable kill = Completable.complete();
+  private Path spoolFile;
+  private OutputStream spool;
+  private long spoolBytes;
+  // Byte offset of every INDEX_STRIDE-th row in the spool file
+  private long[] rowOffsets = new long[16];
+
+  QueryJob(String id, QueryResultBudget inlineBudget) {
+    this.id = id;
+    this.inlineBudget = inlineBudget;
+  }
+
+  public enum Status {
+    RUNNING, DONE, FAILED, CANCELLED
+  }
+
+  /**
+   * Starts consuming {@code rows}, whose elements must have been passed to {@link #add} already. {@code kill} stops
+   * the query on the server if the job is cancelled.
+   */
+  synchronized void start(Completable rows, Completable kill) {
+    this.kill = kill;
+    this.subscription = rows.subscribe(this::complete, this::fail);
+  }
+
+  synchronized void add(List<String> columns, Object[] values) {
+    if (status != Status.RUNNING) {
+      return;
+    }
+    this.columns = columns;
+    if (spool == null) {
+      rows.add(values);
+      keepInline(values);
+    } else {
+      append(values);
+    }
+    rowCount++;
+  }
+
+  /**
+   * Completes when the query has finished, successfully or not.
+   */
+  Completable finished() {
+    return finished.onErrorComplete();
+  }
+
+  /**
+   * Completes once the rows kept in memory go over the inline budget; the job should then be detached.
+   */
+  Completable overflowed() {
+    return overflowed;
+  }
+
+  /**
+   * Moves a still running job to the spool file at {@code file}. Returns false, leaving the job as it is, if it has
+   * already finished.
+   */
+  synchronized boolean detach(Path file) {
+    if (status != Status.RUNNING) {
+      return false;
+    }
+    try {
+      spoolFile = file;
+      spool = new BufferedOutputStream(Files.newOutputStream(file));
+      rowCount = 0;
+      for (Object[] values : rows) {
+        append(values);
+        rowCount++;
+      }
+      rows = null;
+      return true;
+    } catch (IOException e) {
+      log.error("Failed to spool query job {}: {}", id, e.getMessage());
+      failed(e);
+      subscription.dispose();
+      kill.subscribe(() -> { }, err -> { });
+      return false;
+    }
+  }
+
+  /**
+   * Stops the query and keeps the rows read so far. Does nothing if the job has already finished.
+   */
+  synchronized void cancel() {
+    if (status != Status.RUNNING) {
+      return;
+    }
+    status = Status.CANCELLED;
+    subscription.dispose();
+    kill.subscribe(() -> { }, err -> log.warn("Failed to kill query of job {}: {}", id, err.getMessage()));
+    closeSpool();
+    finished.onComplete();
+  }
+
+  /**
+   * Cancels the job and deletes its spool file.
+   */
+  synchronized void discard() {
+    cancel();
+    if (spoolFile != null) {
+      try {
+        Files.deleteIfExists(spoolFile);
+      } catch (IOException e) {
+        log.warn("Failed to delete spool file of job {}: {}", id, e.getMessage());
+      }
+    }
+  }
+
+  public synchronized Status getStatus() {
+    return status;
+  }
+
+  public synchronized Throwable getFailure() {
+    return failure;
+  }
+
+  public synchronized List<String> getColumns() {
+    return columns;
+  }
+
+  /**
+   * Whether the rows are in the spool file, to be read with {@link #page}, rather than in memory.
+   */
+  public synchronized boolean isSpooled() {
+    return spoolFile != null;
+  }
+
+  /**
+   * The rows of a job that finished before it was detached.
+   */
+  public synchronized List<Object[]> getRows() {
+    if (rows == null) {
+      throw new IllegalStateException("Rows of query job " + id + " are spooled");
+    }
+    return rows;
+  }
+
+  /**
+   * Up to {@code limit} rows of a detached job from row {@code offset}, as far as they have been read. Blocks on file
+   * I/O.
+   */
+  public QueryJobPage page(long offset, int limit) {
+    Status pageStatus;
+    String error;
+    List<String> pageColumns;
+    long available;
+    long start;
+    try {
+      synchronized (this) {
+        pageStatus = status;
+        error = failure == null ? null : failure.getMessage();
+        pageColumns = columns;
+        available = rowCount;
+        if (spool != null) {
+          spool.flush();
+        }
+        start = offset < available ? rowOffsets[(int) (offset / INDEX_STRIDE)] : 0;
+      }
+      List<List<String>> pageRows = new ArrayList<>();
+      if (offset < available && spoolFile != null) {
+        try (FileChannel channel = FileChannel.open(spoolFile, StandardOpenOption.READ)) {
+          channel.position(start);
+          BufferedReader reader = new BufferedReader(
+              new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+          long row = offset - offset % INDEX_STRIDE;
+          for (; row < offset; row++) {
+            reader.readLine();
+          }
+          for (; row < available && pageRows.size() < limit; row++) {
+            pageRows.add(MAPPER.readValue(reader.readLine(), ROW_TYPE));
+          }
+        }
+      }
+      return QueryJobPage.builder()
+          .jobId(id)
+          .status(pageStatus.name())
+          .jobComplete(pageStatus == Status.DONE)
+          .error(error)
+          .fields(pageColumns)
+          .rows(pageRows)
+          .offset(offset)
+          .totalRows(available)
+          .build();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private synchronized void complete() {
+    if (status != Status.RUNNING) {
+      return;
+    }
+    status = Status.DONE;
+    closeSpool();
+    finished.onComplete();
+  }
+
+  private synchronized void fail(Throwable error) {
+    if (status != Status.RUNNING) {
+      return;
+    }
+    failed(error);
+  }
+
+  private void failed(Throwable error) {
+    status = Status.FAILED;
+    failure = error;
+    closeSpool();
+    finished.onError(error);
+  }
+
+  private void append(Object[] values) {
+    try {
+      if (rowCount % INDEX_STRIDE == 0) {
+        int slot = (int) (rowCount / INDEX_STRIDE);
+        if (slot == rowOffsets.length) {
+          rowOffsets = Arrays.copyOf(rowOffsets, slot * 2);
+        }
+        rowOffsets[slot] = spoolBytes;
+      }
+      List<String> cells = new ArrayList<>(values.length);
+      for (Object value : values) {
+        cells.add(value == null ? "" : value.toString());
+      }
+      byte[] line = MAPPER.writeValueAsBytes(cells);
+      spool.write(line);
+      spool.write(NEWLINE);
+      spoolBytes += line.length + 1;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void keepInline(Object[] values) {
+    if (overflowed.hasComplete()) {
+      return;
+    }
+    try {
+      inlineBudget.charge(values);
+    } catch (QueryResultBudget.ResultTooLargeException e) {
+      overflowed.onComplete();
+    }
+  }
+
+  private void closeSpool() {
+    if (spool == null) {
+      return;
+    }
+    try {
+      spool.close();
+    } catch (IOException e) {
+      log.warn("Failed to close spool file of job {}: {}", id, e.getMessage());
+    }
+    spool = null;
+  }
+}
@@ -0,0 +1,119 @@
+package org.dreamhorizon.pulseserver.client.chclient;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.google.inject.Inject;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.dreamhorizon.pulseserver.config.ClickhouseConfig;
+
+/**
+ * The query jobs of this instance that outlived their caller's timeout, by id. A job and its spool file are discarded
+ * {@code clickhouse.queryJobTtlMinutes} after it was last polled; a job that is still running then is cancelled.
+ */
+@Slf4j
+public class QueryJobStore {
+  private static final String DEFAULT_SPOOL_DIR = System.getProperty("java.io.tmpdir") + "/pulse-query-jobs";
+  private static final int DEFAULT_TTL_MINUTES = 30;
+  private static final String SPOOL_SUFFIX = ".jsonl";
+
+  private final Path spoolDir;
+  private final Cache<String, QueryJob> jobs;
+
+  @Inject
+  public QueryJobStore(ClickhouseConfig clickhouseConfig, MetricRegistry metricRegistry) {
+    spoolDir = Path.of(Optional.ofNullable(clickhouseConfig.getQueryJobSpoolDir()).orElse(DEFAULT_SPOOL_DIR));
+    Duration ttl = Duration.ofMinutes(
+        Optional.ofNullable(clickhouseConfig.getQueryJobTtlMinutes()).orElse(DEFAULT_TTL_MINUTES));
+    jobs = Caffeine.newBuilder()
+        .expireAfterAccess(ttl)
+        .scheduler(Scheduler.systemScheduler())
+        .evictionListener((String id, QueryJob job, RemovalCause cause) -> {
+          if (job != null) {
+            job.discard();
+          }
+        })
+        .build();
+    metricRegistry.register("clickhouse.query_jobs.count", (Gauge<Long>) jobs::estimatedSize);
+    prepareSpoolDir(ttl);
+  }
+
+  /**
+   * A new job that keeps its rows in memory while they fit {@code inlineBudget}.
+   */
+  QueryJob create(QueryResultBudget inlineBudget) {
+    return new QueryJob(UUID.randomUUID().toString(), inlineBudget);
+  }
+
+  /**
+   * Waits up to {@code timeoutMs} for the job to finish. Emits the finished job, or the job still running at the
+   * timeout or once its rows overflow its inline budget, which is then detached to a spool file and kept here. Fails
+   * with the query's error if it failed first.
+   */
+  Single<QueryJob> awaitOrDetach(QueryJob job, long timeoutMs) {
+    // An overflow is signalled from the thread reading the rows, so the spool file is written on an io thread instead
+    return Completable.ambArray(job.finished(), job.overflowed())
+        .timeout(timeoutMs, TimeUnit.MILLISECONDS, Schedulers.io(), Completable.complete())
+        .observeOn(Schedulers.io())
+        .andThen(Completable.fromAction(() -> detach(job)))
+        .toSingleDefault(job)
+        .flatMap(finished -> finished.getStatus() == QueryJob.Status.FAILED
+            ? Single.error(finished.getFailure())
+            : Single.just(finished));
+  }
+
+  public Optional<QueryJob> get(String id) {
+    return Optional.ofNullable(jobs.getIfPresent(id));
+  }
+
+  /**
+   * Cancels the job if it is still running and deletes its rows. Returns false if there is no such job.
+   */
+  public boolean remove(String id) {
+    QueryJob job = jobs.asMap().remove(id);
+    if (job == null) {
+      return false;
+    }
+    job.discard();
+    return true;
+  }
+
+  private void detach(QueryJob job) {
+    if (job.detach(spoolDir.resolve(job.getId() + SPOOL_SUFFIX))) {
+      jobs.put(job.getId(), job);
+    }
+  }
+
+  // Spool files of jobs that expired while the server was down are removed; the directory may be shared
+  private void prepareSpoolDir(Duration ttl) {
+    try {
+      Files.createDirectories(spoolDir);
+      Instant expired = Instant.now().minus(ttl);
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDir, "*" + SPOOL_SUFFIX)) {
+        for (Path file : files) {
+          if (Files.getLastModifiedTime(file).toInstant().isBefore(expired)) {
+            Files.deleteIfExists(file);
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot use query job spool directory " + spoolDir, e);
+    }
+  }
+}
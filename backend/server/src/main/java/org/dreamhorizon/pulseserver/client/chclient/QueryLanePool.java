@@ -0,0 +1,92 @@
+package org.dreamhorizon.pulseserver.client.chclient;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.Connection;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Single;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.dreamhorizon.pulseserver.model.QueryLane;
+
+/**
+ * The connections of one {@link QueryLane}. The pool size bounds how many of the lane's queries run at once; up to
+ * {@code maxQueued} more wait for a connection, beyond that a query fails with {@link QueueFullException}.
+ */
+@Slf4j
+class QueryLanePool {
+  private final QueryLane lane;
+  private final ConnectionPool pool;
+  private final int maxAdmitted;
+  @Getter
+  private final Map<String, Object> settings;
+  private final AtomicInteger admitted = new AtomicInteger();
+
+  private final Timer queueWait;
+  private final Meter rejectedQueries;
+
+  QueryLanePool(QueryLane lane, ConnectionPool pool, int maxConnections, int maxQueued, Map<String, Object> settings,
+                MetricRegistry metricRegistry, String metricPrefix) {
+    this.lane = lane;
+    this.pool = pool;
+    this.maxAdmitted = maxConnections + maxQueued;
+    this.settings = settings;
+
+    this.queueWait = metricRegistry.timer(metricPrefix + "queue_wait");
+    this.rejectedQueries = metricRegistry.meter(metricPrefix + "rejected_queries");
+    metricRegistry.register(metricPrefix + "queued",
+        (Gauge<Integer>) () -> Math.max(0, admitted.get() - maxConnections));
+    registerGauge(metricRegistry, metricPrefix + "acquired", PoolMetrics::acquiredSize);
+    registerGauge(metricRegistry, metricPrefix + "pending", PoolMetrics::pendingAcquireSize);
+    registerGauge(metricRegistry, metricPrefix + "idle", PoolMetrics::idleSize);
+    registerGauge(metricRegistry, metricPrefix + "allocated", PoolMetrics::allocatedSize);
+  }
+
+  /**
+   * Runs {@code work} with a connection of this lane, which is closed, and the queue slot given back, when the returned
+   * stream terminates or is cancelled.
+   */
+  <T> Flowable<T> withConnection(Function<Connection, Flowable<T>> work) {
+    return Flowable.defer(() -> {
+      if (admitted.incrementAndGet() > maxAdmitted) {
+        admitted.decrementAndGet();
+        rejectedQueries.mark();
+        return Flowable.error(new QueueFullException(lane, maxAdmitted));
+      }
+      Timer.Context wait = queueWait.time();
+      return Single.fromPublisher(pool.create())
+          .doFinally(wait::stop)
+          .flatMapPublisher(conn -> work.apply(conn)
+              .doFinally(() -> Completable.fromPublisher(conn.close()).subscribe()))
+          .doFinally(admitted::decrementAndGet);
+    });
+  }
+
+  void warmup() {
+    Single.fromPublisher(pool.warmup())
+        .subscribe(opened -> log.info("Opened {} ClickHouse connections for the {} lane", opened, lane),
+            err -> log.warn("Failed to warm up ClickHouse {} lane: {}", lane, err.getMessage()));
+  }
+
+  private void registerGauge(MetricRegistry metricRegistry, String name, ToIntFunction<PoolMetrics> size) {
+    metricRegistry.register(name, (Gauge<Integer>) () -> pool.getMetrics().map(size::applyAsInt).orElse(0));
+  }
+
+  /**
+   * Raised when a lane already holds its maximum number of queries; callers should retry later.
+   */
+  public static class QueueFullException extends RuntimeException {
+    public QueueFullException(QueryLane lane, int maxAdmitted) {
+      super("ClickHouse " + lane + " lane is full (" + maxAdmitted + " queries)");
+    }
+  }
+}
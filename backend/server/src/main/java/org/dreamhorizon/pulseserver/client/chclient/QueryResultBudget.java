@@ -0,0 +1,91 @@
+package org.dreamhorizon.pulseserver.client.chclient;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Row and size limit for one query result. Sizes are estimated from the decoded cell values (string length, fixed
+ * width for numbers and dates), which is close to the JSON the result is eventually rendered as.
+ */
+public class QueryResultBudget {
+  private static final int FIXED_WIDTH_BYTES = 16;
+
+  private final int maxRows;
+  private final long maxBytes;
+  private int rows;
+  private long bytes;
+
+  public QueryResultBudget(int maxRows, long maxBytes) {
+    this.maxRows = maxRows;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Accounts for one more row, failing with {@link ResultTooLargeException} once either limit is exceeded.
+   */
+  public void charge(Object[] values) {
+    rows++;
+    for (Object value : values) {
+      bytes += estimateBytes(value);
+    }
+    if (rows > maxRows) {
+      throw new ResultTooLargeException("Query result exceeds " + maxRows + " rows");
+    }
+    if (bytes > maxBytes) {
+      throw new ResultTooLargeException("Query result exceeds " + maxBytes + " bytes");
+    }
+  }
+
+  public int getRows() {
+    return rows;
+  }
+
+  public long getBytes() {
+    return bytes;
+  }
+
+  static long estimateBytes(Object value) {
+    if (value == null) {
+      return 4;
+    }
+    if (value instanceof CharSequence s) {
+      return s.length() + 2L;
+    }
+    if (value instanceof byte[] b) {
+      return b.length;
+    }
+    if (value instanceof Collection<?> c) {
+      long total = 2;
+      for (Object element : c) {
+        total += estimateBytes(element) + 1;
+      }
+      return total;
+    }
+    if (value instanceof Map<?, ?> m) {
+      long total = 2;
+      for (Map.Entry<?, ?> entry : m.entrySet()) {
+        total += estimateBytes(entry.getKey()) + estimateBytes(entry.getValue()) + 2;
+      }
+      return total;
+    }
+    if (value.getClass().isArray()) {
+      long total = 2;
+      for (int i = 0, n = Array.getLength(value); i < n; i++) {
+        total += estimateBytes(Array.get(value, i)) + 1;
+      }
+      return total;
+    }
+    return FIXED_WIDTH_BYTES;
+  }
+
+  /**
+   * Raised when a query returns more rows or bytes than the server is willing to hold for one request; narrow the time
+   * range or add a limit.
+   */
+  public static class ResultTooLargeException extends RuntimeException {
+    public ResultTooLargeException(String message) {
+      super(message);
+    }
+  }
+}
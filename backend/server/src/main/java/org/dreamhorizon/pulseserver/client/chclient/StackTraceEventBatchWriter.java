@@ -0,0 +1,177 @@
+package org.dreamhorizon.pulseserver.client.chclient;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.inject.Inject;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.core.SingleEmitter;
+import io.vertx.core.Vertx;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.dreamhorizon.pulseserver.config.ClickhouseConfig;
+import org.dreamhorizon.pulseserver.errorgrouping.model.StackTraceEvent;
+
+/**
+ * Coalesces {@link StackTraceEvent} writes from all verticles into larger inserts to {@code otel.stack_trace_events}.
+ * A batch is flushed once it holds {@code insertBatchMaxRows} rows or its oldest write is {@code insertBatchMaxDelayMs}
+ * old. Each caller's {@link Single} completes only after the batch carrying its rows has been written, so OTLP requests
+ * are still acknowledged after their data is durable. Writes are rejected with {@link QueueFullException} once
+ * {@code insertQueueMaxRows} rows are pending or in flight.
+ */
+@Slf4j
+public class StackTraceEventBatchWriter {
+  private static final int DEFAULT_MAX_BATCH_ROWS = 5000;
+  private static final long DEFAULT_MAX_BATCH_DELAY_MS = 200;
+  private static final int DEFAULT_MAX_QUEUED_ROWS = 50000;
+  private static final String METRIC_PREFIX = "clickhouse.stack_trace_events.";
+
+  private final Vertx vertx;
+  private final ClickhouseWriteClient writeClient;
+  private final int maxBatchRows;
+  private final long maxBatchDelayMs;
+  private final int maxQueuedRows;
+
+  private final Timer flushLatency;
+  private final Histogram batchRows;
+  private final Meter rejectedRows;
+
+  private final Object lock = new Object();
+  private List<PendingWrite> pending = new ArrayList<>();
+  private int pendingRows;
+  private int queuedRows;
+  private long flushTimerId = -1;
+
+  @Inject
+  public StackTraceEventBatchWriter(Vertx vertx, ClickhouseWriteClient writeClient, ClickhouseConfig config,
+                                    MetricRegistry metricRegistry) {
+    this.vertx = vertx;
+    this.writeClient = writeClient;
+    this.maxBatchRows = Optional.ofNullable(config.getInsertBatchMaxRows()).orElse(DEFAULT_MAX_BATCH_ROWS);
+    this.maxBatchDelayMs = Optional.ofNullable(config.getInsertBatchMaxDelayMs()).orElse(DEFAULT_MAX_BATCH_DELAY_MS);
+    this.maxQueuedRows = Optional.ofNullable(config.getInsertQueueMaxRows()).orElse(DEFAULT_MAX_QUEUED_ROWS);
+
+    this.flushLatency = metricRegistry.timer(METRIC_PREFIX + "flush_latency");
+    this.batchRows = metricRegistry.histogram(METRIC_PREFIX + "batch_rows");
+    this.rejectedRows = metricRegistry.meter(METRIC_PREFIX + "rejected_rows");
+    metricRegistry.register(METRIC_PREFIX + "queue_rows", (Gauge<Integer>) this::getQueuedRows);
+  }
+
+  /**
+   * Queues the events for the next batch.
+   *
+   * @return number of rows written, emitted once the batch containing them has been flushed
+   */
+  public Single<Long> write(List<StackTraceEvent> events) {
+    if (events.isEmpty()) {
+      return Single.just(0L);
+    }
+    return Single.create(emitter -> {
+      List<PendingWrite> batch = null;
+      synchronized (lock) {
+        if (queuedRows + events.size() > maxQueuedRows) {
+          rejectedRows.mark(events.size());
+          emitter.onError(new QueueFullException(queuedRows, maxQueuedRows));
+          return;
+        }
+        pending.add(new PendingWrite(events, emitter));
+        pendingRows += events.size();
+        queuedRows += events.size();
+        if (pendingRows >= maxBatchRows) {
+          batch = drainPending();
+        } else if (flushTimerId < 0) {
+          flushTimerId = vertx.setTimer(maxBatchDelayMs, this::flushOnTimer);
+        }
+      }
+      if (batch != null) {
+        flush(batch);
+      }
+    });
+  }
+
+  public int getQueuedRows() {
+    synchronized (lock) {
+      return queuedRows;
+    }
+  }
+
+  private void flushOnTimer(long timerId) {
+    List<PendingWrite> batch;
+    synchronized (lock) {
+      if (flushTimerId != timerId) {
+        // The batch this timer was armed for has already been flushed by size
+        return;
+      }
+      batch = drainPending();
+    }
+    flush(batch);
+  }
+
+  // Must be called while holding the lock
+  private List<PendingWrite> drainPending() {
+    if (flushTimerId >= 0) {
+      vertx.cancelTimer(flushTimerId);
+      flushTimerId = -1;
+    }
+    List<PendingWrite> batch = pending;
+    pending = new ArrayList<>();
+    pendingRows = 0;
+    return batch;
+  }
+
+  private void flush(List<PendingWrite> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    int rows = 0;
+    for (PendingWrite write : batch) {
+      rows += write.events().size();
+    }
+    List<StackTraceEvent> events = new ArrayList<>(rows);
+    for (PendingWrite write : batch) {
+      events.addAll(write.events());
+    }
+    batchRows.update(rows);
+    Timer.Context timer = flushLatency.time();
+    int flushedRows = rows;
+    writeClient.insert(events)
+        .subscribe(
+            response -> {
+              timer.stop();
+              release(flushedRows);
+              for (PendingWrite write : batch) {
+                write.emitter().onSuccess((long) write.events().size());
+              }
+            },
+            err -> {
+              timer.stop();
+              release(flushedRows);
+              log.error("Failed to flush {} stack trace events to ClickHouse", flushedRows, err);
+              for (PendingWrite write : batch) {
+                write.emitter().tryOnError(err);
+              }
+            });
+  }
+
+  private void release(int rows) {
+    synchronized (lock) {
+      queuedRows -= rows;
+    }
+  }
+
+  private record PendingWrite(List<StackTraceEvent> events, SingleEmitter<Long> emitter) {
+  }
+
+  /**
+   * Raised when the writer already holds its maximum number of unflushed rows; callers should retry later.
+   */
+  public static class QueueFullException extends RuntimeException {
+    public QueueFullException(int queuedRows, int maxQueuedRows) {
+      super("Stack trace insert queue is full (" + queuedRows + "/" + maxQueuedRows + " rows)");
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package org.dreamhorizon.pulseserver.client.chclient;
+
+import com.clickhouse.data.ClickHouseFormat;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import org.dreamhorizon.pulseserver.errorgrouping.model.StackTraceEvent;
+
+/**
+ * Serializes {@link StackTraceEvent} rows for an insert into {@code otel.stack_trace_events}.
+ */
+public interface StackTraceEventEncoder {
+
+  ClickHouseFormat format();
+
+  void encode(List<StackTraceEvent> events, OutputStream out) throws IOException;
+
+  /**
+   * Resolves the encoder for the configured insert format, {@code JSONEachRow} when unset.
+   */
+  static StackTraceEventEncoder forFormat(String format) {
+    if (format == null || format.isBlank()) {
+      return new StackTraceEventJsonEncoder();
+    }
+    ClickHouseFormat clickHouseFormat = ClickHouseFormat.valueOf(format);
+    return switch (clickHouseFormat) {
+      case JSONEachRow -> new StackTraceEventJsonEncoder();
+      case RowBinary -> new StackTraceEventRowBinaryEncoder();
+      default -> throw new IllegalArgumentException("Unsupported stack trace insert format: " + format);
+    };
+  }
+}
@@ -0,0 +1,43 @@
+package org.dreamhorizon.pulseserver.client.chclient;
+
+import com.clickhouse.data.ClickHouseFormat;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.dreamhorizon.pulseserver.errorgrouping.model.StackTraceEvent;
+
+/**
+ * NDJSON ({@code JSONEachRow}) encoding through Jackson.
+ */
+public class StackTraceEventJsonEncoder implements StackTraceEventEncoder {
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  public StackTraceEventJsonEncoder() {
+    mapper.configOverride(String.class)
+        .setSetterInfo(JsonSetter.Value.forValueNulls(Nulls.AS_EMPTY));
+  }
+
+  @Override
+  public ClickHouseFormat format() {
+    return ClickHouseFormat.JSONEachRow;
+  }
+
+  @Override
+  public void encode(List<StackTraceEvent> events, OutputStream out) throws IOException {
+    try (OutputStreamWriter w = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+         SequenceWriter seq = mapper.writer()
+             .withRootValueSeparator("\n") // NDJSON
+             .writeValues(w)) {
+      for (StackTraceEvent e : events) {
+        seq.write(e); // serialize object -> one JSON line
+      }
+      // seq/w auto-flush/close here
+    }
+  }
+}
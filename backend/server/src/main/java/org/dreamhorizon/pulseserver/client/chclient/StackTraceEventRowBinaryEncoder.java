@@ -0,0 +1,150 @@
+package org.dreamhorizon.pulseserver.client.chclient;
+
+import com.clickhouse.data.ClickHouseFormat;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import org.dreamhorizon.pulseserver.errorgrouping.model.StackTraceEvent;
+
+/**
+ * Hand-written {@code RowBinary} encoding for {@code otel.stack_trace_events}. ClickHouse copies these bytes straight
+ * into its columns instead of tokenizing JSON, and the three attribute maps and both stack traces are written as
+ * length-prefixed UTF-8 without escaping.
+ *
+ * <p>RowBinary without a column list must carry every insertable column in table order, so {@link #COLUMNS} mirrors
+ * {@code backend/ingestion/clickhouse-otel-schema.sql} (the MATERIALIZED {@code PulseType} is excluded). Missing
+ * values are written as the column default, the same as {@code JSONEachRow} does for nulls.
+ */
+public class StackTraceEventRowBinaryEncoder implements StackTraceEventEncoder {
+  private static final DateTimeFormatter DT64_9 = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSSSSS");
+  private static final int SPAN_ID_LENGTH = 16;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  static final List<Column> COLUMNS = List.of(
+      new Column("Timestamp", "DateTime64(9, 'UTC')", (e, out) -> writeInt64(out, timestampNanos(e))),
+      // Not populated by the JSON path either (StackTraceEvent has no EventName property)
+      new Column("EventName", "LowCardinality(String)", (e, out) -> writeString(out, null)),
+      new Column("Title", "String", (e, out) -> writeString(out, e.getTitle())),
+      new Column("ExceptionStackTrace", "String", (e, out) -> writeString(out, e.getExceptionStackTrace())),
+      new Column("ExceptionStackTraceRaw", "String", (e, out) -> writeString(out, e.getExceptionStackTraceRaw())),
+      new Column("ExceptionMessage", "String", (e, out) -> writeString(out, e.getExceptionMessage())),
+      new Column("ExceptionType", "LowCardinality(String)", (e, out) -> writeString(out, e.getExceptionType())),
+      new Column("Interactions", "Array(LowCardinality(String))", (e, out) -> writeStringArray(out, e.getInteractions())),
+      new Column("ScreenName", "LowCardinality(String)", (e, out) -> writeString(out, e.getScreenName())),
+      new Column("UserId", "String", (e, out) -> writeString(out, e.getUserId())),
+      new Column("SessionId", "String", (e, out) -> writeString(out, e.getSessionId())),
+      new Column("Platform", "LowCardinality(String)", (e, out) -> writeString(out, e.getPlatform())),
+      new Column("OsVersion", "LowCardinality(String)", (e, out) -> writeString(out, e.getOsVersion())),
+      new Column("DeviceModel", "LowCardinality(String)", (e, out) -> writeString(out, e.getDeviceModel())),
+      new Column("AppVersionCode", "LowCardinality(String)", (e, out) -> writeString(out, e.getAppVersionCode())),
+      new Column("AppVersion", "LowCardinality(String)", (e, out) -> writeString(out, e.getAppVersion())),
+      new Column("SdkVersion", "LowCardinality(String)", (e, out) -> writeString(out, e.getSdkVersion())),
+      new Column("TraceId", "String", (e, out) -> writeString(out, e.getTraceId())),
+      new Column("SpanId", "FixedString(16)", (e, out) -> writeFixedString(out, e.getSpanId(), SPAN_ID_LENGTH)),
+      new Column("GroupId", "String", (e, out) -> writeString(out, e.getGroupId())),
+      new Column("Signature", "String", (e, out) -> writeString(out, e.getSignature())),
+      new Column("Fingerprint", "String", (e, out) -> writeString(out, e.getFingerprint())),
+      new Column("ScopeAttributes", "Map(LowCardinality(String), String)",
+          (e, out) -> writeStringMap(out, e.getScopeAttributes())),
+      new Column("LogAttributes", "Map(LowCardinality(String), String)",
+          (e, out) -> writeStringMap(out, e.getLogAttributes())),
+      new Column("ResourceAttributes", "Map(LowCardinality(String), String)",
+          (e, out) -> writeStringMap(out, e.getResourceAttributes()))
+  );
+
+  @Override
+  public ClickHouseFormat format() {
+    return ClickHouseFormat.RowBinary;
+  }
+
+  @Override
+  public void encode(List<StackTraceEvent> events, OutputStream out) throws IOException {
+    BufferedOutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+    for (StackTraceEvent event : events) {
+      for (Column column : COLUMNS) {
+        column.writer().write(event, buffered);
+      }
+    }
+    buffered.flush();
+  }
+
+  private static long timestampNanos(StackTraceEvent e) {
+    if (e.getTimestampUnixNano() != 0 || e.getTimestamp() == null) {
+      return e.getTimestampUnixNano();
+    }
+    LocalDateTime ts = LocalDateTime.parse(e.getTimestamp(), DT64_9);
+    return ts.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + ts.getNano();
+  }
+
+  private static void writeVarUInt(OutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  private static void writeInt64(OutputStream out, long value) throws IOException {
+    for (int i = 0; i < 8; i++) {
+      out.write((int) (value >>> (8 * i)) & 0xFF);
+    }
+  }
+
+  private static void writeString(OutputStream out, String value) throws IOException {
+    if (value == null || value.isEmpty()) {
+      out.write(0);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarUInt(out, bytes.length);
+    out.write(bytes);
+  }
+
+  private static void writeFixedString(OutputStream out, String value, int length) throws IOException {
+    byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > length) {
+      throw new IllegalArgumentException("Value '" + value + "' does not fit FixedString(" + length + ")");
+    }
+    out.write(bytes);
+    for (int i = bytes.length; i < length; i++) {
+      out.write(0);
+    }
+  }
+
+  private static void writeStringArray(OutputStream out, List<String> values) throws IOException {
+    if (values == null) {
+      out.write(0);
+      return;
+    }
+    writeVarUInt(out, values.size());
+    for (String value : values) {
+      writeString(out, value);
+    }
+  }
+
+  private static void writeStringMap(OutputStream out, Map<String, String> values) throws IOException {
+    if (values == null) {
+      out.write(0);
+      return;
+    }
+    writeVarUInt(out, values.size());
+    for (Map.Entry<String, String> entry : values.entrySet()) {
+      writeString(out, entry.getKey());
+      writeString(out, entry.getValue());
+    }
+  }
+
+  @FunctionalInterface
+  interface ColumnWriter {
+    void write(StackTraceEvent event, OutputStream out) throws IOException;
+  }
+
+  record Column(String name, String type, ColumnWriter writer) {
+  }
+}
@@ -30,4 +30,17 @@ public class ApplicationConfig {
   public String webhookUrl;
   public String interactionDetailsS3BucketFilePath;
   public String interactionDetailCloudFrontAssetPath;
+  public Long logsIngestMaxBodyBytes;
+  public Long symbolicationCacheMaxSize;
+  public Long symbolicationCacheTtlMinutes;
+  public String symbolFileStoreDir;
+  public Long symbolCacheMaxWeightMb;
+  public Integer groupingWorkerThreads;
+  public Integer groupingMaxQueuedEvents;
+  public Long metricQueryCacheMaxWeightMb;
+  public Long metricQueryCacheTtlMinutes;
+  public Long metricQueryCacheSettleSeconds;
+  public Boolean metricRollupEnabled;
+  public Integer alertResultBatchMaxSize;
+  public Long alertResultBatchMaxDelayMs;
 }
@@ -2,6 +2,7 @@ package org.dreamhorizon.pulseserver.config;
 
 
 import com.google.inject.Singleton;
+import java.util.Map;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -20,4 +21,20 @@ public class ClickhouseConfig {
   private Integer maxsize;
   private String host;
   private Integer port;
+  private Integer insertBatchMaxRows;
+  private Long insertBatchMaxDelayMs;
+  private Integer insertQueueMaxRows;
+  private String insertFormat;
+  private Integer queryMaxResultRows;
+  private Long queryMaxResultBytes;
+  private String queryJobSpoolDir;
+  private Integer queryJobTtlMinutes;
+  private Integer queryJobMaxResultRows;
+  private Long queryJobMaxResultBytes;
+  private Integer queryMaxExecutionTimeSeconds;
+  private Long queryMaxMemoryUsage;
+  private Long readPoolMaxAcquireMs;
+  private Integer readPoolMaxLifeMinutes;
+  private String readPoolValidationQuery;
+  private Map<String, QueryLaneConfig> lanes;
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package org.dreamhorizon.pulseserver.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of {@code clickhouse.lanes}, keyed by the lower-case {@link org.dreamhorizon.pulseserver.model.QueryLane}
+ * name. Unset fields take the lane's defaults.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueryLaneConfig {
+  // Connections, and so queries, the lane runs at once
+  private Integer maxConnections;
+  private Integer initialConnections;
+  // Queries that may wait for a connection; more are rejected
+  private Integer maxQueued;
+  private Long maxWaitMs;
+  // ClickHouse settings of the lane's queries
+  private Integer maxExecutionTimeSeconds;
+  private Integer maxThreads;
+  private Integer priority;
+}
@@ -5,13 +5,14 @@ import lombok.experimental.UtilityClass;
 @UtilityClass
 public class ClickhouseConstants {
 
-  public final String CH_APDEX_SELECT_CLAUSE =
-      "avgIf(toFloat64OrNull(SpanAttributes['pulse.interaction.apdex_score']), StatusCode != 'Error')";
+  // ApdexScore, UserCategory and the *FrameCount columns are MATERIALIZED from SpanAttributes at insert, so these
+  // clauses read typed columns instead of looking up keys in the map on every row
+  public final String CH_APDEX_SELECT_CLAUSE = "avgIf(ApdexScore, StatusCode != 'Error')";
   public final String CH_ANR_SELECT_CLAUSE = "countIf(has(Events.Name, 'device.anr'))";
   public final String CH_CRASH_SELECT_CLAUSE = "countIf(has(Events.Name, 'device.crash'))";
-  public final String CH_FROZEN_FRAME_SELECT_CLAUSE = "sum(toFloat64OrZero(SpanAttributes['app.interaction.frozen_frame_count']))";
-  public final String CH_ANALYSED_FRAME_SELECT_CLAUSE = "sum(toFloat64OrZero(SpanAttributes['app.interaction.analysed_frame_count']))";
-  public final String CH_UNANALYSED_FRAME_SELECT_CLAUSE = "sum(toFloat64OrZero(SpanAttributes['app.interaction.unanalysed_frame_count ']))";
+  public final String CH_FROZEN_FRAME_SELECT_CLAUSE = "sum(FrozenFrameCount)";
+  public final String CH_ANALYSED_FRAME_SELECT_CLAUSE = "sum(AnalysedFrameCount)";
+  public final String CH_UNANALYSED_FRAME_SELECT_CLAUSE = "sum(UnanalysedFrameCount)";
   public final String CH_DURATION_P99_SELECT_CLAUSE = "quantileTDigestIf(0.99)(Duration / 1e6, StatusCode != 'Error')";
   public final String CH_DURATION_P95_SELECT_CLAUSE = "quantileTDigestIf(0.95)(Duration / 1e6, StatusCode != 'Error')";
   public final String CH_DURATION_P50_SELECT_CLAUSE = "quantileTDigestIf(0.50)(Duration / 1e6, StatusCode != 'Error')";
@@ -20,10 +21,10 @@ public class ClickhouseConstants {
   public final String SUC_IN_CNT = "countIf(StatusCode != 'Error')";
   public final String ERR_IN_CNT = "countIf(StatusCode = 'Error')";
   public final String ERR_DIST_USERS = "uniqExactIf(nullIf(UserId, ''), StatusCode = 'Error')";
-  public final String EXCELLENT_CAT = "countIf(ifNull(SpanAttributes['pulse.interaction.user_category'], '') = 'Excellent')";
-  public final String GOOD_CAT = "countIf(ifNull(SpanAttributes['pulse.interaction.user_category'], '') = 'Good')";
-  public final String AVERAGE_CAT = "countIf(ifNull(SpanAttributes['pulse.interaction.user_category'], '') = 'Average')";
-  public final String POOR_CAT = "countIf(ifNull(SpanAttributes['pulse.interaction.user_category'], '') = 'Poor')";
+  public final String EXCELLENT_CAT = "countIf(UserCategory = 'Excellent')";
+  public final String GOOD_CAT = "countIf(UserCategory = 'Good')";
+  public final String AVERAGE_CAT = "countIf(UserCategory = 'Average')";
+  public final String POOR_CAT = "countIf(UserCategory = 'Poor')";
 
   // Network metrics for interactions flow (uses Events.Name)
   public final String NET_0 = "sum(arrayCount(x -> x = 'network.0', Events.Name))";
@@ -44,22 +45,17 @@ public class ClickhouseConstants {
   public final String CRASH_RATE = "(countIf(has(Events.Name, 'device.crash'))/count()) * 100";
   public final String ANR_RATE = "(countIf(has(Events.Name, 'device.anr'))/count()) * 100";
   public final String FROZEN_FRAME_RATE =
-      "(sum(toFloat64OrZero(SpanAttributes['app.interaction.frozen_frame_count']))/(sum(toFloat64OrZero(SpanAttributes['app.interaction.analysed_frame_count'])) + sum(toFloat64OrZero(SpanAttributes['app.interaction.unanalysed_frame_count'])))) * 100";
+      "(sum(FrozenFrameCount)/(sum(AnalysedFrameCount) + sum(UnanalysedFrameCount))) * 100";
   public final String ERROR_RATE = "(countIf(StatusCode = 'Error')/count()) * 100";
-  public final String POOR_USER_RATE =
-      "(countIf(ifNull(SpanAttributes['pulse.interaction.user_category'], '') = 'Poor')/countIf(ifNull(SpanAttributes['pulse.interaction.user_category'], '') != '')) * 100";
-  public final String AVERAGE_USER_RATE =
-      "(countIf(ifNull(SpanAttributes['pulse.interaction.user_category'], '') = 'Average')/countIf(ifNull(SpanAttributes['pulse.interaction.user_category'], '') != '')) * 100";
-  public final String GOOD_USER_RATE =
-      "(countIf(ifNull(SpanAttributes['pulse.interaction.user_category'], '') = 'Good')/countIf(ifNull(SpanAttributes['pulse.interaction.user_category'], '') != '')) * 100";
-  public final String EXCELLENT_USER_RATE =
-      "(countIf(ifNull(SpanAttributes['pulse.interaction.user_category'], '') = 'Excellent')/countIf(ifNull(SpanAttributes['pulse.interaction.user_category'], '') != '')) * 100";
+  public final String POOR_USER_RATE = "(countIf(UserCategory = 'Poor')/countIf(UserCategory != '')) * 100";
+  public final String AVERAGE_USER_RATE = "(countIf(UserCategory = 'Average')/countIf(UserCategory != '')) * 100";
+  public final String GOOD_USER_RATE = "(countIf(UserCategory = 'Good')/countIf(UserCategory != '')) * 100";
+  public final String EXCELLENT_USER_RATE = "(countIf(UserCategory = 'Excellent')/countIf(UserCategory != '')) * 100";
   public final String LOAD_TIME =
       "if(countIf(PulseType = 'screen_load') = 0, 0, sumIf(Duration / 1e6, PulseType = 'screen_load')/countIf(PulseType = 'screen_load'))";
   public final String SCREEN_TIME =
       "if(countIf(PulseType = 'screen_session') = 0, 0, sumIf(Duration / 1e9, PulseType = 'screen_session')/countIf(PulseType = 'screen_session'))";
-  public final String SCREEN_DAILY_USERS =
-      "uniqCombined(UserId)";
+  public final String SCREEN_DAILY_USERS = "uniqCombined(UserId)";
   public final String NET_4XX_RATE =
       "if(countIf(PulseType LIKE 'network.%') = 0, 0, (countIf(PulseType LIKE 'network.4%')/countIf(PulseType LIKE 'network.%')) * 100)";
   public final String NET_5XX_RATE =
@@ -91,4 +87,77 @@ public class ClickhouseConstants {
       "if(uniqCombined(UserId) = 0, 0, ((uniqCombined(UserId) - uniqCombinedIf(UserId, PulseType = 'non_fatal')) / uniqCombined(UserId)) * 100)";
   public final String NON_FATAL_FREE_SESSIONS_PERCENTAGE =
       "if(uniqCombined(SessionId) = 0, 0, ((uniqCombined(SessionId) - uniqCombinedIf(SessionId, PulseType = 'non_fatal')) / uniqCombined(SessionId)) * 100)";
-}
\ No newline at end of file
+
+  // The same metrics over the per-minute otel_traces_1m rollup; PulseType conditions become conditions on its rows
+  public final String ROLLUP_TABLE = "otel_traces_1m";
+  public final String ROLLUP_APDEX = "avgIfMerge(Apdex)";
+  public final String ROLLUP_CRASH = "sum(CrashSpans)";
+  public final String ROLLUP_ANR = "sum(AnrSpans)";
+  public final String ROLLUP_FROZEN_FRAME = "sum(FrozenFrames)";
+  public final String ROLLUP_ANALYSED_FRAME = "sum(AnalysedFrames)";
+  public final String ROLLUP_UNANALYSED_FRAME = "sum(UnanalysedFrames)";
+  public final String ROLLUP_DURATION_P99 = "quantileTDigestIfMerge(0.99)(DurationMs)";
+  public final String ROLLUP_DURATION_P95 = "quantileTDigestIfMerge(0.95)(DurationMs)";
+  public final String ROLLUP_DURATION_P50 = "quantileTDigestIfMerge(0.50)(DurationMs)";
+
+  public final String ROLLUP_SUC_IN_CNT = "(sum(Spans) - sum(ErrorSpans))";
+  public final String ROLLUP_ERR_IN_CNT = "sum(ErrorSpans)";
+  public final String ROLLUP_EXCELLENT_CAT = "sum(ExcellentSpans)";
+  public final String ROLLUP_GOOD_CAT = "sum(GoodSpans)";
+  public final String ROLLUP_AVERAGE_CAT = "sum(AverageSpans)";
+  public final String ROLLUP_POOR_CAT = "sum(PoorSpans)";
+
+  public final String ROLLUP_NET_0 = "sum(Net0Events)";
+  public final String ROLLUP_NET_2XX = "sum(Net2xxEvents)";
+  public final String ROLLUP_NET_3XX = "sum(Net3xxEvents)";
+  public final String ROLLUP_NET_4XX = "sum(Net4xxEvents)";
+  public final String ROLLUP_NET_5XX = "sum(Net5xxEvents)";
+  public final String ROLLUP_NET_COUNT = "sum(Spans)";
+
+  public final String ROLLUP_NET_0_BY_PULSE_TYPE = "sumIf(Spans, PulseType = 'network.0')";
+  public final String ROLLUP_NET_2XX_BY_PULSE_TYPE = "sumIf(Spans, PulseType LIKE 'network.2%')";
+  public final String ROLLUP_NET_3XX_BY_PULSE_TYPE = "sumIf(Spans, PulseType LIKE 'network.3%')";
+  public final String ROLLUP_NET_4XX_BY_PULSE_TYPE = "sumIf(Spans, PulseType LIKE 'network.4%')";
+  public final String ROLLUP_NET_5XX_BY_PULSE_TYPE = "sumIf(Spans, PulseType LIKE 'network.5%')";
+  public final String ROLLUP_NET_COUNT_BY_PULSE_TYPE = "sumIf(Spans, PulseType LIKE 'network.%')";
+
+  public final String ROLLUP_CRASH_RATE = "(sum(CrashSpans)/sum(Spans)) * 100";
+  public final String ROLLUP_ANR_RATE = "(sum(AnrSpans)/sum(Spans)) * 100";
+  public final String ROLLUP_FROZEN_FRAME_RATE =
+      "(sum(FrozenFrames)/(sum(AnalysedFrames) + sum(UnanalysedFrames))) * 100";
+  public final String ROLLUP_ERROR_RATE = "(sum(ErrorSpans)/sum(Spans)) * 100";
+  public final String ROLLUP_POOR_USER_RATE = "(sum(PoorSpans)/sum(CategorisedSpans)) * 100";
+  public final String ROLLUP_AVERAGE_USER_RATE = "(sum(AverageSpans)/sum(CategorisedSpans)) * 100";
+  public final String ROLLUP_GOOD_USER_RATE = "(sum(GoodSpans)/sum(CategorisedSpans)) * 100";
+  public final String ROLLUP_EXCELLENT_USER_RATE = "(sum(ExcellentSpans)/sum(CategorisedSpans)) * 100";
+  public final String ROLLUP_LOAD_TIME =
+      "if(sumIf(Spans, PulseType = 'screen_load') = 0, 0, sumIf(DurationMsSum, PulseType = 'screen_load')/sumIf(Spans, PulseType = 'screen_load'))";
+  public final String ROLLUP_SCREEN_TIME =
+      "if(sumIf(Spans, PulseType = 'screen_session') = 0, 0, (sumIf(DurationMsSum, PulseType = 'screen_session') / 1e3)/sumIf(Spans, PulseType = 'screen_session'))";
+  public final String ROLLUP_SCREEN_DAILY_USERS = "uniqCombinedMerge(Users)";
+  public final String ROLLUP_NET_4XX_RATE =
+      "if(sumIf(Spans, PulseType LIKE 'network.%') = 0, 0, (sumIf(Spans, PulseType LIKE 'network.4%')/sumIf(Spans, PulseType LIKE 'network.%')) * 100)";
+  public final String ROLLUP_NET_5XX_RATE =
+      "if(sumIf(Spans, PulseType LIKE 'network.%') = 0, 0, (sumIf(Spans, PulseType LIKE 'network.5%')/sumIf(Spans, PulseType LIKE 'network.%')) * 100)";
+
+  public final String ROLLUP_CRASH_USERS = "uniqCombinedMergeIf(Users, PulseType = 'device.crash')";
+  public final String ROLLUP_CRASH_SESSIONS = "uniqCombinedMergeIf(Sessions, PulseType = 'device.crash')";
+  public final String ROLLUP_ALL_USERS = "uniqCombinedMerge(Users)";
+  public final String ROLLUP_ALL_SESSIONS = "uniqCombinedMerge(Sessions)";
+  public final String ROLLUP_CRASH_FREE_USERS_PERCENTAGE =
+      "if(uniqCombinedMerge(Users) = 0, 0, ((uniqCombinedMerge(Users) - uniqCombinedMergeIf(Users, PulseType = 'device.crash')) / uniqCombinedMerge(Users)) * 100)";
+  public final String ROLLUP_CRASH_FREE_SESSIONS_PERCENTAGE =
+      "if(uniqCombinedMerge(Sessions) = 0, 0, ((uniqCombinedMerge(Sessions) - uniqCombinedMergeIf(Sessions, PulseType = 'device.crash')) / uniqCombinedMerge(Sessions)) * 100)";
+  public final String ROLLUP_ANR_USERS = "uniqCombinedMergeIf(Users, PulseType = 'device.anr')";
+  public final String ROLLUP_ANR_SESSIONS = "uniqCombinedMergeIf(Sessions, PulseType = 'device.anr')";
+  public final String ROLLUP_ANR_FREE_USERS_PERCENTAGE =
+      "if(uniqCombinedMerge(Users) = 0, 0, ((uniqCombinedMerge(Users) - uniqCombinedMergeIf(Users, PulseType = 'device.anr')) / uniqCombinedMerge(Users)) * 100)";
+  public final String ROLLUP_ANR_FREE_SESSIONS_PERCENTAGE =
+      "if(uniqCombinedMerge(Sessions) = 0, 0, ((uniqCombinedMerge(Sessions) - uniqCombinedMergeIf(Sessions, PulseType = 'device.anr')) / uniqCombinedMerge(Sessions)) * 100)";
+  public final String ROLLUP_NON_FATAL_USERS = "uniqCombinedMergeIf(Users, PulseType = 'non_fatal')";
+  public final String ROLLUP_NON_FATAL_SESSIONS = "uniqCombinedMergeIf(Sessions, PulseType = 'non_fatal')";
+  public final String ROLLUP_NON_FATAL_FREE_USERS_PERCENTAGE =
+      "if(uniqCombinedMerge(Users) = 0, 0, ((uniqCombinedMerge(Users) - uniqCombinedMergeIf(Users, PulseType = 'non_fatal')) / uniqCombinedMerge(Users)) * 100)";
+  public final String ROLLUP_NON_FATAL_FREE_SESSIONS_PERCENTAGE =
+      "if(uniqCombinedMerge(Sessions) = 0, 0, ((uniqCombinedMerge(Sessions) - uniqCombinedMergeIf(Sessions, PulseType = 'non_fatal')) / uniqCombinedMerge(Sessions)) * 100)";
+}
@@ -10,6 +10,7 @@ import io.vertx.mysqlclient.MySQLException;
 import io.vertx.rxjava3.mysqlclient.MySQLClient;
 import io.vertx.rxjava3.sqlclient.Pool;
 import io.vertx.rxjava3.sqlclient.Row;
+import io.vertx.rxjava3.sqlclient.RowSet;
 import io.vertx.rxjava3.sqlclient.SqlConnection;
 import io.vertx.rxjava3.sqlclient.Tuple;
 import jakarta.validation.Valid;
@@ -19,6 +20,7 @@ import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -963,6 +965,117 @@ public class AlertsDao {
         });
   }
 
+  /**
+   * Inserts the rows with one multi-row INSERT.
+   */
+  public Single<Integer> createEvaluationHistories(List<EvaluationHistoryRow> rows) {
+    if (rows.isEmpty()) {
+      return Single.just(0);
+    }
+    String values = rows.stream().map(row -> "(?,?,?)").collect(Collectors.joining(","));
+    Tuple tuple = Tuple.tuple();
+    for (EvaluationHistoryRow row : rows) {
+      tuple.addInteger(row.scopeId()).addString(row.evaluationResult()).addString(row.state().toString());
+    }
+    return d11MysqlClient.getWriterPool()
+        .preparedQuery(String.format(AlertsQuery.CREATE_EVALUATION_HISTORIES, values))
+        .rxExecute(tuple)
+        .onErrorResumeNext(error -> {
+          log.error("Error while creating {} evaluation history rows: {}", rows.size(), error.getMessage());
+          MySQLException mySqlException = (MySQLException) error;
+          return Single.error(ServiceError.DATABASE_ERROR.getCustomException(mySqlException.getMessage()));
+        })
+        .map(rowSet -> rowSet.rowCount());
+  }
+
+  /**
+   * Sets the state of every scope in {@code writes} in one batch of UPDATEs, each only if the scope's version is still
+   * the one given, and increments the versions written.
+   *
+   * @return the ids of the scopes written; the others had been written by another writer since their version was read
+   */
+  public Single<Set<Integer>> updateScopeStates(List<ScopeStateWrite> writes) {
+    if (writes.isEmpty()) {
+      return Single.just(Set.of());
+    }
+    List<Tuple> tuples = writes.stream()
+        .map(write -> Tuple.of(write.state().toString(), write.scopeId(), write.version()))
+        .toList();
+    return d11MysqlClient.getWriterPool()
+        .preparedQuery(AlertsQuery.UPDATE_SCOPE_STATE_IF_VERSION)
+        .rxExecuteBatch(tuples)
+        .onErrorResumeNext(error -> {
+          log.error("Error while updating {} scope states: {}", writes.size(), error.getMessage());
+          MySQLException mySqlException = (MySQLException) error;
+          return Single.error(ServiceError.DATABASE_ERROR.getCustomException(mySqlException.getMessage()));
+        })
+        .map(rowSet -> {
+          // One result per tuple, in the order the tuples were given
+          Set<Integer> written = new HashSet<>();
+          RowSet<Row> result = rowSet;
+          for (ScopeStateWrite write : writes) {
+            if (result == null) {
+              break;
+            }
+            if (result.rowCount() > 0) {
+              written.add(write.scopeId());
+            }
+            result = result.next();
+          }
+          return written;
+        });
+  }
+
+  /**
+   * The state, version and alert snooze window of every active scope of an active alert.
+   */
+  public Single<List<ScopeStateRow>> getScopeStates() {
+    return d11MysqlClient.getWriterPool()
+        .preparedQuery(AlertsQuery.GET_SCOPE_STATES)
+        .rxExecute()
+        .onErrorResumeNext(error -> {
+          log.error("Error while fetching scope states: {}", error.getMessage());
+          MySQLException mySqlException = (MySQLException) error;
+          return Single.error(ServiceError.DATABASE_ERROR.getCustomException(mySqlException.getMessage()));
+        })
+        .map(AlertsDao::mapScopeStates);
+  }
+
+  /**
+   * As {@link #getScopeStates()}, for the active scopes among {@code scopeIds}.
+   */
+  public Single<List<ScopeStateRow>> getScopeStates(Collection<Integer> scopeIds) {
+    if (scopeIds.isEmpty()) {
+      return Single.just(List.of());
+    }
+    String ids = scopeIds.stream().map(scopeId -> "?").collect(Collectors.joining(","));
+    return d11MysqlClient.getWriterPool()
+        .preparedQuery(String.format(AlertsQuery.GET_SCOPE_STATES_FOR_IDS, ids))
+        .rxExecute(Tuple.wrap(scopeIds.toArray()))
+        .onErrorResumeNext(error -> {
+          log.error("Error while fetching {} scope states: {}", scopeIds.size(), error.getMessage());
+          MySQLException mySqlException = (MySQLException) error;
+          return Single.error(ServiceError.DATABASE_ERROR.getCustomException(mySqlException.getMessage()));
+        })
+        .map(AlertsDao::mapScopeStates);
+  }
+
+  private static List<ScopeStateRow> mapScopeStates(RowSet<Row> rowSet) {
+    List<ScopeStateRow> scopes = new ArrayList<>();
+    for (Row row : rowSet) {
+      String state = row.getString("state");
+      scopes.add(new ScopeStateRow(
+          row.getInteger("id"),
+          row.getInteger("alert_id"),
+          row.getString("name"),
+          state == null ? null : AlertState.valueOf(state),
+          row.getInteger("version"),
+          getLocalDateTime(row, "snoozed_from"),
+          getLocalDateTime(row, "snoozed_until")));
+    }
+    return scopes;
+  }
+
   public Single<List<ScopeEvaluationHistoryDto>> getEvaluationHistoryByAlert(Integer alertId) {
     return d11MysqlClient.getWriterPool()
         .preparedQuery(AlertsQuery.GET_EVALUATION_HISTORY_BY_ALERT)
@@ -1025,6 +1138,16 @@ public class AlertsDao {
     private LocalDateTime snoozedUntil;
   }
 
+  public record EvaluationHistoryRow(Integer scopeId, String evaluationResult, AlertState state) {
+  }
+
+  public record ScopeStateWrite(Integer scopeId, AlertState state, Integer version) {
+  }
+
+  public record ScopeStateRow(Integer scopeId, Integer alertId, String name, AlertState state, Integer version,
+                              LocalDateTime snoozedFrom, LocalDateTime snoozedUntil) {
+  }
+
   @lombok.Data
   @lombok.Builder
   public static class AlertScopeDetails {
@@ -17,6 +17,9 @@ import io.vertx.rxjava3.sqlclient.Tuple;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -35,6 +38,7 @@ import org.dreamhorizon.pulseserver.dao.interaction.models.InteractionDetailRow;
 import org.dreamhorizon.pulseserver.dto.response.GetRawUserEventsResponseDto;
 import org.dreamhorizon.pulseserver.dto.response.universalquerying.GetQueryDataResponseDto;
 import org.dreamhorizon.pulseserver.model.QueryConfiguration;
+import org.dreamhorizon.pulseserver.model.QueryLane;
 import org.dreamhorizon.pulseserver.resources.interaction.models.InteractionFilterOptionsResponse;
 import org.dreamhorizon.pulseserver.resources.interaction.models.TelemetryFilterOptionsResponse;
 import org.dreamhorizon.pulseserver.service.interaction.models.CreateInteractionDaoResponse;
@@ -51,6 +55,11 @@ import org.dreamhorizon.pulseserver.util.ObjectMapperUtil;
 public class InteractionDao {
 
   private static final DaoInteractionMapper mapper = DaoInteractionMapper.INSTANCE;
+  private static final DateTimeFormatter CLICKHOUSE_DATE_TIME =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneOffset.UTC);
+  private static final int BACKGROUND_QUERY_PRIORITY = 10;
+  private static final int BACKGROUND_QUERY_MAX_THREADS = 2;
+  private static final int BACKGROUND_QUERY_MAX_EXECUTION_TIME_SECONDS = 300;
   private final MysqlClient d11MysqlClient;
   private final ClickhouseQueryService clickhouseQueryService;
   private final ObjectMapperUtil objectMapper;
@@ -262,8 +271,18 @@ public class InteractionDao {
         }).doOnError(error -> log.error("error in fetching interaction filter options: ", error));
   }
 
-  public Single<TelemetryFilterOptionsResponse> getTelemetryFilterOptions() {
-    QueryConfiguration configuration = QueryConfiguration.newQuery(GET_TELEMETRY_FILTER_VALUES).build();
+  /**
+   * Distinct values of the telemetry filter dimensions seen in spans since the given time.
+   */
+  public Single<TelemetryFilterOptionsResponse> getTelemetryFilterOptions(Instant since) {
+    // A background refresh, kept from competing with dashboard and alert queries on the server
+    QueryConfiguration configuration = QueryConfiguration.newQuery(GET_TELEMETRY_FILTER_VALUES)
+        .parameters(Map.of("since", CLICKHOUSE_DATE_TIME.format(since)))
+        .lane(QueryLane.BATCH)
+        .priority(BACKGROUND_QUERY_PRIORITY)
+        .maxThreads(BACKGROUND_QUERY_MAX_THREADS)
+        .maxExecutionTimeSeconds(BACKGROUND_QUERY_MAX_EXECUTION_TIME_SECONDS)
+        .build();
 
     return clickhouseQueryService.executeQueryOrCreateJob(configuration)
         .flatMap(this::buildTelemetryFilterResponse)
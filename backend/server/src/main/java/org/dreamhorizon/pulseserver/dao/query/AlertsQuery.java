@@ -283,7 +283,8 @@ public class AlertsQuery {
       + "WHERE id = ? AND is_active = TRUE;";
 
 
-  public static final String UPDATE_SCOPE_STATE = "UPDATE alert_scope SET state = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?;";
+  public static final String UPDATE_SCOPE_STATE =
+      "UPDATE alert_scope SET state = ?, version = version + 1, updated_at = CURRENT_TIMESTAMP WHERE id = ?;";
 
   public static final String CREATE_EVALUATION_HISTORY = "INSERT INTO alert_evaluation_history("
       + "scope_id, "
@@ -291,6 +292,30 @@ public class AlertsQuery {
       + "state) "
       + "VALUES (?,?,?);";
 
+  // %s: one (?,?,?) per row
+  public static final String CREATE_EVALUATION_HISTORIES = "INSERT INTO alert_evaluation_history("
+      + "scope_id, "
+      + "evaluation_result, "
+      + "state) "
+      + "VALUES %s;";
+
+  // Executed as a batch, one tuple per scope, so that the row count of each scope's update is reported on its own
+  public static final String UPDATE_SCOPE_STATE_IF_VERSION = "UPDATE alert_scope "
+      + "SET state = ?, version = version + 1, updated_at = CURRENT_TIMESTAMP "
+      + "WHERE id = ? AND version = ?;";
+
+  public static final String GET_SCOPE_STATES = "SELECT S.id, S.alert_id, S.name, S.state, S.version, "
+      + "A.snoozed_from, A.snoozed_until "
+      + "FROM alert_scope S "
+      + "INNER JOIN alerts A ON A.id = S.alert_id "
+      + "WHERE S.is_active = TRUE AND A.is_active = TRUE;";
+
+  public static final String GET_SCOPE_STATES_FOR_IDS = "SELECT S.id, S.alert_id, S.name, S.state, S.version, "
+      + "A.snoozed_from, A.snoozed_until "
+      + "FROM alert_scope S "
+      + "INNER JOIN alerts A ON A.id = S.alert_id "
+      + "WHERE S.id IN (%s) AND S.is_active = TRUE AND A.is_active = TRUE;";
+
   public static final String GET_NOTIFICATION_WEBHOOK_URL = "SELECT notification_webhook_url "
       + "FROM notification_channels "
       + "WHERE notification_channel_id = ?;";
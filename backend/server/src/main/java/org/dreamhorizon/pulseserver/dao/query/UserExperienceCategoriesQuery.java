@@ -1,13 +1,8 @@
 package org.dreamhorizon.pulseserver.dao.query;
 
 public class UserExperienceCategoriesQuery {
+  // Both tables are read only inside the requested window; SessionId is matched through the idx_session_id skip indexes
   public static final String GET_SESSIONS_QUERY = """
-      WITH
-      (\
-      SELECT groupUniqArray(SessionId) AS ids
-      FROM otel_traces
-      WHERE SpanName = '${span_name}'
-      ) AS session_ids
       SELECT
       SessionId,
       DeviceModel,
@@ -20,14 +15,21 @@ public class UserExperienceCategoriesQuery {
       Timestamp
       FROM otel_logs
       WHERE
-      has(session_ids, SessionId)
-      AND Timestamp >= toDateTime64('${start_time}', 9, 'UTC')
-      AND Timestamp <= toDateTime64('${end_time}', 9, 'UTC')
+      Timestamp >= toDateTime64(:start_time, 9, 'UTC')
+      AND Timestamp <= toDateTime64(:end_time, 9, 'UTC')
+      AND SessionId IN (
+      SELECT SessionId
+      FROM otel_traces
+      WHERE SpanName = :span_name
+      AND Timestamp >= toDateTime64(:start_time, 9, 'UTC')
+      AND Timestamp <= toDateTime64(:end_time, 9, 'UTC')
+      AND SessionId != ''
+      )
       ${app_version_filter}
       ${platform_filter}
       ${os_version_filter}
       ${network_provider_filter}
-      ${state_filter};
+      ${state_filter}
       """;
 
 }
\ No newline at end of file
@@ -2,8 +2,6 @@ package org.dreamhorizon.pulseserver.errorgrouping;
 
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import lombok.val;
 import org.apache.commons.lang3.tuple.Pair;
 import org.dreamhorizon.pulseserver.errorgrouping.model.JavaFrame;
@@ -33,38 +31,68 @@ public final class FramesParser {
 
   public static final Set<String> NDK_INAPP_LIBS = Set.of(); // e.g., "libdream11.so"
 
+  /**
+   * Parses a raw stack trace. Lines are split on the same separators as {@code split("\\R")}, without a regex or an
+   * intermediate list.
+   */
+  public static ParsedFrames parse(String raw) {
+    ParsedFrames st = new ParsedFrames();
+    ParserState state = new ParserState();
+    if (raw != null) {
+      int start = 0;
+      for (int i = 0, len = raw.length(); i <= len; i++) {
+        if (i == len || Scan.isLineBreak(raw.charAt(i))) {
+          // "\r\n" yields an empty line in between, which is skipped like any blank line
+          if (i > start) {
+            parseLine(raw.substring(start, i), st, state);
+          }
+          start = i + 1;
+        }
+      }
+    }
+    st.setReactNativeJsException(state.isReactNativeJsException);
+    return st;
+  }
+
+  /**
+   * Parses pre-split lines. Lines must not contain line terminators.
+   */
   public static ParsedFrames parse(List<String> lines) {
     ParsedFrames st = new ParsedFrames();
     ParserState state = new ParserState();
     for (String line : lines) {
-      String trimmed = line == null ? "" : line.trim();
-      if (trimmed.isEmpty()) {
-        continue;
-      }
-      // 1. Detect exception types
-      detectExceptionTypes(line, trimmed, st, state);
-      // 2. Parse frames (order matters: RN compact → standard JS → Java → NDK)
-      // Track frame position for later reconstruction
-      if (tryParseJsFrame(line, trimmed, st, state)) {
-        continue;
-      }
-      if (tryParseJavaFrame(line, st, state)) {
-        continue;
-      }
-      tryParseNdkFrame(line, st, state);
+      parseLine(line, st, state);
     }
     // Set the React Native flag if detected
     st.setReactNativeJsException(state.isReactNativeJsException);
     return st;
   }
 
+  private static void parseLine(String line, ParsedFrames st, ParserState state) {
+    String trimmed = line == null ? "" : line.trim();
+    if (trimmed.isEmpty()) {
+      return;
+    }
+    // 1. Detect exception types
+    detectExceptionTypes(line, trimmed, st, state);
+    // 2. Parse frames (order matters: RN compact → standard JS → Java → NDK)
+    // Track frame position for later reconstruction
+    if (tryParseJsFrame(line, trimmed, st, state)) {
+      return;
+    }
+    if (tryParseJavaFrame(line, st, state)) {
+      return;
+    }
+    tryParseNdkFrame(line, st, state);
+  }
+
   private static void detectExceptionTypes(String line, String trimmed, ParsedFrames st, ParserState state) {
     // Detect React Native JavascriptException
-    Matcher rnJsEx = Regex.RN_JS_EXCEPTION.matcher(line);
-    if (rnJsEx.find()) {
+    String rnJsExType = Scan.rnJsExceptionType(line);
+    if (rnJsExType != null) {
       state.isReactNativeJsException = true;
-      if (!state.sawTopType && rnJsEx.group(1) != null) {
-        st.getJsTypes().add(rnJsEx.group(1));
+      if (!state.sawTopType) {
+        st.getJsTypes().add(rnJsExType);
         st.setPrimaryExceptionLane(Lane.JS);  // Track topmost exception
         st.setExceptionHeaderLine(trimmed);   // Store full exception line
         state.sawTopType = true;
@@ -72,32 +100,28 @@ public final class FramesParser {
     }
 
     // JS error line (TypeError, Error, etc.)
-    if (!state.sawTopType) {
-      Matcher jsTop = Regex.JS_ERR_LINE.matcher(trimmed);
-      if (jsTop.find()) {
-        st.getJsTypes().add(jsTop.group(1));
-        st.setPrimaryExceptionLane(Lane.JS);  // Track topmost exception
-        st.setExceptionHeaderLine(trimmed);   // Store full exception line
-        state.sawTopType = true;
-      }
+    String jsErrType = Scan.jsErrorType(trimmed);
+    if (!state.sawTopType && jsErrType != null) {
+      st.getJsTypes().add(jsErrType);
+      st.setPrimaryExceptionLane(Lane.JS);  // Track topmost exception
+      st.setExceptionHeaderLine(trimmed);   // Store full exception line
+      state.sawTopType = true;
     }
 
     // Java "Caused by" lines
-    Matcher mcb = Regex.JAVA_CAUSED_BY.matcher(line);
-    if (mcb.find()) {
-      st.getJavaTypes().add(mcb.group(1));
+    String causedBy = Scan.javaCausedByType(line);
+    if (causedBy != null) {
+      st.getJavaTypes().add(causedBy);
     }
 
     // Additional JS error type
-    Matcher mjs = Regex.JS_ERR_LINE.matcher(trimmed);
-    if (mjs.find() && st.getJsTypes().isEmpty()) {
-      st.getJsTypes().add(mjs.group(1));
+    if (jsErrType != null && st.getJsTypes().isEmpty()) {
+      st.getJsTypes().add(jsErrType);
     }
 
     // NDK signals
-    Matcher sig = Regex.NDK_SIGNAL.matcher(trimmed);
-    if (sig.find()) {
-      String signal = sig.group();
+    String signal = Scan.ndkSignal(trimmed);
+    if (signal != null) {
       if (!st.getNdkTypes().contains(signal)) {
         st.getNdkTypes().add(signal);
         if (st.getPrimaryExceptionLane() == null) {
@@ -108,9 +132,9 @@ public final class FramesParser {
 
     // Java headline (only if not claimed by JS and not a React Native JS exception)
     if (!state.sawTopType && !state.isReactNativeJsException) {
-      Matcher javaTop = Regex.JAVA_TOP_TYPE.matcher(trimmed);
-      if (javaTop.find()) {
-        st.getJavaTypes().add(javaTop.group(1));
+      String javaTop = Scan.javaTopType(trimmed);
+      if (javaTop != null) {
+        st.getJavaTypes().add(javaTop);
         st.setPrimaryExceptionLane(Lane.JAVA);  // Track topmost exception
         st.setExceptionHeaderLine(trimmed);     // Store full exception line
         state.sawTopType = true;
@@ -125,18 +149,16 @@ public final class FramesParser {
     }
 
     // Standard JS format: "at func (file:line:col)"
-    Matcher js1 = Regex.JS_AT_FUNC_FILE_LINE_COL.matcher(line);
-    if (js1.find()) {
-      st.getJsFrames().add(buildJsFrame(
-          js1.group(1), js1.group(2), js1.group(3), js1.group(4), line, state.framePosition++));
+    String[] js1 = Scan.jsAtFuncFileLineCol(line);
+    if (js1 != null) {
+      st.getJsFrames().add(buildJsFrame(js1[0], js1[1], js1[2], js1[3], line, state.framePosition++));
       return true;
     }
 
     // Standard JS format: "at file:line:col"
-    Matcher js2 = Regex.JS_AT_FILE_LINE_COL.matcher(line);
-    if (js2.find()) {
-      st.getJsFrames().add(buildJsFrame(
-          "anonymous", js2.group(1), js2.group(2), js2.group(3), line, state.framePosition++));
+    String[] js2 = Scan.jsAtFileLineCol(line);
+    if (js2 != null) {
+      st.getJsFrames().add(buildJsFrame("anonymous", js2[0], js2[1], js2[2], line, state.framePosition++));
       return true;
     }
 
@@ -144,41 +166,38 @@ public final class FramesParser {
   }
 
   private static boolean tryParseRnCompactFrame(String line, String trimmed, ParsedFrames st, ParserState state) {
-    // React Native format with column: "functionName@bundleId:line:column"
-    Matcher rnCompact1 = Regex.RN_COMPACT_FRAME_WITH_COL.matcher(trimmed);
-    if (rnCompact1.find()) {
-      st.getJsFrames().add(buildJsFrame(
-          rnCompact1.group(1), rnCompact1.group(2),
-          rnCompact1.group(3), rnCompact1.group(4), line, state.framePosition++));
-      return true;
+    String[] rnCompact = Scan.rnCompactFrame(trimmed);
+    if (rnCompact == null) {
+      return false;
     }
 
-    // React Native minified format: "functionName@bundleId:offset"
-    // Offset is character position (column) on line 1
-    Matcher rnCompact2 = Regex.RN_COMPACT_FRAME_NO_COL.matcher(trimmed);
-    if (rnCompact2.find()) {
+    if (rnCompact.length == 4) {
+      // React Native format with column: "functionName@bundleId:line:column"
+      st.getJsFrames().add(buildJsFrame(
+          rnCompact[0], rnCompact[1], rnCompact[2], rnCompact[3], line, state.framePosition++));
+    } else {
+      // React Native minified format: "functionName@bundleId:offset"
+      // Offset is character position (column) on line 1
       st.getJsFrames().add(JsFrame.builder()
-          .jsFunction(ErrorGroupingUtils.normalizeJsFunction(rnCompact2.group(1)))
-          .jsFile(ErrorGroupingUtils.sanitizeJsFile(rnCompact2.group(2)))
+          .jsFunction(ErrorGroupingUtils.normalizeJsFunction(rnCompact[0]))
+          .jsFile(ErrorGroupingUtils.sanitizeJsFile(rnCompact[1]))
           .jsLine(1)  // Minified bundles are on line 1
-          .jsColumn(ErrorGroupingUtils.safeInt(rnCompact2.group(3)))
+          .jsColumn(ErrorGroupingUtils.safeInt(rnCompact[2]))
           .rawLine(line)
           .originalPosition(state.framePosition++)
           .build());
-      return true;
     }
-
-    return false;
+    return true;
   }
 
   private static boolean tryParseJavaFrame(String line, ParsedFrames st, ParserState state) {
-    Matcher javaAt = Regex.JAVA_AT_LINE.matcher(line);
-    if (!javaAt.find()) {
+    String[] javaAt = Scan.javaAtLine(line);
+    if (javaAt == null) {
       return false;
     }
 
-    val classMethod = parseJavaClassMethod(javaAt.group(1));
-    val fileLineParsed = parseJavaFileLine(javaAt.group(2));
+    val classMethod = parseJavaClassMethod(javaAt[0]);
+    val fileLineParsed = parseJavaFileLine(javaAt[1]);
 
     st.getJavaFrames().add(JavaFrame.builder()
         .javaClass(classMethod.getLeft())
@@ -192,17 +211,18 @@ public final class FramesParser {
   }
 
   private static boolean tryParseNdkFrame(String line, ParsedFrames st, ParserState state) {
-    Matcher ndk = Regex.NDK_LINE.matcher(line);
-    if (!ndk.find()) {
+    String[] ndk = Scan.ndkLine(line);
+    if (ndk == null) {
       return false;
     }
 
-    String libPath = ndk.group(2);
-    String sym = ndk.group(3);
+    String libPath = ndk[1];
+    String sym = ndk[2];
+    int plus = sym == null ? -1 : sym.indexOf('+');
     st.getNdkFrames().add(NdkFrame.builder()
-        .ndkPc(ndk.group(1))
+        .ndkPc(ndk[0])
         .ndkLib(basename(libPath))
-        .ndkSymbol((sym == null || sym.isBlank()) ? null : sym.split("\\+", 2)[0])
+        .ndkSymbol((sym == null || sym.isBlank()) ? null : plus >= 0 ? sym.substring(0, plus) : sym)
         .rawLine(line)
         .originalPosition(state.framePosition++)
         .build());
@@ -230,7 +250,7 @@ public final class FramesParser {
     if (dot <= 0 || dot == l.length() - 1) {
       return Pair.of(l, "");
     }
-    String cls = l.substring(0, dot).replaceAll("\\$\\d+", "");
+    String cls = Scan.stripAnonymousClassIndexes(l, dot);
     String m = l.substring(dot + 1);
     if (m.contains("lambda$")) {
       m = "lambda";
@@ -256,34 +276,433 @@ public final class FramesParser {
     return (i >= 0) ? p.substring(i + 1) : p;
   }
 
-  private static class Regex {
-    private static final Pattern JAVA_TOP_TYPE =
-        Pattern.compile("^(?:Exception in thread \".*?\"\\s+)?([\\w$]+(?:\\.[\\w$]+)+)(?::.*)?$");
-    private static final Pattern JAVA_CAUSED_BY =
-        Pattern.compile("^\\s*Caused by:\\s*([\\w.$]+)(?::.*)?$");
-    private static final Pattern JAVA_AT_LINE =
-        Pattern.compile("^\\s*(?:at\\s+)?([^\\s(]+)\\(([^)]*)\\)\\s*$"); // left(file:line) - "at " is optional
-
-    // React Native JavascriptException pattern
-    private static final Pattern RN_JS_EXCEPTION =
-        Pattern.compile("JavascriptException.*?\\b(Error|Exception)\\b");
-
-    private static final Pattern JS_ERR_LINE =
-        Pattern.compile("^\\s*([A-Za-z_$][A-Za-z0-9_$]*(?:Error|Exception)|Invariant Violation)\\s*:?.*$");
-    private static final Pattern JS_AT_FUNC_FILE_LINE_COL =
-        Pattern.compile("^\\s*(?:at\\s+)?([^\\s(]+)\\s*\\(([^:]+):(\\d+):(\\d+)\\)\\s*$"); // "at " is optional
-    private static final Pattern JS_AT_FILE_LINE_COL =
-        Pattern.compile("^\\s*(?:at\\s+)?([^:]+):(\\d+):(\\d+)\\s*$"); // "at " is optional
-
-    // React Native compact format: functionName@bundleId:line:col or functionName@bundleId:line
-    private static final Pattern RN_COMPACT_FRAME_WITH_COL =
-        Pattern.compile("^\\s*([^@\\s]+)@([^:]+):(\\d+):(\\d+)\\s*$");
-    private static final Pattern RN_COMPACT_FRAME_NO_COL =
-        Pattern.compile("^\\s*([^@\\s]+)@([^:]+):(\\d+)\\s*$");
-
-    private static final Pattern NDK_LINE =
-        Pattern.compile("^\\s*#\\d+\\s+pc\\s+([0-9a-fA-Fx]+)\\s+(\\S+)(?:\\s+\\(([^)]+)\\))?.*$");
-    private static final Pattern NDK_SIGNAL = Pattern.compile("\\bSIG[A-Z0-9]+\\b");
+  /**
+   * Hand-written matchers for the line formats, one forward scan each with no backtracking. Each method documents the
+   * regular expression it is equivalent to ({@code find()} semantics, lines without line terminators); groups are
+   * returned in order, {@code null} means no match.
+   */
+  static final class Scan {
+    private static final String RN_JS_EXCEPTION = "JavascriptException";
+    private static final String CAUSED_BY = "Caused by:";
+    private static final String INVARIANT_VIOLATION = "Invariant Violation";
+    private static final String EXCEPTION_IN_THREAD = "Exception in thread \"";
+
+    private Scan() {
+    }
+
+    // Same separators as \R
+    static boolean isLineBreak(char c) {
+      return c == '\n' || c == '\u000B' || c == '\f' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    // \s
+    static boolean isSpace(char c) {
+      return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // \w
+    private static boolean isWord(char c) {
+      return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static boolean isDigit(char c) {
+      return c >= '0' && c <= '9';
+    }
+
+    private static int skipSpaces(String s, int i) {
+      while (i < s.length() && isSpace(s.charAt(i))) {
+        i++;
+      }
+      return i;
+    }
+
+    private static int skipDigits(String s, int i) {
+      while (i < s.length() && isDigit(s.charAt(i))) {
+        i++;
+      }
+      return i;
+    }
+
+    private static boolean onlySpacesFrom(String s, int i) {
+      return skipSpaces(s, i) == s.length();
+    }
+
+    // \b, with java.util.regex's definition of a word character (Unicode letters/digits, '_', attached marks)
+    private static boolean isWordBoundary(String s, int i) {
+      boolean left = i > 0 && isBoundaryWordChar(s, i - 1, Character.codePointBefore(s, i));
+      boolean right = i < s.length() && isBoundaryWordChar(s, i, Character.codePointAt(s, i));
+      return left ^ right;
+    }
+
+    private static boolean isBoundaryWordChar(String s, int i, int cp) {
+      if (cp == '_' || Character.isLetterOrDigit(cp)) {
+        return true;
+      }
+      if (Character.getType(cp) != Character.NON_SPACING_MARK) {
+        return false;
+      }
+      for (int x = i; x >= 0; x--) {
+        int ch = Character.codePointAt(s, x);
+        if (Character.isLetterOrDigit(ch)) {
+          return true;
+        }
+        if (Character.getType(ch) != Character.NON_SPACING_MARK) {
+          return false;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * {@code JavascriptException.*?\b(Error|Exception)\b}.
+     */
+    static String rnJsExceptionType(String s) {
+      int p = s.indexOf(RN_JS_EXCEPTION);
+      if (p < 0) {
+        return null;
+      }
+      for (int q = s.indexOf('E', p + RN_JS_EXCEPTION.length()); q >= 0; q = s.indexOf('E', q + 1)) {
+        if (!isWordBoundary(s, q)) {
+          continue;
+        }
+        if (s.startsWith("Error", q) && isWordBoundary(s, q + 5)) {
+          return "Error";
+        }
+        if (s.startsWith("Exception", q) && isWordBoundary(s, q + 9)) {
+          return "Exception";
+        }
+      }
+      return null;
+    }
+
+    /**
+     * {@code ^\s*([A-Za-z_$][A-Za-z0-9_$]*(?:Error|Exception)|Invariant Violation)\s*:?.*$}: the longest identifier
+     * prefix ending in Error/Exception.
+     */
+    static String jsErrorType(String s) {
+      int i = skipSpaces(s, 0);
+      if (i < s.length()) {
+        char first = s.charAt(i);
+        if ((first >= 'a' && first <= 'z') || (first >= 'A' && first <= 'Z') || first == '_' || first == '$') {
+          int end = i + 1;
+          while (end < s.length() && (isWord(s.charAt(end)) || s.charAt(end) == '$')) {
+            end++;
+          }
+          for (int k = end; k >= i + 6; k--) {
+            if (s.startsWith("Error", k - 5) || (k >= i + 10 && s.startsWith("Exception", k - 9))) {
+              return s.substring(i, k);
+            }
+          }
+        }
+      }
+      return s.startsWith(INVARIANT_VIOLATION, i) ? INVARIANT_VIOLATION : null;
+    }
+
+    /**
+     * {@code ^\s*Caused by:\s*([\w.$]+)(?::.*)?$}.
+     */
+    static String javaCausedByType(String s) {
+      int i = skipSpaces(s, 0);
+      if (!s.startsWith(CAUSED_BY, i)) {
+        return null;
+      }
+      i = skipSpaces(s, i + CAUSED_BY.length());
+      int end = i;
+      while (end < s.length() && (isWord(s.charAt(end)) || s.charAt(end) == '.' || s.charAt(end) == '$')) {
+        end++;
+      }
+      if (end == i || (end < s.length() && s.charAt(end) != ':')) {
+        return null;
+      }
+      return s.substring(i, end);
+    }
+
+    /**
+     * {@code \bSIG[A-Z0-9]+\b}.
+     */
+    static String ndkSignal(String s) {
+      for (int p = s.indexOf("SIG"); p >= 0; p = s.indexOf("SIG", p + 1)) {
+        if (!isWordBoundary(s, p)) {
+          continue;
+        }
+        int end = p + 3;
+        while (end < s.length() && ((s.charAt(end) >= 'A' && s.charAt(end) <= 'Z') || isDigit(s.charAt(end)))) {
+          end++;
+        }
+        if (end > p + 3 && isWordBoundary(s, end)) {
+          return s.substring(p, end);
+        }
+      }
+      return null;
+    }
+
+    /**
+     * {@code ^(?:Exception in thread ".*?"\s+)?([\w$]+(?:\.[\w$]+)+)(?::.*)?$}.
+     */
+    static String javaTopType(String s) {
+      if (s.startsWith(EXCEPTION_IN_THREAD)) {
+        for (int q = s.indexOf('"', EXCEPTION_IN_THREAD.length()); q >= 0; q = s.indexOf('"', q + 1)) {
+          int start = skipSpaces(s, q + 1);
+          if (start > q + 1) {
+            String type = qualifiedNameBeforeColon(s, start);
+            if (type != null) {
+              return type;
+            }
+          }
+        }
+      }
+      return qualifiedNameBeforeColon(s, 0);
+    }
+
+    // ([\w$]+(?:\.[\w$]+)+)(?::.*)?$ anchored at start
+    private static String qualifiedNameBeforeColon(String s, int start) {
+      int end = start;
+      int segmentStart = start;
+      boolean dotted = false;
+      while (end < s.length()) {
+        char c = s.charAt(end);
+        if (c == '.') {
+          if (end == segmentStart) {
+            return null;
+          }
+          dotted = true;
+          segmentStart = end + 1;
+        } else if (!isWord(c) && c != '$') {
+          break;
+        }
+        end++;
+      }
+      if (!dotted || end == segmentStart || (end < s.length() && s.charAt(end) != ':')) {
+        return null;
+      }
+      return s.substring(start, end);
+    }
+
+    /**
+     * {@code ^\s*(?:at\s+)?([^\s(]+)\(([^)]*)\)\s*$}.
+     */
+    static String[] javaAtLine(String s) {
+      int i = skipSpaces(s, 0);
+      if (startsWithAt(s, i)) {
+        String[] m = javaAtTail(s, skipSpaces(s, i + 2));
+        if (m != null) {
+          return m;
+        }
+      }
+      return javaAtTail(s, i);
+    }
+
+    private static String[] javaAtTail(String s, int start) {
+      int open = start;
+      while (open < s.length() && s.charAt(open) != '(' && !isSpace(s.charAt(open))) {
+        open++;
+      }
+      if (open == start || open == s.length() || s.charAt(open) != '(') {
+        return null;
+      }
+      int close = s.indexOf(')', open + 1);
+      if (close < 0 || !onlySpacesFrom(s, close + 1)) {
+        return null;
+      }
+      return new String[] {s.substring(start, open), s.substring(open + 1, close)};
+    }
+
+    /**
+     * {@code ^\s*(?:at\s+)?([^\s(]+)\s*\(([^:]+):(\d+):(\d+)\)\s*$}.
+     */
+    static String[] jsAtFuncFileLineCol(String s) {
+      int i = skipSpaces(s, 0);
+      if (startsWithAt(s, i)) {
+        String[] m = jsAtFuncTail(s, skipSpaces(s, i + 2));
+        if (m != null) {
+          return m;
+        }
+      }
+      return jsAtFuncTail(s, i);
+    }
+
+    private static String[] jsAtFuncTail(String s, int start) {
+      int funcEnd = start;
+      while (funcEnd < s.length() && s.charAt(funcEnd) != '(' && !isSpace(s.charAt(funcEnd))) {
+        funcEnd++;
+      }
+      if (funcEnd == start) {
+        return null;
+      }
+      int open = skipSpaces(s, funcEnd);
+      if (open == s.length() || s.charAt(open) != '(') {
+        return null;
+      }
+      int colon = s.indexOf(':', open + 1);
+      if (colon <= open + 1) {
+        return null;
+      }
+      int lineEnd = skipDigits(s, colon + 1);
+      if (lineEnd == colon + 1 || lineEnd == s.length() || s.charAt(lineEnd) != ':') {
+        return null;
+      }
+      int colEnd = skipDigits(s, lineEnd + 1);
+      if (colEnd == lineEnd + 1 || colEnd == s.length() || s.charAt(colEnd) != ')' || !onlySpacesFrom(s, colEnd + 1)) {
+        return null;
+      }
+      return new String[] {s.substring(start, funcEnd), s.substring(open + 1, colon),
+          s.substring(colon + 1, lineEnd), s.substring(lineEnd + 1, colEnd)};
+    }
+
+    /**
+     * {@code ^\s*(?:at\s+)?([^:]+):(\d+):(\d+)\s*$}. The file group may contain whitespace, so when it would be empty
+     * the regex gives one whitespace character back to it; {@code fallbackStart} reproduces that.
+     */
+    static String[] jsAtFileLineCol(String s) {
+      int i = skipSpaces(s, 0);
+      if (startsWithAt(s, i)) {
+        int start = skipSpaces(s, i + 2);
+        String[] m = jsAtFileTail(s, start, start - 1 > i + 2 ? start - 1 : -1);
+        if (m != null) {
+          return m;
+        }
+      }
+      return jsAtFileTail(s, i, i > 0 ? i - 1 : -1);
+    }
+
+    private static String[] jsAtFileTail(String s, int start, int fallbackStart) {
+      int colon = s.indexOf(':', start);
+      if (colon < 0) {
+        return null;
+      }
+      if (colon == start) {
+        if (fallbackStart < 0) {
+          return null;
+        }
+        start = fallbackStart;
+      }
+      int lineEnd = skipDigits(s, colon + 1);
+      if (lineEnd == colon + 1 || lineEnd == s.length() || s.charAt(lineEnd) != ':') {
+        return null;
+      }
+      int colEnd = skipDigits(s, lineEnd + 1);
+      if (colEnd == lineEnd + 1 || !onlySpacesFrom(s, colEnd)) {
+        return null;
+      }
+      return new String[] {s.substring(start, colon), s.substring(colon + 1, lineEnd),
+          s.substring(lineEnd + 1, colEnd)};
+    }
+
+    /**
+     * {@code ^\s*([^@\s]+)@([^:]+):(\d+):(\d+)\s*$} (four groups), else {@code ^\s*([^@\s]+)@([^:]+):(\d+)\s*$} (three
+     * groups).
+     */
+    static String[] rnCompactFrame(String s) {
+      int start = skipSpaces(s, 0);
+      int at = start;
+      while (at < s.length() && s.charAt(at) != '@' && !isSpace(s.charAt(at))) {
+        at++;
+      }
+      if (at == start || at == s.length() || s.charAt(at) != '@') {
+        return null;
+      }
+      int colon = s.indexOf(':', at + 1);
+      if (colon <= at + 1) {
+        return null;
+      }
+      int lineEnd = skipDigits(s, colon + 1);
+      if (lineEnd == colon + 1) {
+        return null;
+      }
+      String func = s.substring(start, at);
+      String file = s.substring(at + 1, colon);
+      String line = s.substring(colon + 1, lineEnd);
+      if (lineEnd < s.length() && s.charAt(lineEnd) == ':') {
+        int colEnd = skipDigits(s, lineEnd + 1);
+        if (colEnd > lineEnd + 1 && onlySpacesFrom(s, colEnd)) {
+          return new String[] {func, file, line, s.substring(lineEnd + 1, colEnd)};
+        }
+      }
+      return onlySpacesFrom(s, lineEnd) ? new String[] {func, file, line} : null;
+    }
+
+    /**
+     * {@code ^\s*#\d+\s+pc\s+([0-9a-fA-Fx]+)\s+(\S+)(?:\s+\(([^)]+)\))?.*$}; the third group may be {@code null}.
+     */
+    static String[] ndkLine(String s) {
+      int hash = skipSpaces(s, 0);
+      if (hash == s.length() || s.charAt(hash) != '#') {
+        return null;
+      }
+      int frameEnd = skipDigits(s, hash + 1);
+      if (frameEnd == hash + 1) {
+        return null;
+      }
+      int pc = skipSpaces(s, frameEnd);
+      if (pc == frameEnd || !s.startsWith("pc", pc)) {
+        return null;
+      }
+      int addrStart = skipSpaces(s, pc + 2);
+      if (addrStart == pc + 2) {
+        return null;
+      }
+      int addrEnd = addrStart;
+      while (addrEnd < s.length() && isPcChar(s.charAt(addrEnd))) {
+        addrEnd++;
+      }
+      if (addrEnd == addrStart) {
+        return null;
+      }
+      int libStart = skipSpaces(s, addrEnd);
+      if (libStart == addrEnd) {
+        return null;
+      }
+      int libEnd = libStart;
+      while (libEnd < s.length() && !isSpace(s.charAt(libEnd))) {
+        libEnd++;
+      }
+      if (libEnd == libStart) {
+        return null;
+      }
+      String symbol = null;
+      int open = skipSpaces(s, libEnd);
+      if (open > libEnd && open < s.length() && s.charAt(open) == '(') {
+        int close = s.indexOf(')', open + 1);
+        if (close > open + 1) {
+          symbol = s.substring(open + 1, close);
+        }
+      }
+      return new String[] {s.substring(addrStart, addrEnd), s.substring(libStart, libEnd), symbol};
+    }
+
+    private static boolean isPcChar(char c) {
+      return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F') || c == 'x';
+    }
+
+    // "at" followed by \s
+    private static boolean startsWithAt(String s, int i) {
+      return s.startsWith("at", i) && i + 2 < s.length() && isSpace(s.charAt(i + 2));
+    }
+
+    /**
+     * {@code cls.replaceAll("\\$\\d+", "")} for {@code cls = l.substring(0, end)}.
+     */
+    static String stripAnonymousClassIndexes(String l, int end) {
+      int dollar = l.indexOf('$');
+      if (dollar < 0 || dollar >= end) {
+        return l.substring(0, end);
+      }
+      StringBuilder sb = new StringBuilder(end);
+      int i = 0;
+      while (i < end) {
+        char c = l.charAt(i);
+        if (c == '$' && i + 1 < end && isDigit(l.charAt(i + 1))) {
+          i += 2;
+          while (i < end && isDigit(l.charAt(i))) {
+            i++;
+          }
+        } else {
+          sb.append(c);
+          i++;
+        }
+      }
+      return sb.toString();
+    }
   }
 
   // Parser state holder
@@ -0,0 +1,61 @@
+package org.dreamhorizon.pulseserver.errorgrouping;
+
+import com.android.tools.r8.retrace.ProguardMapProducer;
+import com.android.tools.r8.retrace.ProguardMappingSupplier;
+import com.android.tools.r8.retrace.Retrace;
+import com.android.tools.r8.retrace.RetraceCommand;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * R8 retracer for a single mapping file (one app version / version code).
+ *
+ * <p>The mapping is parsed once, eagerly, into R8's class/method index (all class definitions are loaded, so later
+ * stack traces never trigger another scan of the mapping text). Each {@link #retrace(List)} call then retraces a
+ * whole batch of frames against that index. Instances are meant to be cached and shared, see
+ * {@code SourceMapCache#getRetracer}.
+ *
+ * <p>Thread safety: {@link #retrace(List)} may be called concurrently without locking. R8's supplier only mutates
+ * itself to record classes it has not indexed yet; with {@code setLoadAllDefinitions(true)} every class is indexed by
+ * the warm-up in {@link #of(ProguardMapProducer)}, before the instance is published, so later calls only read that
+ * index. Loading definitions lazily would make the supplier mutable again and need a lock around each call.
+ */
+public class ProguardRetracer {
+  // Any frame works; retracing one forces the supplier to build its index before the instance is published
+  private static final String WARM_UP_FRAME = "\tat a.a(SourceFile:1)";
+
+  private final ProguardMappingSupplier mappingSupplier;
+
+  private ProguardRetracer(ProguardMapProducer mapProducer) {
+    this.mappingSupplier = ProguardMappingSupplier.builder()
+        .setProguardMapProducer(mapProducer)
+        .setLoadAllDefinitions(true)
+        .build();
+  }
+
+  public static ProguardRetracer fromMapping(String mapping) {
+    return of(ProguardMapProducer.fromString(mapping));
+  }
+
+  public static ProguardRetracer of(ProguardMapProducer mapProducer) {
+    ProguardRetracer retracer = new ProguardRetracer(mapProducer);
+    retracer.retrace(List.of(WARM_UP_FRAME));
+    return retracer;
+  }
+
+  /**
+   * Retraces raw stack trace lines. Output is in R8's verbose format, so it may contain more lines than the input
+   * (inlined frames are expanded).
+   */
+  public List<String> retrace(List<String> stackTraceLines) {
+    List<String> out = new ArrayList<>(stackTraceLines.size());
+    Retrace.run(
+        RetraceCommand.builder()
+            .setMappingSupplier(mappingSupplier)
+            .setStackTrace(stackTraceLines)
+            .setVerbose(true)
+            .setRetracedStackTraceConsumer(out::addAll)
+            .build());
+    return out;
+  }
+}
@@ -1,15 +1,9 @@
 package org.dreamhorizon.pulseserver.errorgrouping;
 
-import com.android.tools.r8.retrace.ProguardMappingSupplier;
-import com.android.tools.r8.retrace.Retrace;
-import com.android.tools.r8.retrace.RetraceCommand;
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.debugging.sourcemap.SourceMapConsumerV3;
 import com.google.debugging.sourcemap.proto.Mapping;
 import com.google.inject.Inject;
 import io.reactivex.rxjava3.core.Single;
-import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +13,9 @@ import org.dreamhorizon.pulseserver.errorgrouping.model.EventMeta;
 import org.dreamhorizon.pulseserver.errorgrouping.model.Frame;
 import org.dreamhorizon.pulseserver.errorgrouping.model.JsFrame;
 import org.dreamhorizon.pulseserver.errorgrouping.model.UploadMetadata;
+import org.dreamhorizon.pulseserver.errorgrouping.service.ArtifactAvailabilityIndex;
+import org.dreamhorizon.pulseserver.errorgrouping.service.GroupingWorkerPool;
+import org.dreamhorizon.pulseserver.errorgrouping.service.GroupingWorkerPool.Stage;
 import org.dreamhorizon.pulseserver.errorgrouping.service.SourceMapCache;
 
 @Slf4j
@@ -26,12 +23,9 @@ import org.dreamhorizon.pulseserver.errorgrouping.service.SourceMapCache;
 public class Symbolicator {
 
   private final SourceMapCache sourceMapCache;
-
-  // OPTIMIZATION: Circuit breaker - cache which versions don't have source maps to fail fast
-  private final Cache<String, Boolean> sourceMapExists = Caffeine.newBuilder()
-      .expireAfterWrite(Duration.ofMinutes(5))
-      .maximumSize(500)
-      .build();
+  // OPTIMIZATION: Circuit breaker - versions without an uploaded artifact fail fast without touching the DB
+  private final ArtifactAvailabilityIndex artifactAvailabilityIndex;
+  private final GroupingWorkerPool groupingWorkerPool;
 
   public String symbolicateNames(JsFrame frame, SourceMapConsumerV3 sourceMap) {
     // RN/Metro/Hermes report 1-based line & column; SourceMap expects 1-based too.
@@ -69,69 +63,57 @@ public class Symbolicator {
    */
   @SneakyThrows
   public Single<List<String>> symbolicateJsInPlace(List<Frame> jsFrames, EventMeta eventMeta) {
-    String cacheKey = eventMeta.getPlatform() + ":" + eventMeta.getAppVersion() + ":JS";
+    UploadMetadata artifact = artifactFor(eventMeta, "JS");
 
-    // OPTIMIZATION: Fast path - check if we already know source map doesn't exist
-    if (Boolean.FALSE.equals(sourceMapExists.getIfPresent(cacheKey))) {
+    // OPTIMIZATION: Fast path - no source map uploaded for this version
+    if (!artifactAvailabilityIndex.mightHave(artifact)) {
       return Single.just(jsFrames.stream().map(Frame::getToken).toList());
     }
 
-    return sourceMapCache.getSourceMap(UploadMetadata.builder()
-            .versionCode(eventMeta.getAppVersionCode())
-            .appVersion(eventMeta.getAppVersion())
-            .platform(eventMeta.getPlatform())
-            .type("JS")
-            .build())
-        .map(sourcemap -> {
+    return sourceMapCache.getSourceMap(artifact)
+        // A freshly loaded source map is emitted on the event loop; look frames up on the grouping workers
+        .observeOn(groupingWorkerPool.scheduler())
+        .map(sourcemap -> groupingWorkerPool.time(Stage.SYMBOLICATE_JS, () -> {
           List<String> out = new ArrayList<>(jsFrames.size());
           for (Frame f : jsFrames) {
             out.add(symbolicateNames((JsFrame) f, sourcemap));
           }
-          sourceMapExists.put(cacheKey, true);  // Cache success
           return out;
-        })
+        }))
         .onErrorReturn(error -> {
-          sourceMapExists.put(cacheKey, false);  // Cache failure
+          artifactAvailabilityIndex.markUnavailable(artifact);  // Listed but unusable
           return jsFrames.stream().map(Frame::getToken).toList();
         });
   }
 
   /**
-   * Java retrace: plug either Retrace API or CLI. Here we leave tokens if mapping not wired.
+   * Java retrace through the per-version {@link ProguardRetracer}. Tokens are left as-is if no mapping is available.
    */
   public Single<List<String>> retrace(List<Frame> javaFrames, EventMeta eventMeta) {
-    String cacheKey = eventMeta.getPlatform() + ":" + eventMeta.getAppVersion() + ":JAVA";
+    UploadMetadata artifact = artifactFor(eventMeta, "JAVA");
 
-    // OPTIMIZATION: Fast path - check if we already know ProGuard map doesn't exist
-    if (Boolean.FALSE.equals(sourceMapExists.getIfPresent(cacheKey))) {
+    // OPTIMIZATION: Fast path - no ProGuard map uploaded for this version
+    if (!artifactAvailabilityIndex.mightHave(artifact)) {
       return Single.just(javaFrames.stream().map(Frame::getToken).toList());
     }
 
-    List<String> out = new ArrayList<>();
-
-    return sourceMapCache.getProguardMap(UploadMetadata.builder()
-            .versionCode(eventMeta.getAppVersionCode())
-            .appVersion(eventMeta.getAppVersion())
-            .platform(eventMeta.getPlatform())
-            .type("JAVA")
-            .build())
-        .map(proguardMapProducer -> {
-          Retrace.run(
-              RetraceCommand.builder()
-                  .setMappingSupplier(ProguardMappingSupplier.builder()
-                      .setProguardMapProducer(proguardMapProducer)
-                      .setLoadAllDefinitions(false) // lazy load for speed
-                      .build())
-                  .setStackTrace(javaFrames.stream().map(Frame::getRawLine).toList())
-                  .setVerbose(true)
-                  .setRetracedStackTraceConsumer(out::addAll)
-                  .build());
-          sourceMapExists.put(cacheKey, true);  // Cache success
-          return out;
-        })
+    return sourceMapCache.getRetracer(artifact)
+        .observeOn(groupingWorkerPool.scheduler())
+        // All frames of the event in one batch against the pre-built mapping index
+        .map(retracer -> groupingWorkerPool.time(Stage.RETRACE,
+            () -> retracer.retrace(javaFrames.stream().map(Frame::getRawLine).toList())))
         .onErrorReturn(error -> {
-          sourceMapExists.put(cacheKey, false);  // Cache failure
+          artifactAvailabilityIndex.markUnavailable(artifact);  // Listed but unusable
           return javaFrames.stream().map(Frame::getToken).toList();
         });
   }
+
+  private static UploadMetadata artifactFor(EventMeta eventMeta, String type) {
+    return UploadMetadata.builder()
+        .versionCode(eventMeta.getAppVersionCode())
+        .appVersion(eventMeta.getAppVersion())
+        .platform(eventMeta.getPlatform())
+        .type(type)
+        .build();
+  }
 }
@@ -1,5 +1,6 @@
 package org.dreamhorizon.pulseserver.errorgrouping.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.List;
 import java.util.Map;
@@ -17,6 +18,10 @@ public class StackTraceEvent {
   @JsonProperty("Timestamp")
   private String timestamp;
 
+  // Same instant as timestamp, kept numeric for binary insert formats
+  @JsonIgnore
+  private long timestampUnixNano;
+
   @JsonProperty("PulseType")
   private String pulseType;
 
@@ -0,0 +1,93 @@
+package org.dreamhorizon.pulseserver.errorgrouping.service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.Inject;
+import io.reactivex.rxjava3.core.Completable;
+import io.vertx.core.Vertx;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.dreamhorizon.pulseserver.errorgrouping.model.UploadMetadata;
+
+/**
+ * JVM-wide set of the symbol files that exist in {@code symbol_files}, so events for versions without a source map or
+ * mapping file are passed through after one hash lookup instead of a DB round trip.
+ *
+ * <p>Loaded from the metadata columns at startup and re-read periodically to pick up uploads handled by other
+ * instances; uploads on this instance are added immediately. Until the first load completes every artifact is
+ * reported as possibly available, i.e. the old behaviour of trying the DB.
+ */
+@Slf4j
+public class ArtifactAvailabilityIndex {
+  private static final Duration REFRESH_INTERVAL = Duration.ofMinutes(5);
+
+  private final Vertx vertx;
+  private final SymbolFileService symbolFileService;
+  private final Set<Key> available = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean started = new AtomicBoolean();
+  private volatile boolean loaded;
+
+  @Inject
+  public ArtifactAvailabilityIndex(Vertx vertx, SymbolFileService symbolFileService, MetricRegistry metricRegistry) {
+    this.vertx = vertx;
+    this.symbolFileService = symbolFileService;
+    metricRegistry.register("errorgrouping.artifact_index.size", (Gauge<Integer>) available::size);
+  }
+
+  /**
+   * Loads the index and schedules the periodic refresh. Safe to call from every verticle; only the first call counts.
+   */
+  public void start() {
+    if (!started.compareAndSet(false, true)) {
+      return;
+    }
+    refresh().subscribe(() -> { }, err -> { });
+    vertx.setPeriodic(REFRESH_INTERVAL.toMillis(), id -> refresh().subscribe(() -> { }, err -> { }));
+  }
+
+  Completable refresh() {
+    return symbolFileService.listFiles()
+        .doOnSuccess(files -> {
+          // symbol_files rows are only ever added or replaced, so a refresh only needs to add
+          files.forEach(file -> available.add(Key.of(file)));
+          loaded = true;
+          log.info("Symbol file availability index loaded: {} artifacts", available.size());
+        })
+        .doOnError(err -> log.error("Failed to load symbol file availability index: {}", err.getMessage()))
+        .ignoreElement();
+  }
+
+  /**
+   * False only when the artifact is known to be missing.
+   */
+  public boolean mightHave(UploadMetadata metadata) {
+    return !loaded || available.contains(Key.of(metadata));
+  }
+
+  public void markAvailable(UploadMetadata metadata) {
+    available.add(Key.of(metadata));
+  }
+
+  /**
+   * For artifacts that are listed but could not be loaded or parsed; the next refresh or upload lists them again.
+   */
+  public void markUnavailable(UploadMetadata metadata) {
+    available.remove(Key.of(metadata));
+  }
+
+  record Key(String platform, String appVersion, String versionCode, String type) {
+    static Key of(UploadMetadata metadata) {
+      return new Key(lower(metadata.getPlatform()), metadata.getAppVersion(), metadata.getVersionCode(),
+          lower(metadata.getType()));
+    }
+
+    // symbol_files stores platform/framework as lowercase ENUMs, Symbolicator asks for "JS" / "JAVA"
+    private static String lower(String value) {
+      return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+  }
+}
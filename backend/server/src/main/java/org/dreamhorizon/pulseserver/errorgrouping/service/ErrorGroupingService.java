@@ -13,19 +13,21 @@ import io.opentelemetry.proto.logs.v1.LogRecord;
 import io.opentelemetry.proto.logs.v1.ResourceLogs;
 import io.opentelemetry.proto.logs.v1.ScopeLogs;
 import io.opentelemetry.proto.resource.v1.Resource;
-import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Single;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -38,6 +40,7 @@ import org.dreamhorizon.pulseserver.errorgrouping.model.Group;
 import org.dreamhorizon.pulseserver.errorgrouping.model.Lane;
 import org.dreamhorizon.pulseserver.errorgrouping.model.ParsedFrames;
 import org.dreamhorizon.pulseserver.errorgrouping.model.StackTraceEvent;
+import org.dreamhorizon.pulseserver.errorgrouping.service.GroupingWorkerPool.Stage;
 import org.dreamhorizon.pulseserver.errorgrouping.utils.ErrorGroupingUtils;
 
 
@@ -46,12 +49,16 @@ import org.dreamhorizon.pulseserver.errorgrouping.utils.ErrorGroupingUtils;
 public class ErrorGroupingService {
 
   public static final String SIG_VERSION = "v1";
+  // Upper bound on rows buffered per insert while streaming a request
+  static final int INGEST_INSERT_CHUNK_SIZE = 1000;
   private static final char[] HEX = "0123456789abcdef".toCharArray();
   private static final DateTimeFormatter DT64_9 =
       DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSSSSS")
           .withZone(ZoneOffset.UTC);
   private final ClickhouseQueryService clickhouseQueryService;
   private final Symbolicator symbolicator;
+  private final SymbolicationResultCache symbolicationResultCache;
+  private final GroupingWorkerPool groupingWorkerPool;
   private final ObjectMapper objectMapper = new ObjectMapper();
 
   public static String traceIdHex(ByteString bs) {
@@ -236,75 +243,119 @@ public class ErrorGroupingService {
   }
 
   public Single<Long> ingest(ExportLogsServiceRequest exportLogsServiceRequest) {
-    return process(exportLogsServiceRequest)
-        .flatMap(clickhouseQueryService::insertStackTraces);
+    long logRecords = exportLogsServiceRequest.getResourceLogsList().stream()
+        .mapToLong(ErrorGroupingService::logRecordCount)
+        .sum();
+    return ingest(Flowable.fromIterable(exportLogsServiceRequest.getResourceLogsList()), logRecords);
+  }
+
+  /**
+   * Streaming ingestion: each {@link ResourceLogs} is grouped and released before the next one is pulled, and rows are
+   * written in chunks of {@link #INGEST_INSERT_CHUNK_SIZE}, so heap usage stays flat whatever the batch size.
+   *
+   * <p>Chunks are committed one after another, so a failure after the first chunk leaves the earlier ones written. It
+   * is then raised as a {@link PartialIngestException}, since resending the whole request would duplicate them.
+   * {@code logRecords} is the number of OTLP log records in {@code resourceLogs}, which the caller must already have
+   * decoded in full, so that every record not written, read or not, is reported as rejected.
+   */
+  public Single<Long> ingest(Flowable<ResourceLogs> resourceLogs, long logRecords) {
+    return Single.defer(() -> {
+      AtomicLong written = new AtomicLong();
+      return resourceLogs
+          .concatMapSingle(this::process)
+          .concatMapIterable(events -> events)
+          .buffer(INGEST_INSERT_CHUNK_SIZE)
+          .concatMapSingle(chunk -> clickhouseQueryService.insertStackTraces(chunk).doOnSuccess(written::addAndGet))
+          .reduce(0L, Long::sum)
+          .onErrorResumeNext(error -> written.get() == 0
+              ? Single.error(error)
+              : Single.error(new PartialIngestException(written.get(), logRecords - written.get(), error)));
+    });
+  }
+
+  public static long logRecordCount(ResourceLogs resourceLogs) {
+    long count = 0;
+    for (ScopeLogs scopeLogs : resourceLogs.getScopeLogsList()) {
+      count += scopeLogs.getLogRecordsCount();
+    }
+    return count;
   }
 
   public Single<List<StackTraceEvent>> process(ExportLogsServiceRequest exportLogsServiceRequest) {
+    return Flowable.fromIterable(exportLogsServiceRequest.getResourceLogsList())
+        .concatMapSingle(this::process)
+        .concatMapIterable(events -> events)
+        .toList();
+  }
+
+  public Single<List<StackTraceEvent>> process(ResourceLogs rl) {
     List<Single<StackTraceEvent>> events = new ArrayList<>();
-    for (ResourceLogs rl : exportLogsServiceRequest.getResourceLogsList()) {
-      Resource res = rl.getResource();
-
-      // OPTIMIZATION: Convert resource attributes to map once per resource, reuse for all logs
-      Map<String, String> resourceAttrMap = attributesToMap(res.getAttributesList());
-      String appVersion = getResourceAttribute(resourceAttrMap, "app.build_name").orElse(null);
-      String appVersionCode = getResourceAttribute(resourceAttrMap, "app.build_id").orElse(null);
-      String platform = getResourceAttribute(resourceAttrMap, "os.name").orElse(null);
-
-
-      for (ScopeLogs scopeLogs : rl.getScopeLogsList()) {
-        for (LogRecord logRecord : scopeLogs.getLogRecordsList()) {
-          // OPTIMIZATION: Convert log record attributes to map once per log
-          Map<String, String> logAttrMap = attributesToMap(logRecord.getAttributesList());
-
-          String stackTrace = getResourceAttribute(logAttrMap, "exception.stacktrace").orElse(null);
-
-
-          EventMeta eventMeta = EventMeta.builder()
-              .appVersion(appVersion)
-              .appVersionCode(appVersionCode)
-              .platform(platform)
-              .build();
-
-          // Use processWithCompleteSymbolication to get both grouping and full symbolication
-          events.add(processWithCompleteSymbolication(stackTrace, eventMeta)
-              .map(result -> {
-                // Reconstruct complete symbolicated stack trace
-                String symbolicatedStackTrace = result.completeSymbolication().reconstructStackTrace();
-
-                return StackTraceEvent.builder()
-                    .timestamp(formatTs9(logRecord.getObservedTimeUnixNano()))
-                    .pulseType(logRecord.getEventName())
-                    .exceptionStackTraceRaw(stackTrace)  // Raw original stack trace
-                    .exceptionStackTrace(symbolicatedStackTrace)  // Complete symbolicated stack trace
-                    .exceptionMessage(getResourceAttribute(logAttrMap, "exception.message").orElse(null))
-                    .exceptionType(getResourceAttribute(logAttrMap, "exception.type").orElse(null))
-                    .screenName(getResourceAttribute(logAttrMap, "screen.name").orElse(null))
-                    .userId(getResourceAttribute(logAttrMap, "user.id").orElse(null))
-                    .sessionId(getResourceAttribute(logAttrMap, "session.id").orElse(null))
-                    .osVersion(getResourceAttribute(resourceAttrMap, "os.version").orElse(null))
-                    .platform(platform)
-                    .appVersionCode(appVersionCode)
-                    .appVersion(appVersion)
-                    .sdkVersion(getResourceAttribute(resourceAttrMap, "rum.sdk.version").orElse(null))
-                    .deviceModel(getResourceAttribute(resourceAttrMap, "device.model.name").orElse(null))
-                    .spanId(spanIdHex(logRecord.getSpanId()))
-                    .traceId(traceIdHex(logRecord.getTraceId()))
-                    .groupId(result.group().getGroupId())
-                    .title(result.group().getDisplayName())
-                    .signature(result.group().getSignature())
-                    .fingerprint(result.group().getFingerprint())
-                    .interactions(getInteractionNames(resourceAttrMap))
-                    .resourceAttributes(resourceAttrMap)
-                    .scopeAttributes(attributesToMap(scopeLogs.getScope().getAttributesList()))
-                    .logAttributes(logAttrMap)
-                    .build();
-              }));
-        }
+    Resource res = rl.getResource();
+
+    // OPTIMIZATION: Convert resource attributes to map once per resource, reuse for all logs
+    Map<String, String> resourceAttrMap = attributesToMap(res.getAttributesList());
+    String appVersion = getResourceAttribute(resourceAttrMap, "app.build_name").orElse(null);
+    String appVersionCode = getResourceAttribute(resourceAttrMap, "app.build_id").orElse(null);
+    String platform = getResourceAttribute(resourceAttrMap, "os.name").orElse(null);
+
+
+    for (ScopeLogs scopeLogs : rl.getScopeLogsList()) {
+      for (LogRecord logRecord : scopeLogs.getLogRecordsList()) {
+        // OPTIMIZATION: Convert log record attributes to map once per log
+        Map<String, String> logAttrMap = attributesToMap(logRecord.getAttributesList());
+
+        String stackTrace = getResourceAttribute(logAttrMap, "exception.stacktrace").orElse(null);
+
+
+        EventMeta eventMeta = EventMeta.builder()
+            .appVersion(appVersion)
+            .appVersionCode(appVersionCode)
+            .platform(platform)
+            .build();
+
+        // Use processWithCompleteSymbolication to get both grouping and full symbolication
+        events.add(processWithCompleteSymbolication(stackTrace, eventMeta)
+            .map(result -> {
+              // Reconstruct complete symbolicated stack trace
+              String symbolicatedStackTrace = result.completeSymbolication().reconstructStackTrace();
+
+              return StackTraceEvent.builder()
+                  .timestamp(formatTs9(logRecord.getObservedTimeUnixNano()))
+                  .timestampUnixNano(logRecord.getObservedTimeUnixNano())
+                  .pulseType(logRecord.getEventName())
+                  .exceptionStackTraceRaw(stackTrace)  // Raw original stack trace
+                  .exceptionStackTrace(symbolicatedStackTrace)  // Complete symbolicated stack trace
+                  .exceptionMessage(getResourceAttribute(logAttrMap, "exception.message").orElse(null))
+                  .exceptionType(getResourceAttribute(logAttrMap, "exception.type").orElse(null))
+                  .screenName(getResourceAttribute(logAttrMap, "screen.name").orElse(null))
+                  .userId(getResourceAttribute(logAttrMap, "user.id").orElse(null))
+                  .sessionId(getResourceAttribute(logAttrMap, "session.id").orElse(null))
+                  .osVersion(getResourceAttribute(resourceAttrMap, "os.version").orElse(null))
+                  .platform(platform)
+                  .appVersionCode(appVersionCode)
+                  .appVersion(appVersion)
+                  .sdkVersion(getResourceAttribute(resourceAttrMap, "rum.sdk.version").orElse(null))
+                  .deviceModel(getResourceAttribute(resourceAttrMap, "device.model.name").orElse(null))
+                  .spanId(spanIdHex(logRecord.getSpanId()))
+                  .traceId(traceIdHex(logRecord.getTraceId()))
+                  .groupId(result.group().getGroupId())
+                  .title(result.group().getDisplayName())
+                  .signature(result.group().getSignature())
+                  .fingerprint(result.group().getFingerprint())
+                  .interactions(getInteractionNames(resourceAttrMap))
+                  .resourceAttributes(resourceAttrMap)
+                  .scopeAttributes(attributesToMap(scopeLogs.getScope().getAttributesList()))
+                  .logAttributes(logAttrMap)
+                  .build();
+            }));
       }
     }
-    return Observable.fromIterable(events)              // List<Single<StackTraceEvent>>
-        .flatMapMaybe(s -> s.toMaybe().onErrorComplete()) // skip any failing Single
+    // Bounded fan-out: enough events in flight to keep the grouping workers busy without flooding their queue
+    return Flowable.fromIterable(events)              // List<Single<StackTraceEvent>>
+        .flatMapMaybe(s -> s.toMaybe().onErrorResumeNext(err -> err instanceof GroupingWorkerPool.QueueFullException
+            ? Maybe.error(err)          // overloaded: fail the request so the exporter retries
+            : Maybe.empty()),           // skip any other failing Single
+            false, groupingWorkerPool.parallelism())
         .toList();
   }
 
@@ -348,8 +399,14 @@ public class ErrorGroupingService {
    * 2. Reconstruct full symbolicated stack trace preserving order
    */
   public Single<ProcessingResult> processWithCompleteSymbolication(String raw, EventMeta meta) {
-    List<String> lines = Arrays.asList((raw == null ? "" : raw).split("\\R", -1));
-    ParsedFrames parsedFrames = parse(lines);
+    // Runs on the grouping workers, off the event loop.
+    // Repeat crashes (same version, same raw trace) skip parsing and symbolication entirely
+    return groupingWorkerPool.admit(
+        () -> symbolicationResultCache.get(raw, meta, () -> parseAndSymbolicate(raw, meta)));
+  }
+
+  private Single<ProcessingResult> parseAndSymbolicate(String raw, EventMeta meta) {
+    ParsedFrames parsedFrames = groupingWorkerPool.time(Stage.PARSE, () -> parse(raw));
 
     // Choose primary lane for grouping
     Lane primary = choosePrimary(parsedFrames);
@@ -362,17 +419,18 @@ public class ErrorGroupingService {
     // Symbolicate primary lane for grouping
     Single<List<String>> primaryTokens = symbolicate(primary, primaryFrames, meta);
 
-    return Single.zip(primaryTokens, completeSymb, (tokens, complete) -> {
-      // Build group from primary lane
-      String platformTag = ErrorGroupingUtils.platformTag(primary);
-      String signature = buildSignature(platformTag, excTypes, tokens);
-      String sha1 = ErrorGroupingUtils.sha1Hex(signature);
-      String groupId = "EXC-" + sha1.substring(0, 10).toUpperCase(Locale.ROOT);
-      String title = buildDisplayName(primary, excTypes, tokens, groupId);
-      Group group = new Group(platformTag, signature, sha1, groupId, title);
+    return Single.zip(primaryTokens, completeSymb, (tokens, complete) -> groupingWorkerPool.time(Stage.SIGNATURE,
+        () -> new ProcessingResult(buildGroup(primary, excTypes, tokens), complete)));
+  }
 
-      return new ProcessingResult(group, complete);
-    });
+  private static Group buildGroup(Lane primary, List<String> excTypes, List<String> tokens) {
+    // Build group from primary lane
+    String platformTag = ErrorGroupingUtils.platformTag(primary);
+    String signature = buildSignature(platformTag, excTypes, tokens);
+    String sha1 = ErrorGroupingUtils.sha1Hex(signature);
+    String groupId = "EXC-" + sha1.substring(0, 10).toUpperCase(Locale.ROOT);
+    String title = buildDisplayName(primary, excTypes, tokens, groupId);
+    return new Group(platformTag, signature, sha1, groupId, title);
   }
 
   /**
@@ -412,4 +470,20 @@ public class ErrorGroupingService {
 
   public record ProcessingResult(Group group, CompleteSymbolication completeSymbolication) {
   }
+
+  /**
+   * Raised when ingestion fails after some of the request's log records have been written. {@code rejectedRecords}
+   * counts every other log record of the request, including those not read before the failure.
+   */
+  @Getter
+  public static class PartialIngestException extends RuntimeException {
+    private final long writtenRecords;
+    private final long rejectedRecords;
+
+    public PartialIngestException(long writtenRecords, long rejectedRecords, Throwable cause) {
+      super("Ingestion stopped after " + writtenRecords + " log records were written: " + cause.getMessage(), cause);
+      this.writtenRecords = writtenRecords;
+      this.rejectedRecords = rejectedRecords;
+    }
+  }
 }
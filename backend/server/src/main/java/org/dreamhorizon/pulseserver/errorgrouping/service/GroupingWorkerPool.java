@@ -0,0 +1,154 @@
+package org.dreamhorizon.pulseserver.errorgrouping.service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.inject.Inject;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.dreamhorizon.pulseserver.config.ApplicationConfig;
+
+/**
+ * Dedicated threads for the CPU-heavy part of error grouping (stack trace parsing, R8 retrace, source map lookups,
+ * signature hashing), so a large batch or a huge mapping file does not stall the Vert.x event loops that serve the
+ * rest of the API.
+ *
+ * <p>Events are admitted with {@link #admit}: at most {@code groupingMaxQueuedEvents} events may be queued or in
+ * progress across all requests, beyond that the event fails with {@link QueueFullException} and the OTLP request is
+ * answered with 503 so the collector backs off. Work that belongs to an admitted event is never rejected.
+ */
+public class GroupingWorkerPool {
+  private static final int DEFAULT_MAX_QUEUED_EVENTS = 10_000;
+  private static final String METRIC_PREFIX = "errorgrouping.pipeline.";
+
+  private final ThreadPoolExecutor executor;
+  private final Scheduler scheduler;
+  private final int threads;
+  private final int maxQueuedEvents;
+  private final AtomicInteger queuedEvents = new AtomicInteger();
+
+  private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+  private final Timer queueWait;
+  private final Meter rejectedEvents;
+
+  @Inject
+  public GroupingWorkerPool(ApplicationConfig applicationConfig, MetricRegistry metricRegistry) {
+    this.threads = Optional.ofNullable(applicationConfig.getGroupingWorkerThreads())
+        .orElse(Runtime.getRuntime().availableProcessors());
+    this.maxQueuedEvents = Optional.ofNullable(applicationConfig.getGroupingMaxQueuedEvents())
+        .orElse(DEFAULT_MAX_QUEUED_EVENTS);
+    // The task queue is bounded by admission: every admitted event has at most a few tasks queued at a time
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+        new WorkerThreadFactory());
+    // Continuations that are already on a worker run inline instead of going through the queue again
+    Executor inlineOnWorker = command -> {
+      if (Thread.currentThread() instanceof WorkerThread) {
+        command.run();
+      } else {
+        executor.execute(command);
+      }
+    };
+    this.scheduler = Schedulers.from(inlineOnWorker);
+
+    for (Stage stage : Stage.values()) {
+      stageTimers.put(stage, metricRegistry.timer(METRIC_PREFIX + stage.name().toLowerCase(Locale.ROOT)));
+    }
+    this.queueWait = metricRegistry.timer(METRIC_PREFIX + "queue_wait");
+    this.rejectedEvents = metricRegistry.meter(METRIC_PREFIX + "rejected_events");
+    metricRegistry.register(METRIC_PREFIX + "queued_events", (Gauge<Integer>) queuedEvents::get);
+    metricRegistry.register(METRIC_PREFIX + "queued_tasks", (Gauge<Integer>) () -> executor.getQueue().size());
+    metricRegistry.register(METRIC_PREFIX + "active_workers", (Gauge<Integer>) executor::getActiveCount);
+  }
+
+  /**
+   * Runs {@code work} for one event on the pool, or fails with {@link QueueFullException} if too many events are
+   * already waiting. The slot is held until the returned {@link Single} terminates or is disposed.
+   */
+  public <T> Single<T> admit(Supplier<Single<T>> work) {
+    return Single.defer(() -> {
+      if (queuedEvents.incrementAndGet() > maxQueuedEvents) {
+        queuedEvents.decrementAndGet();
+        rejectedEvents.mark();
+        return Single.error(new QueueFullException(maxQueuedEvents));
+      }
+      long enqueuedAt = System.nanoTime();
+      return Single.defer(() -> {
+            queueWait.update(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            return work.get();
+          })
+          .subscribeOn(scheduler)
+          .doFinally(queuedEvents::decrementAndGet);
+    });
+  }
+
+  /**
+   * Runs {@code work} synchronously and records its duration as {@code errorgrouping.pipeline.<stage>}.
+   */
+  public <T> T time(Stage stage, Supplier<T> work) {
+    Timer.Context timer = stageTimers.get(stage).time();
+    try {
+      return work.get();
+    } finally {
+      timer.stop();
+    }
+  }
+
+  /**
+   * Scheduler for moving a continuation (e.g. after an async symbol file load) back onto the pool.
+   */
+  public Scheduler scheduler() {
+    return scheduler;
+  }
+
+  /**
+   * How many events one request should have in flight at once: enough to keep every worker busy.
+   */
+  public int parallelism() {
+    return threads * 2;
+  }
+
+  public enum Stage {
+    PARSE,
+    SYMBOLICATE_JS,
+    RETRACE,
+    SIGNATURE
+  }
+
+  private static final class WorkerThread extends Thread {
+    WorkerThread(Runnable runnable, String name) {
+      super(runnable, name);
+      setDaemon(true);
+    }
+  }
+
+  private static final class WorkerThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      return new WorkerThread(runnable, "grouping-worker-" + count.incrementAndGet());
+    }
+  }
+
+  /**
+   * Raised when the pool already holds its maximum number of events; callers should retry later.
+   */
+  public static class QueueFullException extends RuntimeException {
+    public QueueFullException(int maxQueuedEvents) {
+      super("Error grouping queue is full (" + maxQueuedEvents + " events)");
+    }
+  }
+}
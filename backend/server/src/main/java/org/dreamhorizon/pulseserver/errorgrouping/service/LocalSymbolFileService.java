@@ -0,0 +1,188 @@
+package org.dreamhorizon.pulseserver.errorgrouping.service;
+
+import com.android.tools.r8.retrace.ProguardMapProducer;
+import com.google.inject.Inject;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.vertx.rxjava3.sqlclient.Row;
+import io.vertx.rxjava3.sqlclient.RowSet;
+import io.vertx.rxjava3.sqlclient.Tuple;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.dreamhorizon.pulseserver.client.mysql.MysqlClient;
+import org.dreamhorizon.pulseserver.config.ApplicationConfig;
+import org.dreamhorizon.pulseserver.errorgrouping.model.UploadMetadata;
+
+/**
+ * Keeps symbol file contents in a local {@link SymbolFileStore}; {@code symbol_files} only holds the metadata, the
+ * checksum and the size. Reads memory-map the stored file instead of pulling a LONGBLOB through the MySQL client.
+ *
+ * <p>Rows written before the store existed still carry {@code file_content}; they are copied into the store on first
+ * read. New uploads are kept only in the store, so {@code symbolFileStoreDir} has no default: it must name a durable
+ * directory, and with more than one server instance a volume shared by all of them. The service fails to start if it is
+ * unset or not writable.
+ */
+@Slf4j
+public class LocalSymbolFileService extends MysqlSymbolFileService {
+  private final SymbolFileStore store;
+
+  @Inject
+  public LocalSymbolFileService(MysqlClient d11MysqlClient, ApplicationConfig applicationConfig) {
+    super(d11MysqlClient);
+    this.store = new SymbolFileStore(storeDirectory(applicationConfig.getSymbolFileStoreDir()));
+  }
+
+  private static Path storeDirectory(String configured) {
+    if (configured == null || configured.isBlank()) {
+      throw new IllegalStateException("symbolFileStoreDir (CONFIG_SERVICE_APPLICATION_SYMBOLFILESTOREDIR) must be set "
+          + "to a durable directory; uploaded symbol files are kept only there");
+    }
+    Path directory = Path.of(configured);
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new IllegalStateException("Symbol file store " + directory + " cannot be created: " + e.getMessage(), e);
+    }
+    if (!Files.isWritable(directory)) {
+      throw new IllegalStateException("Symbol file store " + directory + " is not writable");
+    }
+    return directory;
+  }
+
+  @Override
+  public Single<Boolean> uploadFile(String fileName, InputStream fileInputStream, UploadMetadata metadata) {
+    // The caller keeps the multipart stream open until the returned Single terminates
+    return writeToStore(fileInputStream)
+        .flatMap(stored -> insertMetadata(stored, metadata))
+        .onErrorResumeNext(err -> {
+          log.error("Exception while storing mapping file for {}: {}", metadata.toString(), err.getMessage());
+          return Single.just(false);
+        });
+  }
+
+  private Single<Boolean> insertMetadata(SymbolFileStore.StoredFile stored, UploadMetadata metadata) {
+    final String sql =
+        "INSERT INTO symbol_files "
+            + "  (app_version, app_version_code, platform, framework, checksum, file_size, file_content) "
+            + "VALUES (?,?,?,?,?,?,NULL) "
+            + "ON DUPLICATE KEY UPDATE checksum = VALUES(checksum), file_size = VALUES(file_size), file_content = NULL";
+
+    return d11MysqlClient.getWriterPool()
+        .preparedQuery(sql)
+        .execute(Tuple.wrap(Arrays.asList(metadata.getAppVersion(),
+            metadata.getVersionCode(),
+            metadata.getPlatform(),
+            metadata.getType(),
+            stored.checksum(),
+            stored.size())))
+        .map(rows -> true)
+        .onErrorResumeNext(err -> {
+          log.error("Exception while uploading mapping file for {}: {}", metadata.toString(), err.getMessage());
+          return Single.just(false);
+        });
+  }
+
+  /**
+   * Local path of the symbol file, copying a legacy inline row into the store first if needed.
+   */
+  public Single<Path> resolveFile(UploadMetadata metadata) {
+    final String sql = """
+        SELECT checksum, file_content IS NOT NULL AS has_content
+        FROM symbol_files
+        WHERE app_version=? AND app_version_code=? AND platform=? AND framework=?
+        LIMIT 1
+        """;
+
+    Tuple params = Tuple.of(
+        metadata.getAppVersion(),
+        metadata.getVersionCode(),
+        metadata.getPlatform(),
+        metadata.getType()
+    );
+
+    return d11MysqlClient.getReaderPool()
+        .preparedQuery(sql)
+        .execute(params)
+        .flatMap((RowSet<Row> rows) -> {
+          var it = rows.iterator();
+          if (!it.hasNext()) {
+            log.warn("No symbol file found in database for: {}", metadata);
+            return Single.error(new NoSuchElementException("No symbol file found for: " + metadata));
+          }
+          Row row = it.next();
+          String checksum = row.getString("checksum");
+          Optional<Path> local = checksum == null ? Optional.empty() : store.find(checksum);
+          if (local.isPresent()) {
+            return Single.just(local.get());
+          }
+          Long hasContent = row.getLong("has_content");
+          if (hasContent == null || hasContent == 0) {
+            return Single.error(new NoSuchElementException(
+                "Symbol file " + checksum + " for " + metadata + " is missing from the local store"));
+          }
+          return migrateLegacyRow(metadata);
+        });
+  }
+
+  private Single<Path> migrateLegacyRow(UploadMetadata metadata) {
+    final String sql = """
+        UPDATE symbol_files SET checksum=?, file_size=?
+        WHERE app_version=? AND app_version_code=? AND platform=? AND framework=?
+        """;
+
+    return readFile(metadata)
+        .flatMap(buffer -> writeToStore(new ByteArrayInputStream(buffer.getBytes())))
+        .flatMap(stored -> d11MysqlClient.getWriterPool()
+            .preparedQuery(sql)
+            .execute(Tuple.wrap(Arrays.asList(stored.checksum(),
+                stored.size(),
+                metadata.getAppVersion(),
+                metadata.getVersionCode(),
+                metadata.getPlatform(),
+                metadata.getType())))
+            .map(rows -> {
+              log.info("Moved symbol file for {} into the local store ({} bytes)", metadata, stored.size());
+              return store.pathFor(stored.checksum());
+            }));
+  }
+
+  // Files can be hundreds of MB: written on an IO thread, never on the request thread or the event loop
+  private Single<SymbolFileStore.StoredFile> writeToStore(InputStream in) {
+    return Single.fromCallable(() -> store.write(in)).subscribeOn(Schedulers.io());
+  }
+
+  @Override
+  public Single<ByteBuffer> readFileAsByteBuffer(UploadMetadata metadata) {
+    return resolveFile(metadata).map(SymbolFileStore::map);
+  }
+
+  @Override
+  public Single<byte[]> readFileAsBytes(UploadMetadata metadata) {
+    return readFileAsByteBuffer(metadata).map(buffer -> {
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      return bytes;
+    });
+  }
+
+  @Override
+  public Single<String> readFileAsString(UploadMetadata metadata) {
+    // Decoded straight from the mapping: one heap copy instead of BLOB buffer + String
+    return readFileAsByteBuffer(metadata).map(buffer -> StandardCharsets.UTF_8.decode(buffer).toString());
+  }
+
+  @Override
+  public Single<ProguardMap> readProguardMap(UploadMetadata metadata) {
+    // R8 reads the file itself, the mapping text is never materialized as a String
+    return resolveFile(metadata).map(path -> new ProguardMap(ProguardMapProducer.fromPath(path), Files.size(path)));
+  }
+}
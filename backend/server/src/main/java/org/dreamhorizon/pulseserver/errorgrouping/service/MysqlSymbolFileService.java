@@ -8,7 +8,9 @@ import io.vertx.rxjava3.sqlclient.RowSet;
 import io.vertx.rxjava3.sqlclient.Tuple;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.NoSuchElementException;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
@@ -19,7 +21,7 @@ import org.dreamhorizon.pulseserver.errorgrouping.model.UploadMetadata;
 @RequiredArgsConstructor(onConstructor = @__({@Inject}))
 @Slf4j
 public class MysqlSymbolFileService extends SymbolFileService {
-  private final MysqlClient d11MysqlClient;
+  protected final MysqlClient d11MysqlClient;
 
   @SneakyThrows
   public static Buffer toBuffer(InputStream in) {
@@ -80,6 +82,30 @@ public class MysqlSymbolFileService extends SymbolFileService {
         });
   }
 
+  @Override
+  public Single<List<UploadMetadata>> listFiles() {
+    final String sql = """
+        SELECT app_version, app_version_code, platform, framework
+        FROM symbol_files
+        """;
+
+    return d11MysqlClient.getReaderPool()
+        .query(sql)
+        .execute()
+        .map((RowSet<Row> rows) -> {
+          List<UploadMetadata> files = new ArrayList<>(rows.size());
+          for (Row row : rows) {
+            files.add(UploadMetadata.builder()
+                .appVersion(row.getString("app_version"))
+                .versionCode(String.valueOf(row.getValue("app_version_code")))
+                .platform(row.getString("platform"))
+                .type(row.getString("framework"))
+                .build());
+          }
+          return files;
+        });
+  }
+
   @Override
   public Single<byte[]> readFileAsBytes(UploadMetadata metadata) {
     return readFile(metadata).map(Buffer::getBytes);
@@ -1,29 +1,55 @@
 package org.dreamhorizon.pulseserver.errorgrouping.service;
 
-import com.android.tools.r8.retrace.ProguardMapProducer;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.debugging.sourcemap.SourceMapConsumerV3;
 import com.google.inject.Inject;
+import io.reactivex.rxjava3.core.Scheduler;
 import io.reactivex.rxjava3.core.Single;
 import io.vertx.core.Context;
 import io.vertx.core.Vertx;
 import java.time.Duration;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import org.dreamhorizon.pulseserver.config.ApplicationConfig;
+import org.dreamhorizon.pulseserver.errorgrouping.ProguardRetracer;
 import org.dreamhorizon.pulseserver.errorgrouping.model.UploadMetadata;
 
+/**
+ * Parsed JS source maps and R8 retracers, keyed by {@link UploadMetadata} (the {@code type} keeps the two apart).
+ *
+ * <p>Entries are weighed by their estimated retained size and share one memory budget
+ * ({@code symbolCacheMaxWeightMb}), so a few huge mapping files cannot push the server out of memory and many small
+ * ones are not evicted early. Concurrent misses for the same key share a single load: one DB read and one parse.
+ * Parsing (and the R8 index build) runs on the grouping workers, not on the event loop that completes the DB read.
+ */
 public class SourceMapCache {
-  private final AsyncLoadingCache<UploadMetadata, SourceMapConsumerV3> sourceMapCache;
-  private final AsyncLoadingCache<UploadMetadata, ProguardMapProducer> r8Cache;
+  private static final long DEFAULT_MAX_WEIGHT_MB = 1024;
+  private static final String METRIC_PREFIX = "errorgrouping.symbol_cache.";
+  // Rough retained heap per byte of input: a parsed source map keeps one entry object per mapping segment, R8 keeps
+  // every class and method range of the mapping with its original names. Estimates only; size the budget with margin.
+  private static final int SOURCE_MAP_BYTES_PER_INPUT_BYTE = 4;
+  private static final int RETRACER_BYTES_PER_INPUT_BYTE = 3;
+
+  private final AsyncLoadingCache<UploadMetadata, Entry> cache;
+  private final Timer loadLatency;
 
   @Inject
-  public SourceMapCache(Vertx vertx, SymbolFileService symbolFileService) {
+  public SourceMapCache(Vertx vertx, SymbolFileService symbolFileService, ApplicationConfig applicationConfig,
+                        MetricRegistry metricRegistry, GroupingWorkerPool groupingWorkerPool) {
     Context ctx = vertx.getOrCreateContext();
     Objects.requireNonNull(ctx, "SourceMapCache must be created on a Vert.x context thread");
+    long maxWeightKb = Optional.ofNullable(applicationConfig.getSymbolCacheMaxWeightMb())
+        .orElse(DEFAULT_MAX_WEIGHT_MB) * 1024;
+    this.loadLatency = metricRegistry.timer(METRIC_PREFIX + "load_latency");
 
-    this.sourceMapCache = Caffeine.newBuilder()
-        .maximumSize(200)
+    this.cache = Caffeine.newBuilder()
+        .maximumWeight(maxWeightKb)
+        .weigher((UploadMetadata key, Entry entry) -> entry.weightKb())
         .executor(
             cmd -> {
               ctx.runOnContext(v -> cmd.run());
@@ -31,60 +57,71 @@ public class SourceMapCache {
         ).expireAfterAccess(Duration.ofHours(24))
         .recordStats()
         .buildAsync((UploadMetadata key, java.util.concurrent.Executor executor) -> {
-          // DB -> bytes -> parse
-          return symbolFileService.readFileAsString(key)
-              .map(file -> {
-                try {
-                  SourceMapConsumerV3 sourcemap = new SourceMapConsumerV3();
-                  sourcemap.parse(file);
-                  return sourcemap;
-                } catch (Exception e) {
-                  throw new RuntimeException("Failed to parse source map for " + key, e);
-                }
-              })
+          Timer.Context timer = loadLatency.time();
+          return load(symbolFileService, key, groupingWorkerPool.scheduler())
+              .doFinally(timer::stop)
               .toCompletionStage()
               .toCompletableFuture();
         });
 
-    this.r8Cache = Caffeine.newBuilder()
-        .maximumSize(200)
-        .executor(cmd -> {
-          Objects.requireNonNull(Vertx.currentContext());
-          Vertx.currentContext().runOnContext(v -> cmd.run());
-        }).expireAfterAccess(Duration.ofHours(24))
-        .recordStats()
-        .buildAsync((UploadMetadata key, java.util.concurrent.Executor executor) -> {
-          // DB -> bytes -> parse
-          return symbolFileService.readFileAsString(key)
-              .map(file -> {
-                try {
-                  return ProguardMapProducer.fromString(file);
-                } catch (Exception e) {
-                  throw new RuntimeException("Failed to parse source map for " + key, e);
-                }
-              })
-              .toCompletionStage()
-              .toCompletableFuture();
+    metricRegistry.register(METRIC_PREFIX + "size", (Gauge<Long>) () -> cache.synchronous().estimatedSize());
+    metricRegistry.register(METRIC_PREFIX + "weight_kb", (Gauge<Long>) () -> cache.synchronous().policy().eviction()
+        .map(eviction -> eviction.weightedSize().orElse(0L))
+        .orElse(0L));
+    metricRegistry.register(METRIC_PREFIX + "max_weight_kb", (Gauge<Long>) () -> maxWeightKb);
+    metricRegistry.register(METRIC_PREFIX + "hits", (Gauge<Long>) () -> cache.synchronous().stats().hitCount());
+    metricRegistry.register(METRIC_PREFIX + "misses", (Gauge<Long>) () -> cache.synchronous().stats().missCount());
+    metricRegistry.register(METRIC_PREFIX + "load_failures",
+        (Gauge<Long>) () -> cache.synchronous().stats().loadFailureCount());
+    metricRegistry.register(METRIC_PREFIX + "evictions",
+        (Gauge<Long>) () -> cache.synchronous().stats().evictionCount());
+    metricRegistry.register(METRIC_PREFIX + "evicted_weight_kb",
+        (Gauge<Long>) () -> cache.synchronous().stats().evictionWeight());
+  }
+
+  private static Single<Entry> load(SymbolFileService symbolFileService, UploadMetadata key, Scheduler parseScheduler) {
+    if ("JAVA".equalsIgnoreCase(key.getType())) {
+      return symbolFileService.readProguardMap(key)
+          .observeOn(parseScheduler)
+          .map(mapping -> {
+            try {
+              // Parsed once per version, then shared by every event of that version
+              return new Entry(ProguardRetracer.of(mapping.producer()),
+                  weightKb(mapping.sizeBytes(), RETRACER_BYTES_PER_INPUT_BYTE));
+            } catch (Exception e) {
+              throw new RuntimeException("Failed to parse proguard mapping for " + key, e);
+            }
+          });
+    }
+    // DB -> bytes -> parse
+    return symbolFileService.readFileAsString(key)
+        .observeOn(parseScheduler)
+        .map(file -> {
+          try {
+            SourceMapConsumerV3 sourcemap = new SourceMapConsumerV3();
+            sourcemap.parse(file);
+            return new Entry(sourcemap, weightKb(file.length(), SOURCE_MAP_BYTES_PER_INPUT_BYTE));
+          } catch (Exception e) {
+            throw new RuntimeException("Failed to parse source map for " + key, e);
+          }
         });
   }
 
+  static int weightKb(long inputBytes, int retainedBytesPerInputByte) {
+    long kb = inputBytes * retainedBytesPerInputByte / 1024;
+    return (int) Math.max(1, Math.min(Integer.MAX_VALUE, kb));
+  }
+
   public Single<SourceMapConsumerV3> getSourceMap(UploadMetadata key) {
-    CompletableFuture<SourceMapConsumerV3> fut = sourceMapCache.get(key);
-    // Use Single.create to avoid blocking the event loop
-    // Single.fromFuture() calls .get() which blocks!
-    return Single.create(emitter -> {
-      fut.whenComplete((result, throwable) -> {
-        if (throwable != null) {
-          emitter.onError(throwable);
-        } else {
-          emitter.onSuccess(result);
-        }
-      });
-    });
+    return get(key).map(entry -> (SourceMapConsumerV3) entry.artifact());
+  }
+
+  public Single<ProguardRetracer> getRetracer(UploadMetadata key) {
+    return get(key).map(entry -> (ProguardRetracer) entry.artifact());
   }
 
-  public Single<ProguardMapProducer> getProguardMap(UploadMetadata key) {
-    CompletableFuture<ProguardMapProducer> fut = r8Cache.get(key);
+  private Single<Entry> get(UploadMetadata key) {
+    CompletableFuture<Entry> fut = cache.get(key);
     // Use Single.create to avoid blocking the event loop
     // Single.fromFuture() calls .get() which blocks!
     return Single.create(emitter -> {
@@ -97,4 +134,7 @@ public class SourceMapCache {
       });
     });
   }
+
+  private record Entry(Object artifact, int weightKb) {
+  }
 }
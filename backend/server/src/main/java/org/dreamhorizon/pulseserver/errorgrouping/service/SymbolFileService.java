@@ -1,8 +1,9 @@
 package org.dreamhorizon.pulseserver.errorgrouping.service;
 
-
+import com.android.tools.r8.retrace.ProguardMapProducer;
 import io.reactivex.rxjava3.core.Single;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -46,8 +47,11 @@ public abstract class SymbolFileService {
         continue;
       }
 
-      try (InputStream fileInputStream = inputPart.getBody(InputStream.class, null)) {
-        uploads.add(uploadFile(fileName, fileInputStream, metadata));
+      try {
+        InputStream fileInputStream = inputPart.getBody(InputStream.class, null);
+        // Closed once the upload is done: implementations may read the stream off the calling thread
+        uploads.add(Single.defer(() -> uploadFile(fileName, fileInputStream, metadata))
+            .doFinally(fileInputStream::close));
       } catch (Exception e) {
         log.error("Failed to save file '" + fileName + "'. Error: " + e.getMessage());
         return Single.just(false);
@@ -78,4 +82,29 @@ public abstract class SymbolFileService {
   public abstract Single<String> readFileAsString(UploadMetadata uploadMetadata);
 
   public abstract Single<byte[]> readFileAsBytes(UploadMetadata uploadMetadata);
+
+  /**
+   * Metadata (type, platform, app version, version code) of every stored file, without contents.
+   */
+  public abstract Single<List<UploadMetadata>> listFiles();
+
+  /**
+   * File contents as a read-only buffer. Implementations backed by local files return a memory-mapped buffer, so the
+   * contents stay off the Java heap.
+   */
+  public Single<ByteBuffer> readFileAsByteBuffer(UploadMetadata uploadMetadata) {
+    return readFileAsBytes(uploadMetadata).map(bytes -> ByteBuffer.wrap(bytes).asReadOnlyBuffer());
+  }
+
+  /**
+   * A ProGuard/R8 mapping ready for {@code ProguardRetracer}. Implementations backed by local files let R8 stream the
+   * file instead of holding it as a String.
+   */
+  public Single<ProguardMap> readProguardMap(UploadMetadata uploadMetadata) {
+    return readFileAsString(uploadMetadata)
+        .map(file -> new ProguardMap(ProguardMapProducer.fromString(file), file.length()));
+  }
+
+  public record ProguardMap(ProguardMapProducer producer, long sizeBytes) {
+  }
 }
@@ -0,0 +1,87 @@
+package org.dreamhorizon.pulseserver.errorgrouping.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Content-addressed directory of symbol files: every file is stored once under its SHA-256
+ * ({@code <dir>/<first two hex chars>/<sha256>}), so identical uploads for several versions share one file and a file
+ * never changes once written.
+ */
+public class SymbolFileStore {
+  private final Path directory;
+
+  public SymbolFileStore(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Streams {@code in} to a temp file while hashing it, then moves it into place. Nothing is buffered on the heap.
+   */
+  public StoredFile write(InputStream in) throws IOException {
+    Files.createDirectories(directory);
+    Path tmp = Files.createTempFile(directory, "upload-", ".tmp");
+    try {
+      MessageDigest sha256 = newSha256();
+      long size;
+      try (OutputStream out = new DigestOutputStream(Files.newOutputStream(tmp), sha256)) {
+        size = in.transferTo(out);
+      }
+      String checksum = HexFormat.of().formatHex(sha256.digest());
+      Path target = pathFor(checksum);
+      Files.createDirectories(target.getParent());
+      if (!Files.exists(target)) {
+        try {
+          Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+          // Same content written concurrently; either copy is fine
+        }
+      }
+      return new StoredFile(checksum, size);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  public Optional<Path> find(String checksum) {
+    Path path = pathFor(checksum);
+    return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+  }
+
+  /**
+   * Maps the file read-only. The mapping stays valid after the channel is closed and is released by the GC.
+   */
+  public static MappedByteBuffer map(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  Path pathFor(String checksum) {
+    return directory.resolve(checksum.substring(0, 2)).resolve(checksum);
+  }
+
+  private static MessageDigest newSha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  public record StoredFile(String checksum, long size) {
+  }
+}
@@ -0,0 +1,84 @@
+package org.dreamhorizon.pulseserver.errorgrouping.service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.inject.Inject;
+import io.reactivex.rxjava3.core.Single;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.dreamhorizon.pulseserver.config.ApplicationConfig;
+import org.dreamhorizon.pulseserver.errorgrouping.model.EventMeta;
+import org.dreamhorizon.pulseserver.errorgrouping.service.ErrorGroupingService.ProcessingResult;
+
+/**
+ * Caches finished grouping + symbolication results per (platform, app version, version code, raw stack trace), so a
+ * crash that repeats thousands of times is parsed and retraced once. Entries expire after a while so that results
+ * computed before a mapping file was uploaded are eventually symbolicated.
+ */
+public class SymbolicationResultCache {
+  private static final long DEFAULT_MAX_SIZE = 10_000;
+  private static final long DEFAULT_TTL_MINUTES = 30;
+  private static final String METRIC_PREFIX = "errorgrouping.symbolication_cache.";
+
+  private final Cache<Key, ProcessingResult> cache;
+
+  @Inject
+  public SymbolicationResultCache(ApplicationConfig applicationConfig, MetricRegistry metricRegistry) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(Optional.ofNullable(applicationConfig.getSymbolicationCacheMaxSize()).orElse(DEFAULT_MAX_SIZE))
+        .expireAfterWrite(Duration.ofMinutes(
+            Optional.ofNullable(applicationConfig.getSymbolicationCacheTtlMinutes()).orElse(DEFAULT_TTL_MINUTES)))
+        .recordStats()
+        .build();
+
+    metricRegistry.register(METRIC_PREFIX + "hits", (Gauge<Long>) () -> cache.stats().hitCount());
+    metricRegistry.register(METRIC_PREFIX + "misses", (Gauge<Long>) () -> cache.stats().missCount());
+    metricRegistry.register(METRIC_PREFIX + "hit_ratio", (Gauge<Double>) () -> cache.stats().hitRate());
+    metricRegistry.register(METRIC_PREFIX + "evictions", (Gauge<Long>) () -> cache.stats().evictionCount());
+    metricRegistry.register(METRIC_PREFIX + "size", (Gauge<Long>) cache::estimatedSize);
+  }
+
+  /**
+   * Returns the cached result for this crash, or subscribes to {@code loader} and caches what it emits.
+   */
+  public Single<ProcessingResult> get(String rawStackTrace, EventMeta meta,
+                                      Supplier<Single<ProcessingResult>> loader) {
+    Key key = Key.of(rawStackTrace, meta);
+    ProcessingResult cached = cache.getIfPresent(key);
+    if (cached != null) {
+      return Single.just(cached);
+    }
+    return loader.get().doOnSuccess(result -> cache.put(key, result));
+  }
+
+  /**
+   * Drops every result computed for the given app version, e.g. after its mapping file was (re)uploaded.
+   */
+  public void invalidate(String platform, String appVersion, String appVersionCode) {
+    String normalizedPlatform = Key.lower(platform);
+    cache.asMap().keySet().removeIf(key ->
+        Objects.equals(key.platform(), normalizedPlatform)
+            && Objects.equals(key.appVersion(), appVersion)
+            && Objects.equals(key.appVersionCode(), appVersionCode));
+  }
+
+  record Key(String platform, String appVersion, String appVersionCode, HashCode stackTraceHash) {
+    static Key of(String rawStackTrace, EventMeta meta) {
+      return new Key(lower(meta.getPlatform()), meta.getAppVersion(), meta.getAppVersionCode(),
+          Hashing.murmur3_128().hashString(rawStackTrace == null ? "" : rawStackTrace, StandardCharsets.UTF_8));
+    }
+
+    // Events carry os.name ("Android", "iOS"), uploads the lowercase symbol_files ENUM ("android", "ios")
+    static String lower(String value) {
+      return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+  }
+}
@@ -3,6 +3,9 @@ package org.dreamhorizon.pulseserver.model;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import lombok.Getter;
 import lombok.ToString;
 
@@ -13,23 +16,39 @@ public class QueryConfiguration {
   private final boolean useLegacySql;
   private final Integer timeoutMs;
   private final JobCreationMode jobCreationMode;
+  private final Map<String, Object> parameters;
+  private final Map<String, Object> settings;
+  private final QueryLane lane;
 
   private QueryConfiguration(
       String query,
       boolean useLegacySql,
       Integer timeoutMs,
-      JobCreationMode jobCreationMode
+      JobCreationMode jobCreationMode,
+      Map<String, Object> parameters,
+      Map<String, Object> settings,
+      QueryLane lane
   ) {
     this.query = query;
     this.useLegacySql = useLegacySql;
     this.timeoutMs = timeoutMs;
     this.jobCreationMode = jobCreationMode;
+    this.parameters = parameters;
+    this.settings = settings;
+    this.lane = lane;
   }
 
   public static QueryConfigurationBuilder newQuery(@NotBlank @Valid String query) {
     return new QueryConfigurationBuilder(query);
   }
 
+  /**
+   * The same query configuration with {@code query} as its SQL.
+   */
+  public QueryConfiguration withQuery(String query) {
+    return new QueryConfiguration(query, useLegacySql, timeoutMs, jobCreationMode, parameters, settings, lane);
+  }
+
   @Getter
   @ToString
   public static class QueryConfigurationBuilder {
@@ -37,6 +56,9 @@ public class QueryConfiguration {
     private Integer timeoutMs;
     private final Boolean useLegacySql = false;
     private JobCreationMode jobCreationMode;
+    private Map<String, Object> parameters = Map.of();
+    private final Map<String, Object> settings = new LinkedHashMap<>();
+    private QueryLane lane = QueryLane.INTERACTIVE;
 
     private QueryConfigurationBuilder(String query) {
       this.query = query;
@@ -52,13 +74,71 @@ public class QueryConfiguration {
       return this;
     }
 
+    /**
+     * Values for the named parameters ({@code :name}) in the query.
+     */
+    public QueryConfigurationBuilder parameters(Map<String, Object> parameters) {
+      this.parameters = parameters;
+      return this;
+    }
+
+    /**
+     * The lane the query runs in; {@link QueryLane#INTERACTIVE} unless set.
+     */
+    public QueryConfigurationBuilder lane(QueryLane lane) {
+      this.lane = lane;
+      return this;
+    }
+
+    /**
+     * ClickHouse {@code max_execution_time}: the server stops the query after this many seconds.
+     */
+    public QueryConfigurationBuilder maxExecutionTimeSeconds(int seconds) {
+      settings.put("max_execution_time", seconds);
+      return this;
+    }
+
+    /**
+     * ClickHouse {@code max_threads}: threads the server may use to run the query.
+     */
+    public QueryConfigurationBuilder maxThreads(int threads) {
+      settings.put("max_threads", threads);
+      return this;
+    }
+
+    /**
+     * ClickHouse {@code max_memory_usage}: the query fails once it uses more than this many bytes on the server.
+     */
+    public QueryConfigurationBuilder maxMemoryUsage(long bytes) {
+      settings.put("max_memory_usage", bytes);
+      return this;
+    }
+
+    /**
+     * ClickHouse {@code use_query_cache}. Only for queries whose result does not depend on the current time.
+     */
+    public QueryConfigurationBuilder useQueryCache(boolean useQueryCache) {
+      settings.put("use_query_cache", useQueryCache ? 1 : 0);
+      return this;
+    }
+
+    /**
+     * ClickHouse {@code priority}: while a query with a lower value runs, queries with a higher value are paused.
+     * 0 (the default) does not take part.
+     */
+    public QueryConfigurationBuilder priority(int priority) {
+      settings.put("priority", priority);
+      return this;
+    }
+
     public QueryConfiguration build() {
       // TODO: Find better way to handle defaults
       if (timeoutMs == null) {
         timeoutMs = 60000;
       }
 
-      return new QueryConfiguration(this.query, this.useLegacySql, this.timeoutMs, jobCreationMode);
+      return new QueryConfiguration(this.query, this.useLegacySql, this.timeoutMs, jobCreationMode, parameters,
+          Collections.unmodifiableMap(new LinkedHashMap<>(settings)), lane);
     }
   }
 }
@@ -0,0 +1,26 @@
+package org.dreamhorizon.pulseserver.model;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A page of the spooled rows of a query job. Cells are the text of the ClickHouse values, null stays null.
+ * {@code totalRows} counts the rows read so far, which is final once {@code jobComplete} is true.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueryJobPage {
+  private String jobId;
+  private String status;
+  private boolean jobComplete;
+  private String error;
+  private List<String> fields;
+  private List<List<String>> rows;
+  private long offset;
+  private long totalRows;
+}
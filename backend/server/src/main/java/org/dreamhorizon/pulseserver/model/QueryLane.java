@@ -0,0 +1,16 @@
+package org.dreamhorizon.pulseserver.model;
+
+/**
+ * The workload a ClickHouse read belongs to. Each lane has its own connection pool, queue and settings profile
+ * ({@code clickhouse.lanes.<name>}), so a burst in one does not hold up the other.
+ */
+public enum QueryLane {
+  /**
+   * Dashboard requests someone is waiting on: short queue, highest priority on the server.
+   */
+  INTERACTIVE,
+  /**
+   * Alert evaluation and background refreshes: long queue, fewer threads per query.
+   */
+  BATCH
+}
@@ -1,12 +1,16 @@
 package org.dreamhorizon.pulseserver.module;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.inject.AbstractModule;
+import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import com.google.inject.TypeLiteral;
 import io.vertx.core.Vertx;
 import org.dreamhorizon.pulseserver.client.chclient.ClickhouseQueryService;
 import org.dreamhorizon.pulseserver.client.chclient.ClickhouseReadClient;
 import org.dreamhorizon.pulseserver.client.chclient.ClickhouseWriteClient;
+import org.dreamhorizon.pulseserver.client.chclient.QueryJobStore;
+import org.dreamhorizon.pulseserver.client.chclient.StackTraceEventBatchWriter;
 import org.dreamhorizon.pulseserver.config.ClickhouseConfig;
 import org.dreamhorizon.pulseserver.dto.response.GetRawUserEventsResponseDto;
 import org.dreamhorizon.pulseserver.service.IAnalyticalStoreClient;
@@ -23,10 +27,14 @@ public class UploadInteractionDetailModule extends AbstractModule {
 
   @Override
   protected void configure() {
-    bind(ClickhouseReadClient.class).toProvider(() -> new ClickhouseReadClient(SharedDataUtils.get(vertx, ClickhouseConfig.class)))
+    Provider<MetricRegistry> metricRegistry = getProvider(MetricRegistry.class);
+    bind(ClickhouseReadClient.class).toProvider(() -> new ClickhouseReadClient(SharedDataUtils.get(vertx, ClickhouseConfig.class),
+            metricRegistry.get()))
         .in(Singleton.class);
     bind(ClickhouseWriteClient.class).toProvider(() -> new ClickhouseWriteClient((SharedDataUtils.get(vertx, ClickhouseConfig.class))))
         .in(Singleton.class);
+    bind(StackTraceEventBatchWriter.class).in(Singleton.class);
+    bind(QueryJobStore.class).in(Singleton.class);
     bind(new TypeLiteral<IAnalyticalStoreClient<GetRawUserEventsResponseDto>>() {
     }).to(ClickhouseQueryService.class);
   }
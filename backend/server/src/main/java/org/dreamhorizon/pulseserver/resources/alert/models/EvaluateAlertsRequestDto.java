@@ -0,0 +1,17 @@
+package org.dreamhorizon.pulseserver.resources.alert.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EvaluateAlertsRequestDto {
+  @NotEmpty
+  @JsonProperty("alert_ids")
+  private List<Integer> alertIds;
+}
@@ -0,0 +1,20 @@
+package org.dreamhorizon.pulseserver.resources.alert.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EvaluateAlertsResponseDto {
+  @JsonProperty("alert_ids")
+  private List<String> alertIds;
+
+  @JsonProperty("query_count")
+  private Integer queryCount;
+}
@@ -0,0 +1,35 @@
+package org.dreamhorizon.pulseserver.resources.alert.v1;
+
+import com.google.inject.Inject;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import java.util.concurrent.CompletionStage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.dreamhorizon.pulseserver.resources.alert.models.EvaluateAlertsRequestDto;
+import org.dreamhorizon.pulseserver.resources.alert.models.EvaluateAlertsResponseDto;
+import org.dreamhorizon.pulseserver.rest.io.Response;
+import org.dreamhorizon.pulseserver.rest.io.RestResponse;
+import org.dreamhorizon.pulseserver.service.alert.core.AlertEvaluationService;
+
+@Slf4j
+@RequiredArgsConstructor(onConstructor = @__({@Inject}))
+@Path("/v1/alert/evaluateAndTriggerAlerts")
+public class EvaluateAndTriggerAlerts {
+  private final AlertEvaluationService alertEvaluationService;
+
+  @POST
+  @Consumes(MediaType.APPLICATION_JSON)
+  @Produces(MediaType.APPLICATION_JSON)
+  public CompletionStage<Response<EvaluateAlertsResponseDto>> evaluateAndTriggerAlerts(
+      @NotNull @Valid EvaluateAlertsRequestDto request
+  ) {
+    return alertEvaluationService.evaluateAlertsByIds(request.getAlertIds())
+        .to(RestResponse.jaxrsRestHandler());
+  }
+}
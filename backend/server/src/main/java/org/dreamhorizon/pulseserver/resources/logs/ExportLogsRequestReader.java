@@ -0,0 +1,137 @@
+package org.dreamhorizon.pulseserver.resources.logs;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.WireFormat;
+import io.opentelemetry.proto.collector.logs.v1.ExportLogsServiceRequest;
+import io.opentelemetry.proto.logs.v1.ResourceLogs;
+import io.reactivex.rxjava3.core.Emitter;
+import io.reactivex.rxjava3.core.Flowable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+
+/**
+ * Streams the {@link ResourceLogs} entries of an OTLP {@link ExportLogsServiceRequest} straight off the request body.
+ * Only the entry currently being processed is held on the heap, instead of the whole decoded body plus the fully
+ * materialized request.
+ */
+final class ExportLogsRequestReader {
+
+  private static final int RESOURCE_LOGS_TAG = WireFormat.makeTag(
+      ExportLogsServiceRequest.RESOURCE_LOGS_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+  private static final int READ_BUFFER_SIZE = 8192;
+
+  private ExportLogsRequestReader() {
+  }
+
+  /**
+   * Lazily emits every {@link ResourceLogs} of the (already decompressed) body. The next entry is only decoded once
+   * downstream requests it; the stream is closed when the flowable terminates or is disposed.
+   *
+   * @param body         opener for the decoded request body
+   * @param maxBodyBytes maximum number of decoded bytes to accept, {@link PayloadTooLargeException} beyond that
+   */
+  static Flowable<ResourceLogs> read(Callable<InputStream> body, long maxBodyBytes) {
+    return Flowable.generate(
+        () -> new LimitedInputStream(body.call(), maxBodyBytes),
+        (LimitedInputStream in, Emitter<ResourceLogs> emitter) -> {
+          ResourceLogs next = nextResourceLogs(in.input());
+          if (next == null) {
+            emitter.onComplete();
+          } else {
+            emitter.onNext(next);
+          }
+          return in;
+        },
+        LimitedInputStream::close);
+  }
+
+  private static ResourceLogs nextResourceLogs(CodedInputStream input) throws IOException {
+    try {
+      while (true) {
+        int tag = input.readTag();
+        if (tag == 0) {
+          return null;
+        }
+        if (tag == RESOURCE_LOGS_TAG) {
+          return input.readMessage(ResourceLogs.parser(), ExtensionRegistryLite.getEmptyRegistry());
+        }
+        if (!input.skipField(tag)) {
+          return null;
+        }
+      }
+    } catch (IOException e) {
+      // Generated parsers wrap stream failures in InvalidProtocolBufferException; surface the size violation as-is.
+      Throwable cause = e;
+      while (cause != null) {
+        if (cause instanceof PayloadTooLargeException tooLarge) {
+          throw tooLarge;
+        }
+        cause = cause.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Thrown when the decoded request body exceeds the configured limit.
+   */
+  static final class PayloadTooLargeException extends IOException {
+    PayloadTooLargeException(long maxBodyBytes) {
+      super("Request body exceeds the maximum of " + maxBodyBytes + " bytes");
+    }
+  }
+
+  /**
+   * Counts decoded bytes so the limit also applies to what a gzip body expands to.
+   */
+  private static final class LimitedInputStream extends FilterInputStream {
+    private final long maxBodyBytes;
+    private final CodedInputStream input;
+    private long count;
+
+    LimitedInputStream(InputStream in, long maxBodyBytes) {
+      super(in);
+      this.maxBodyBytes = maxBodyBytes;
+      this.input = CodedInputStream.newInstance(this, READ_BUFFER_SIZE);
+    }
+
+    CodedInputStream input() {
+      return input;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b != -1) {
+        count(1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = super.read(b, off, len);
+      if (read > 0) {
+        count(read);
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      count(skipped);
+      return skipped;
+    }
+
+    private void count(long read) throws PayloadTooLargeException {
+      count += read;
+      if (count > maxBodyBytes) {
+        throw new PayloadTooLargeException(maxBodyBytes);
+      }
+    }
+  }
+}
@@ -1,7 +1,8 @@
 package org.dreamhorizon.pulseserver.resources.logs;
 
 import com.google.inject.Inject;
-import io.opentelemetry.proto.collector.logs.v1.ExportLogsServiceRequest;
+import io.opentelemetry.proto.collector.logs.v1.ExportLogsPartialSuccess;
+import io.opentelemetry.proto.collector.logs.v1.ExportLogsServiceResponse;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
@@ -9,16 +10,23 @@ import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
+import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionStage;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
+import org.dreamhorizon.pulseserver.client.chclient.StackTraceEventBatchWriter;
+import org.dreamhorizon.pulseserver.config.ApplicationConfig;
 import org.dreamhorizon.pulseserver.errorgrouping.service.ErrorGroupingService;
+import org.dreamhorizon.pulseserver.errorgrouping.service.GroupingWorkerPool;
 import org.dreamhorizon.pulseserver.rest.io.RestResponse;
 
 
@@ -26,37 +34,62 @@ import org.dreamhorizon.pulseserver.rest.io.RestResponse;
 @RequiredArgsConstructor(onConstructor = @__({@Inject}))
 public class OtelLogsResource {
 
+  private static final long DEFAULT_MAX_BODY_BYTES = 16L * 1024 * 1024;
+
   private final ErrorGroupingService groupingService;
+  private final ApplicationConfig applicationConfig;
 
   @POST
   @Consumes("application/x-protobuf")
   @Produces("application/x-protobuf")
-  @SneakyThrows
   public CompletionStage<Response> export(@Context HttpHeaders headers, InputStream bodyStream) {
-    byte[] rawBody = readAll(maybeGunzip(headers, bodyStream));
-    ExportLogsServiceRequest request = ExportLogsServiceRequest.parseFrom(rawBody);
-    return groupingService.ingest(request)
+    Callable<InputStream> body = rereadable(bodyStream);
+    Callable<InputStream> decoded = () -> maybeGunzip(headers, body.call());
+    long maxBodyBytes = maxBodyBytes();
+    // ResourceLogs are decoded one at a time straight from the (optionally gzipped) body. The whole body is decoded
+    // and its log records counted before anything is written, so that a body too large or malformed is rejected as a
+    // whole, and a partial success counts every record that was not written
+    return ExportLogsRequestReader.read(decoded, maxBodyBytes)
+        .reduce(0L, (logRecords, resourceLogs) -> logRecords + ErrorGroupingService.logRecordCount(resourceLogs))
+        .flatMap(logRecords -> groupingService.ingest(ExportLogsRequestReader.read(decoded, maxBodyBytes), logRecords))
         .map(ingestedRecords -> buildSuccessResponse()).onErrorReturn(e -> {
+          if (e instanceof ErrorGroupingService.PartialIngestException partial) {
+            return buildPartialSuccessResponse(headers, partial);
+          }
+          Response.Status httpStatus = errorStatus(e);
           com.google.rpc.Status status = com.google.rpc.Status.newBuilder()
               // Note: OTLP/HTTP doesn't require Status.code; message SHOULD be developer-facing.
-              .setMessage("Bad request: " + sanitize(e.getMessage()))
-              .build();
-          byte[] statusBytes = status.toByteArray();
-          if (acceptsGzip(headers)) {
-            statusBytes = gzip(statusBytes);
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(statusBytes)
-                .header("Content-Type", "application/x-protobuf")
-                .header("Content-Encoding", "gzip")
-                .build();
-          }
-          return Response.status(Response.Status.BAD_REQUEST)
-              .entity(statusBytes)
-              .header("Content-Type", "application/x-protobuf")
+              .setMessage(errorPrefix(httpStatus) + sanitize(e.getMessage()))
               .build();
+          return buildProtobufResponse(headers, httpStatus, status.toByteArray());
         }).to(RestResponse.toCompletion());
   }
 
+  // 503 is retryable for OTLP exporters, so a full grouping or insert queue makes the collector back off and resend.
+  // Only used while nothing of the request has been written; see buildPartialSuccessResponse
+  private static Response.Status errorStatus(Throwable e) {
+    if (e instanceof ExportLogsRequestReader.PayloadTooLargeException) {
+      return Response.Status.REQUEST_ENTITY_TOO_LARGE;
+    }
+    if (e instanceof StackTraceEventBatchWriter.QueueFullException
+        || e instanceof GroupingWorkerPool.QueueFullException) {
+      return Response.Status.SERVICE_UNAVAILABLE;
+    }
+    return Response.Status.BAD_REQUEST;
+  }
+
+  private static String errorPrefix(Response.Status httpStatus) {
+    return switch (httpStatus) {
+      case REQUEST_ENTITY_TOO_LARGE -> "Payload too large: ";
+      case SERVICE_UNAVAILABLE -> "Service unavailable: ";
+      default -> "Bad request: ";
+    };
+  }
+
+  private long maxBodyBytes() {
+    return Optional.ofNullable(applicationConfig.getLogsIngestMaxBodyBytes()).orElse(DEFAULT_MAX_BODY_BYTES);
+  }
+
   @SneakyThrows
   private Response buildSuccessResponse() {
     return Response.ok()
@@ -64,8 +97,50 @@ public class OtelLogsResource {
         .build();
   }
 
+  // Some chunks are already written, so the request must not be retried: OTLP reports this as a 200 partial success
+  private static Response buildPartialSuccessResponse(HttpHeaders headers,
+                                                      ErrorGroupingService.PartialIngestException partial) {
+    ExportLogsServiceResponse response = ExportLogsServiceResponse.newBuilder()
+        .setPartialSuccess(ExportLogsPartialSuccess.newBuilder()
+            .setRejectedLogRecords(partial.getRejectedRecords())
+            .setErrorMessage(sanitize(partial.getMessage()))
+            .build())
+        .build();
+    return buildProtobufResponse(headers, Response.Status.OK, response.toByteArray());
+  }
+
+  @SneakyThrows
+  private static Response buildProtobufResponse(HttpHeaders headers, Response.Status httpStatus, byte[] body) {
+    if (acceptsGzip(headers)) {
+      return Response.status(httpStatus)
+          .entity(gzip(body))
+          .header("Content-Type", "application/x-protobuf")
+          .header("Content-Encoding", "gzip")
+          .build();
+    }
+    return Response.status(httpStatus)
+        .entity(body)
+        .header("Content-Type", "application/x-protobuf")
+        .build();
+  }
+
   // ---- Helpers ----
 
+  // The body has been buffered by BodyHandler, so reading it a second time costs no I/O
+  private static Callable<InputStream> rereadable(InputStream in) {
+    InputStream body = in.markSupported() ? in : new BufferedInputStream(in);
+    body.mark(Integer.MAX_VALUE);
+    return () -> {
+      body.reset();
+      // The reader closes what it is given; the body itself stays open for the next pass
+      return new FilterInputStream(body) {
+        @Override
+        public void close() {
+        }
+      };
+    };
+  }
+
   private static boolean acceptsGzip(HttpHeaders headers) {
     List<String> ae = headers.getRequestHeaders().get("Accept-Encoding");
     if (ae == null) {
@@ -91,17 +166,6 @@ public class OtelLogsResource {
     return in;
   }
 
-  private static byte[] readAll(InputStream in) throws IOException {
-    try (in; ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-      byte[] buf = new byte[8192];
-      int read;
-      while ((read = in.read(buf)) != -1) {
-        baos.write(buf, 0, read);
-      }
-      return baos.toByteArray();
-    }
-  }
-
   private static byte[] gzip(byte[] data) throws IOException {
     ByteArrayOutputStream baos = new ByteArrayOutputStream();
     try (GZIPOutputStream gos = new GZIPOutputStream(baos)) {
@@ -0,0 +1,70 @@
+package org.dreamhorizon.pulseserver.resources.metrics;
+
+import com.codahale.metrics.Counting;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Sampling;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.google.inject.Inject;
+import io.reactivex.rxjava3.core.Single;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.dreamhorizon.pulseserver.rest.io.Response;
+import org.dreamhorizon.pulseserver.rest.io.RestResponse;
+
+/**
+ * Point-in-time view of the in-process metrics (queue depths, cache hit ratios, latencies).
+ * Durations are reported in milliseconds.
+ */
+@Slf4j
+@RequiredArgsConstructor(onConstructor = @__({@Inject}))
+@Path("/v1/metrics")
+public class GetMetrics {
+  private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  final MetricRegistry metricRegistry;
+
+  @GET
+  @Consumes(MediaType.WILDCARD)
+  @Produces(MediaType.APPLICATION_JSON)
+  public CompletionStage<Response<Map<String, Object>>> getMetrics() {
+    return Single.fromCallable(() -> {
+      Map<String, Object> out = new TreeMap<>();
+      metricRegistry.getMetrics().forEach((name, metric) -> out.put(name, toValue(metric)));
+      return out;
+    }).to(RestResponse.jaxrsRestHandler());
+  }
+
+  private static Object toValue(Metric metric) {
+    if (metric instanceof Gauge<?> gauge) {
+      return gauge.getValue();
+    }
+    Map<String, Object> value = new LinkedHashMap<>();
+    if (metric instanceof Counting counting) {
+      value.put("count", counting.getCount());
+    }
+    if (metric instanceof Sampling sampling) {
+      // Timers record nanoseconds, histograms record raw values
+      double scale = metric instanceof Timer ? NANOS_PER_MILLI : 1d;
+      Snapshot snapshot = sampling.getSnapshot();
+      value.put("mean", snapshot.getMean() / scale);
+      value.put("p50", snapshot.getMedian() / scale);
+      value.put("p95", snapshot.get95thPercentile() / scale);
+      value.put("p99", snapshot.get99thPercentile() / scale);
+      value.put("max", snapshot.getMax() / scale);
+    }
+    return value;
+  }
+}
@@ -5,12 +5,11 @@ import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
 import java.util.concurrent.CompletionStage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.dreamhorizon.pulseserver.resources.performance.models.PerformanceMetricDistributionRes;
 import org.dreamhorizon.pulseserver.resources.performance.models.QueryRequest;
-import org.dreamhorizon.pulseserver.rest.io.Response;
 import org.dreamhorizon.pulseserver.rest.io.RestResponse;
 import org.dreamhorizon.pulseserver.service.interaction.PerformanceMetricService;
 
@@ -24,8 +23,10 @@ public class PerformanceMetricDistribution {
   @POST
   @Path("/distribution")
   @Produces(MediaType.APPLICATION_JSON)
-  public CompletionStage<Response<PerformanceMetricDistributionRes>> getMetricDistribution(QueryRequest request) {
-    return performanceMetricService.getMetricDistribution(request)
-        .to(RestResponse.jaxrsRestHandler());
+  public CompletionStage<Response> getMetricDistribution(QueryRequest request) {
+    // The body is encoded row by row as the result is read, instead of materializing the rows and the response object
+    return performanceMetricService.getMetricDistributionJson(request)
+        .map(body -> Response.ok(body, MediaType.APPLICATION_JSON_TYPE).build())
+        .to(RestResponse.toCompletion());
   }
 }
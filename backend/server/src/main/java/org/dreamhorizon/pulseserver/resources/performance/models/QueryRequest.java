@@ -25,6 +25,9 @@ public class QueryRequest {
 
   private Integer limit;
 
+  // A query still running after 2 seconds is answered with a job reference instead of being waited for
+  private Boolean allowJob;
+
   public enum Direction {
     ASC, DESC
   }
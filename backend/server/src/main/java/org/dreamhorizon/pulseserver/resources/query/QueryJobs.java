@@ -0,0 +1,57 @@
+package org.dreamhorizon.pulseserver.resources.query;
+
+import com.google.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import java.util.concurrent.CompletionStage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.dreamhorizon.pulseserver.client.chclient.ClickhouseQueryService;
+import org.dreamhorizon.pulseserver.dto.response.EmptyResponse;
+import org.dreamhorizon.pulseserver.error.ServiceError;
+import org.dreamhorizon.pulseserver.model.QueryJobPage;
+import org.dreamhorizon.pulseserver.rest.io.Response;
+import org.dreamhorizon.pulseserver.rest.io.RestResponse;
+
+@Slf4j
+@Path("/v1/query-jobs")
+@RequiredArgsConstructor(onConstructor = @__({@Inject}))
+public class QueryJobs {
+  private static final int MAX_PAGE_SIZE = 10_000;
+
+  private final ClickhouseQueryService clickhouseQueryService;
+
+  @GET
+  @Path("/{jobId}")
+  @Consumes(MediaType.WILDCARD)
+  @Produces(MediaType.APPLICATION_JSON)
+  public CompletionStage<Response<QueryJobPage>> getJobPage(
+      @PathParam("jobId") String jobId,
+      @QueryParam("offset") @DefaultValue("0") long offset,
+      @QueryParam("limit") @DefaultValue("1000") int limit
+  ) {
+    if (offset < 0 || limit < 1 || limit > MAX_PAGE_SIZE) {
+      throw ServiceError.INCORRECT_OR_MISSING_QUERY_PARAMETERS.getCustomException(
+          "offset must be >= 0 and limit between 1 and " + MAX_PAGE_SIZE);
+    }
+    return clickhouseQueryService.getJobPage(jobId, offset, limit)
+        .to(RestResponse.jaxrsRestHandler());
+  }
+
+  @DELETE
+  @Path("/{jobId}")
+  @Consumes(MediaType.WILDCARD)
+  @Produces(MediaType.APPLICATION_JSON)
+  public CompletionStage<Response<EmptyResponse>> cancelJob(@PathParam("jobId") String jobId) {
+    return clickhouseQueryService.cancelJob(jobId)
+        .toSingleDefault(EmptyResponse.emptyResponse)
+        .to(RestResponse.jaxrsRestHandler());
+  }
+}
@@ -15,7 +15,9 @@ import java.util.concurrent.CompletionStage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.dreamhorizon.pulseserver.errorgrouping.model.UploadMetadata;
+import org.dreamhorizon.pulseserver.errorgrouping.service.ArtifactAvailabilityIndex;
 import org.dreamhorizon.pulseserver.errorgrouping.service.SymbolFileService;
+import org.dreamhorizon.pulseserver.errorgrouping.service.SymbolicationResultCache;
 import org.dreamhorizon.pulseserver.rest.io.Response;
 import org.dreamhorizon.pulseserver.rest.io.RestResponse;
 import org.jboss.resteasy.plugins.providers.multipart.InputPart;
@@ -32,6 +34,8 @@ public class MappingFileUpload {
   private static final ObjectMapper objectMapper = new ObjectMapper();
 
   private final SymbolFileService symbolFileService;
+  private final SymbolicationResultCache symbolicationResultCache;
+  private final ArtifactAvailabilityIndex artifactAvailabilityIndex;
 
   @POST
   @Path("/file/upload")
@@ -51,7 +55,12 @@ public class MappingFileUpload {
         }
 
         List<InputPart> fileParts = formPartsMap.get(FILE_PART_NAME);
-        return symbolFileService.uploadFiles(fileParts, metadataList);
+        return symbolFileService.uploadFiles(fileParts, metadataList)
+            .doOnSuccess(uploaded -> metadataList.forEach(metadata -> {
+              artifactAvailabilityIndex.markAvailable(metadata);
+              symbolicationResultCache.invalidate(
+                  metadata.getPlatform(), metadata.getAppVersion(), metadata.getVersionCode());
+            }));
       } catch (Exception e) {
         log.error("Multi-file upload failed during processing: " + e.getMessage());
         return Single.just(false);
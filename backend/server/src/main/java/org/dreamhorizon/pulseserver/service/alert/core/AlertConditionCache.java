@@ -0,0 +1,73 @@
+package org.dreamhorizon.pulseserver.service.alert.core;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.inject.Singleton;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import org.dreamhorizon.pulseserver.service.alert.core.util.CompiledExpression;
+
+/**
+ * The compiled condition expressions and parsed scope conditions of alerts, so that evaluating an alert does not parse
+ * them again. Entries are keyed by alert (and scope) id and remember the text they were built from: if an alert was
+ * changed, on this instance or another one, the next lookup sees different text and rebuilds the entry.
+ * {@link AlertService} also drops an alert's entries when it is updated or deleted.
+ */
+@Singleton
+public class AlertConditionCache {
+  private static final int MAX_ENTRIES = 50_000;
+
+  private final Cache<Integer, Entry<CompiledExpression>> expressions = Caffeine.newBuilder()
+      .maximumSize(MAX_ENTRIES)
+      .build();
+  private final Cache<ScopeKey, Entry<List<Map<String, Object>>>> conditions = Caffeine.newBuilder()
+      .maximumSize(MAX_ENTRIES)
+      .build();
+
+  public CompiledExpression expression(Integer alertId, String conditionExpression) {
+    if (alertId == null) {
+      return CompiledExpression.compile(conditionExpression);
+    }
+    Entry<CompiledExpression> entry = expressions.getIfPresent(alertId);
+    if (entry == null || !Objects.equals(entry.source(), conditionExpression)) {
+      entry = new Entry<>(conditionExpression, CompiledExpression.compile(conditionExpression));
+      expressions.put(alertId, entry);
+    }
+    return entry.value();
+  }
+
+  /**
+   * The conditions of a scope, parsed from its JSON with {@code parser} on a miss. The returned list must not be
+   * modified.
+   */
+  public List<Map<String, Object>> conditions(Integer alertId, Integer scopeId, String conditionsJson,
+                                              Function<String, List<Map<String, Object>>> parser) {
+    if (alertId == null || scopeId == null) {
+      return parser.apply(conditionsJson);
+    }
+    ScopeKey key = new ScopeKey(alertId, scopeId);
+    Entry<List<Map<String, Object>>> entry = conditions.getIfPresent(key);
+    if (entry == null || !Objects.equals(entry.source(), conditionsJson)) {
+      entry = new Entry<>(conditionsJson, Collections.unmodifiableList(parser.apply(conditionsJson)));
+      conditions.put(key, entry);
+    }
+    return entry.value();
+  }
+
+  public void invalidate(Integer alertId) {
+    if (alertId == null) {
+      return;
+    }
+    expressions.invalidate(alertId);
+    conditions.asMap().keySet().removeIf(key -> key.alertId().equals(alertId));
+  }
+
+  private record Entry<T>(String source, T value) {
+  }
+
+  private record ScopeKey(Integer alertId, Integer scopeId) {
+  }
+}
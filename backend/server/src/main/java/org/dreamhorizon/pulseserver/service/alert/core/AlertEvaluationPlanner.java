@@ -0,0 +1,49 @@
+package org.dreamhorizon.pulseserver.service.alert.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.dreamhorizon.pulseserver.dao.AlertsDao;
+
+/**
+ * Groups alerts that are due together so that each group is evaluated with one ClickHouse query. Alerts share a query
+ * when they have the same scope, evaluation period and dimension filter: the query then selects the union of their
+ * metrics for the union of their scope names, and every alert reads its own rows back from the result.
+ */
+public final class AlertEvaluationPlanner {
+
+  private AlertEvaluationPlanner() {
+  }
+
+  /**
+   * The alerts in groups of one query each, in the order their first alert was given. Alerts without scopes are left
+   * out, since there is nothing to evaluate for them.
+   */
+  public static List<List<AlertToEvaluate>> plan(List<AlertToEvaluate> alerts) {
+    Map<GroupKey, List<AlertToEvaluate>> groups = new LinkedHashMap<>();
+    for (AlertToEvaluate alert : alerts) {
+      if (alert.scopes().isEmpty()) {
+        continue;
+      }
+      groups.computeIfAbsent(GroupKey.of(alert.alert()), key -> new ArrayList<>()).add(alert);
+    }
+    return new ArrayList<>(groups.values());
+  }
+
+  /**
+   * An alert with the scopes it is evaluated for.
+   */
+  public record AlertToEvaluate(AlertsDao.AlertDetails alert, List<AlertsDao.AlertScopeDetails> scopes) {
+  }
+
+  private record GroupKey(String scope, Integer evaluationPeriod, String dimensionFilter) {
+    static GroupKey of(AlertsDao.AlertDetails alert) {
+      return new GroupKey(
+          Objects.toString(alert.getScope(), ""),
+          alert.getEvaluationPeriod(),
+          Objects.toString(alert.getDimensionFilter(), "").trim());
+    }
+  }
+}
@@ -5,6 +5,9 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Single;
 import io.vertx.core.json.JsonObject;
 import io.vertx.rxjava3.core.Vertx;
@@ -17,27 +20,33 @@ import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.dreamhorizon.pulseserver.config.ApplicationConfig;
 import org.dreamhorizon.pulseserver.constant.Constants;
 import org.dreamhorizon.pulseserver.dao.AlertsDao;
+import org.dreamhorizon.pulseserver.model.QueryLane;
 import org.dreamhorizon.pulseserver.resources.alert.enums.AlertState;
 import org.dreamhorizon.pulseserver.resources.alert.models.AlertEvaluationResponseDto;
 import org.dreamhorizon.pulseserver.resources.alert.models.EvaluateAlertResponseDto;
+import org.dreamhorizon.pulseserver.resources.alert.models.EvaluateAlertsResponseDto;
 import org.dreamhorizon.pulseserver.resources.performance.models.Functions;
 import org.dreamhorizon.pulseserver.resources.performance.models.PerformanceMetricDistributionRes;
 import org.dreamhorizon.pulseserver.resources.performance.models.QueryRequest;
 import org.dreamhorizon.pulseserver.service.alert.core.models.MetricOperator;
 import org.dreamhorizon.pulseserver.service.alert.core.operatror.MetricOperatorFactory;
-import org.dreamhorizon.pulseserver.service.alert.core.util.ExpressionEvaluator;
+import org.dreamhorizon.pulseserver.service.alert.core.util.CompiledExpression;
 import org.dreamhorizon.pulseserver.service.alert.core.util.MetricToFunctionMapper;
 import org.dreamhorizon.pulseserver.service.interaction.ClickhouseMetricService;
 import org.dreamhorizon.pulseserver.util.DateTimeUtil;
@@ -47,6 +56,8 @@ import org.dreamhorizon.pulseserver.util.RxObjectMapper;
 @RequiredArgsConstructor(onConstructor = @__({@Inject}))
 public class AlertEvaluationService {
   private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+  private static final int DEFAULT_RESULT_BATCH_MAX_SIZE = 500;
+  private static final long DEFAULT_RESULT_BATCH_MAX_DELAY_MS = 500;
   private final ApplicationConfig applicationConfig;
   private final AlertsDao alertsDao;
   private final ClickhouseMetricService clickhouseMetricService;
@@ -54,6 +65,11 @@ public class AlertEvaluationService {
   private final ObjectMapper objectMapper;
   private final Vertx vertx;
   private final RxObjectMapper rxObjectMapper;
+  private final AlertConditionCache alertConditionCache;
+  private final AlertStateStore alertStateStore;
+  // Shared by the consumers of every verticle; created by the first registerConsumers() call
+  private final AtomicReference<ResultBatcher<AlertEvaluationResponseDto>> evaluationHistoryBatcher =
+      new AtomicReference<>();
 
   public Single<EvaluateAlertResponseDto> evaluateAlertById(Integer alertId) {
     return alertsDao.getAlertDetailsForEvaluation(alertId)
@@ -65,65 +81,143 @@ public class AlertEvaluationService {
         });
   }
 
+  /**
+   * Registers the consumers of evaluation results. Scope states are moved in {@link AlertStateStore}, which writes them
+   * behind; history rows are written in batches with one INSERT each. Called once per verticle, all of which share one
+   * history batcher.
+   */
   public void registerConsumers() {
+    if (evaluationHistoryBatcher.get() == null) {
+      int maxSize = Optional.ofNullable(applicationConfig.getAlertResultBatchMaxSize())
+          .orElse(DEFAULT_RESULT_BATCH_MAX_SIZE);
+      long maxDelayMs = Optional.ofNullable(applicationConfig.getAlertResultBatchMaxDelayMs())
+          .orElse(DEFAULT_RESULT_BATCH_MAX_DELAY_MS);
+      // A batcher losing the race is dropped before anything is added to it
+      evaluationHistoryBatcher.compareAndSet(null, new ResultBatcher<>(vertx, "evaluation history rows", maxSize,
+          maxDelayMs, this::createEvaluationHistories));
+    }
     updateScopeStateEventBusConsumer();
     updateEvaluationHistoryEventBusConsumer();
   }
 
+  /**
+   * Evaluates the given alerts in the background, with one ClickHouse query per group of alerts that share scope,
+   * evaluation period and dimension filter (see {@link AlertEvaluationPlanner}). Alerts that cannot be loaded are
+   * skipped; the response lists the alerts whose evaluation was started.
+   */
+  public Single<EvaluateAlertsResponseDto> evaluateAlertsByIds(List<Integer> alertIds) {
+    return Flowable.fromIterable(new LinkedHashSet<>(alertIds))
+        .concatMapMaybe(alertId -> alertsDao.getAlertDetailsForEvaluation(alertId)
+            .flatMap(alertDetails -> alertsDao.getAlertScopesForEvaluation(alertId)
+                .map(scopes -> new AlertEvaluationPlanner.AlertToEvaluate(alertDetails, scopes)))
+            .toMaybe()
+            .onErrorResumeNext(error -> {
+              log.warn("Skipping evaluation of alert id {}: {}", alertId, error.getMessage());
+              return Maybe.empty();
+            }))
+        .toList()
+        .map(alerts -> {
+          LocalTime startTime = LocalTime.now();
+          List<List<AlertEvaluationPlanner.AlertToEvaluate>> groups = AlertEvaluationPlanner.plan(alerts);
+          groups.forEach(group -> triggerEvaluation(group, startTime));
+          return EvaluateAlertsResponseDto.builder()
+              .alertIds(alerts.stream().map(alert -> String.valueOf(alert.alert().getId())).toList())
+              .queryCount(groups.size())
+              .build();
+        });
+  }
+
   private void triggerEvaluation(AlertsDao.AlertDetails alertDetails) {
     LocalTime startTime = LocalTime.now();
-    ZonedDateTime endTime = ZonedDateTime.now(ZoneId.of("UTC"));
-    ZonedDateTime startTimeWindow = endTime.minusSeconds(alertDetails.getEvaluationPeriod());
-    LocalDateTime evaluationWindowStart = startTimeWindow.toLocalDateTime();
-    LocalDateTime evaluationWindowEnd = endTime.toLocalDateTime();
-
     alertsDao.getAlertScopesForEvaluation(alertDetails.getId())
-        .flatMap(scopes -> {
+        .subscribe(scopes -> {
           if (scopes.isEmpty()) {
             log.warn("No scopes found for alert id: {}", alertDetails.getId());
-            return Single.just(new ArrayList<>());
-          }
-
-          QueryRequest queryRequest = buildQueryRequest(alertDetails, scopes);
-          return clickhouseMetricService.getMetricDistribution(queryRequest)
-              .map(result -> evaluateMetrics(alertDetails, scopes, result));
-        })
-        .doOnSuccess(evaluationResults -> {
-          @SuppressWarnings("unchecked")
-          List<EvaluationResult> results = (List<EvaluationResult>) evaluationResults;
-          for (EvaluationResult result : results) {
-            AlertEvaluationResponseDto responseDto = AlertEvaluationResponseDto
-                .builder()
-                .alert(alertDetails)
-                .scopeId(result.getScopeId())
-                .evaluationResult(result.getEvaluationResult())
-                .timeTaken(Duration.between(startTime, LocalTime.now()).toSeconds())
-                .evaluationStartTime(DateTimeUtil.utcToIstTime(evaluationWindowStart).format(formatter))
-                .evaluationEndTime(DateTimeUtil.utcToIstTime(evaluationWindowEnd).format(formatter))
-                .status(Constants.QUERY_COMPLETED_STATUS)
-                .state(result.getState())
-                .build();
-
-            triggerSuccessEvent(responseDto);
+            return;
           }
-        })
-        .doOnError(error -> {
-          log.error("Error in alert evaluation for alert id: {}", alertDetails.getId(), error);
-          AlertEvaluationResponseDto responseDto = AlertEvaluationResponseDto
-              .builder()
-              .alert(alertDetails)
-              .timeTaken(Duration.between(startTime, LocalTime.now()).toSeconds())
-              .error(error.getMessage())
-              .build();
-          triggerErrorEvent(responseDto);
-        })
-        .subscribe();
+          triggerEvaluation(List.of(new AlertEvaluationPlanner.AlertToEvaluate(alertDetails, scopes)), startTime);
+        }, error -> handleEvaluationError(alertDetails, startTime, error));
   }
 
-  private QueryRequest buildQueryRequest(AlertsDao.AlertDetails alertDetails, List<AlertsDao.AlertScopeDetails> scopes) {
+  // One query for the whole group; every alert is then evaluated against the shared result
+  private void triggerEvaluation(List<AlertEvaluationPlanner.AlertToEvaluate> group, LocalTime startTime) {
+    AlertsDao.AlertDetails leadAlert = group.get(0).alert();
+    ZonedDateTime endTime = evaluationWindowEnd(leadAlert.getEvaluationPeriod());
+    ZonedDateTime startTimeWindow = endTime.minusSeconds(leadAlert.getEvaluationPeriod());
+    LocalDateTime evaluationWindowStart = startTimeWindow.toLocalDateTime();
+    LocalDateTime evaluationWindowEnd = endTime.toLocalDateTime();
+
+    List<AlertsDao.AlertScopeDetails> groupScopes = new ArrayList<>();
+    group.forEach(alert -> groupScopes.addAll(alert.scopes()));
+    QueryRequest queryRequest = buildQueryRequest(leadAlert, groupScopes, endTime);
+    queryRequest.setLimit(queryRequest.getLimit() * group.size());
+
+    clickhouseMetricService.getMetricDistribution(queryRequest, QueryLane.BATCH)
+        .subscribe(result -> {
+              // Each alert on its own, so that one with a malformed condition does not fail the rest of the group
+              for (AlertEvaluationPlanner.AlertToEvaluate alert : group) {
+                List<AlertEvaluationResponseDto> responses;
+                try {
+                  responses = evaluateAlert(alert, result, startTime, evaluationWindowStart, evaluationWindowEnd);
+                } catch (RuntimeException error) {
+                  handleEvaluationError(alert.alert(), startTime, error);
+                  continue;
+                }
+                responses.forEach(this::triggerSuccessEvent);
+              }
+            },
+            error -> group.forEach(alert -> handleEvaluationError(alert.alert(), startTime, error)));
+  }
+
+  private List<AlertEvaluationResponseDto> evaluateAlert(AlertEvaluationPlanner.AlertToEvaluate alert,
+                                                         PerformanceMetricDistributionRes result, LocalTime startTime,
+                                                         LocalDateTime evaluationWindowStart,
+                                                         LocalDateTime evaluationWindowEnd) {
+    List<AlertEvaluationResponseDto> responses = new ArrayList<>();
+    for (EvaluationResult evaluation : evaluateMetrics(alert.alert(), alert.scopes(), result)) {
+      responses.add(AlertEvaluationResponseDto
+          .builder()
+          .alert(alert.alert())
+          .scopeId(evaluation.getScopeId())
+          .evaluationResult(evaluation.getEvaluationResult())
+          .timeTaken(Duration.between(startTime, LocalTime.now()).toSeconds())
+          .evaluationStartTime(DateTimeUtil.utcToIstTime(evaluationWindowStart).format(formatter))
+          .evaluationEndTime(DateTimeUtil.utcToIstTime(evaluationWindowEnd).format(formatter))
+          .status(Constants.QUERY_COMPLETED_STATUS)
+          .state(evaluation.getState())
+          .build());
+    }
+    return responses;
+  }
+
+  private void handleEvaluationError(AlertsDao.AlertDetails alertDetails, LocalTime startTime, Throwable error) {
+    log.error("Error in alert evaluation for alert id: {}", alertDetails.getId(), error);
+    AlertEvaluationResponseDto responseDto = AlertEvaluationResponseDto
+        .builder()
+        .alert(alertDetails)
+        .timeTaken(Duration.between(startTime, LocalTime.now()).toSeconds())
+        .error(error.getMessage())
+        .build();
+    triggerErrorEvent(responseDto);
+  }
+
+  /**
+   * The end of the evaluation window. While the per-minute {@code otel_traces_1m} rollup is enabled, periods of whole
+   * minutes end on the last complete minute, so the window starts and ends on whole minutes and is answered from the
+   * rollup, which merges one partial aggregate per minute instead of scanning every span. The window then lags the
+   * latest data by under a minute, but always covers a full period of it.
+   */
+  private ZonedDateTime evaluationWindowEnd(Integer evaluationPeriod) {
+    ZonedDateTime now = ZonedDateTime.now(ZoneId.of("UTC"));
+    boolean rollup = Boolean.TRUE.equals(applicationConfig.getMetricRollupEnabled());
+    return rollup && evaluationPeriod % 60 == 0 ? now.truncatedTo(ChronoUnit.MINUTES) : now;
+  }
+
+  // endTime is the one the evaluation is reported with, so the query covers exactly the window the results describe
+  private QueryRequest buildQueryRequest(AlertsDao.AlertDetails alertDetails, List<AlertsDao.AlertScopeDetails> scopes,
+                                         ZonedDateTime endTime) {
     Integer evaluationPeriod = alertDetails.getEvaluationPeriod();
     String bucket = evaluationPeriod + "m";
-    ZonedDateTime endTime = ZonedDateTime.now(ZoneId.of("UTC"));
     ZonedDateTime startTime = endTime.minusSeconds(evaluationPeriod);
 
     QueryRequest.TimeRange timeRange = new QueryRequest.TimeRange();
@@ -146,7 +240,7 @@ public class AlertEvaluationService {
 
     Set<String> metrics = new HashSet<>();
     for (AlertsDao.AlertScopeDetails scope : scopes) {
-      List<Map<String, Object>> alerts = parseConditionsArray(scope.getConditions());
+      List<Map<String, Object>> alerts = conditions(alertDetails, scope);
       if (alerts != null) {
         for (Map<String, Object> alert : alerts) {
           String metric = (String) alert.get("metric");
@@ -259,7 +353,7 @@ public class AlertEvaluationService {
       log.info("No data returned from query for alert {}. All scopes will be set to NO_DATA.",
           alertDetails.getId());
       for (AlertsDao.AlertScopeDetails scope : scopes) {
-        List<Map<String, Object>> alerts = parseConditionsArray(scope.getConditions());
+        List<Map<String, Object>> alerts = conditions(alertDetails, scope);
         Map<String, Float> noDataResult = buildNoDataEvaluationResult(alerts != null ? alerts : new ArrayList<>());
         String evaluationResultJson = buildEvaluationResultJson(noDataResult, new HashMap<>(), false);
 
@@ -282,10 +376,12 @@ public class AlertEvaluationService {
     String scopeFieldAlias = getScopeFieldAlias(alertDetails.getScope());
 
     for (AlertsDao.AlertScopeDetails scope : scopes) {
-      List<Map<String, Object>> alerts = parseConditionsArray(scope.getConditions());
+      List<Map<String, Object>> alerts = conditions(alertDetails, scope);
       if (alerts == null || alerts.isEmpty()) {
         continue;
       }
+      CompiledExpression expression =
+          alertConditionCache.expression(alertDetails.getId(), alertDetails.getConditionExpression());
 
       String interactionName = scope.getName();
       Map<String, Boolean> variableValues = new HashMap<>();
@@ -373,7 +469,14 @@ public class AlertEvaluationService {
         variableValues.put(alias, isFiring);
       }
 
-      boolean expressionResult = ExpressionEvaluator.evaluate(alertDetails.getConditionExpression(), variableValues);
+      boolean[] variables = new boolean[expression.variableCount()];
+      for (Map.Entry<String, Boolean> variable : variableValues.entrySet()) {
+        int slot = expression.slot(variable.getKey());
+        if (slot >= 0) {
+          variables[slot] = variable.getValue();
+        }
+      }
+      boolean expressionResult = expression.evaluate(variables);
       AlertState finalState = metricReadings.isEmpty()
           ? AlertState.NO_DATA
           : (expressionResult ? AlertState.FIRING : AlertState.NORMAL);
@@ -393,6 +496,11 @@ public class AlertEvaluationService {
     return results;
   }
 
+  private List<Map<String, Object>> conditions(AlertsDao.AlertDetails alertDetails, AlertsDao.AlertScopeDetails scope) {
+    return alertConditionCache.conditions(alertDetails.getId(), scope.getId(), scope.getConditions(),
+        this::parseConditionsArray);
+  }
+
   private List<Map<String, Object>> parseConditionsArray(String json) {
     try {
       if (json == null || json.isEmpty()) {
@@ -537,41 +645,58 @@ public class AlertEvaluationService {
     if (!Constants.QUERY_COMPLETED_STATUS.equals(responseDto.getStatus())) {
       logError(responseDto);
       if (responseDto.getScopeId() != null) {
-        updateScopeState(responseDto.getScopeId(), AlertState.ERRORED)
-            .doOnError(error -> logErrorWhileUpdatingScopeState(error, responseDto))
-            .subscribe();
+        transitionScope(responseDto);
       }
       return;
     }
 
     if (responseDto.getScopeId() != null && responseDto.getState() != null) {
-      updateScopeState(responseDto.getScopeId(), responseDto.getState())
-          .doOnError(error -> logErrorWhileUpdatingScopeState(error, responseDto))
-          .subscribe();
-
-      alertsDao.getAlertScopesForEvaluation(responseDto.getAlert().getId())
-          .flatMap(scopes -> {
-            String scopeName = scopes.stream()
-                .filter(scope -> scope.getId().equals(responseDto.getScopeId()))
-                .map(AlertsDao.AlertScopeDetails::getName)
-                .findFirst()
-                .orElse("Unknown Scope");
+      transitionScope(responseDto);
+    }
+  }
 
-            Float metricReading = extractMetricReading(responseDto.getEvaluationResult());
+  // Reads MySQL only for a scope the store does not hold yet
+  private void transitionScope(AlertEvaluationResponseDto responseDto) {
+    alertStateStore.load(List.of(responseDto.getScopeId()))
+        .subscribe(
+            () -> applyTransition(responseDto),
+            error -> logErrorWhileUpdatingScopeState(error, List.of(responseDto)));
+  }
 
-            return alertsDao.getScopeState(responseDto.getScopeId())
-                .map(currentState -> {
-                  createIncidentIfRequired(responseDto.getState(), responseDto, metricReading, scopeName, currentState);
-                  return true;
-                });
-          })
-          .doOnError(error -> log.error("Error fetching scope details for incident: {}", error.getMessage()))
-          .subscribe();
+  private void applyTransition(AlertEvaluationResponseDto responseDto) {
+    applyTransition(responseDto, true);
+  }
+
+  private void applyTransition(AlertEvaluationResponseDto responseDto, boolean retryIfWriteLost) {
+    AlertState state = resultState(responseDto);
+    AlertStateStore.Transition transition = alertStateStore.transition(responseDto.getScopeId(), state);
+    if (transition.scopeName() == null) {
+      // The scope was deleted or replaced by an alert update since it was evaluated
+      log.warn("Ignoring result for inactive scope: {}", responseDto.getScopeId());
+      return;
+    }
+    if (state == AlertState.ERRORED || !shouldCreateIncident(state, responseDto, transition.previousState())) {
+      return;
     }
+    // The held state may be behind another instance's write; only the instance whose write lands notifies
+    transition.written().subscribe(
+        written -> {
+          if (written) {
+            Float metricReading = extractMetricReading(responseDto.getEvaluationResult());
+            createIncidentIfRequired(state, responseDto, metricReading, transition.scopeName(),
+                transition.previousState());
+          } else if (retryIfWriteLost) {
+            // The store holds the stored state again; decide on that instead
+            applyTransition(responseDto, false);
+          }
+        },
+        error -> logErrorWhileUpdatingScopeState(error, List.of(responseDto)));
   }
 
-  private Single<Boolean> updateScopeState(Integer scopeId, AlertState state) {
-    return alertsDao.updateScopeState(scopeId, state);
+  private static AlertState resultState(AlertEvaluationResponseDto responseDto) {
+    return Constants.QUERY_COMPLETED_STATUS.equals(responseDto.getStatus())
+        ? responseDto.getState()
+        : AlertState.ERRORED;
   }
 
   private void createIncidentIfRequired(
@@ -605,6 +730,11 @@ public class AlertEvaluationService {
     if (alert == null) {
       return false;
     }
+    // The store sees snoozes set after the evaluation read the alert
+    AlertStateStore.SnoozeWindow snooze = alertStateStore.snoozeWindow(alert.getId());
+    if (snooze != null) {
+      return isAlertSnoozed(snooze.snoozedFrom(), snooze.snoozedUntil());
+    }
     return isAlertSnoozed(alert.getSnoozedFrom(), alert.getSnoozedUntil());
   }
 
@@ -705,30 +835,35 @@ public class AlertEvaluationService {
       log.info("Query execution succeeded for alert: {}, scope: {}",
           responseDto.getAlert().getId(), responseDto.getScopeId());
 
-      if (responseDto.getScopeId() != null) {
-        String evaluationResult = responseDto.getEvaluationResult();
-        if (evaluationResult == null || evaluationResult.isEmpty()) {
-          evaluationResult = "{}";
-        }
-
-        createEvaluationHistory(responseDto.getScopeId(),
-            evaluationResult,
-            responseDto.getState())
-            .doOnError(error -> logErrorWhileUpdatingEvaluationHistory(error, responseDto))
-            .subscribe();
+      if (responseDto.getScopeId() != null && responseDto.getState() != null) {
+        evaluationHistoryBatcher.get().add(responseDto);
       }
     } else {
       logError(responseDto);
       if (responseDto.getScopeId() != null) {
-        createEvaluationHistory(responseDto.getScopeId(), "", AlertState.ERRORED)
-            .doOnError(error -> logErrorWhileUpdatingEvaluationHistory(error, responseDto))
-            .subscribe();
+        evaluationHistoryBatcher.get().add(responseDto);
       }
     }
   }
 
-  private Single<Boolean> createEvaluationHistory(Integer scopeId, String evaluationResult, AlertState state) {
-    return alertsDao.createEvaluationHistory(scopeId, evaluationResult, state);
+  private Completable createEvaluationHistories(List<AlertEvaluationResponseDto> batch) {
+    List<AlertsDao.EvaluationHistoryRow> rows = batch.stream()
+        .map(AlertEvaluationService::evaluationHistoryRow)
+        .toList();
+    return alertsDao.createEvaluationHistories(rows)
+        .ignoreElement()
+        .doOnError(error -> logErrorWhileUpdatingEvaluationHistory(error, batch));
+  }
+
+  private static AlertsDao.EvaluationHistoryRow evaluationHistoryRow(AlertEvaluationResponseDto responseDto) {
+    if (!Constants.QUERY_COMPLETED_STATUS.equals(responseDto.getStatus())) {
+      return new AlertsDao.EvaluationHistoryRow(responseDto.getScopeId(), "", AlertState.ERRORED);
+    }
+    String evaluationResult = responseDto.getEvaluationResult();
+    if (evaluationResult == null || evaluationResult.isEmpty()) {
+      evaluationResult = "{}";
+    }
+    return new AlertsDao.EvaluationHistoryRow(responseDto.getScopeId(), evaluationResult, responseDto.getState());
   }
 
   private @Nullable AlertEvaluationResponseDto getAlertEvaluationResponseDto(Message<Object> message) {
@@ -747,14 +882,18 @@ public class AlertEvaluationService {
         responseDto.getAlert().getId(), responseDto.getScopeId(), responseDto.getError());
   }
 
-  private void logErrorWhileUpdatingScopeState(Throwable error, AlertEvaluationResponseDto responseDto) {
-    log.error("Error while updating scope state: {} for scope id: {}",
-        error.getMessage(), responseDto.getScopeId());
+  private void logErrorWhileUpdatingScopeState(Throwable error, List<AlertEvaluationResponseDto> batch) {
+    log.error("Error while updating scope state: {} for scope ids: {}",
+        error.getMessage(), scopeIds(batch));
+  }
+
+  private void logErrorWhileUpdatingEvaluationHistory(Throwable error, List<AlertEvaluationResponseDto> batch) {
+    log.error("Error while updating evaluation history: {} for scope ids: {}",
+        error.getMessage(), scopeIds(batch));
   }
 
-  private void logErrorWhileUpdatingEvaluationHistory(Throwable error, AlertEvaluationResponseDto responseDto) {
-    log.error("Error while updating evaluation history: {} for scope id: {}",
-        error.getMessage(), responseDto.getScopeId());
+  private static List<Integer> scopeIds(List<AlertEvaluationResponseDto> batch) {
+    return batch.stream().map(AlertEvaluationResponseDto::getScopeId).toList();
   }
 
   private void logParsingError(JsonProcessingException e) {
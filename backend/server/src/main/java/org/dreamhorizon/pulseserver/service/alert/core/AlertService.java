@@ -52,6 +52,8 @@ public class AlertService {
   private final AlertsDao alertsDao;
   private final AlertCronService alertCronService;
   private final ApplicationConfig applicationConfig;
+  private final AlertConditionCache alertConditionCache;
+  private final AlertStateStore alertStateStore;
 
   private static void validateSnoozeFrom(LocalDateTime start, int snoozeSecondsThreshold) {
     if (start.isBefore(LocalDateTime.now(ZoneOffset.UTC).minusMinutes(1))) {
@@ -117,6 +119,10 @@ public class AlertService {
           evaluationInterval.set(alertDetailsResponseDto.getEvaluationInterval());
           return alertsDao.updateAlert(updateAlertRequestDto);
         })
+        .doOnSuccess(updatedAlertId -> {
+          alertConditionCache.invalidate(alertId);
+          alertStateStore.invalidate(alertId);
+        })
         .flatMap(updatedAlertId -> alertCronService.updateAlertCron(new UpdateAlertInCronManager(
             alertId,
             updateAlertRequestDto.getEvaluationInterval(),
@@ -150,6 +156,7 @@ public class AlertService {
 
     return alertsDao
         .snoozeAlert(request)
+        .doOnSuccess(resp -> alertStateStore.setSnoozeWindow(request.getAlertId(), start, end))
         .map(resp -> SnoozeAlertResponse
             .builder()
             .isSnoozed(isAlertSnoozed(start, end))
@@ -159,7 +166,8 @@ public class AlertService {
   }
 
   public Single<EmptyResponse> deleteSnooze(@Valid DeleteSnoozeRequest request) {
-    return alertsDao.deleteSnooze(request);
+    return alertsDao.deleteSnooze(request)
+        .doOnSuccess(resp -> alertStateStore.setSnoozeWindow(request.getAlertId(), null, null));
   }
 
   public Single<Boolean> deleteAlert(@NotNull Integer alertId) {
@@ -167,6 +175,8 @@ public class AlertService {
         .flatMap(alert -> alertsDao.deleteAlert(alertId)
             .flatMap(deleted -> {
               if (deleted) {
+                alertConditionCache.invalidate(alertId);
+                alertStateStore.invalidate(alertId);
                 // TODO : Remove alert from cron job
                 return alertCronService.deleteAlertCron(new DeleteAlertFromCronManager(alert.getAlertId(), alert.getEvaluationInterval()))
                     .map(deletedCron -> {
@@ -0,0 +1,311 @@
+package org.dreamhorizon.pulseserver.service.alert.core;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.Inject;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.subjects.CompletableSubject;
+import io.reactivex.rxjava3.subjects.SingleSubject;
+import io.vertx.rxjava3.core.Vertx;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.dreamhorizon.pulseserver.config.ApplicationConfig;
+import org.dreamhorizon.pulseserver.dao.AlertsDao;
+import org.dreamhorizon.pulseserver.resources.alert.enums.AlertState;
+
+/**
+ * JVM-wide copy of the state of every active alert scope and of the snooze window of its alert, so that evaluation
+ * results are turned into state transitions without reading MySQL.
+ *
+ * <p>Loaded at {@link #start()} and again every {@link #REFRESH_INTERVAL}; scopes created since the last load are read
+ * the first time a result for them arrives. A transition changes the copy at once, and changed states are written
+ * behind it in batches. Each write only applies if the scope's {@code version} is still the one this copy last saw, so
+ * when another instance has written the scope since, the write is dropped and the scope read again. A refresh likewise
+ * only replaces scopes whose stored version is newer than the copy.
+ *
+ * <p>Since the copy can be behind the stored state, a transition is only final once its write has been made:
+ * {@link Transition#written()} tells whether it was, and anything that must happen once per transition (such as a
+ * notification) waits for it.
+ */
+@Slf4j
+public class AlertStateStore {
+  static final Duration REFRESH_INTERVAL = Duration.ofMinutes(1);
+  private static final int DEFAULT_WRITE_BATCH_MAX_SIZE = 500;
+  private static final long DEFAULT_WRITE_BATCH_MAX_DELAY_MS = 500;
+
+  private final Vertx vertx;
+  private final AlertsDao alertsDao;
+  private final ResultBatcher<Integer> writes;
+  private final Map<Integer, Scope> scopes = new ConcurrentHashMap<>();
+  private final Map<Integer, SnoozeWindow> snoozes = new ConcurrentHashMap<>();
+  private final AtomicBoolean started = new AtomicBoolean();
+  private final CompletableSubject loaded = CompletableSubject.create();
+
+  @Inject
+  public AlertStateStore(Vertx vertx, AlertsDao alertsDao, ApplicationConfig applicationConfig,
+                         MetricRegistry metricRegistry) {
+    this.vertx = vertx;
+    this.alertsDao = alertsDao;
+    int maxSize = Optional.ofNullable(applicationConfig.getAlertResultBatchMaxSize())
+        .orElse(DEFAULT_WRITE_BATCH_MAX_SIZE);
+    long maxDelayMs = Optional.ofNullable(applicationConfig.getAlertResultBatchMaxDelayMs())
+        .orElse(DEFAULT_WRITE_BATCH_MAX_DELAY_MS);
+    this.writes = new ResultBatcher<>(vertx, "scope states", maxSize, maxDelayMs, this::write);
+    metricRegistry.register("alert.scope_states.size", (Gauge<Integer>) this::size);
+  }
+
+  /**
+   * Loads the states and schedules the periodic refresh. Safe to call from every verticle; only the first call counts.
+   */
+  public void start() {
+    if (!started.compareAndSet(false, true)) {
+      return;
+    }
+    refresh().subscribe(loaded::onComplete, loaded::onError);
+    vertx.setPeriodic(REFRESH_INTERVAL.toMillis(), id -> refresh().subscribe(() -> { }, err -> { }));
+  }
+
+  /**
+   * Completes once the load begun by {@link #start()} has succeeded, and fails if it failed. Without that load no scope
+   * can move and no notification is sent, so startup waits for it instead of carrying on with alerting stopped.
+   */
+  public Completable loaded() {
+    return loaded;
+  }
+
+  Completable refresh() {
+    return alertsDao.getScopeStates()
+        .doOnSuccess(rows -> {
+          Set<Integer> activeScopes = new HashSet<>();
+          Set<Integer> activeAlerts = new HashSet<>();
+          for (AlertsDao.ScopeStateRow row : rows) {
+            merge(row);
+            activeScopes.add(row.scopeId());
+            activeAlerts.add(row.alertId());
+          }
+          // Scopes with a pending write stay until it has been made
+          scopes.entrySet().removeIf(entry -> !activeScopes.contains(entry.getKey()) && !entry.getValue().dirty());
+          snoozes.keySet().retainAll(activeAlerts);
+        })
+        .ignoreElement()
+        .doOnError(err -> log.error("Failed to refresh alert scope states: {}", err.getMessage()));
+  }
+
+  /**
+   * Reads the scopes among {@code scopeIds} that are not held yet. Completes at once if all of them are.
+   */
+  public Completable load(Collection<Integer> scopeIds) {
+    List<Integer> missing = scopeIds.stream()
+        .filter(scopeId -> scopeId != null && !scopes.containsKey(scopeId))
+        .distinct()
+        .toList();
+    if (missing.isEmpty()) {
+      return Completable.complete();
+    }
+    return alertsDao.getScopeStates(missing)
+        .doOnSuccess(rows -> rows.forEach(this::merge))
+        .ignoreElement();
+  }
+
+  /**
+   * Moves a held scope to {@code state}, queueing a write if that changes it.
+   *
+   * @return the scope's name, its state before the move and whether the move was written; name and state are null if
+   *     the scope is not held, in which case nothing is written
+   */
+  public Transition transition(Integer scopeId, AlertState state) {
+    AtomicReference<Scope> previous = new AtomicReference<>();
+    SingleSubject<Boolean> written = SingleSubject.create();
+    scopes.computeIfPresent(scopeId, (id, scope) -> {
+      previous.set(scope);
+      return scope.state() == state ? scope : scope.moveTo(state, written);
+    });
+    Scope scope = previous.get();
+    if (scope == null) {
+      return new Transition(null, null, Single.just(false));
+    }
+    if (scope.state() == state) {
+      return new Transition(scope.name(), scope.state(), Single.just(false));
+    }
+    writes.add(scopeId);
+    return new Transition(scope.name(), scope.state(), written);
+  }
+
+  /**
+   * The snooze window of an alert as last loaded or set, or null if the alert is not held.
+   */
+  public SnoozeWindow snoozeWindow(Integer alertId) {
+    return alertId == null ? null : snoozes.get(alertId);
+  }
+
+  public void setSnoozeWindow(Integer alertId, LocalDateTime snoozedFrom, LocalDateTime snoozedUntil) {
+    if (alertId != null) {
+      snoozes.put(alertId, new SnoozeWindow(snoozedFrom, snoozedUntil));
+    }
+  }
+
+  /**
+   * Drops an alert's scopes and snooze window, so that they are read again when next needed.
+   */
+  public void invalidate(Integer alertId) {
+    if (alertId == null) {
+      return;
+    }
+    List<Scope> removed = new ArrayList<>();
+    scopes.values().removeIf(scope -> alertId.equals(scope.alertId()) && removed.add(scope));
+    snoozes.remove(alertId);
+    removed.forEach(Scope::lost);
+  }
+
+  int size() {
+    return scopes.size();
+  }
+
+  private void merge(AlertsDao.ScopeStateRow row) {
+    Scope loaded = new Scope(row.alertId(), row.name(), row.state(), versionOf(row), false, List.of());
+    AtomicReference<Scope> replaced = new AtomicReference<>();
+    scopes.merge(row.scopeId(), loaded, (held, stored) -> {
+      if (stored.version() <= held.version()) {
+        return held;
+      }
+      replaced.set(held);
+      return stored;
+    });
+    // Outside merge: a waiter may make another transition right away
+    Optional.ofNullable(replaced.get()).ifPresent(Scope::lost);
+    snoozes.put(row.alertId(), new SnoozeWindow(row.snoozedFrom(), row.snoozedUntil()));
+  }
+
+  private Completable write(List<Integer> scopeIds) {
+    List<PendingWrite> batch = new ArrayList<>();
+    List<SingleSubject<Boolean>> settled = new ArrayList<>();
+    for (Integer scopeId : new LinkedHashSet<>(scopeIds)) {
+      // Taking the waiters off the scope in the same step as reading its state, so each waits for exactly one write
+      scopes.computeIfPresent(scopeId, (id, scope) -> {
+        if (scope.dirty()) {
+          batch.add(new PendingWrite(new AlertsDao.ScopeStateWrite(id, scope.state(), scope.version()),
+              scope.waiters()));
+        } else {
+          // Moved away and back while the previous write was running, which stored the state they ended in
+          settled.addAll(scope.waiters());
+        }
+        return scope.withoutWaiters();
+      });
+    }
+    settled.forEach(waiter -> waiter.onSuccess(true));
+    if (batch.isEmpty()) {
+      return Completable.complete();
+    }
+
+    return alertsDao.updateScopeStates(batch.stream().map(PendingWrite::write).toList())
+        .flatMapCompletable(written -> {
+          List<PendingWrite> lost = new ArrayList<>();
+          for (PendingWrite pending : batch) {
+            if (written.contains(pending.write().scopeId())) {
+              written(pending.write());
+              pending.waiters().forEach(waiter -> waiter.onSuccess(true));
+            } else {
+              lost.add(pending);
+            }
+          }
+          if (lost.isEmpty()) {
+            return Completable.complete();
+          }
+          log.warn("{} of {} scope states were changed by another instance, reading them again",
+              lost.size(), batch.size());
+          // Waiters learn of the lost write only once the stored state is held, so they can decide on it
+          return reload(lost)
+              .doFinally(() -> lost.forEach(pending -> pending.waiters().forEach(waiter -> waiter.onSuccess(false))));
+        })
+        .doOnError(err -> batch.forEach(this::requeue));
+  }
+
+  private void written(AlertsDao.ScopeStateWrite write) {
+    scopes.computeIfPresent(write.scopeId(), (id, scope) -> scope.version() == write.version()
+        ? scope.written(write.state())
+        : scope);
+  }
+
+  private void requeue(PendingWrite pending) {
+    Scope scope = scopes.computeIfPresent(pending.write().scopeId(),
+        (id, held) -> held.withWaiters(pending.waiters()));
+    if (scope == null) {
+      pending.waiters().forEach(waiter -> waiter.onSuccess(false));
+      return;
+    }
+    writes.add(pending.write().scopeId());
+  }
+
+  // After a lost write the stored state wins, including over transitions made since the write was queued
+  private Completable reload(List<PendingWrite> lost) {
+    List<Integer> scopeIds = lost.stream().map(pending -> pending.write().scopeId()).toList();
+    return alertsDao.getScopeStates(scopeIds)
+        .doOnSuccess(rows -> {
+          List<Scope> removed = scopeIds.stream().map(scopes::remove).filter(Objects::nonNull).toList();
+          rows.forEach(this::merge);
+          removed.forEach(Scope::lost);
+        })
+        .ignoreElement();
+  }
+
+  private static int versionOf(AlertsDao.ScopeStateRow row) {
+    return row.version() == null ? 0 : row.version();
+  }
+
+  /**
+   * @param written emits true once this move has been stored, and false if it was not: the state did not change, or
+   *                another instance wrote the scope first, in which case the stored state is held again by the time it
+   *                emits
+   */
+  public record Transition(String scopeName, AlertState previousState, Single<Boolean> written) {
+  }
+
+  public record SnoozeWindow(LocalDateTime snoozedFrom, LocalDateTime snoozedUntil) {
+  }
+
+  private record PendingWrite(AlertsDao.ScopeStateWrite write, List<SingleSubject<Boolean>> waiters) {
+  }
+
+  // dirty: state has been changed here and not written yet; waiters: transitions waiting for the next write
+  private record Scope(Integer alertId, String name, AlertState state, int version, boolean dirty,
+                       List<SingleSubject<Boolean>> waiters) {
+    // Moves made before the last one was written are stored, or lost, together with it
+    Scope moveTo(AlertState newState, SingleSubject<Boolean> waiter) {
+      List<SingleSubject<Boolean>> all = new ArrayList<>(waiters);
+      all.add(waiter);
+      return new Scope(alertId, name, newState, version, true, List.copyOf(all));
+    }
+
+    Scope written(AlertState writtenState) {
+      return new Scope(alertId, name, state, version + 1, state != writtenState, waiters);
+    }
+
+    Scope withoutWaiters() {
+      return new Scope(alertId, name, state, version, dirty, List.of());
+    }
+
+    Scope withWaiters(List<SingleSubject<Boolean>> earlier) {
+      List<SingleSubject<Boolean>> all = new ArrayList<>(earlier);
+      all.addAll(waiters);
+      return new Scope(alertId, name, state, version, dirty, List.copyOf(all));
+    }
+
+    void lost() {
+      waiters.forEach(waiter -> waiter.onSuccess(false));
+    }
+  }
+}
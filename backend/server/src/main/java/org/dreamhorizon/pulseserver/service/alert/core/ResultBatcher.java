@@ -0,0 +1,118 @@
+package org.dreamhorizon.pulseserver.service.alert.core;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.vertx.rxjava3.core.Vertx;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collects items and hands them to {@code flusher} in batches. A batch is flushed once it holds {@code maxSize} items
+ * or its oldest item is {@code maxDelayMs} old. Only one batch is written at a time: items added while a flush is
+ * running go into the next batch, which is flushed when the running one completes (or fails).
+ */
+@Slf4j
+class ResultBatcher<T> {
+  private final Vertx vertx;
+  private final String name;
+  private final int maxSize;
+  private final long maxDelayMs;
+  private final Function<List<T>, Completable> flusher;
+
+  private final Object lock = new Object();
+  private List<T> pending = new ArrayList<>();
+  private long flushTimerId = -1;
+  private boolean flushing;
+  // The delay of the pending batch ran out while another batch was being flushed
+  private boolean overdue;
+
+  ResultBatcher(Vertx vertx, String name, int maxSize, long maxDelayMs, Function<List<T>, Completable> flusher) {
+    this.vertx = vertx;
+    this.name = name;
+    this.maxSize = maxSize;
+    this.maxDelayMs = maxDelayMs;
+    this.flusher = flusher;
+  }
+
+  void add(T item) {
+    List<T> batch;
+    synchronized (lock) {
+      pending.add(item);
+      batch = nextBatch();
+    }
+    flush(batch);
+  }
+
+  int pendingSize() {
+    synchronized (lock) {
+      return pending.size();
+    }
+  }
+
+  private void flushOnTimer(long timerId) {
+    List<T> batch = null;
+    synchronized (lock) {
+      if (flushTimerId != timerId) {
+        // The batch this timer was armed for has already been flushed by size
+        return;
+      }
+      flushTimerId = -1;
+      if (flushing) {
+        overdue = true;
+      } else {
+        batch = drainPending();
+      }
+    }
+    flush(batch);
+  }
+
+  // Must be called while holding the lock; null if nothing is to be flushed now
+  private List<T> nextBatch() {
+    if (pending.isEmpty()) {
+      return null;
+    }
+    if (!flushing && (overdue || pending.size() >= maxSize)) {
+      return drainPending();
+    }
+    if (flushTimerId < 0 && !overdue) {
+      flushTimerId = vertx.setTimer(maxDelayMs, this::flushOnTimer);
+    }
+    return null;
+  }
+
+  // Must be called while holding the lock
+  private List<T> drainPending() {
+    if (flushTimerId >= 0) {
+      vertx.cancelTimer(flushTimerId);
+      flushTimerId = -1;
+    }
+    List<T> batch = pending;
+    pending = new ArrayList<>();
+    flushing = true;
+    overdue = false;
+    return batch;
+  }
+
+  private void flush(List<T> batch) {
+    if (batch == null) {
+      return;
+    }
+    Completable.defer(() -> flusher.apply(batch))
+        .subscribe(
+            this::flushed,
+            error -> {
+              log.error("Failed to flush {} {}: {}", batch.size(), name, error.getMessage());
+              flushed();
+            });
+  }
+
+  private void flushed() {
+    List<T> batch;
+    synchronized (lock) {
+      flushing = false;
+      batch = nextBatch();
+    }
+    flush(batch);
+  }
+}
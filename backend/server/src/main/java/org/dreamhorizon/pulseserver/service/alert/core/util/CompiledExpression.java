@@ -0,0 +1,181 @@
+package org.dreamhorizon.pulseserver.service.alert.core.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Stack;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An alert condition expression such as {@code (A && B) || !C}, parsed once into an immutable tree. Variables are
+ * numbered in order of first appearance, and {@link #evaluate(boolean[])} reads their values from an array indexed by
+ * those numbers, so evaluating allocates nothing.
+ *
+ * <p>Parsing follows the rules {@link ExpressionEvaluator} always had: whitespace is removed first, {@code &&} and
+ * {@code ||} have equal precedence and group to the right, other characters are ignored, and the forms it could not
+ * evaluate (a {@code !} followed by a binary operator, for one) fail with {@link java.util.EmptyStackException}.
+ */
+@Slf4j
+public final class CompiledExpression {
+  private static final Node FALSE = values -> false;
+
+  private final Node root;
+  private final Map<String, Integer> slots;
+
+  private CompiledExpression(Node root, Map<String, Integer> slots) {
+    this.root = root;
+    this.slots = slots;
+  }
+
+  public static CompiledExpression compile(String expression) {
+    if (expression == null || expression.trim().isEmpty()) {
+      log.warn("Expression is null or empty");
+      return new CompiledExpression(FALSE, Map.of());
+    }
+
+    String expr = expression.replaceAll("\\s+", "");
+    Map<String, Integer> slots = new LinkedHashMap<>();
+    Stack<Node> values = new Stack<>();
+    Stack<Character> ops = new Stack<>();
+
+    for (int i = 0; i < expr.length(); i++) {
+      char c = expr.charAt(i);
+
+      if (isNameChar(c)) {
+        int start = i;
+        while (i < expr.length() && isNameChar(expr.charAt(i))) {
+          i++;
+        }
+        String name = expr.substring(start, i);
+        i--;
+        values.push(new Variable(slots.computeIfAbsent(name, n -> slots.size())));
+
+      } else if (c == '(') {
+        ops.push(c);
+
+      } else if (c == ')') {
+        while (!ops.isEmpty() && ops.peek() != '(') {
+          values.push(applyOp(ops.pop(), values.pop(), values.pop()));
+        }
+        if (!ops.isEmpty()) {
+          ops.pop();
+        }
+
+      } else if ((c == '&' || c == '|') && i + 1 < expr.length() && expr.charAt(i + 1) == c) {
+        while (!ops.isEmpty() && ops.peek() == '!') {
+          values.push(applyOp(ops.pop(), values.pop(), values.pop()));
+        }
+        ops.push(c);
+        i++;
+
+      } else if (c == '!') {
+        ops.push('!');
+      }
+    }
+
+    while (!ops.isEmpty()) {
+      if (ops.peek() == '!') {
+        values.push(applyOp(ops.pop(), values.pop(), null));
+      } else {
+        values.push(applyOp(ops.pop(), values.pop(), values.pop()));
+      }
+    }
+
+    return new CompiledExpression(values.isEmpty() ? FALSE : values.pop(), Collections.unmodifiableMap(slots));
+  }
+
+  /**
+   * The variables of the expression, in slot order.
+   */
+  public List<String> variables() {
+    return new ArrayList<>(slots.keySet());
+  }
+
+  public int variableCount() {
+    return slots.size();
+  }
+
+  /**
+   * The slot of {@code variable}, or -1 if the expression does not use it.
+   */
+  public int slot(String variable) {
+    return slots.getOrDefault(variable, -1);
+  }
+
+  /**
+   * Evaluates the expression with {@code values[slot]} as the value of each variable; {@code values} must have at least
+   * {@link #variableCount()} entries.
+   */
+  public boolean evaluate(boolean[] values) {
+    return root.evaluate(values);
+  }
+
+  /**
+   * Evaluates the expression with the values of a map; variables missing from it are false.
+   */
+  public boolean evaluate(Map<String, Boolean> variableValues) {
+    boolean[] values = new boolean[slots.size()];
+    for (Map.Entry<String, Integer> slot : slots.entrySet()) {
+      Boolean value = variableValues.get(slot.getKey());
+      if (value == null) {
+        log.warn("Variable {} not found in variable values", slot.getKey());
+      } else {
+        values[slot.getValue()] = value;
+      }
+    }
+    return evaluate(values);
+  }
+
+  private static boolean isNameChar(char c) {
+    return Character.isLetterOrDigit(c) || c == '_';
+  }
+
+  // b is the operand popped first; a is null only for a trailing '!'
+  private static Node applyOp(char op, Node b, Node a) {
+    if (op == '!') {
+      return new Not(b);
+    }
+    if (a == null) {
+      return b;
+    }
+    return switch (op) {
+      case '&' -> new And(a, b);
+      case '|' -> new Or(a, b);
+      default -> FALSE;
+    };
+  }
+
+  private interface Node {
+    boolean evaluate(boolean[] values);
+  }
+
+  private record Variable(int slot) implements Node {
+    @Override
+    public boolean evaluate(boolean[] values) {
+      return values[slot];
+    }
+  }
+
+  private record Not(Node operand) implements Node {
+    @Override
+    public boolean evaluate(boolean[] values) {
+      return !operand.evaluate(values);
+    }
+  }
+
+  private record And(Node left, Node right) implements Node {
+    @Override
+    public boolean evaluate(boolean[] values) {
+      return left.evaluate(values) && right.evaluate(values);
+    }
+  }
+
+  private record Or(Node left, Node right) implements Node {
+    @Override
+    public boolean evaluate(boolean[] values) {
+      return left.evaluate(values) || right.evaluate(values);
+    }
+  }
+}
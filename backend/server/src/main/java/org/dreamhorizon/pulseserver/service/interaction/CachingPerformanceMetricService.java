@@ -0,0 +1,448 @@
+package org.dreamhorizon.pulseserver.service.interaction;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.inject.Inject;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Single;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import org.dreamhorizon.pulseserver.config.ApplicationConfig;
+import org.dreamhorizon.pulseserver.resources.performance.models.Functions;
+import org.dreamhorizon.pulseserver.resources.performance.models.PerformanceMetricDistributionRes;
+import org.dreamhorizon.pulseserver.resources.performance.models.QueryRequest;
+
+/**
+ * Result cache in front of {@link ClickhouseMetricService}, for the dashboards that re-send the same query with a
+ * sliding time range every few seconds.
+ *
+ * <p>Queries grouped by a {@code TIME_BUCKET} over {@code Timestamp} are split into epoch-aligned buckets. Buckets that
+ * lie fully inside the requested range and closed more than {@code metricQueryCacheSettleSeconds} ago (so late events
+ * have arrived) are cached per normalized query; only the remaining buckets, usually the partial head and the open tail,
+ * are queried from ClickHouse and merged back in bucket order. Other queries are cached as a whole once their range has
+ * settled, and passed through otherwise.
+ *
+ * <p>Entries are weighed by their estimated size and share {@code metricQueryCacheMaxWeightMb}; they expire after
+ * {@code metricQueryCacheTtlMinutes}.
+ */
+public class CachingPerformanceMetricService implements PerformanceMetricService {
+  private static final long DEFAULT_MAX_WEIGHT_MB = 64;
+  private static final long DEFAULT_TTL_MINUTES = 10;
+  private static final long DEFAULT_SETTLE_SECONDS = 120;
+  private static final int DEFAULT_LIMIT = 100;
+  // Beyond this many buckets the bookkeeping costs more than the query it saves
+  private static final int MAX_BUCKETS = 1_000;
+  private static final String TIMESTAMP_COLUMN = "Timestamp";
+  private static final String METRIC_PREFIX = "interaction.metric_query_cache.";
+  private static final DateTimeFormatter CLICKHOUSE_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+  private static final ObjectMapper KEY_MAPPER = JsonMapper.builder()
+      .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+      .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+      .build();
+
+  private final ClickhouseMetricService delegate;
+  private final Clock clock;
+  private final long settleSeconds;
+  private final Cache<Key, CachedRows> cache;
+
+  @Inject
+  public CachingPerformanceMetricService(ClickhouseMetricService delegate, ApplicationConfig applicationConfig,
+                                         MetricRegistry metricRegistry) {
+    this(delegate, applicationConfig, metricRegistry, Clock.systemUTC());
+  }
+
+  CachingPerformanceMetricService(ClickhouseMetricService delegate, ApplicationConfig applicationConfig,
+                                  MetricRegistry metricRegistry, Clock clock) {
+    this.delegate = delegate;
+    this.clock = clock;
+    this.settleSeconds = Optional.ofNullable(applicationConfig.getMetricQueryCacheSettleSeconds())
+        .orElse(DEFAULT_SETTLE_SECONDS);
+    long maxWeightKb = Optional.ofNullable(applicationConfig.getMetricQueryCacheMaxWeightMb())
+        .orElse(DEFAULT_MAX_WEIGHT_MB) * 1024;
+    this.cache = Caffeine.newBuilder()
+        .maximumWeight(maxWeightKb)
+        .weigher((Key key, CachedRows rows) -> rows.weightKb())
+        .expireAfterWrite(Duration.ofMinutes(
+            Optional.ofNullable(applicationConfig.getMetricQueryCacheTtlMinutes()).orElse(DEFAULT_TTL_MINUTES)))
+        .recordStats()
+        .build();
+
+    metricRegistry.register(METRIC_PREFIX + "hits", (Gauge<Long>) () -> cache.stats().hitCount());
+    metricRegistry.register(METRIC_PREFIX + "misses", (Gauge<Long>) () -> cache.stats().missCount());
+    metricRegistry.register(METRIC_PREFIX + "hit_ratio", (Gauge<Double>) () -> cache.stats().hitRate());
+    metricRegistry.register(METRIC_PREFIX + "evictions", (Gauge<Long>) () -> cache.stats().evictionCount());
+    metricRegistry.register(METRIC_PREFIX + "size", (Gauge<Long>) cache::estimatedSize);
+  }
+
+  @Override
+  public Single<PerformanceMetricDistributionRes> getMetricDistribution(QueryRequest request) {
+    Plan plan = plan(request);
+    if (plan == null) {
+      return delegate.getMetricDistribution(request);
+    }
+    return execute(plan);
+  }
+
+  @Override
+  public Single<byte[]> getMetricDistributionJson(QueryRequest request) {
+    Plan plan = plan(request);
+    if (plan == null) {
+      return delegate.getMetricDistributionJson(request);
+    }
+    return execute(plan).map(result -> {
+      DistributionJsonWriter writer = new DistributionJsonWriter();
+      for (List<String> row : result.getRows()) {
+        writer.writeRow(result.getFields(), row.toArray());
+      }
+      return writer.finish();
+    });
+  }
+
+  private Single<PerformanceMetricDistributionRes> execute(Plan plan) {
+    if (plan.bucketSeconds() == 0) {
+      Key key = new Key(plan.query(), plan.start(), plan.end());
+      CachedRows cached = cache.getIfPresent(key);
+      if (cached != null) {
+        return Single.just(cached.toResponse());
+      }
+      return delegate.getMetricDistribution(plan.request())
+          .doOnSuccess(result -> cache.put(key, CachedRows.of(result.getFields(), result.getRows())));
+    }
+    return executeBuckets(plan);
+  }
+
+  /**
+   * Serves the cached buckets and queries each run of consecutive missing buckets with one request.
+   */
+  private Single<PerformanceMetricDistributionRes> executeBuckets(Plan plan) {
+    List<Long> buckets = plan.buckets();
+    Map<Long, CachedRows> cachedBuckets = new HashMap<>();
+    List<Run> runs = new ArrayList<>();
+    Run current = null;
+    for (long bucket : buckets) {
+      CachedRows cached = isCacheable(plan, bucket) ? cache.getIfPresent(plan.bucketKey(bucket)) : null;
+      if (cached != null) {
+        cachedBuckets.put(bucket, cached);
+        current = null;
+      } else if (current == null) {
+        current = new Run(new ArrayList<>(List.of(bucket)));
+        runs.add(current);
+      } else {
+        current.buckets().add(bucket);
+      }
+    }
+
+    return Flowable.fromIterable(runs)
+        .concatMapEager(run -> fetch(plan, run).toFlowable())
+        .toList()
+        .flatMap(fetched -> {
+          Map<Long, CachedRows> rowsByBucket = new HashMap<>(cachedBuckets);
+          for (Optional<Map<Long, CachedRows>> runRows : fetched) {
+            if (runRows.isEmpty()) {
+              // A run could not be split into buckets (truncated by the limit or unrecognized bucket values)
+              return delegate.getMetricDistribution(plan.request());
+            }
+            rowsByBucket.putAll(runRows.get());
+          }
+          return Single.just(merge(plan, rowsByBucket));
+        });
+  }
+
+  private Single<Optional<Map<Long, CachedRows>>> fetch(Plan plan, Run run) {
+    long first = run.buckets().get(0);
+    long last = run.buckets().get(run.buckets().size() - 1);
+    QueryRequest runRequest = withTimeRange(plan.request(),
+        Math.max(plan.start(), first), Math.min(plan.end(), last + plan.bucketSeconds()));
+
+    return delegate.getMetricDistribution(runRequest)
+        .map(result -> {
+          Map<Long, CachedRows> split = split(plan, run, result);
+          if (split == null) {
+            return Optional.empty();
+          }
+          for (Map.Entry<Long, CachedRows> entry : split.entrySet()) {
+            if (isCacheable(plan, entry.getKey())) {
+              cache.put(plan.bucketKey(entry.getKey()), entry.getValue());
+            }
+          }
+          return Optional.of(split);
+        });
+  }
+
+  /**
+   * Groups the rows of a run by their bucket. Returns null if the rows cannot be attributed to buckets reliably.
+   */
+  private Map<Long, CachedRows> split(Plan plan, Run run, PerformanceMetricDistributionRes result) {
+    List<String> fields = Objects.requireNonNullElse(result.getFields(), List.of());
+    List<List<String>> rows = Objects.requireNonNullElse(result.getRows(), List.of());
+    if (rows.size() >= plan.limit()) {
+      return null;
+    }
+    Map<Long, List<List<String>>> rowsByBucket = new HashMap<>();
+    for (long bucket : run.buckets()) {
+      rowsByBucket.put(bucket, new ArrayList<>());
+    }
+    if (!rows.isEmpty()) {
+      int column = fields.indexOf(plan.bucketAlias());
+      if (column < 0) {
+        return null;
+      }
+      for (List<String> row : rows) {
+        Long bucket = parseBucket(row.get(column));
+        if (bucket == null || bucket % plan.bucketSeconds() != 0) {
+          return null;
+        }
+        // The inclusive range end may pull in the first instant of the next bucket; that bucket comes from elsewhere
+        List<List<String>> bucketRows = rowsByBucket.get(bucket);
+        if (bucketRows != null) {
+          bucketRows.add(row);
+        }
+      }
+    }
+    Map<Long, CachedRows> split = new HashMap<>();
+    rowsByBucket.forEach((bucket, bucketRows) -> split.put(bucket, CachedRows.of(fields, bucketRows)));
+    return split;
+  }
+
+  private PerformanceMetricDistributionRes merge(Plan plan, Map<Long, CachedRows> rowsByBucket) {
+    List<Long> buckets = plan.buckets();
+    if (plan.descending()) {
+      Collections.reverse(buckets);
+    }
+    List<String> fields = List.of();
+    List<List<String>> rows = new ArrayList<>();
+    for (long bucket : buckets) {
+      CachedRows bucketRows = rowsByBucket.get(bucket);
+      if (fields.isEmpty() && !bucketRows.fields().isEmpty()) {
+        fields = bucketRows.fields();
+      }
+      for (List<String> row : bucketRows.rows()) {
+        if (rows.size() < plan.limit()) {
+          rows.add(row);
+        }
+      }
+    }
+    if (rows.isEmpty()) {
+      fields = List.of();
+    }
+    return PerformanceMetricDistributionRes.builder()
+        .fields(fields)
+        .rows(rows)
+        .build();
+  }
+
+  private boolean isCacheable(Plan plan, long bucket) {
+    return bucket >= plan.start()
+        && bucket + plan.bucketSeconds() <= plan.end()
+        && bucket + plan.bucketSeconds() <= settledBefore();
+  }
+
+  private long settledBefore() {
+    return clock.instant().getEpochSecond() - settleSeconds;
+  }
+
+  /**
+   * Decides how a request can be cached, or returns null if it has to go straight to ClickHouse.
+   */
+  private Plan plan(QueryRequest request) {
+    if (request.getTimeRange() == null || request.getDataType() == null) {
+      return null;
+    }
+    long start;
+    long end;
+    try {
+      start = effectiveEpochSecond(request.getTimeRange().getStart());
+      end = effectiveEpochSecond(request.getTimeRange().getEnd());
+    } catch (RuntimeException e) {
+      return null;
+    }
+    if (end < start) {
+      return null;
+    }
+    int limit = Objects.requireNonNullElse(request.getLimit(), DEFAULT_LIMIT);
+    HashCode query = normalizedQueryHash(request);
+
+    QueryRequest.SelectItem timeBucket = timeBucketSelect(request);
+    if (timeBucket == null) {
+      if (end > settledBefore()) {
+        return null;
+      }
+      return new Plan(request, query, start, end, limit, 0, null, false);
+    }
+
+    String alias = Objects.requireNonNullElse(timeBucket.getAlias(), Functions.TIME_BUCKET.getDisplayName());
+    long bucketSeconds;
+    try {
+      bucketSeconds = DateTimeUtils.toSeconds(timeBucket.getParam().get("bucket"));
+    } catch (RuntimeException e) {
+      return null;
+    }
+    if (bucketSeconds <= 0
+        || request.getGroupBy() == null
+        || !request.getGroupBy().contains(alias)
+        || (end - start) / bucketSeconds >= MAX_BUCKETS) {
+      return null;
+    }
+    // Nothing to gain unless at least one full bucket of the range has settled
+    long firstFullBucket = Math.floorDiv(start + bucketSeconds - 1, bucketSeconds) * bucketSeconds;
+    if (firstFullBucket + bucketSeconds > Math.min(end, settledBefore())) {
+      return null;
+    }
+    boolean descending = false;
+    if (request.getOrderBy() != null && !request.getOrderBy().isEmpty()) {
+      // Merged buckets can only reproduce an ordering by the bucket itself
+      if (request.getOrderBy().size() != 1 || !alias.equals(request.getOrderBy().get(0).getField())) {
+        return null;
+      }
+      descending = request.getOrderBy().get(0).getDirection() == QueryRequest.Direction.DESC;
+    }
+    return new Plan(request, query, start, end, limit, bucketSeconds, alias, descending);
+  }
+
+  // A TIME_BUCKET over the filtered Timestamp column, so every row of a bucket falls inside that bucket's time range
+  private static QueryRequest.SelectItem timeBucketSelect(QueryRequest request) {
+    if (request.getSelect() == null) {
+      return null;
+    }
+    QueryRequest.SelectItem found = null;
+    for (QueryRequest.SelectItem item : request.getSelect()) {
+      if (item.getFunction() == Functions.TIME_BUCKET) {
+        if (found != null || item.getParam() == null || !TIMESTAMP_COLUMN.equals(item.getParam().get("field"))) {
+          return null;
+        }
+        found = item;
+      }
+    }
+    return found;
+  }
+
+  // ClickhouseMetricService formats the local date-time of the range and compares it as UTC, at second precision
+  private static long effectiveEpochSecond(String value) {
+    return ZonedDateTime.parse(value).toLocalDateTime().truncatedTo(ChronoUnit.SECONDS).toEpochSecond(ZoneOffset.UTC);
+  }
+
+  private static QueryRequest withTimeRange(QueryRequest request, long start, long end) {
+    QueryRequest.TimeRange timeRange = new QueryRequest.TimeRange();
+    timeRange.setStart(Instant.ofEpochSecond(start).toString());
+    timeRange.setEnd(Instant.ofEpochSecond(end).toString());
+    QueryRequest copy = new QueryRequest();
+    copy.setDataType(request.getDataType());
+    copy.setTimeRange(timeRange);
+    copy.setSelect(request.getSelect());
+    copy.setFilters(request.getFilters());
+    copy.setGroupBy(request.getGroupBy());
+    copy.setOrderBy(request.getOrderBy());
+    copy.setLimit(request.getLimit());
+    return copy;
+  }
+
+  // Everything but the time range, serialized with sorted keys
+  private static HashCode normalizedQueryHash(QueryRequest request) {
+    QueryRequest copy = withTimeRange(request, 0, 0);
+    copy.setTimeRange(null);
+    try {
+      return Hashing.murmur3_128().hashString(KEY_MAPPER.writeValueAsString(copy), StandardCharsets.UTF_8);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Reads a bucket value as returned for {@code toDateTime(..., 'UTC')}: epoch seconds, ISO or ClickHouse date-time.
+   */
+  static Long parseBucket(String value) {
+    if (value == null || value.isEmpty()) {
+      return null;
+    }
+    try {
+      if (value.chars().allMatch(Character::isDigit)) {
+        return Long.parseLong(value);
+      }
+      if (value.indexOf('T') < 0) {
+        return LocalDateTime.parse(value, CLICKHOUSE_DATE_TIME).toEpochSecond(ZoneOffset.UTC);
+      }
+      try {
+        return ZonedDateTime.parse(value).toEpochSecond();
+      } catch (DateTimeParseException e) {
+        return LocalDateTime.parse(value).toEpochSecond(ZoneOffset.UTC);
+      }
+    } catch (DateTimeParseException | NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * How a request is served: {@code bucketSeconds == 0} caches the whole settled range, otherwise per bucket.
+   */
+  private record Plan(QueryRequest request, HashCode query, long start, long end, int limit, long bucketSeconds,
+                      String bucketAlias, boolean descending) {
+    List<Long> buckets() {
+      List<Long> buckets = new ArrayList<>();
+      for (long bucket = Math.floorDiv(start, bucketSeconds) * bucketSeconds; bucket <= end; bucket += bucketSeconds) {
+        buckets.add(bucket);
+      }
+      return buckets;
+    }
+
+    Key bucketKey(long bucket) {
+      return new Key(query, bucket, bucket + bucketSeconds);
+    }
+  }
+
+  private record Run(List<Long> buckets) {
+  }
+
+  private record Key(HashCode query, long start, long end) {
+  }
+
+  private record CachedRows(List<String> fields, List<List<String>> rows, int weightKb) {
+    static CachedRows of(List<String> fields, List<List<String>> rows) {
+      List<String> safeFields = List.copyOf(Objects.requireNonNullElse(fields, List.of()));
+      List<List<String>> safeRows = List.copyOf(Objects.requireNonNullElse(rows, List.of()));
+      // ~2 bytes per char plus String/List headers
+      long bytes = 64;
+      for (String field : safeFields) {
+        bytes += 48 + 2L * field.length();
+      }
+      for (List<String> row : safeRows) {
+        bytes += 32;
+        for (String cell : row) {
+          bytes += 48 + 2L * (cell == null ? 0 : cell.length());
+        }
+      }
+      return new CachedRows(safeFields, safeRows, (int) Math.min(Integer.MAX_VALUE, bytes / 1024 + 1));
+    }
+
+    PerformanceMetricDistributionRes toResponse() {
+      return PerformanceMetricDistributionRes.builder()
+          .fields(fields)
+          .rows(rows)
+          .build();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package org.dreamhorizon.pulseserver.service.interaction;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Encodes a distribution result as {@code {"data":{"fields":[...],"rows":[[...],...]}}} one row at a time, so only the
+ * encoded bytes are kept instead of the response DTO plus the raw rows it was built from. Null cells are written as
+ * {@code ""}, like {@link ClickhouseMetricService#getMetricDistribution}.
+ */
+class DistributionJsonWriter {
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream(8 * 1024);
+  private final JsonGenerator generator;
+  private boolean started;
+
+  DistributionJsonWriter() {
+    try {
+      generator = JSON_FACTORY.createGenerator(out);
+      generator.writeStartObject();
+      generator.writeObjectFieldStart("data");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  void writeRow(List<String> columns, Object[] values) {
+    try {
+      if (!started) {
+        writeFields(columns);
+        generator.writeArrayFieldStart("rows");
+        started = true;
+      }
+      generator.writeStartArray();
+      for (Object value : values) {
+        generator.writeString(value == null ? "" : value.toString());
+      }
+      generator.writeEndArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  byte[] finish() {
+    try {
+      if (!started) {
+        writeFields(List.of());
+        generator.writeArrayFieldStart("rows");
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+      generator.writeEndObject();
+      generator.close();
+      return out.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * The body for a query that continues as a job: {@code {"data":{"jobComplete":false,"jobReference":{"jobId":...}}}}.
+   */
+  static byte[] jobReference(String jobId) {
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+      try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+        generator.writeStartObject();
+        generator.writeObjectFieldStart("data");
+        generator.writeBooleanField("jobComplete", false);
+        generator.writeObjectFieldStart("jobReference");
+        generator.writeStringField("jobId", jobId);
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.writeEndObject();
+      }
+      return out.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void writeFields(List<String> columns) throws IOException {
+    generator.writeArrayFieldStart("fields");
+    for (String column : columns) {
+      generator.writeString(column);
+    }
+    generator.writeEndArray();
+  }
+}
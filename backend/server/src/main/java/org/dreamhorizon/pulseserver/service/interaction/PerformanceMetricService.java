@@ -6,4 +6,11 @@ import org.dreamhorizon.pulseserver.resources.performance.models.QueryRequest;
 
 public interface PerformanceMetricService {
   Single<PerformanceMetricDistributionRes> getMetricDistribution(QueryRequest request);
+
+  /**
+   * Same result as {@link #getMetricDistribution}, already encoded as the {@code {"data": ...}} response body. A query
+   * that outlives its timeout is answered with {@code jobComplete} false and a {@code jobReference} to page through
+   * with {@code /v1/query-jobs/{jobId}}.
+   */
+  Single<byte[]> getMetricDistributionJson(QueryRequest request);
 }
@@ -0,0 +1,133 @@
+package org.dreamhorizon.pulseserver.service.interaction;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.Inject;
+import io.reactivex.rxjava3.core.Single;
+import io.vertx.core.Vertx;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.dreamhorizon.pulseserver.dao.interaction.InteractionDao;
+import org.dreamhorizon.pulseserver.resources.interaction.models.TelemetryFilterOptionsResponse;
+
+/**
+ * JVM-wide snapshot of the telemetry filter values (app versions, device models, carriers, states, OS versions and
+ * platforms), so {@code /v1/interactions/telemetry-filters} is answered from memory instead of scanning
+ * {@code otel_traces}.
+ *
+ * <p>Seeded from the last {@link #SEED_WINDOW} of spans at startup, then every {@link #REFRESH_INTERVAL} only the spans
+ * since the previous refresh (less {@link #LATE_SPAN_OVERLAP}, for batches the SDKs send late) are read and their
+ * values merged in. Values are only ever added, so a value that stops appearing stays listed until the next restart.
+ */
+@Slf4j
+public class TelemetryFilterValuesCache {
+  static final Duration REFRESH_INTERVAL = Duration.ofMinutes(5);
+  static final Duration SEED_WINDOW = Duration.ofDays(30);
+  static final Duration LATE_SPAN_OVERLAP = Duration.ofHours(1);
+
+  private final Vertx vertx;
+  private final InteractionDao interactionDao;
+  private final AtomicBoolean started = new AtomicBoolean();
+  // The seed load in flight, shared by every caller until it completes
+  private final AtomicReference<Single<TelemetryFilterOptionsResponse>> seed = new AtomicReference<>();
+  private volatile TelemetryFilterOptionsResponse snapshot;
+  private volatile Instant refreshedAt;
+
+  @Inject
+  public TelemetryFilterValuesCache(Vertx vertx, InteractionDao interactionDao, MetricRegistry metricRegistry) {
+    this.vertx = vertx;
+    this.interactionDao = interactionDao;
+    metricRegistry.register("interaction.telemetry_filter_values.size", (Gauge<Integer>) this::size);
+  }
+
+  /**
+   * Loads the snapshot and schedules the periodic refresh. Safe to call from every verticle; only the first call
+   * counts.
+   */
+  public void start() {
+    if (!started.compareAndSet(false, true)) {
+      return;
+    }
+    get().subscribe(values -> { }, err -> { });
+    vertx.setPeriodic(REFRESH_INTERVAL.toMillis(), id -> tick().subscribe(values -> { }, err -> { }));
+  }
+
+  // Until the first snapshot exists a tick joins (or retries) the seed load rather than starting a second scan
+  Single<TelemetryFilterOptionsResponse> tick() {
+    return snapshot == null ? get() : refresh();
+  }
+
+  /**
+   * The current snapshot, or the result of the seed load if the first one has not completed (or failed). Callers
+   * arriving while a seed load runs wait for that one instead of starting their own; after a failed one, the next
+   * caller starts another.
+   */
+  public Single<TelemetryFilterOptionsResponse> get() {
+    TelemetryFilterOptionsResponse current = snapshot;
+    if (current != null) {
+      return Single.just(current);
+    }
+    // Deferred, since updateAndGet may build a seed it then discards under contention
+    return seed.updateAndGet(running -> running != null
+        ? running
+        : Single.defer(this::refresh).doOnTerminate(() -> seed.set(null)).cache());
+  }
+
+  Single<TelemetryFilterOptionsResponse> refresh() {
+    Instant queriedAt = Instant.now();
+    Instant previous = refreshedAt;
+    Instant since = previous == null ? queriedAt.minus(SEED_WINDOW) : previous.minus(LATE_SPAN_OVERLAP);
+    return interactionDao.getTelemetryFilterOptions(since)
+        .map(values -> merge(values, queriedAt))
+        .doOnError(err -> log.error("Failed to refresh telemetry filter values: {}", err.getMessage()));
+  }
+
+  private synchronized TelemetryFilterOptionsResponse merge(TelemetryFilterOptionsResponse values, Instant queriedAt) {
+    TelemetryFilterOptionsResponse merged = union(snapshot == null ? new TelemetryFilterOptionsResponse() : snapshot,
+        values);
+    snapshot = merged;
+    if (refreshedAt == null || queriedAt.isAfter(refreshedAt)) {
+      refreshedAt = queriedAt;
+    }
+    return merged;
+  }
+
+  private static TelemetryFilterOptionsResponse union(TelemetryFilterOptionsResponse current,
+                                                      TelemetryFilterOptionsResponse values) {
+    return TelemetryFilterOptionsResponse.builder()
+        .appVersionCodes(union(current.getAppVersionCodes(), values.getAppVersionCodes()))
+        .deviceModels(union(current.getDeviceModels(), values.getDeviceModels()))
+        .networkProviders(union(current.getNetworkProviders(), values.getNetworkProviders()))
+        .platforms(union(current.getPlatforms(), values.getPlatforms()))
+        .osVersions(union(current.getOsVersions(), values.getOsVersions()))
+        .states(union(current.getStates(), values.getStates()))
+        .build();
+  }
+
+  // Sorted like the query's arraySort, and immutable since the same lists are served to every request
+  private static List<String> union(List<String> current, List<String> values) {
+    TreeSet<String> merged = new TreeSet<>();
+    if (current != null) {
+      merged.addAll(current);
+    }
+    if (values != null) {
+      merged.addAll(values);
+    }
+    return List.copyOf(merged);
+  }
+
+  private int size() {
+    TelemetryFilterOptionsResponse current = snapshot;
+    if (current == null) {
+      return 0;
+    }
+    return current.getAppVersionCodes().size() + current.getDeviceModels().size()
+        + current.getNetworkProviders().size() + current.getPlatforms().size() + current.getOsVersions().size()
+        + current.getStates().size();
+  }
+}
@@ -15,6 +15,7 @@ import org.dreamhorizon.pulseserver.dto.response.EmptyResponse;
 import org.dreamhorizon.pulseserver.resources.interaction.models.InteractionFilterOptionsResponse;
 import org.dreamhorizon.pulseserver.resources.interaction.models.TelemetryFilterOptionsResponse;
 import org.dreamhorizon.pulseserver.service.interaction.InteractionService;
+import org.dreamhorizon.pulseserver.service.interaction.TelemetryFilterValuesCache;
 import org.dreamhorizon.pulseserver.service.interaction.UploadInteractionDetailService;
 import org.dreamhorizon.pulseserver.service.interaction.models.CreateInteractionRequest;
 import org.dreamhorizon.pulseserver.service.interaction.models.DeleteInteractionRequest;
@@ -29,6 +30,7 @@ import org.dreamhorizon.pulseserver.service.interaction.models.UpdateInteraction
 public class InteractionServiceImpl implements InteractionService {
   private final InteractionDao interactionDao;
   private final UploadInteractionDetailService uploadInteractionDetailService;
+  private final TelemetryFilterValuesCache telemetryFilterValuesCache;
 
   private static final InteractionMapper mapper = InteractionMapper.INSTANCE;
 
@@ -147,7 +149,7 @@ public class InteractionServiceImpl implements InteractionService {
 
   @Override
   public Single<TelemetryFilterOptionsResponse> getTelemetryFilterOptions() {
-    return interactionDao.getTelemetryFilterOptions()
+    return telemetryFilterValuesCache.get()
         .doOnError(err -> log.error("error while getting telemetry filter options", err));
   }
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package org.dreamhorizon.pulseserver.service.interaction.query;
+
+import java.util.Map;
+
+/**
+ * SQL with named parameters and the values to bind to them.
+ */
+public record CompiledQuery(String sql, Map<String, Object> parameters) {
+}
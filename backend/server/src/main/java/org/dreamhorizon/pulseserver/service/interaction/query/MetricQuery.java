@@ -0,0 +1,172 @@
+package org.dreamhorizon.pulseserver.service.interaction.query;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.dreamhorizon.pulseserver.resources.performance.models.Functions;
+import org.dreamhorizon.pulseserver.resources.performance.models.QueryRequest;
+import org.dreamhorizon.pulseserver.service.interaction.DateTimeUtils;
+
+/**
+ * Typed form of a {@link QueryRequest}: what to select from which table, with the filter values kept apart from the
+ * SQL so that {@link MetricQueryCompiler} can bind them as parameters.
+ *
+ * <p>Select expressions, column names, raw ({@code ADDITIONAL}) filters and the limit are part of the query's
+ * {@link Shape}; the time range and filter values are not.
+ */
+public record MetricQuery(String table, TimeFilter timeFilter, List<Select> select, String start, String end,
+                          List<Filter> filters, List<String> groupBy, List<OrderBy> orderBy, int limit) {
+  static final int DEFAULT_LIMIT = 100;
+  static final DateTimeFormatter CLICKHOUSE_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+  public static MetricQuery from(QueryRequest request) {
+    List<Select> select = new ArrayList<>();
+    if (request.getSelect() != null) {
+      for (QueryRequest.SelectItem item : request.getSelect()) {
+        select.add(Select.of(item));
+      }
+    }
+
+    List<Filter> filters = new ArrayList<>();
+    if (request.getFilters() != null) {
+      for (QueryRequest.Filter filter : request.getFilters()) {
+        filters.add(Filter.of(filter));
+      }
+    }
+
+    String table = switch (request.getDataType()) {
+      case TRACES -> "otel_traces";
+      case LOGS -> "otel_logs";
+      case METRICS -> "otel_metrics";
+      case EXCEPTIONS -> "stack_trace_events";
+    };
+
+    return new MetricQuery(table, TimeFilter.TIMESTAMP, select,
+        ZonedDateTime.parse(request.getTimeRange().getStart()).format(CLICKHOUSE_DATE_TIME),
+        ZonedDateTime.parse(request.getTimeRange().getEnd()).format(CLICKHOUSE_DATE_TIME),
+        filters,
+        request.getGroupBy() == null ? List.of() : List.copyOf(request.getGroupBy()),
+        OrderBy.of(request),
+        Objects.requireNonNullElse(request.getLimit(), DEFAULT_LIMIT));
+  }
+
+  /**
+   * The query without its values; queries with equal shapes compile to the same SQL.
+   */
+  public Shape shape() {
+    List<FilterShape> filterShapes = new ArrayList<>(filters.size());
+    for (Filter filter : filters) {
+      filterShapes.add(filter.shape());
+    }
+    return new Shape(table, timeFilter, select, filterShapes, groupBy, orderBy, limit);
+  }
+
+  public record Shape(String table, TimeFilter timeFilter, List<Select> select, List<FilterShape> filters,
+                      List<String> groupBy, List<OrderBy> orderBy, int limit) {
+  }
+
+  /**
+   * How the time range is applied: inclusive on the raw {@code Timestamp}, or on the minute {@code Bucket} of a rollup,
+   * where the end is exclusive so that the minute starting at the end is not read.
+   */
+  public enum TimeFilter {
+    TIMESTAMP("Timestamp >= toDateTime64(:start,9,'UTC') AND Timestamp <= toDateTime64(:end,9,'UTC')"),
+    MINUTE_BUCKET("Bucket >= toDateTime(:start,'UTC') AND Bucket < toDateTime(:end,'UTC')");
+
+    private final String condition;
+
+    TimeFilter(String condition) {
+      this.condition = condition;
+    }
+
+    public String condition() {
+      return condition;
+    }
+  }
+
+  /**
+   * A select expression, already resolved from its {@link Functions} entry.
+   */
+  public record Select(String expression, String alias) {
+    static Select of(QueryRequest.SelectItem item) {
+      Functions function = item.getFunction();
+      String alias = Objects.requireNonNullElse(item.getAlias(), function.getDisplayName());
+      String expression = switch (function) {
+        case COL -> item.getParam().get("field");
+        case CUSTOM -> item.getParam().get("expression");
+        case TIME_BUCKET -> {
+          long bucketSeconds = DateTimeUtils.toSeconds(item.getParam().get("bucket"));
+          yield String.format(function.getChSelectClause(), item.getParam().get("field"), bucketSeconds,
+              bucketSeconds);
+        }
+        case ARR_TO_STR -> String.format(function.getChSelectClause(), item.getParam().get("field"));
+        default -> function.getChSelectClause();
+      };
+      return new Select(expression, alias);
+    }
+  }
+
+  public record OrderBy(String field, QueryRequest.Direction direction) {
+    static List<OrderBy> of(QueryRequest request) {
+      List<OrderBy> orderBy = new ArrayList<>();
+      if (request.getOrderBy() != null) {
+        for (QueryRequest.OrderBy item : request.getOrderBy()) {
+          orderBy.add(new OrderBy(item.getField(), item.getDirection()));
+        }
+      }
+      return orderBy;
+    }
+  }
+
+  public sealed interface Filter permits Like, In, Eq, Raw {
+    static Filter of(QueryRequest.Filter filter) {
+      return switch (filter.getOperator()) {
+        case LIKE -> new Like(filter.getField(), filter.getValue().get(0));
+        case IN -> new In(filter.getField(), List.copyOf(filter.getValue()));
+        case EQ -> new Eq(filter.getField(), filter.getValue().get(0));
+        case ADDITIONAL -> new Raw(String.valueOf(filter.getValue().get(0)));
+      };
+    }
+
+    FilterShape shape();
+  }
+
+  public record Like(String field, Object value) implements Filter {
+    @Override
+    public FilterShape shape() {
+      return new FilterShape(QueryRequest.Operator.LIKE, field, 1);
+    }
+  }
+
+  public record In(String field, List<Object> values) implements Filter {
+    @Override
+    public FilterShape shape() {
+      return new FilterShape(QueryRequest.Operator.IN, field, values.size());
+    }
+  }
+
+  public record Eq(String field, Object value) implements Filter {
+    @Override
+    public FilterShape shape() {
+      return new FilterShape(QueryRequest.Operator.EQ, field, 1);
+    }
+  }
+
+  /**
+   * A raw SQL condition ({@code ADDITIONAL}); it is inlined, so it is part of the shape.
+   */
+  public record Raw(String condition) implements Filter {
+    @Override
+    public FilterShape shape() {
+      return new FilterShape(QueryRequest.Operator.ADDITIONAL, condition, 0);
+    }
+  }
+
+  /**
+   * {@code target} is the column, or the condition of a raw filter; {@code arity} is the number of bound values.
+   */
+  public record FilterShape(QueryRequest.Operator operator, String target, int arity) {
+  }
+}
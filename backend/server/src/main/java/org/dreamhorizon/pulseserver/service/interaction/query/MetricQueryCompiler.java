@@ -0,0 +1,87 @@
+package org.dreamhorizon.pulseserver.service.interaction.query;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a {@link MetricQuery} to ClickHouse SQL with named parameters ({@code :start}, {@code :end}, {@code :p0},
+ * ...). The SQL text is rendered once per {@link MetricQuery.Shape} and reused; each call only collects the values to
+ * bind.
+ */
+public class MetricQueryCompiler {
+  private static final int MAX_TEMPLATES = 1_000;
+
+  private final Cache<MetricQuery.Shape, String> templates = Caffeine.newBuilder()
+      .maximumSize(MAX_TEMPLATES)
+      .build();
+
+  public CompiledQuery compile(MetricQuery query) {
+    String sql = templates.get(query.shape(), MetricQueryCompiler::render);
+
+    Map<String, Object> parameters = new LinkedHashMap<>();
+    parameters.put("start", query.start());
+    parameters.put("end", query.end());
+    int index = 0;
+    for (MetricQuery.Filter filter : query.filters()) {
+      if (filter instanceof MetricQuery.Like like) {
+        parameters.put("p" + index++, like.value());
+      } else if (filter instanceof MetricQuery.Eq eq) {
+        parameters.put("p" + index++, eq.value());
+      } else if (filter instanceof MetricQuery.In in) {
+        for (Object value : in.values()) {
+          parameters.put("p" + index++, value);
+        }
+      }
+    }
+    return new CompiledQuery(sql, parameters);
+  }
+
+  // Parameters are numbered in filter order, the same order compile() collects the values in
+  static String render(MetricQuery.Shape shape) {
+    StringBuilder sql = new StringBuilder(256).append("Select ");
+    if (shape.select().isEmpty()) {
+      sql.append('*');
+    } else {
+      appendSelect(sql, shape.select());
+    }
+    sql.append(" from ").append(shape.table()).append(" where ").append(shape.timeFilter().condition());
+
+    int index = 0;
+    for (MetricQuery.FilterShape filter : shape.filters()) {
+      switch (filter.operator()) {
+        case LIKE, EQ -> sql.append(" And ").append(filter.target()).append(' ')
+            .append(filter.operator().getDisplayName()).append(" :p").append(index++);
+        case IN -> {
+          sql.append(" And ").append(filter.target()).append(" In (");
+          for (int i = 0; i < filter.arity(); i++) {
+            sql.append(i == 0 ? ":p" : ",:p").append(index++);
+          }
+          sql.append(')');
+        }
+        case ADDITIONAL -> sql.append(" And (").append(filter.target()).append(')');
+      }
+    }
+
+    if (!shape.groupBy().isEmpty()) {
+      sql.append(" group by ").append(String.join(",", shape.groupBy()));
+    }
+    if (!shape.orderBy().isEmpty()) {
+      sql.append(" order by ");
+      for (int i = 0; i < shape.orderBy().size(); i++) {
+        MetricQuery.OrderBy orderBy = shape.orderBy().get(i);
+        sql.append(i == 0 ? "" : ", ").append(orderBy.field()).append(' ').append(orderBy.direction());
+      }
+    }
+    return sql.append(" limit ").append(shape.limit()).toString();
+  }
+
+  private static void appendSelect(StringBuilder sql, List<MetricQuery.Select> select) {
+    for (int i = 0; i < select.size(); i++) {
+      MetricQuery.Select item = select.get(i);
+      sql.append(i == 0 ? "" : ",").append(item.expression()).append(" as ").append(item.alias());
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package org.dreamhorizon.pulseserver.service.interaction.query;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import org.dreamhorizon.pulseserver.constant.ClickhouseConstants;
+import org.dreamhorizon.pulseserver.resources.performance.models.Functions;
+import org.dreamhorizon.pulseserver.resources.performance.models.QueryRequest;
+import org.dreamhorizon.pulseserver.service.interaction.DateTimeUtils;
+
+/**
+ * Answers trace queries from the per-minute {@code otel_traces_1m} rollup (see
+ * {@code backend/ingestion/clickhouse-otel-schema.sql}) instead of {@code otel_traces}.
+ *
+ * <p>A query is routed only if the rollup gives the same answer: the time range starts and ends on whole minutes, every
+ * select item is a {@link Functions} entry with a rollup clause, a rollup dimension or a {@code TIME_BUCKET} over
+ * {@code Timestamp} in whole minutes, and every filter, group by and order by is on a rollup dimension or a select
+ * alias. {@code CUSTOM} expressions and {@code ADDITIONAL} conditions can reference anything, so they are never routed.
+ */
+public final class MetricRollup {
+  static final Set<String> DIMENSIONS = Set.of("ServiceName", "PulseType", "SpanName", "AppVersion", "Platform",
+      "OsVersion", "GeoState", "GeoCountry", "DeviceModel", "NetworkProvider");
+
+  // Aliases must not shadow these, or the rollup clauses would read the aliased expression instead
+  private static final Set<String> AGGREGATE_COLUMNS = Set.of("Bucket", "Spans", "ErrorSpans", "CrashSpans",
+      "AnrSpans", "ExcellentSpans", "GoodSpans", "AverageSpans", "PoorSpans", "CategorisedSpans", "FrozenFrames",
+      "AnalysedFrames", "UnanalysedFrames", "Net0Events", "Net2xxEvents", "Net3xxEvents", "Net4xxEvents",
+      "Net5xxEvents", "DurationMsSum", "Apdex", "DurationMs", "Users", "Sessions");
+
+  private MetricRollup() {
+  }
+
+  public static Optional<MetricQuery> route(QueryRequest request) {
+    if (request.getDataType() != QueryRequest.DataType.TRACES || request.getSelect() == null
+        || request.getSelect().isEmpty()) {
+      return Optional.empty();
+    }
+    ZonedDateTime start = ZonedDateTime.parse(request.getTimeRange().getStart());
+    ZonedDateTime end = ZonedDateTime.parse(request.getTimeRange().getEnd());
+    if (!onMinute(start) || !onMinute(end) || !end.isAfter(start)) {
+      return Optional.empty();
+    }
+
+    List<MetricQuery.Select> select = new ArrayList<>();
+    Set<String> aliases = new HashSet<>();
+    for (QueryRequest.SelectItem item : request.getSelect()) {
+      String expression = expression(item);
+      String alias = Objects.requireNonNullElse(item.getAlias(), item.getFunction().getDisplayName());
+      if (expression == null || shadowsColumn(alias, expression)) {
+        return Optional.empty();
+      }
+      select.add(new MetricQuery.Select(expression, alias));
+      aliases.add(alias);
+    }
+
+    List<MetricQuery.Filter> filters = new ArrayList<>();
+    if (request.getFilters() != null) {
+      for (QueryRequest.Filter filter : request.getFilters()) {
+        if (filter.getOperator() == QueryRequest.Operator.ADDITIONAL || !DIMENSIONS.contains(filter.getField())) {
+          return Optional.empty();
+        }
+        filters.add(MetricQuery.Filter.of(filter));
+      }
+    }
+
+    List<String> groupBy = request.getGroupBy() == null ? List.of() : List.copyOf(request.getGroupBy());
+    List<MetricQuery.OrderBy> orderBy = MetricQuery.OrderBy.of(request);
+    boolean groupable = groupBy.stream().allMatch(field -> aliases.contains(field) || DIMENSIONS.contains(field))
+        && orderBy.stream().allMatch(o -> aliases.contains(o.field()) || DIMENSIONS.contains(o.field()));
+    if (!groupable) {
+      return Optional.empty();
+    }
+
+    return Optional.of(new MetricQuery(ClickhouseConstants.ROLLUP_TABLE, MetricQuery.TimeFilter.MINUTE_BUCKET, select,
+        start.format(MetricQuery.CLICKHOUSE_DATE_TIME), end.format(MetricQuery.CLICKHOUSE_DATE_TIME), filters,
+        groupBy, orderBy, Objects.requireNonNullElse(request.getLimit(), MetricQuery.DEFAULT_LIMIT)));
+  }
+
+  // The rollup form of a select item, or null if the rollup cannot answer it
+  private static String expression(QueryRequest.SelectItem item) {
+    Functions function = item.getFunction();
+    return switch (function) {
+      case COL -> DIMENSIONS.contains(item.getParam().get("field")) ? item.getParam().get("field") : null;
+      case TIME_BUCKET -> {
+        long bucketSeconds = DateTimeUtils.toSeconds(item.getParam().get("bucket"));
+        boolean wholeMinutes = "Timestamp".equals(item.getParam().get("field")) && bucketSeconds > 0
+            && bucketSeconds % 60 == 0;
+        yield wholeMinutes
+            ? String.format(function.getChSelectClause(), "Bucket", bucketSeconds, bucketSeconds)
+            : null;
+      }
+      case CUSTOM, ARR_TO_STR -> null;
+      default -> function.getRollupSelectClause();
+    };
+  }
+
+  private static boolean shadowsColumn(String alias, String expression) {
+    return AGGREGATE_COLUMNS.contains(alias) || DIMENSIONS.contains(alias) && !alias.equals(expression);
+  }
+
+  private static boolean onMinute(ZonedDateTime time) {
+    return time.getSecond() == 0 && time.getNano() == 0;
+  }
+}
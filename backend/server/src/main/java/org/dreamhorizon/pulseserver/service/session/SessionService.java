@@ -4,10 +4,10 @@ import com.google.inject.Inject;
 import io.reactivex.rxjava3.core.Single;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -25,61 +25,49 @@ public class SessionService {
   private final DateTimeFormatter output = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
 
-  private Map<String, Object> getSessionReportSubstitutionMap(GetSessionRequest request) {
-    Map<String, Object> substitutionValueMap = new HashMap<>();
-    substitutionValueMap.put("start_time", ZonedDateTime.parse(request.getStartTime()).format(output));
-    substitutionValueMap.put("end_time", ZonedDateTime.parse(request.getEndTime()).format(output));
-    substitutionValueMap.put("span_name", request.getSpanName());
-    String appVersionFilter = StringUtils.EMPTY;
-    String platformFilter = StringUtils.EMPTY;
-    String osVersionFilter = StringUtils.EMPTY;
-    String networkProviderFilter = StringUtils.EMPTY;
-    String stateFilter = StringUtils.EMPTY;
-
-    if (request.getFilters().getAppVersionFilters() != null && !request.getFilters().getAppVersionFilters().isEmpty()) {
-      appVersionFilter = String.format(" AND AppVersion in (%s)", format(request.getFilters().getAppVersionFilters()));
-    }
-
-    if (request.getFilters().getPlatformFilters() != null && !request.getFilters().getPlatformFilters().isEmpty()) {
-      platformFilter = String.format(" AND Platform in (%s)", format(request.getFilters().getPlatformFilters()));
-    }
-
-    if (request.getFilters().getOsVersionFilters() != null && !request.getFilters().getOsVersionFilters().isEmpty()) {
-      osVersionFilter = String.format(" AND OsVersion in (%s)", format(request.getFilters().getOsVersionFilters()));
-    }
+  // Values are bound as named parameters; only the optional filter clauses are substituted into the query
+  private Map<String, Object> getSessionReportSubstitutionMap(GetSessionRequest request,
+                                                              Map<String, Object> parameters) {
+    parameters.put("start_time", ZonedDateTime.parse(request.getStartTime()).format(output));
+    parameters.put("end_time", ZonedDateTime.parse(request.getEndTime()).format(output));
+    parameters.put("span_name", request.getSpanName());
 
-    if (request.getFilters().getNetworkProviderFilters() != null && !request.getFilters().getNetworkProviderFilters().isEmpty()) {
-      networkProviderFilter = String.format(" AND NetworkProvider in (%s)", format(request.getFilters().getNetworkProviderFilters()));
-    }
-
-    if (request.getFilters().getStateFilters() != null && !request.getFilters().getStateFilters().isEmpty()) {
-      stateFilter = String.format(" AND State in (%s)", format(request.getFilters().getStateFilters()));
-    }
-
-    substitutionValueMap.put("app_version_filter", appVersionFilter);
-    substitutionValueMap.put("platform_filter", platformFilter);
-    substitutionValueMap.put("os_version_filter", osVersionFilter);
-    substitutionValueMap.put("network_provider_filter", networkProviderFilter);
-    substitutionValueMap.put("state_filter", stateFilter);
+    GetSessionRequest.Filters filters =
+        request.getFilters() == null ? new GetSessionRequest.Filters() : request.getFilters();
+    Map<String, Object> substitutionValueMap = new HashMap<>();
+    substitutionValueMap.put("app_version_filter",
+        inFilter("AppVersion", "app_version", filters.getAppVersionFilters(), parameters));
+    substitutionValueMap.put("platform_filter",
+        inFilter("Platform", "platform", filters.getPlatformFilters(), parameters));
+    substitutionValueMap.put("os_version_filter",
+        inFilter("OsVersion", "os_version", filters.getOsVersionFilters(), parameters));
+    substitutionValueMap.put("network_provider_filter",
+        inFilter("NetworkProvider", "network_provider", filters.getNetworkProviderFilters(), parameters));
+    substitutionValueMap.put("state_filter", inFilter("GeoState", "state", filters.getStateFilters(), parameters));
 
     return substitutionValueMap;
   }
 
-  private String format(List<String> filters) {
-    String substitute = "";
-    List<String> formattedfilters = filters.stream()
-        .map(id -> String.format("'%s'", id))
-        .collect(Collectors.toList());
-
-    substitute = StringUtils.join(formattedfilters, ',');
-    return substitute;
+  private String inFilter(String column, String name, List<String> values, Map<String, Object> parameters) {
+    if (values == null || values.isEmpty()) {
+      return StringUtils.EMPTY;
+    }
+    List<String> placeholders = new ArrayList<>(values.size());
+    for (int i = 0; i < values.size(); i++) {
+      String parameter = name + "_" + i;
+      parameters.put(parameter, values.get(i));
+      placeholders.add(":" + parameter);
+    }
+    return String.format(" AND %s in (%s)", column, StringUtils.join(placeholders, ','));
   }
 
   public Single<GetSessionResponse> getSessions(GetSessionRequest request) {
-    Map<String, Object> substitutionValueMap = getSessionReportSubstitutionMap(request);
+    Map<String, Object> parameters = new HashMap<>();
+    Map<String, Object> substitutionValueMap = getSessionReportSubstitutionMap(request, parameters);
     String formattedQuery = new StringSubstitutor(substitutionValueMap).replace(UserExperienceCategoriesQuery.GET_SESSIONS_QUERY);
     QueryConfiguration configuration = QueryConfiguration
         .newQuery(formattedQuery)
+        .parameters(parameters)
         .timeoutMs(2000)
         .build();
     return clickhouseQueryService.executeQueryOrCreateJob(configuration, GetSessionResponse.Session.class)
@@ -23,6 +23,9 @@ import org.dreamhorizon.pulseserver.client.mysql.MysqlClientImpl;
 import org.dreamhorizon.pulseserver.config.ApplicationConfig;
 import org.dreamhorizon.pulseserver.config.ClickhouseConfig;
 import org.dreamhorizon.pulseserver.config.ConfigUtils;
+import org.dreamhorizon.pulseserver.errorgrouping.service.SymbolFileService;
+import org.dreamhorizon.pulseserver.guice.GuiceInjector;
+import org.dreamhorizon.pulseserver.service.alert.core.AlertStateStore;
 import org.dreamhorizon.pulseserver.vertx.SharedDataUtils;
 
 @Slf4j
@@ -51,13 +54,17 @@ public class MainVerticle extends AbstractVerticle {
           SharedDataUtils.put(vertx.getDelegate(), webClient);
           return config;
         }).ignoreElement()
+        // Checks the symbol file store is configured and writable before anything is accepted
+        .andThen(Completable.fromAction(() -> GuiceInjector.getGuiceInjector().getInstance(SymbolFileService.class)))
         .andThen(
             vertx.rxDeployVerticle(
                 () ->
                     new RestVerticle(
                         new HttpServerOptions().setPort(8080)),
                 new DeploymentOptions().setInstances(getNumOfCores()))
-        ).ignoreElement();
+        ).ignoreElement()
+        .andThen(Completable.defer(() -> GuiceInjector.getGuiceInjector().getInstance(AlertStateStore.class).loaded()))
+        .doOnError(err -> log.error("Failed to start: {}", err.getMessage()));
   }
 
   private Integer getNumOfCores() {
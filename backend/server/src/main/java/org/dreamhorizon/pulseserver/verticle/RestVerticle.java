@@ -11,8 +11,11 @@ import io.vertx.rxjava3.ext.web.handler.ResponseContentTypeHandler;
 import io.vertx.rxjava3.ext.web.handler.StaticHandler;
 import java.util.HashSet;
 import java.util.Set;
+import org.dreamhorizon.pulseserver.errorgrouping.service.ArtifactAvailabilityIndex;
 import org.dreamhorizon.pulseserver.guice.GuiceInjector;
 import org.dreamhorizon.pulseserver.service.alert.core.AlertEvaluationService;
+import org.dreamhorizon.pulseserver.service.alert.core.AlertStateStore;
+import org.dreamhorizon.pulseserver.service.interaction.TelemetryFilterValuesCache;
 
 public class RestVerticle extends AbstractRestVerticle {
   private static final String PACKAGE_NAME = "org.dreamhorizon.pulseserver";
@@ -36,6 +39,9 @@ public class RestVerticle extends AbstractRestVerticle {
 
     AlertEvaluationService alertEvaluationService = GuiceInjector.getGuiceInjector().getInstance(AlertEvaluationService.class);
     alertEvaluationService.registerConsumers();
+    GuiceInjector.getGuiceInjector().getInstance(ArtifactAvailabilityIndex.class).start();
+    GuiceInjector.getGuiceInjector().getInstance(TelemetryFilterValuesCache.class).start();
+    GuiceInjector.getGuiceInjector().getInstance(AlertStateStore.class).start();
 
 
     final Set<String> allowedHeaders = new HashSet<>();
@@ -0,0 +1,125 @@
+package org.dreamhorizon.pulseserver.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.dreamhorizon.pulseserver.service.alert.core.AlertConditionCache;
+import org.dreamhorizon.pulseserver.service.alert.core.util.CompiledExpression;
+import org.dreamhorizon.pulseserver.service.alert.core.util.LegacyExpressionEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Evaluates the conditions of every scope once per invocation, against one metric reading per condition.
+ *
+ * <ul>
+ *   <li>{@code legacy}: the previous path, parsing each scope's conditions JSON and running the stack evaluator, which
+ *   strips and re-tokenizes the expression</li>
+ *   <li>{@code compiled}: the conditions and the {@link CompiledExpression} from {@link AlertConditionCache}, evaluated
+ *   against a {@code boolean[]}</li>
+ * </ul>
+ *
+ * <p>Run with {@code -prof gc} to compare the allocation rate as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlertConditionBenchmark {
+  private static final String EXPRESSION = "(A && B) || (C && D)";
+  private static final String CONDITIONS = "["
+      + "{\"alias\":\"A\",\"metric\":\"ERROR_RATE\",\"metric_operator\":\"GREATER_THAN\",\"threshold\":5},"
+      + "{\"alias\":\"B\",\"metric\":\"DURATION_P99\",\"metric_operator\":\"GREATER_THAN\",\"threshold\":2000},"
+      + "{\"alias\":\"C\",\"metric\":\"CRASH_RATE\",\"metric_operator\":\"GREATER_THAN\",\"threshold\":1},"
+      + "{\"alias\":\"D\",\"metric\":\"ANR_RATE\",\"metric_operator\":\"GREATER_THAN\",\"threshold\":1}]";
+  private static final TypeReference<List<Map<String, Object>>> CONDITIONS_TYPE = new TypeReference<>() {
+  };
+
+  @Param({"10000"})
+  public int scopes;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final AlertConditionCache cache = new AlertConditionCache();
+  private float[][] readings;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(AlertConditionBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(7);
+    readings = new float[scopes][];
+    for (int scope = 0; scope < scopes; scope++) {
+      readings[scope] = new float[] {random.nextFloat() * 10, random.nextFloat() * 4000, random.nextFloat() * 2,
+          random.nextFloat() * 2};
+    }
+  }
+
+  @Benchmark
+  public int legacy() throws Exception {
+    int firing = 0;
+    for (int scope = 0; scope < scopes; scope++) {
+      List<Map<String, Object>> conditions = objectMapper.readValue(CONDITIONS, CONDITIONS_TYPE);
+      Map<String, Boolean> variables = new HashMap<>();
+      for (int i = 0; i < conditions.size(); i++) {
+        Map<String, Object> condition = conditions.get(i);
+        float threshold = ((Number) condition.get("threshold")).floatValue();
+        variables.put((String) condition.get("alias"), readings[scope][i] > threshold);
+      }
+      if (LegacyExpressionEvaluator.evaluate(EXPRESSION, variables)) {
+        firing++;
+      }
+    }
+    return firing;
+  }
+
+  @Benchmark
+  public int compiled() {
+    int firing = 0;
+    for (int scope = 0; scope < scopes; scope++) {
+      List<Map<String, Object>> conditions = cache.conditions(1, scope, CONDITIONS, this::parse);
+      CompiledExpression expression = cache.expression(1, EXPRESSION);
+      boolean[] variables = new boolean[expression.variableCount()];
+      for (int i = 0; i < conditions.size(); i++) {
+        Map<String, Object> condition = conditions.get(i);
+        float threshold = ((Number) condition.get("threshold")).floatValue();
+        int slot = expression.slot((String) condition.get("alias"));
+        if (slot >= 0) {
+          variables[slot] = readings[scope][i] > threshold;
+        }
+      }
+      if (expression.evaluate(variables)) {
+        firing++;
+      }
+    }
+    return firing;
+  }
+
+  private List<Map<String, Object>> parse(String json) {
+    try {
+      return objectMapper.readValue(json, CONDITIONS_TYPE);
+    } catch (Exception e) {
+      return new ArrayList<>();
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package org.dreamhorizon.pulseserver.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.dreamhorizon.pulseserver.errorgrouping.FramesParser;
+import org.dreamhorizon.pulseserver.errorgrouping.RegexFramesParser;
+import org.dreamhorizon.pulseserver.errorgrouping.StackTraceSamples;
+import org.dreamhorizon.pulseserver.errorgrouping.model.ParsedFrames;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Parses one stack trace per invocation, for each of the trace shapes in {@link StackTraceSamples}.
+ *
+ * <ul>
+ *   <li>{@code regexParser}: the previous path, {@code split("\\R")} and up to a dozen regexes per line</li>
+ *   <li>{@code scanningParser}: {@link FramesParser#parse(String)}, one forward scan per line format</li>
+ * </ul>
+ *
+ * <p>Run with {@code -prof gc} to compare the allocation rate as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FramesParserBenchmark {
+
+  @Param({"ANDROID_JAVA", "ANDROID_THREAD", "REACT_NATIVE_HERMES", "REACT_NATIVE_JSC", "NDK_TOMBSTONE"})
+  public String trace;
+
+  private String raw;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(FramesParserBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  @Setup
+  public void setUp() throws ReflectiveOperationException {
+    raw = (String) StackTraceSamples.class.getField(trace).get(null);
+  }
+
+  @Benchmark
+  public ParsedFrames regexParser() {
+    return RegexFramesParser.parse(Arrays.asList(raw.split("\\R", -1)));
+  }
+
+  @Benchmark
+  public ParsedFrames scanningParser() {
+    return FramesParser.parse(raw);
+  }
+}
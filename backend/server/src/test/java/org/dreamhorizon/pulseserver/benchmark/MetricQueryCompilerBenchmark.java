@@ -0,0 +1,127 @@
+package org.dreamhorizon.pulseserver.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.dreamhorizon.pulseserver.resources.performance.models.Functions;
+import org.dreamhorizon.pulseserver.resources.performance.models.QueryRequest;
+import org.dreamhorizon.pulseserver.service.interaction.query.CompiledQuery;
+import org.dreamhorizon.pulseserver.service.interaction.query.LegacyMetricQueryBuilder;
+import org.dreamhorizon.pulseserver.service.interaction.query.MetricQuery;
+import org.dreamhorizon.pulseserver.service.interaction.query.MetricQueryCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Turns one distribution {@link QueryRequest} into SQL per invocation.
+ *
+ * <ul>
+ *   <li>{@code legacyBuilder}: the previous path, a {@code String.format} per select item and filter with the values
+ *   inlined</li>
+ *   <li>{@code compiler}: {@link MetricQuery#from} plus {@link MetricQueryCompiler#compile}, which renders the SQL once
+ *   per query shape and afterwards only collects the values to bind</li>
+ * </ul>
+ *
+ * <p>{@code simple} is a single aggregate; {@code dashboard} is a time-bucketed query with several metrics and filters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricQueryCompilerBenchmark {
+
+  @Param({"simple", "dashboard"})
+  public String shape;
+
+  private QueryRequest request;
+  private MetricQueryCompiler compiler;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(MetricQueryCompilerBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  @Setup
+  public void setUp() {
+    request = "simple".equals(shape) ? simpleRequest() : dashboardRequest();
+    compiler = new MetricQueryCompiler();
+  }
+
+  @Benchmark
+  public String legacyBuilder() {
+    return LegacyMetricQueryBuilder.build(request);
+  }
+
+  @Benchmark
+  public CompiledQuery compiler() {
+    return compiler.compile(MetricQuery.from(request));
+  }
+
+  private static QueryRequest simpleRequest() {
+    QueryRequest request = baseRequest();
+    request.setSelect(List.of(select(Functions.CRASH_FREE_USERS_PERCENTAGE, null, Map.of())));
+    return request;
+  }
+
+  private static QueryRequest dashboardRequest() {
+    QueryRequest request = baseRequest();
+    request.setSelect(List.of(
+        select(Functions.TIME_BUCKET, "bucket", Map.of("field", "Timestamp", "bucket", "5m")),
+        select(Functions.APDEX, null, Map.of()),
+        select(Functions.DURATION_P50, null, Map.of()),
+        select(Functions.DURATION_P95, null, Map.of()),
+        select(Functions.DURATION_P99, null, Map.of()),
+        select(Functions.ERROR_RATE, null, Map.of()),
+        select(Functions.COL, "screen", Map.of("field", "SpanAttributes['screen.name']"))));
+    request.setFilters(List.of(
+        filter("SpanName", QueryRequest.Operator.EQ, List.of("checkout")),
+        filter("ResourceAttributes['app.version']", QueryRequest.Operator.IN, List.of("5.1.0", "5.2.0", "5.3.0")),
+        filter("ResourceAttributes['os.name']", QueryRequest.Operator.LIKE, List.of("Android%"))));
+    request.setGroupBy(List.of("bucket", "screen"));
+    QueryRequest.OrderBy orderBy = new QueryRequest.OrderBy();
+    orderBy.setField("bucket");
+    orderBy.setDirection(QueryRequest.Direction.ASC);
+    request.setOrderBy(List.of(orderBy));
+    request.setLimit(500);
+    return request;
+  }
+
+  private static QueryRequest baseRequest() {
+    QueryRequest request = new QueryRequest();
+    QueryRequest.TimeRange timeRange = new QueryRequest.TimeRange();
+    timeRange.setStart("2024-01-15T10:30:00Z");
+    timeRange.setEnd("2024-01-15T11:45:00Z");
+    request.setTimeRange(timeRange);
+    request.setDataType(QueryRequest.DataType.TRACES);
+    return request;
+  }
+
+  private static QueryRequest.SelectItem select(Functions function, String alias, Map<String, String> param) {
+    QueryRequest.SelectItem item = new QueryRequest.SelectItem();
+    item.setFunction(function);
+    item.setAlias(alias);
+    item.setParam(param);
+    return item;
+  }
+
+  private static QueryRequest.Filter filter(String field, QueryRequest.Operator operator, List<Object> values) {
+    QueryRequest.Filter filter = new QueryRequest.Filter();
+    filter.setField(field);
+    filter.setOperator(operator);
+    filter.setValue(values);
+    return filter;
+  }
+}
@@ -0,0 +1,134 @@
+package org.dreamhorizon.pulseserver.benchmark;
+
+import com.android.tools.r8.retrace.ProguardMapProducer;
+import com.android.tools.r8.retrace.ProguardMappingSupplier;
+import com.android.tools.r8.retrace.Retrace;
+import com.android.tools.r8.retrace.RetraceCommand;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.dreamhorizon.pulseserver.errorgrouping.ProguardRetracer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Retraces 10k frames (200 events of 50 frames) against a synthetic mapping file of {@code mappingMb} MB.
+ *
+ * <ul>
+ *   <li>{@code perEventRetrace}: the previous path, a new {@code RetraceCommand} and lazily loading
+ *   {@code ProguardMappingSupplier} per event on top of a cached {@code ProguardMapProducer}</li>
+ *   <li>{@code indexedRetracer}: one {@link ProguardRetracer} built up front and reused for every event</li>
+ * </ul>
+ *
+ * <p>The one-off cost of building the index is reported separately by {@code buildIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProguardRetraceBenchmark {
+  private static final int EVENTS = 200;
+  private static final int FRAMES_PER_EVENT = 50;
+  private static final int METHODS_PER_CLASS = 10;
+
+  @Param({"50"})
+  public int mappingMb;
+
+  private String mapping;
+  private ProguardMapProducer mapProducer;
+  private ProguardRetracer retracer;
+  private List<List<String>> events;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(ProguardRetraceBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  private static String obfuscatedName(int classIndex) {
+    return "o" + Integer.toString(classIndex, 36);
+  }
+
+  @Setup
+  public void setUp() {
+    long targetBytes = mappingMb * 1024L * 1024L;
+    StringBuilder sb = new StringBuilder((int) targetBytes + 1024);
+    int classes = 0;
+    while (sb.length() < targetBytes) {
+      sb.append("com.example.feature").append(classes % 97).append(".ui.GeneratedScreen").append(classes)
+          .append(" -> ").append(obfuscatedName(classes)).append(":\n");
+      sb.append("    java.lang.String title -> a\n");
+      for (int m = 0; m < METHODS_PER_CLASS; m++) {
+        int first = m * 10 + 1;
+        sb.append("    ").append(first).append(':').append(first + 9).append(":void handleEvent").append(m)
+            .append("(android.view.View,int):").append(100 + m * 20).append(':').append(109 + m * 20)
+            .append(" -> ").append((char) ('a' + m)).append('\n');
+      }
+      classes++;
+    }
+    mapping = sb.toString();
+    mapProducer = ProguardMapProducer.fromString(mapping);
+    retracer = ProguardRetracer.fromMapping(mapping);
+
+    Random random = new Random(42);
+    events = new ArrayList<>(EVENTS);
+    for (int e = 0; e < EVENTS; e++) {
+      List<String> frames = new ArrayList<>(FRAMES_PER_EVENT);
+      for (int f = 0; f < FRAMES_PER_EVENT; f++) {
+        int m = random.nextInt(METHODS_PER_CLASS);
+        frames.add("\tat " + obfuscatedName(random.nextInt(classes)) + "." + (char) ('a' + m)
+            + "(SourceFile:" + (m * 10 + 1 + random.nextInt(10)) + ")");
+      }
+      events.add(frames);
+    }
+    System.out.printf("%nmapping: %d classes, %d MB; %d frames per op%n",
+        classes, mapping.length() / (1024 * 1024), EVENTS * FRAMES_PER_EVENT);
+  }
+
+  @Benchmark
+  public int perEventRetrace() {
+    int lines = 0;
+    for (List<String> frames : events) {
+      List<String> out = new ArrayList<>();
+      Retrace.run(
+          RetraceCommand.builder()
+              .setMappingSupplier(ProguardMappingSupplier.builder()
+                  .setProguardMapProducer(mapProducer)
+                  .setLoadAllDefinitions(false)
+                  .build())
+              .setStackTrace(frames)
+              .setVerbose(true)
+              .setRetracedStackTraceConsumer(out::addAll)
+              .build());
+      lines += out.size();
+    }
+    return lines;
+  }
+
+  @Benchmark
+  public int indexedRetracer() {
+    int lines = 0;
+    for (List<String> frames : events) {
+      lines += retracer.retrace(frames).size();
+    }
+    return lines;
+  }
+
+  @Benchmark
+  public ProguardRetracer buildIndex() {
+    return ProguardRetracer.fromMapping(mapping);
+  }
+}
@@ -0,0 +1,140 @@
+package org.dreamhorizon.pulseserver.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.dreamhorizon.pulseserver.client.chclient.StackTraceEventEncoder;
+import org.dreamhorizon.pulseserver.client.chclient.StackTraceEventJsonEncoder;
+import org.dreamhorizon.pulseserver.client.chclient.StackTraceEventRowBinaryEncoder;
+import org.dreamhorizon.pulseserver.errorgrouping.model.StackTraceEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Client-side cost of encoding a stack_trace_events insert: CPU per row for each format, and bytes on the wire per row
+ * (printed once per trial). ClickHouse's server-side parse time needs a live server; compare
+ * {@code ProfileEvents} of the two formats in {@code system.query_log} for that.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StackTraceEventEncodingBenchmark {
+  private static final int ROWS = 1000;
+
+  @Param({"JSONEachRow", "RowBinary"})
+  public String format;
+
+  private StackTraceEventEncoder encoder;
+  private List<StackTraceEvent> events;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(StackTraceEventEncodingBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  static List<StackTraceEvent> sampleEvents(int rows) {
+    List<StackTraceEvent> events = new ArrayList<>(rows);
+    StringBuilder trace = new StringBuilder("java.lang.IllegalStateException: Fragment not attached\n");
+    for (int i = 0; i < 40; i++) {
+      trace.append("  at com.example.app.feature").append(i % 7).append(".ui.ScreenFragment")
+          .append(".onViewCreated$lambda$").append(i).append("(ScreenFragment.kt:").append(100 + i).append(")\n");
+    }
+    String stackTrace = trace.toString();
+    for (int i = 0; i < rows; i++) {
+      Map<String, String> resource = new HashMap<>();
+      resource.put("app.build_name", "6.1.0");
+      resource.put("app.build_id", "100034");
+      resource.put("os.name", "android");
+      resource.put("os.version", "14");
+      resource.put("device.model.name", "Pixel 8");
+      resource.put("rum.sdk.version", "1.2.0");
+      resource.put("service.name", "pulse-demo");
+      Map<String, String> log = new HashMap<>();
+      log.put("exception.stacktrace", stackTrace);
+      log.put("exception.message", "Fragment not attached \"" + i + "\"");
+      log.put("exception.type", "java.lang.IllegalStateException");
+      log.put("session.id", "session-" + (i % 50));
+      log.put("user.id", "user-" + i);
+      log.put("screen.name", "HomeScreen");
+      events.add(StackTraceEvent.builder()
+          .timestamp("2024-01-02 03:04:05.000000006")
+          .timestampUnixNano(1704164645_000000006L + i)
+          .pulseType("device.crash")
+          .title("java.lang.IllegalStateException at ScreenFragment.onViewCreated [EXC-0123456789]")
+          .exceptionStackTrace(stackTrace)
+          .exceptionStackTraceRaw(stackTrace)
+          .exceptionMessage(log.get("exception.message"))
+          .exceptionType("java.lang.IllegalStateException")
+          .interactions(List.of("app_start", "checkout"))
+          .screenName("HomeScreen")
+          .userId("user-" + i)
+          .sessionId("session-" + (i % 50))
+          .platform("android")
+          .osVersion("14")
+          .deviceModel("Pixel 8")
+          .appVersionCode("100034")
+          .appVersion("6.1.0")
+          .sdkVersion("1.2.0")
+          .traceId("0102030405060708090a0b0c0d0e0f10")
+          .spanId("0102030405060708")
+          .groupId("EXC-0123456789")
+          .signature("v1|platform:java|exc:java.lang.IllegalStateException|frames:com.example.app.ScreenFragment#x")
+          .fingerprint("0123456789abcdef0123456789abcdef01234567")
+          .resourceAttributes(resource)
+          .scopeAttributes(Map.of())
+          .logAttributes(log)
+          .build());
+    }
+    return events;
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    encoder = "RowBinary".equals(format) ? new StackTraceEventRowBinaryEncoder() : new StackTraceEventJsonEncoder();
+    events = sampleEvents(ROWS);
+    CountingOutputStream out = new CountingOutputStream();
+    encoder.encode(events, out);
+    System.out.printf("%n[%s] %d bytes/row on the wire (uncompressed)%n", format, out.count / ROWS);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public long encode() throws IOException {
+    CountingOutputStream out = new CountingOutputStream();
+    encoder.encode(events, out);
+    return out.count;
+  }
+
+  private static final class CountingOutputStream extends OutputStream {
+    long count;
+
+    @Override
+    public void write(int b) {
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      count += len;
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package org.dreamhorizon.pulseserver.client.chclient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.dreamhorizon.pulseserver.model.QueryConfiguration;
+import org.junit.jupiter.api.Test;
+
+class ClickhouseQueryServiceSettingsTest {
+
+  @Test
+  void shouldLeaveQueryWithoutSettingsUnchanged() {
+    String sql = "SELECT 1;";
+
+    assertThat(ClickhouseQueryService.withSettings(sql, Map.of())).isSameAs(sql);
+  }
+
+  @Test
+  void shouldAppendSettingsClauseInOrder() {
+    Map<String, Object> settings = new LinkedHashMap<>();
+    settings.put("max_execution_time", 60);
+    settings.put("priority", 10);
+
+    assertThat(ClickhouseQueryService.withSettings("SELECT count() FROM otel_traces;\n", settings))
+        .isEqualTo("SELECT count() FROM otel_traces\nSETTINGS max_execution_time = 60, priority = 10");
+  }
+
+  @Test
+  void shouldKeepSettingsOfQueryConfiguration() {
+    QueryConfiguration config = QueryConfiguration.newQuery("SELECT 1")
+        .maxThreads(4)
+        .maxMemoryUsage(1_000_000L)
+        .useQueryCache(true)
+        .build();
+
+    QueryConfiguration tagged = config.withQuery("/* tag */\nSELECT 1");
+
+    assertThat(tagged.getSettings())
+        .containsExactly(Map.entry("max_threads", 4), Map.entry("max_memory_usage", 1_000_000L),
+            Map.entry("use_query_cache", 1));
+    assertThat(tagged.getQuery()).isEqualTo("/* tag */\nSELECT 1");
+  }
+}
@@ -0,0 +1,147 @@
+package org.dreamhorizon.pulseserver.client.chclient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.MetricRegistry;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.processors.PublishProcessor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.dreamhorizon.pulseserver.config.ClickhouseConfig;
+import org.dreamhorizon.pulseserver.model.QueryJobPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class QueryJobStoreTest {
+  private static final List<String> COLUMNS = List.of("app_version", "count");
+
+  @TempDir
+  Path spoolDir;
+
+  private QueryJobStore store;
+  private PublishProcessor<Object[]> rows;
+  private AtomicBoolean killed;
+
+  @BeforeEach
+  void setUp() {
+    ClickhouseConfig config = new ClickhouseConfig();
+    config.setQueryJobSpoolDir(spoolDir.toString());
+    store = new QueryJobStore(config, new MetricRegistry());
+    rows = PublishProcessor.create();
+    killed = new AtomicBoolean();
+  }
+
+  private QueryJob start() {
+    return start(new QueryResultBudget(1_000, 1_000_000));
+  }
+
+  private QueryJob start(QueryResultBudget inlineBudget) {
+    QueryJob job = store.create(inlineBudget);
+    job.start(rows.doOnNext(values -> job.add(COLUMNS, values)).ignoreElements(),
+        Completable.fromAction(() -> killed.set(true)));
+    return job;
+  }
+
+  @Test
+  void shouldKeepRowsInMemoryWhenQueryFinishesInTime() {
+    QueryJob job = start();
+    rows.onNext(new Object[] {"1.0", 10L});
+    rows.onComplete();
+
+    QueryJob finished = store.awaitOrDetach(job, 1_000).blockingGet();
+
+    assertThat(finished.getStatus()).isEqualTo(QueryJob.Status.DONE);
+    assertThat(finished.isSpooled()).isFalse();
+    assertThat(finished.getColumns()).isEqualTo(COLUMNS);
+    assertThat(finished.getRows()).hasSize(1);
+    assertThat(finished.getRows().get(0)).containsExactly("1.0", 10L);
+    assertThat(store.get(job.getId())).isEmpty();
+  }
+
+  @Test
+  void shouldSpoolRowsOfQueryThatOutlivesTimeout() throws Exception {
+    QueryJob job = start();
+    rows.onNext(new Object[] {"1.0", 10L});
+
+    QueryJob detached = store.awaitOrDetach(job, 10).blockingGet();
+    rows.onNext(new Object[] {null, 3L});
+
+    assertThat(detached.getStatus()).isEqualTo(QueryJob.Status.RUNNING);
+    assertThat(detached.isSpooled()).isTrue();
+    assertThat(store.get(job.getId())).containsSame(job);
+    assertThat(Files.exists(spoolDir.resolve(job.getId() + ".jsonl"))).isTrue();
+    QueryJobPage running = job.page(0, 10);
+    assertThat(running.isJobComplete()).isFalse();
+    assertThat(running.getRows()).containsExactly(List.of("1.0", "10"), List.of("", "3"));
+
+    rows.onComplete();
+    QueryJobPage done = job.page(1, 10);
+    assertThat(done.isJobComplete()).isTrue();
+    assertThat(done.getStatus()).isEqualTo("DONE");
+    assertThat(done.getFields()).isEqualTo(COLUMNS);
+    assertThat(done.getTotalRows()).isEqualTo(2);
+    assertThat(done.getRows()).containsExactly(List.of("", "3"));
+  }
+
+  @Test
+  void shouldSpoolBeforeTimeoutOnceRowsOverflowInlineBudget() {
+    QueryJob job = start(new QueryResultBudget(2, 1_000_000));
+    TestObserver<QueryJob> observer = store.awaitOrDetach(job, 60_000).test();
+    for (int i = 0; i < 3; i++) {
+      rows.onNext(new Object[] {"v" + i, (long) i});
+    }
+
+    observer.awaitDone(5, TimeUnit.SECONDS).assertValue(job);
+    rows.onNext(new Object[] {"v3", 3L});
+
+    assertThat(job.isSpooled()).isTrue();
+    assertThat(store.get(job.getId())).containsSame(job);
+    assertThat(job.page(0, 10).getTotalRows()).isEqualTo(4);
+  }
+
+  @Test
+  void shouldPageAcrossIndexedRows() {
+    QueryJob job = start();
+    store.awaitOrDetach(job, 10).blockingGet();
+    for (int i = 0; i < 5_000; i++) {
+      rows.onNext(new Object[] {"v" + i, (long) i});
+    }
+    rows.onComplete();
+
+    QueryJobPage page = job.page(2_047, 3);
+
+    assertThat(page.getRows()).extracting(row -> row.get(1)).containsExactly("2047", "2048", "2049");
+    assertThat(job.page(4_999, 10).getRows()).hasSize(1);
+    assertThat(job.page(5_000, 10).getRows()).isEmpty();
+  }
+
+  @Test
+  void shouldKillQueryAndDeleteSpoolWhenRemoved() throws Exception {
+    QueryJob job = start();
+    store.awaitOrDetach(job, 10).blockingGet();
+
+    assertThat(store.remove(job.getId())).isTrue();
+
+    assertThat(rows.hasSubscribers()).isFalse();
+    assertThat(job.getStatus()).isEqualTo(QueryJob.Status.CANCELLED);
+    assertThat(killed).isTrue();
+    assertThat(Files.exists(spoolDir.resolve(job.getId() + ".jsonl"))).isFalse();
+    assertThat(store.remove(job.getId())).isFalse();
+  }
+
+  @Test
+  void shouldFailWhenQueryFailsInTime() {
+    QueryJob job = start();
+    rows.onError(new QueryResultBudget.ResultTooLargeException("too large"));
+
+    store.awaitOrDetach(job, 1_000).test()
+        .awaitDone(1, TimeUnit.SECONDS)
+        .assertError(QueryResultBudget.ResultTooLargeException.class);
+    assertThat(store.get(job.getId())).isEmpty();
+  }
+}
@@ -0,0 +1,61 @@
+package org.dreamhorizon.pulseserver.client.chclient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+import java.util.Map;
+import org.dreamhorizon.pulseserver.model.QueryLane;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+class QueryLanePoolTest {
+  private MetricRegistry metricRegistry;
+  private ConnectionPool connectionPool;
+  private QueryLanePool lane;
+
+  @BeforeEach
+  void setUp() {
+    metricRegistry = new MetricRegistry();
+    connectionPool = mock(ConnectionPool.class);
+    lane = new QueryLanePool(QueryLane.BATCH, connectionPool, 1, 1, Map.of("priority", 5), metricRegistry,
+        "clickhouse.read_pool.batch.");
+  }
+
+  @Test
+  void shouldRejectQueriesBeyondConnectionsAndQueue() {
+    when(connectionPool.create()).thenReturn(Mono.never());
+
+    TestSubscriber<Object> running = lane.withConnection(conn -> Flowable.never()).test();
+    TestSubscriber<Object> queued = lane.withConnection(conn -> Flowable.never()).test();
+    TestSubscriber<Object> rejected = lane.withConnection(conn -> Flowable.never()).test();
+
+    running.assertNoErrors();
+    queued.assertNoErrors();
+    rejected.assertError(QueryLanePool.QueueFullException.class);
+    assertThat(metricRegistry.meter("clickhouse.read_pool.batch.rejected_queries").getCount()).isEqualTo(1);
+
+    queued.cancel();
+    lane.withConnection(conn -> Flowable.never()).test().assertNoErrors();
+  }
+
+  @Test
+  void shouldCloseConnectionAndRecordQueueWaitWhenWorkCompletes() {
+    Connection connection = mock(Connection.class);
+    when(connection.close()).thenReturn(Mono.empty());
+    when(connectionPool.create()).thenReturn(Mono.just(connection));
+
+    lane.withConnection(conn -> Flowable.just(1, 2)).test().assertValues(1, 2);
+
+    verify(connection).close();
+    assertThat(metricRegistry.timer("clickhouse.read_pool.batch.queue_wait").getCount()).isEqualTo(1);
+    assertThat(lane.getSettings()).containsEntry("priority", 5);
+  }
+}
@@ -0,0 +1,57 @@
+package org.dreamhorizon.pulseserver.client.chclient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class QueryResultBudgetTest {
+
+  @Test
+  void shouldFailOnceRowLimitIsExceeded() {
+    QueryResultBudget budget = new QueryResultBudget(2, Long.MAX_VALUE);
+
+    budget.charge(new Object[] {1L});
+    budget.charge(new Object[] {2L});
+
+    assertThatThrownBy(() -> budget.charge(new Object[] {3L}))
+        .isInstanceOf(QueryResultBudget.ResultTooLargeException.class)
+        .hasMessageContaining("2 rows");
+  }
+
+  @Test
+  void shouldFailOnceByteLimitIsExceeded() {
+    QueryResultBudget budget = new QueryResultBudget(Integer.MAX_VALUE, 20);
+
+    budget.charge(new Object[] {"0123456789"});
+
+    assertThatThrownBy(() -> budget.charge(new Object[] {"0123456789"}))
+        .isInstanceOf(QueryResultBudget.ResultTooLargeException.class)
+        .hasMessageContaining("20 bytes");
+  }
+
+  @Test
+  void shouldEstimateCellSizes() {
+    assertThat(QueryResultBudget.estimateBytes(null)).isEqualTo(4);
+    assertThat(QueryResultBudget.estimateBytes("abc")).isEqualTo(5);
+    assertThat(QueryResultBudget.estimateBytes(new byte[10])).isEqualTo(10);
+    assertThat(QueryResultBudget.estimateBytes(42L)).isEqualTo(16);
+    assertThat(QueryResultBudget.estimateBytes(Instant.EPOCH)).isEqualTo(16);
+    assertThat(QueryResultBudget.estimateBytes(List.of("a", "b"))).isEqualTo(2 + 4 + 4);
+    assertThat(QueryResultBudget.estimateBytes(new String[] {"a", "b"})).isEqualTo(2 + 4 + 4);
+    assertThat(QueryResultBudget.estimateBytes(Map.of("k", "v"))).isEqualTo(2 + 3 + 3 + 2);
+  }
+
+  @Test
+  void shouldTrackRowsAndBytes() {
+    QueryResultBudget budget = new QueryResultBudget(10, 1000);
+
+    budget.charge(new Object[] {"ab", null});
+
+    assertThat(budget.getRows()).isEqualTo(1);
+    assertThat(budget.getBytes()).isEqualTo(8);
+  }
+}
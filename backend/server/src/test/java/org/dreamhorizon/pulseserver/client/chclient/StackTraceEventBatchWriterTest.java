@@ -0,0 +1,118 @@
+package org.dreamhorizon.pulseserver.client.chclient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.clickhouse.client.api.insert.InsertResponse;
+import com.codahale.metrics.MetricRegistry;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.vertx.core.Vertx;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.dreamhorizon.pulseserver.config.ClickhouseConfig;
+import org.dreamhorizon.pulseserver.errorgrouping.model.StackTraceEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class StackTraceEventBatchWriterTest {
+
+  private Vertx vertx;
+  private ClickhouseWriteClient writeClient;
+  private MetricRegistry metricRegistry;
+
+  @BeforeEach
+  void setUp() {
+    vertx = Vertx.vertx();
+    writeClient = mock(ClickhouseWriteClient.class);
+    metricRegistry = new MetricRegistry();
+    when(writeClient.insert(anyList())).thenReturn(Single.just(mock(InsertResponse.class)));
+  }
+
+  @AfterEach
+  void tearDown() {
+    vertx.close();
+  }
+
+  private StackTraceEventBatchWriter writer(int maxRows, long maxDelayMs, int maxQueuedRows) {
+    ClickhouseConfig config = new ClickhouseConfig();
+    config.setInsertBatchMaxRows(maxRows);
+    config.setInsertBatchMaxDelayMs(maxDelayMs);
+    config.setInsertQueueMaxRows(maxQueuedRows);
+    return new StackTraceEventBatchWriter(vertx, writeClient, config, metricRegistry);
+  }
+
+  private static List<StackTraceEvent> events(int count) {
+    List<StackTraceEvent> events = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      events.add(StackTraceEvent.builder().groupId("EXC-" + i).build());
+    }
+    return events;
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldFlushOnceBatchIsFull() {
+    StackTraceEventBatchWriter writer = writer(5, 60_000, 100);
+
+    TestObserver<Long> first = writer.write(events(3)).test();
+    first.assertNotComplete();
+    TestObserver<Long> second = writer.write(events(2)).test();
+
+    first.assertValue(3L);
+    second.assertValue(2L);
+    ArgumentCaptor<List<StackTraceEvent>> captor = ArgumentCaptor.forClass(List.class);
+    verify(writeClient, times(1)).insert(captor.capture());
+    assertThat(captor.getValue()).hasSize(5);
+    assertThat(writer.getQueuedRows()).isZero();
+  }
+
+  @Test
+  void shouldFlushPartialBatchAfterDelay() throws InterruptedException {
+    StackTraceEventBatchWriter writer = writer(1000, 20, 100);
+
+    TestObserver<Long> observer = writer.write(events(2)).test();
+
+    observer.await(5, TimeUnit.SECONDS);
+    observer.assertValue(2L);
+    verify(writeClient, times(1)).insert(anyList());
+  }
+
+  @Test
+  void shouldRejectWritesWhenQueueIsFull() {
+    StackTraceEventBatchWriter writer = writer(1000, 60_000, 4);
+
+    writer.write(events(3)).test().assertNotComplete();
+    writer.write(events(2)).test().assertError(StackTraceEventBatchWriter.QueueFullException.class);
+
+    verify(writeClient, never()).insert(anyList());
+    assertThat(writer.getQueuedRows()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldPropagateInsertFailureToEveryWriter() {
+    when(writeClient.insert(anyList())).thenReturn(Single.error(new RuntimeException("boom")));
+    StackTraceEventBatchWriter writer = writer(4, 60_000, 100);
+
+    TestObserver<Long> first = writer.write(events(2)).test();
+    TestObserver<Long> second = writer.write(events(2)).test();
+
+    first.assertError(RuntimeException.class);
+    second.assertError(RuntimeException.class);
+    assertThat(writer.getQueuedRows()).isZero();
+  }
+
+  @Test
+  void shouldCompleteImmediatelyForEmptyWrite() {
+    writer(5, 60_000, 100).write(List.of()).test().assertValue(0L);
+    verify(writeClient, never()).insert(anyList());
+  }
+}
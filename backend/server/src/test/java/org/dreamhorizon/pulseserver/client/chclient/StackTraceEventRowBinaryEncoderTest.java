@@ -0,0 +1,146 @@
+package org.dreamhorizon.pulseserver.client.chclient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.dreamhorizon.pulseserver.errorgrouping.model.StackTraceEvent;
+import org.junit.jupiter.api.Test;
+
+class StackTraceEventRowBinaryEncoderTest {
+
+  private final StackTraceEventRowBinaryEncoder encoder = new StackTraceEventRowBinaryEncoder();
+
+  private static ByteBuffer encode(StackTraceEventEncoder encoder, StackTraceEvent... events) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    encoder.encode(List.of(events), out);
+    return ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private static long readVarUInt(ByteBuffer buf) {
+    long result = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = buf.get();
+      result |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return result;
+  }
+
+  private static String readString(ByteBuffer buf) {
+    byte[] bytes = new byte[(int) readVarUInt(buf)];
+    buf.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void shouldFollowTableColumnOrder() {
+    assertThat(StackTraceEventRowBinaryEncoder.COLUMNS)
+        .extracting(StackTraceEventRowBinaryEncoder.Column::name)
+        .containsExactly("Timestamp", "EventName", "Title", "ExceptionStackTrace", "ExceptionStackTraceRaw",
+            "ExceptionMessage", "ExceptionType", "Interactions", "ScreenName", "UserId", "SessionId", "Platform",
+            "OsVersion", "DeviceModel", "AppVersionCode", "AppVersion", "SdkVersion", "TraceId", "SpanId", "GroupId",
+            "Signature", "Fingerprint", "ScopeAttributes", "LogAttributes", "ResourceAttributes");
+  }
+
+  @Test
+  void shouldEncodeRowInRowBinaryLayout() throws IOException {
+    Map<String, String> logAttributes = new LinkedHashMap<>();
+    logAttributes.put("exception.type", "java.lang.IllegalStateException");
+    logAttributes.put("screen.name", "Home");
+    StackTraceEvent event = StackTraceEvent.builder()
+        .timestamp("2024-01-02 03:04:05.000000006")
+        .title("IllegalStateException at Home#onCreate [EXC-ABC]")
+        .exceptionStackTrace("java.lang.IllegalStateException\n  at Home.onCreate(Home.java:10)\n")
+        .interactions(List.of("login", "checkout"))
+        .platform("android")
+        .spanId("0011223344556677")
+        .groupId("EXC-ABC")
+        .logAttributes(logAttributes)
+        .build();
+
+    ByteBuffer buf = encode(encoder, event);
+
+    assertThat(buf.getLong()).isEqualTo(1704164645_000000006L);
+    assertThat(readString(buf)).isEmpty();                                   // EventName
+    assertThat(readString(buf)).isEqualTo(event.getTitle());
+    assertThat(readString(buf)).isEqualTo(event.getExceptionStackTrace());
+    assertThat(readString(buf)).isEmpty();                                   // ExceptionStackTraceRaw
+    assertThat(readString(buf)).isEmpty();                                   // ExceptionMessage
+    assertThat(readString(buf)).isEmpty();                                   // ExceptionType
+    assertThat(readVarUInt(buf)).isEqualTo(2);                               // Interactions
+    assertThat(readString(buf)).isEqualTo("login");
+    assertThat(readString(buf)).isEqualTo("checkout");
+    assertThat(readString(buf)).isEmpty();                                   // ScreenName
+    assertThat(readString(buf)).isEmpty();                                   // UserId
+    assertThat(readString(buf)).isEmpty();                                   // SessionId
+    assertThat(readString(buf)).isEqualTo("android");
+    for (int i = 0; i < 6; i++) {                                            // OsVersion .. TraceId
+      assertThat(readString(buf)).isEmpty();
+    }
+    byte[] spanId = new byte[16];
+    buf.get(spanId);
+    assertThat(new String(spanId, StandardCharsets.UTF_8)).isEqualTo("0011223344556677");
+    assertThat(readString(buf)).isEqualTo("EXC-ABC");
+    assertThat(readString(buf)).isEmpty();                                   // Signature
+    assertThat(readString(buf)).isEmpty();                                   // Fingerprint
+    assertThat(readVarUInt(buf)).isZero();                                   // ScopeAttributes
+    assertThat(readVarUInt(buf)).isEqualTo(2);                               // LogAttributes
+    assertThat(readString(buf)).isEqualTo("exception.type");
+    assertThat(readString(buf)).isEqualTo("java.lang.IllegalStateException");
+    assertThat(readString(buf)).isEqualTo("screen.name");
+    assertThat(readString(buf)).isEqualTo("Home");
+    assertThat(readVarUInt(buf)).isZero();                                   // ResourceAttributes
+    assertThat(buf.hasRemaining()).isFalse();
+  }
+
+  @Test
+  void shouldPreferNumericTimestampAndPadMissingSpanId() throws IOException {
+    StackTraceEvent event = StackTraceEvent.builder()
+        .timestamp("ignored")
+        .timestampUnixNano(42L)
+        .build();
+
+    ByteBuffer buf = encode(encoder, event);
+
+    assertThat(buf.getLong()).isEqualTo(42L);
+    // every remaining column is a single zero byte except the 16 byte FixedString SpanId
+    assertThat(buf.remaining()).isEqualTo(StackTraceEventRowBinaryEncoder.COLUMNS.size() - 2 + 16);
+  }
+
+  @Test
+  void shouldEncodeLongStringsWithMultiByteLength() throws IOException {
+    String trace = "x".repeat(300);
+    StackTraceEvent event = StackTraceEvent.builder().timestampUnixNano(1L).title(trace).build();
+
+    ByteBuffer buf = encode(encoder, event);
+    buf.getLong();
+    readString(buf);
+
+    assertThat(readString(buf)).isEqualTo(trace);
+  }
+
+  @Test
+  void shouldRejectOversizedSpanId() {
+    StackTraceEvent event = StackTraceEvent.builder().timestampUnixNano(1L).spanId("00112233445566778899").build();
+
+    assertThrows(IllegalArgumentException.class, () -> encode(encoder, event));
+  }
+
+  @Test
+  void shouldResolveEncoderFromConfig() {
+    assertThat(StackTraceEventEncoder.forFormat(null)).isInstanceOf(StackTraceEventJsonEncoder.class);
+    assertThat(StackTraceEventEncoder.forFormat("JSONEachRow")).isInstanceOf(StackTraceEventJsonEncoder.class);
+    assertThat(StackTraceEventEncoder.forFormat("RowBinary")).isInstanceOf(StackTraceEventRowBinaryEncoder.class);
+    assertThrows(IllegalArgumentException.class, () -> StackTraceEventEncoder.forFormat("CSV"));
+  }
+}
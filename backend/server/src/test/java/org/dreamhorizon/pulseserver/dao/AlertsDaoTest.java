@@ -6,8 +6,10 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import io.reactivex.rxjava3.core.Completable;
@@ -33,6 +35,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.dreamhorizon.pulseserver.client.mysql.MysqlClient;
 import org.dreamhorizon.pulseserver.dto.response.EmptyResponse;
 import org.dreamhorizon.pulseserver.resources.alert.enums.AlertState;
@@ -1255,6 +1258,155 @@ class AlertsDaoTest {
     }
   }
 
+  @Nested
+  class TestCreateEvaluationHistories {
+
+    @Test
+    void shouldInsertAllRowsWithOneStatement() {
+      setupWriterPool();
+      ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+      ArgumentCaptor<Tuple> tuple = ArgumentCaptor.forClass(Tuple.class);
+      when(writerPool.preparedQuery(sql.capture())).thenReturn(preparedQuery);
+      when(rowSet.rowCount()).thenReturn(2);
+      when(preparedQuery.rxExecute(tuple.capture())).thenReturn(Single.just(rowSet));
+
+      Integer result = alertsDao.createEvaluationHistories(List.of(
+          new AlertsDao.EvaluationHistoryRow(1, "{}", AlertState.NORMAL),
+          new AlertsDao.EvaluationHistoryRow(2, "", AlertState.ERRORED))).blockingGet();
+
+      assertEquals(2, result);
+      assertTrue(sql.getValue().contains("VALUES (?,?,?),(?,?,?);"));
+      assertEquals(6, tuple.getValue().size());
+      assertEquals(2, tuple.getValue().getInteger(3));
+      assertEquals("ERRORED", tuple.getValue().getString(5));
+    }
+
+    @Test
+    void shouldNotQueryForNoRows() {
+      Integer result = alertsDao.createEvaluationHistories(List.of()).blockingGet();
+
+      assertEquals(0, result);
+      verifyNoInteractions(d11MysqlClient);
+    }
+
+    @Test
+    void shouldThrowExceptionOnDatabaseError() {
+      setupPreparedQuery();
+      when(preparedQuery.rxExecute(any(Tuple.class)))
+          .thenReturn(Single.error(new MySQLException("DB Error", 500, "SQLSTATE")));
+
+      Exception ex = assertThrows(RuntimeException.class,
+          () -> alertsDao.createEvaluationHistories(List.of(
+              new AlertsDao.EvaluationHistoryRow(1, "{}", AlertState.NORMAL))).blockingGet());
+      assertTrue(ex.getMessage().contains("DB Error"));
+    }
+  }
+
+  @Nested
+  class TestUpdateScopeStates {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldReportWhichScopesWereWritten() {
+      setupWriterPool();
+      ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+      ArgumentCaptor<List<Tuple>> tuples = ArgumentCaptor.forClass(List.class);
+      RowSet<Row> secondResult = mock(RowSet.class);
+      when(writerPool.preparedQuery(sql.capture())).thenReturn(preparedQuery);
+      when(rowSet.rowCount()).thenReturn(1);
+      when(rowSet.next()).thenReturn(secondResult);
+      when(secondResult.rowCount()).thenReturn(0);
+      when(preparedQuery.rxExecuteBatch(tuples.capture())).thenReturn(Single.just(rowSet));
+
+      Set<Integer> result = alertsDao.updateScopeStates(List.of(
+          new AlertsDao.ScopeStateWrite(1, AlertState.FIRING, 4),
+          new AlertsDao.ScopeStateWrite(2, AlertState.NORMAL, 7))).blockingGet();
+
+      assertEquals(Set.of(1), result);
+      assertTrue(sql.getValue().contains("version = version + 1"));
+      assertTrue(sql.getValue().contains("WHERE id = ? AND version = ?;"));
+      assertEquals(2, tuples.getValue().size());
+      assertEquals("FIRING", tuples.getValue().get(0).getString(0));
+      assertEquals(1, tuples.getValue().get(0).getInteger(1));
+      assertEquals(4, tuples.getValue().get(0).getInteger(2));
+      assertEquals(7, tuples.getValue().get(1).getInteger(2));
+    }
+
+    @Test
+    void shouldNotQueryForNoScopes() {
+      Set<Integer> result = alertsDao.updateScopeStates(List.of()).blockingGet();
+
+      assertTrue(result.isEmpty());
+      verifyNoInteractions(d11MysqlClient);
+    }
+
+    @Test
+    void shouldThrowExceptionOnDatabaseError() {
+      setupPreparedQuery();
+      when(preparedQuery.rxExecuteBatch(anyList()))
+          .thenReturn(Single.error(new MySQLException("DB Error", 500, "SQLSTATE")));
+
+      Exception ex = assertThrows(RuntimeException.class,
+          () -> alertsDao.updateScopeStates(List.of(new AlertsDao.ScopeStateWrite(1, AlertState.FIRING, 0)))
+              .blockingGet());
+      assertTrue(ex.getMessage().contains("DB Error"));
+    }
+  }
+
+  @Nested
+  class TestGetScopeStates {
+
+    private Row createMockScopeStateRow() {
+      Row mockRow = createMockScopeRow();
+      when(mockRow.getInteger("version")).thenReturn(3);
+      when(mockRow.getLocalDateTime("snoozed_from")).thenReturn(null);
+      when(mockRow.getLocalDateTime("snoozed_until")).thenReturn(null);
+      return mockRow;
+    }
+
+    @Test
+    void shouldGetAllScopeStates() {
+      setupPreparedQuery();
+      setupRowSetMock(rowSet, List.of(createMockScopeStateRow()));
+      when(preparedQuery.rxExecute()).thenReturn(Single.just(rowSet));
+
+      List<AlertsDao.ScopeStateRow> result = alertsDao.getScopeStates().blockingGet();
+
+      assertEquals(List.of(new AlertsDao.ScopeStateRow(1, 1, "scope1", AlertState.NORMAL, 3, null, null)), result);
+    }
+
+    @Test
+    void shouldGetScopeStatesById() {
+      setupPreparedQuery();
+      setupRowSetMock(rowSet, List.of(createMockScopeStateRow()));
+      when(preparedQuery.rxExecute(any(Tuple.class))).thenReturn(Single.just(rowSet));
+
+      List<AlertsDao.ScopeStateRow> result = alertsDao.getScopeStates(List.of(1, 2)).blockingGet();
+
+      assertEquals(1, result.size());
+      assertEquals(3, result.get(0).version());
+    }
+
+    @Test
+    void shouldNotQueryForNoIds() {
+      List<AlertsDao.ScopeStateRow> result = alertsDao.getScopeStates(List.of()).blockingGet();
+
+      assertTrue(result.isEmpty());
+      verifyNoInteractions(d11MysqlClient);
+    }
+
+    @Test
+    void shouldThrowExceptionOnDatabaseError() {
+      setupPreparedQuery();
+      when(preparedQuery.rxExecute(any(Tuple.class)))
+          .thenReturn(Single.error(new MySQLException("DB Error", 500, "SQLSTATE")));
+
+      Exception ex = assertThrows(RuntimeException.class,
+          () -> alertsDao.getScopeStates(List.of(1)).blockingGet());
+      assertTrue(ex.getMessage().contains("DB Error"));
+    }
+  }
+
   @Nested
   class TestGetEvaluationHistoryByAlert {
 
@@ -22,6 +22,7 @@ import io.vertx.rxjava3.sqlclient.SqlConnection;
 import io.vertx.rxjava3.sqlclient.Transaction;
 import io.vertx.rxjava3.sqlclient.Tuple;
 import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -31,6 +32,7 @@ import org.dreamhorizon.pulseserver.dao.interaction.models.InteractionDetailRow;
 import org.dreamhorizon.pulseserver.dto.response.GetRawUserEventsResponseDto;
 import org.dreamhorizon.pulseserver.dto.response.universalquerying.GetQueryDataResponseDto;
 import org.dreamhorizon.pulseserver.model.QueryConfiguration;
+import org.dreamhorizon.pulseserver.model.QueryLane;
 import org.dreamhorizon.pulseserver.service.interaction.models.Event;
 import org.dreamhorizon.pulseserver.service.interaction.models.GetInteractionsRequest;
 import org.dreamhorizon.pulseserver.service.interaction.models.InteractionDetailUploadMetadata;
@@ -821,6 +823,7 @@ class InteractionDaoTest {
   @ExtendWith(MockitoExtension.class)
   @MockitoSettings(strictness = Strictness.LENIENT)
   public class TestGetTelemetryFilterOptions {
+    private static final Instant SINCE = Instant.parse("2024-01-15T10:30:00Z");
 
     @Test
     void shouldReturnTelemetryFilterOptionsSuccessfully() {
@@ -868,7 +871,7 @@ class InteractionDaoTest {
           .thenReturn(Single.just(response));
 
       // When
-      var result = interactionDao.getTelemetryFilterOptions().blockingGet();
+      var result = interactionDao.getTelemetryFilterOptions(SINCE).blockingGet();
 
       // Then
       assertThat(result).isNotNull();
@@ -910,7 +913,7 @@ class InteractionDaoTest {
           .thenReturn(Single.just(response));
 
       // When
-      var result = interactionDao.getTelemetryFilterOptions().blockingGet();
+      var result = interactionDao.getTelemetryFilterOptions(SINCE).blockingGet();
 
       // Then
       assertThat(result).isNotNull();
@@ -966,7 +969,7 @@ class InteractionDaoTest {
           .thenReturn(Single.just(response));
 
       // When
-      var result = interactionDao.getTelemetryFilterOptions().blockingGet();
+      var result = interactionDao.getTelemetryFilterOptions(SINCE).blockingGet();
 
       // Then
       assertThat(result).isNotNull();
@@ -989,7 +992,7 @@ class InteractionDaoTest {
           .thenReturn(Single.error(expectedError));
 
       // When
-      var testObserver = interactionDao.getTelemetryFilterOptions().test();
+      var testObserver = interactionDao.getTelemetryFilterOptions(SINCE).test();
 
       // Then
       testObserver.assertError(RuntimeException.class);
@@ -1016,7 +1019,7 @@ class InteractionDaoTest {
           .thenReturn(Single.just(response));
 
       // When
-      var testObserver = interactionDao.getTelemetryFilterOptions().test();
+      var testObserver = interactionDao.getTelemetryFilterOptions(SINCE).test();
 
       // Then
       testObserver.assertError(RuntimeException.class);
@@ -1045,7 +1048,7 @@ class InteractionDaoTest {
           .thenReturn(Single.just(response));
 
       // When
-      interactionDao.getTelemetryFilterOptions().blockingGet();
+      interactionDao.getTelemetryFilterOptions(SINCE).blockingGet();
 
       // Then
       verify(clickhouseQueryService, times(1)).executeQueryOrCreateJob(configCaptor.capture());
@@ -1053,6 +1056,9 @@ class InteractionDaoTest {
       QueryConfiguration capturedConfig = configCaptor.getValue();
       assertThat(capturedConfig).isNotNull();
       assertThat(capturedConfig.getQuery()).isEqualTo(GET_TELEMETRY_FILTER_VALUES);
+      assertThat(capturedConfig.getParameters()).containsEntry("since", "2024-01-15 10:30:00");
+      assertThat(capturedConfig.getSettings()).containsEntry("priority", 10).containsEntry("max_threads", 2);
+      assertThat(capturedConfig.getLane()).isEqualTo(QueryLane.BATCH);
     }
   }
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package org.dreamhorizon.pulseserver.errorgrouping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.dreamhorizon.pulseserver.errorgrouping.model.JavaFrame;
+import org.dreamhorizon.pulseserver.errorgrouping.model.JsFrame;
+import org.dreamhorizon.pulseserver.errorgrouping.model.Lane;
+import org.dreamhorizon.pulseserver.errorgrouping.model.NdkFrame;
+import org.dreamhorizon.pulseserver.errorgrouping.model.ParsedFrames;
+import org.junit.jupiter.api.Test;
+
+class FramesParserTest {
+
+  // Fragments that hit the edge cases of the old regexes: optional "at ", whitespace given back to a group, word
+  // boundaries, anonymous class indexes, quoted thread names
+  private static final String[] FRAGMENTS = {
+      "at", " ", "  ", "\t", "(", ")", ":", "1", "23", "0x1f", "a", "Z", "_", "$", "$1", ".", "@", "#", "pc", "SIG",
+      "SEGV", "Error", "Exception", "Type", "Caused by:", "Exception in thread \"", "\"", "JavascriptException",
+      "Invariant Violation", "/", "+", "\u00e9", "\u0301", "-", "x", "index.bundle", "com.foo.Bar", "\n", "\r\n"
+  };
+
+  private static ParsedFrames regexParse(String raw) {
+    return RegexFramesParser.parse(Arrays.asList(raw.split("\\R", -1)));
+  }
+
+  @Test
+  void shouldMatchRegexParserOnSampleTraces() {
+    for (String raw : StackTraceSamples.ALL) {
+      assertThat(FramesParser.parse(raw)).usingRecursiveComparison().isEqualTo(regexParse(raw));
+    }
+  }
+
+  @Test
+  void shouldMatchRegexParserOnGeneratedLines() {
+    Random random = new Random(42);
+    for (int i = 0; i < 20_000; i++) {
+      StringBuilder sb = new StringBuilder();
+      int fragments = random.nextInt(16);
+      for (int j = 0; j < fragments; j++) {
+        sb.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+      }
+      String raw = sb.toString();
+      assertThat(FramesParser.parse(raw)).as(raw).usingRecursiveComparison().isEqualTo(regexParse(raw));
+    }
+  }
+
+  @Test
+  void shouldParseAndroidTraceWithCause() {
+    ParsedFrames parsed = FramesParser.parse(StackTraceSamples.ANDROID_JAVA);
+
+    assertThat(parsed.getPrimaryExceptionLane()).isEqualTo(Lane.JAVA);
+    assertThat(parsed.getJavaTypes())
+        .containsExactly("java.lang.IllegalStateException", "java.lang.NullPointerException");
+    assertThat(parsed.getJavaFrames()).hasSize(18);
+    JavaFrame lambda = parsed.getJavaFrames().get(4);
+    assertThat(lambda.getJavaClass()).isEqualTo("com.example.checkout.CartFragment$onViewCreated");
+    assertThat(lambda.getJavaMethod()).isEqualTo("invokeSuspend");
+    assertThat(lambda.getJavaFile()).isEqualTo("CartFragment.kt");
+    assertThat(lambda.getJavaLine()).isEqualTo(97);
+  }
+
+  @Test
+  void shouldParseThreadHeaderWithCrlfLineEndings() {
+    ParsedFrames parsed = FramesParser.parse(StackTraceSamples.ANDROID_THREAD);
+
+    assertThat(parsed.getJavaTypes()).containsExactly("java.net.SocketTimeoutException");
+    assertThat(parsed.getJavaFrames()).hasSize(8);
+    assertThat(parsed.getJavaFrames().get(0).getOriginalPosition()).isZero();
+    assertThat(parsed.getJavaFrames().get(7).getOriginalPosition()).isEqualTo(7);
+  }
+
+  @Test
+  void shouldParseReactNativeCompactFrames() {
+    ParsedFrames parsed = FramesParser.parse(StackTraceSamples.REACT_NATIVE_HERMES);
+
+    JsFrame first = parsed.getJsFrames().get(0);
+    assertThat(first.getJsFunction()).isEqualTo("renderItem");
+    assertThat(first.getJsLine()).isEqualTo(1);
+    assertThat(first.getJsColumn()).isEqualTo(482113);
+    assertThat(parsed.getJsFrames()).extracting(JsFrame::getJsFunction).doesNotContain("map");
+  }
+
+  @Test
+  void shouldParseJscFrames() {
+    ParsedFrames parsed = FramesParser.parse(StackTraceSamples.REACT_NATIVE_JSC);
+
+    assertThat(parsed.getJsTypes()).containsExactly("TypeError");
+    assertThat(parsed.getJsFrames()).extracting(JsFrame::getJsFunction).containsExactly(
+        "CartScreen", "renderWithHooks", "anonymous", "onPress", "touchableHandlePress",
+        "_performSideEffectsForTransition");
+  }
+
+  @Test
+  void shouldParseNdkTombstone() {
+    ParsedFrames parsed = FramesParser.parse(StackTraceSamples.NDK_TOMBSTONE);
+
+    assertThat(parsed.getNdkTypes()).contains("SIGSEGV");
+    List<NdkFrame> frames = parsed.getNdkFrames();
+    assertThat(frames).hasSize(5);
+    assertThat(frames.get(0).getNdkPc()).isEqualTo("000000000004f2a8");
+    assertThat(frames.get(0).getNdkLib()).isEqualTo("libimage.so");
+    assertThat(frames.get(0).getNdkSymbol()).isEqualTo("decodeFrame");
+    assertThat(frames.get(2).getNdkSymbol()).isNull();
+  }
+
+  @Test
+  void shouldTreatNullAndBlankInputAsEmpty() {
+    assertThat(FramesParser.parse((String) null)).usingRecursiveComparison().isEqualTo(new ParsedFrames());
+    assertThat(FramesParser.parse(" \n\t\r\n")).usingRecursiveComparison().isEqualTo(new ParsedFrames());
+  }
+}
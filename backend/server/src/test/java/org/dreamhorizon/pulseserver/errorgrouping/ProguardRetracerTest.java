@@ -0,0 +1,69 @@
+package org.dreamhorizon.pulseserver.errorgrouping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class ProguardRetracerTest {
+
+  private static final String MAPPING = String.join("\n",
+      "com.example.checkout.CartFragment -> a.b:",
+      "    1:1:void onViewCreated(android.view.View):42:42 -> a",
+      "com.example.checkout.CartViewModel -> a.c:",
+      "    1:1:void load():17:17 -> b",
+      "");
+
+  private final ProguardRetracer retracer = ProguardRetracer.fromMapping(MAPPING);
+
+  @Test
+  void shouldRetraceBatchOfFrames() {
+    List<String> out = retracer.retrace(List.of(
+        "\tat a.b.a(SourceFile:1)",
+        "\tat a.c.b(SourceFile:1)"));
+
+    assertThat(out).hasSize(2);
+    assertThat(out.get(0)).contains("com.example.checkout.CartFragment").contains("onViewCreated").contains(":42");
+    assertThat(out.get(1)).contains("com.example.checkout.CartViewModel").contains("load").contains(":17");
+  }
+
+  @Test
+  void shouldReuseIndexAcrossCalls() {
+    retracer.retrace(List.of("\tat a.b.a(SourceFile:1)"));
+
+    assertThat(retracer.retrace(List.of("\tat a.c.b(SourceFile:1)")))
+        .singleElement()
+        .asString()
+        .contains("com.example.checkout.CartViewModel");
+  }
+
+  @Test
+  void shouldRetraceConcurrently() throws Exception {
+    List<String> frames = List.of("\tat a.b.a(SourceFile:1)", "\tat a.c.b(SourceFile:1)");
+    List<String> expected = retracer.retrace(frames);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<List<String>>> results = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        results.add(executor.submit(() -> retracer.retrace(frames)));
+      }
+      for (Future<List<String>> result : results) {
+        assertThat(result.get()).isEqualTo(expected);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldPassThroughUnknownFrames() {
+    assertThat(retracer.retrace(List.of("\tat java.lang.Thread.run(Thread.java:1012)")))
+        .singleElement()
+        .asString()
+        .contains("java.lang.Thread.run");
+  }
+}
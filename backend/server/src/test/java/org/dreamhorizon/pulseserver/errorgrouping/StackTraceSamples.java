@@ -0,0 +1,95 @@
+package org.dreamhorizon.pulseserver.errorgrouping;
+
+import java.util.List;
+
+/**
+ * Stack traces in the shapes the SDKs report them: Android (with causes and obfuscated frames), React Native (Hermes
+ * compact frames, JSC frames, {@code JavascriptException}) and NDK tombstones.
+ */
+public final class StackTraceSamples {
+
+  public static final String ANDROID_JAVA = String.join("\n",
+      "java.lang.IllegalStateException: Fragment CartFragment{4d2a1f} not attached to a context.",
+      "\tat androidx.fragment.app.Fragment.requireContext(Fragment.java:972)",
+      "\tat androidx.fragment.app.Fragment.getResources(Fragment.java:1036)",
+      "\tat com.example.checkout.CartFragment.renderTotals(CartFragment.kt:212)",
+      "\tat com.example.checkout.CartFragment.access$renderTotals(CartFragment.kt:48)",
+      "\tat com.example.checkout.CartFragment$onViewCreated$1$2.invokeSuspend(CartFragment.kt:97)",
+      "\tat kotlin.coroutines.jvm.internal.BaseContinuationImpl.resumeWith(ContinuationImpl.kt:33)",
+      "\tat kotlinx.coroutines.DispatchedTask.run(DispatchedTask.kt:106)",
+      "\tat android.os.Handler.handleCallback(Handler.java:942)",
+      "\tat android.os.Handler.dispatchMessage(Handler.java:99)",
+      "\tat android.os.Looper.loopOnce(Looper.java:201)",
+      "\tat android.os.Looper.loop(Looper.java:288)",
+      "\tat android.app.ActivityThread.main(ActivityThread.java:7918)",
+      "\tat java.lang.reflect.Method.invoke(Native Method)",
+      "\tat com.android.internal.os.RuntimeInit$MethodAndArgsCaller.run(RuntimeInit.java:548)",
+      "\tat com.android.internal.os.ZygoteInit.main(ZygoteInit.java:936)",
+      "Caused by: java.lang.NullPointerException: Attempt to invoke virtual method 'int a.b.c()' on a null object",
+      "\tat a.b.d.a(SourceFile:3)",
+      "\tat a.b.d$1.run(SourceFile:12)",
+      "\tat com.example.checkout.-$$Lambda$CartViewModel$xKq2.accept(Unknown Source:4)",
+      "\t... 12 more");
+
+  public static final String ANDROID_THREAD = String.join("\r\n",
+      "Exception in thread \"OkHttp Dispatcher\" java.net.SocketTimeoutException: timeout",
+      "    at okio.SocketAsyncTimeout.newTimeoutException(JvmOkio.kt:146)",
+      "    at okio.AsyncTimeout.access$newTimeoutException(AsyncTimeout.kt:161)",
+      "    at okio.AsyncTimeout$source$1.read(AsyncTimeout.kt:339)",
+      "    at okhttp3.internal.http1.Http1ExchangeCodec.readResponseHeaders(Http1ExchangeCodec.kt:180)",
+      "    at okhttp3.internal.connection.RealCall.getResponseWithInterceptorChain$okhttp(RealCall.kt:201)",
+      "    at okhttp3.internal.connection.RealCall$AsyncCall.run(RealCall.kt:517)",
+      "    at java.util.concurrent.ThreadPoolExecutor.runWorker(ThreadPoolExecutor.java:1145)",
+      "    at java.lang.Thread.run(Thread.java:1012)",
+      "");
+
+  public static final String REACT_NATIVE_HERMES = String.join("\n",
+      "com.facebook.react.common.JavascriptException: TypeError: Cannot read property 'price' of undefined, "
+          + "js engine: hermes, stack:",
+      "renderItem@1:482113",
+      "anonymous@1:390221",
+      "map@native",
+      "CartList@1:481207",
+      "renderWithHooks@1:298112",
+      "beginWork$1@1:331876",
+      "performUnitOfWork@1:318804",
+      "workLoopSync@1:318245",
+      "renderRootSync@1:317993",
+      "callFunctionReturnFlushedQueue@1:102552",
+      "\tat com.facebook.react.modules.core.ExceptionsManagerModule.reportException(ExceptionsManagerModule.java:65)",
+      "\tat java.lang.reflect.Method.invoke(Native Method)",
+      "\tat com.facebook.react.bridge.JavaMethodWrapper.invoke(JavaMethodWrapper.java:372)",
+      "\tat com.facebook.react.bridge.queue.NativeRunnable.run(Native Method)");
+
+  public static final String REACT_NATIVE_JSC = String.join("\n",
+      "TypeError: undefined is not an object (evaluating 'e.items.length')",
+      "    at CartScreen (index.android.bundle:1:482113)",
+      "    at renderWithHooks (index.android.bundle:1:298112)",
+      "    at index.android.bundle:1:390221",
+      "    at Object.invokeGuardedCallbackImpl (http://10.0.2.2:8081/index.bundle?platform=android:14:4511)",
+      "onPress@index.android.bundle:1:377712",
+      "touchableHandlePress@index.android.bundle:1:377050",
+      "_performSideEffectsForTransition@index.android.bundle:1:376112");
+
+  public static final String NDK_TOMBSTONE = String.join("\n",
+      "*** *** *** *** *** *** *** *** *** *** *** *** *** *** *** ***",
+      "Build fingerprint: 'google/sdk_gphone64_arm64/emu64a:13/TE1A.220922.021/9134216:userdebug/dev-keys'",
+      "pid: 8812, tid: 8845, name: RenderThread  >>> com.example.app <<<",
+      "signal 11 (SIGSEGV), code 1 (SEGV_MAPERR), fault addr 0x0000000000000018",
+      "    x0  0000000000000000  x1  0000007fc2b1e3c0  x2  0000000000000004  x3  0000000000000001",
+      "backtrace:",
+      "      #00 pc 000000000004f2a8  /data/app/~~xq==/com.example.app-1/lib/arm64/libimage.so "
+          + "(decodeFrame+120) (BuildId: 6c1f2a)",
+      "      #01 pc 0000000000051c04  /data/app/~~xq==/com.example.app-1/lib/arm64/libimage.so "
+          + "(Decoder::next()+52)",
+      "      #02 pc 00000000000a3d10  /data/app/~~xq==/com.example.app-1/lib/arm64/libhermes.so",
+      "      #03 pc 00000000000d1a9c  /apex/com.android.runtime/lib64/bionic/libc.so "
+          + "(__pthread_start(void*)+204) (BuildId: 4e7b9)",
+      "      #04 pc 0x0000000000077f1c  /apex/com.android.runtime/lib64/bionic/libc.so (__start_thread+64)");
+
+  public static final List<String> ALL = List.of(
+      ANDROID_JAVA, ANDROID_THREAD, REACT_NATIVE_HERMES, REACT_NATIVE_JSC, NDK_TOMBSTONE);
+
+  private StackTraceSamples() {
+  }
+}
@@ -0,0 +1,67 @@
+package org.dreamhorizon.pulseserver.errorgrouping.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import io.reactivex.rxjava3.core.Single;
+import io.vertx.core.Vertx;
+import java.util.List;
+import org.dreamhorizon.pulseserver.errorgrouping.model.UploadMetadata;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ArtifactAvailabilityIndexTest {
+
+  @Mock
+  Vertx vertx;
+
+  @Mock
+  SymbolFileService symbolFileService;
+
+  private ArtifactAvailabilityIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new ArtifactAvailabilityIndex(vertx, symbolFileService, new MetricRegistry());
+  }
+
+  private static UploadMetadata artifact(String appVersion, String type) {
+    return UploadMetadata.builder().platform("android").appVersion(appVersion).versionCode("42").type(type).build();
+  }
+
+  @Test
+  void shouldAssumeAvailableUntilLoaded() {
+    assertThat(index.mightHave(artifact("1.0.0", "JAVA"))).isTrue();
+  }
+
+  @Test
+  void shouldMatchDatabaseRowsCaseInsensitively() {
+    when(symbolFileService.listFiles()).thenReturn(Single.just(List.of(artifact("1.0.0", "java"))));
+
+    index.refresh().blockingAwait();
+
+    assertThat(index.mightHave(artifact("1.0.0", "JAVA"))).isTrue();
+    assertThat(index.mightHave(artifact("1.0.0", "JS"))).isFalse();
+    assertThat(index.mightHave(artifact("2.0.0", "JAVA"))).isFalse();
+  }
+
+  @Test
+  void shouldReflectUploadsAndFailedLoadsImmediately() {
+    when(symbolFileService.listFiles()).thenReturn(Single.just(List.of(artifact("1.0.0", "java"))));
+    index.refresh().blockingAwait();
+
+    index.markAvailable(artifact("2.0.0", "JS"));
+    index.markUnavailable(artifact("1.0.0", "JAVA"));
+
+    assertThat(index.mightHave(artifact("2.0.0", "JS"))).isTrue();
+    assertThat(index.mightHave(artifact("1.0.0", "JAVA"))).isFalse();
+
+    index.refresh().blockingAwait();
+    assertThat(index.mightHave(artifact("1.0.0", "JAVA"))).isTrue();
+  }
+}
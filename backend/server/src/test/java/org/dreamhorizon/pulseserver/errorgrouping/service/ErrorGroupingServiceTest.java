@@ -2,8 +2,10 @@ package org.dreamhorizon.pulseserver.errorgrouping.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
@@ -11,6 +13,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.when;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.protobuf.ByteString;
 import io.opentelemetry.proto.collector.logs.v1.ExportLogsServiceRequest;
 import io.opentelemetry.proto.common.v1.AnyValue;
@@ -19,10 +22,12 @@ import io.opentelemetry.proto.logs.v1.LogRecord;
 import io.opentelemetry.proto.logs.v1.ResourceLogs;
 import io.opentelemetry.proto.logs.v1.ScopeLogs;
 import io.opentelemetry.proto.resource.v1.Resource;
+import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Single;
 import java.util.Collections;
 import java.util.List;
 import org.dreamhorizon.pulseserver.client.chclient.ClickhouseQueryService;
+import org.dreamhorizon.pulseserver.config.ApplicationConfig;
 import org.dreamhorizon.pulseserver.errorgrouping.Symbolicator;
 import org.dreamhorizon.pulseserver.errorgrouping.model.EventMeta;
 import org.dreamhorizon.pulseserver.errorgrouping.model.Frame;
@@ -52,7 +57,9 @@ class ErrorGroupingServiceTest {
 
   @BeforeEach
   void setUp() {
-    errorGroupingService = new ErrorGroupingService(clickhouseQueryService, symbolicator);
+    errorGroupingService = new ErrorGroupingService(clickhouseQueryService, symbolicator,
+        new SymbolicationResultCache(new ApplicationConfig(), new MetricRegistry()),
+        new GroupingWorkerPool(new ApplicationConfig(), new MetricRegistry()));
   }
 
   // Helper methods to create test data
@@ -663,5 +670,63 @@ class ErrorGroupingServiceTest {
       assertTrue(event.getGroupId().startsWith("EXC-"));
     }
   }
-}
 
+  @Nested
+  class IngestTests {
+    @BeforeEach
+    void setUp() {
+      when(symbolicator.symbolicateJsInPlace(anyList(), any()))
+          .thenReturn(Single.just(List.of("func@file.js:1:1")));
+      lenient().when(symbolicator.retrace(anyList(), any()))
+          .thenReturn(Single.just(Collections.emptyList()));
+    }
+
+    private ResourceLogs resourceLogs(int records) {
+      ScopeLogs.Builder scopeLogs = ScopeLogs.newBuilder();
+      for (int i = 0; i < records; i++) {
+        scopeLogs.addLogRecords(LogRecord.newBuilder()
+            .setObservedTimeUnixNano(i)
+            .addAttributes(KeyValue.newBuilder()
+                .setKey("exception.stacktrace")
+                .setValue(AnyValue.newBuilder().setStringValue("Error: Test\n    at func@file.js:1:1").build())
+                .build())
+            .build());
+      }
+      return ResourceLogs.newBuilder()
+          .setResource(Resource.newBuilder().build())
+          .addScopeLogs(scopeLogs.build())
+          .build();
+    }
+
+    @Test
+    void shouldReportPartialIngestOnceAChunkIsWritten() {
+      when(clickhouseQueryService.insertStackTraces(anyList()))
+          .thenAnswer(invocation -> Single.just((long) invocation.<List<?>>getArgument(0).size()));
+      ResourceLogs read = resourceLogs(ErrorGroupingService.INGEST_INSERT_CHUNK_SIZE + 1);
+      ResourceLogs unread = resourceLogs(3);
+      // The failure hits before the second ResourceLogs is read; its records still count as rejected
+      Flowable<ResourceLogs> request = Flowable.concat(
+          Flowable.just(read),
+          Flowable.error(new GroupingWorkerPool.QueueFullException(1)));
+      long logRecords = ErrorGroupingService.logRecordCount(read) + ErrorGroupingService.logRecordCount(unread);
+
+      ErrorGroupingService.PartialIngestException error = assertThrows(
+          ErrorGroupingService.PartialIngestException.class,
+          () -> errorGroupingService.ingest(request, logRecords).blockingGet());
+
+      assertEquals(ErrorGroupingService.INGEST_INSERT_CHUNK_SIZE, error.getWrittenRecords());
+      assertEquals(4, error.getRejectedRecords());
+      assertInstanceOf(GroupingWorkerPool.QueueFullException.class, error.getCause());
+    }
+
+    @Test
+    void shouldPassErrorThroughWhenNothingWasWritten() {
+      Flowable<ResourceLogs> request = Flowable.concat(
+          Flowable.just(resourceLogs(1)),
+          Flowable.error(new GroupingWorkerPool.QueueFullException(1)));
+
+      assertThrows(GroupingWorkerPool.QueueFullException.class,
+          () -> errorGroupingService.ingest(request, 1).blockingGet());
+    }
+  }
+}
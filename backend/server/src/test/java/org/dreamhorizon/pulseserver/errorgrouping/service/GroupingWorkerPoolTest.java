@@ -0,0 +1,67 @@
+package org.dreamhorizon.pulseserver.errorgrouping.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.MetricRegistry;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.observers.TestObserver;
+import org.dreamhorizon.pulseserver.config.ApplicationConfig;
+import org.dreamhorizon.pulseserver.errorgrouping.service.GroupingWorkerPool.Stage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GroupingWorkerPoolTest {
+
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+  private GroupingWorkerPool pool;
+
+  @BeforeEach
+  void setUp() {
+    ApplicationConfig config = new ApplicationConfig();
+    config.setGroupingWorkerThreads(2);
+    config.setGroupingMaxQueuedEvents(1);
+    pool = new GroupingWorkerPool(config, metricRegistry);
+  }
+
+  @Test
+  void shouldRunAdmittedWorkOnWorkerThread() {
+    String thread = pool.admit(() -> Single.fromCallable(() -> Thread.currentThread().getName())).blockingGet();
+
+    assertThat(thread).startsWith("grouping-worker-");
+  }
+
+  @Test
+  void shouldRejectEventsBeyondQueueLimitAndReleaseSlots() {
+    Disposable held = pool.admit(Single::never).subscribe();
+
+    TestObserver<Integer> rejected = pool.admit(() -> Single.just(1)).test();
+    rejected.assertError(GroupingWorkerPool.QueueFullException.class);
+    assertThat(metricRegistry.meter("errorgrouping.pipeline.rejected_events").getCount()).isEqualTo(1);
+
+    held.dispose();
+    assertThat(pool.admit(() -> Single.just(2)).blockingGet()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldMoveContinuationsOntoWorkers() {
+    String thread = Single.just(1)
+        .observeOn(pool.scheduler())
+        .map(v -> Thread.currentThread().getName())
+        .blockingGet();
+
+    assertThat(thread).startsWith("grouping-worker-");
+  }
+
+  @Test
+  void shouldRecordStageLatency() {
+    assertThat(pool.time(Stage.PARSE, () -> 42)).isEqualTo(42);
+
+    assertThat(metricRegistry.timer("errorgrouping.pipeline.parse").getCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldSizePerRequestParallelismFromWorkerCount() {
+    assertThat(pool.parallelism()).isEqualTo(4);
+  }
+}
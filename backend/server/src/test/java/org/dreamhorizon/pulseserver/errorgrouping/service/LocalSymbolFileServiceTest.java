@@ -0,0 +1,49 @@
+package org.dreamhorizon.pulseserver.errorgrouping.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.dreamhorizon.pulseserver.client.mysql.MysqlClient;
+import org.dreamhorizon.pulseserver.config.ApplicationConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LocalSymbolFileServiceTest {
+  @TempDir
+  Path dir;
+
+  private static LocalSymbolFileService service(String storeDir) {
+    ApplicationConfig config = new ApplicationConfig();
+    config.setSymbolFileStoreDir(storeDir);
+    return new LocalSymbolFileService(mock(MysqlClient.class), config);
+  }
+
+  @Test
+  void shouldCreateConfiguredStoreDirectory() {
+    Path storeDir = dir.resolve("symbol-files");
+
+    service(storeDir.toString());
+
+    assertThat(storeDir).isDirectory();
+  }
+
+  @Test
+  void shouldRefuseToStartWithoutStoreDirectory() {
+    assertThatThrownBy(() -> service(null))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("symbolFileStoreDir");
+    assertThatThrownBy(() -> service(" ")).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void shouldRefuseToStartWhenStoreCannotBeCreated() throws IOException {
+    Path file = Files.writeString(dir.resolve("not-a-directory"), "x");
+
+    assertThatThrownBy(() -> service(file.resolve("symbol-files").toString()))
+        .isInstanceOf(IllegalStateException.class);
+  }
+}
@@ -0,0 +1,81 @@
+package org.dreamhorizon.pulseserver.errorgrouping.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.debugging.sourcemap.SourceMapConsumerV3;
+import io.reactivex.rxjava3.core.Single;
+import io.vertx.core.Vertx;
+import java.util.concurrent.TimeUnit;
+import org.dreamhorizon.pulseserver.config.ApplicationConfig;
+import org.dreamhorizon.pulseserver.errorgrouping.model.UploadMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class SourceMapCacheTest {
+
+  private static final String SOURCE_MAP =
+      "{\"version\":3,\"file\":\"index.bundle\",\"sources\":[\"src/App.tsx\"],\"names\":[\"render\"],"
+          + "\"mappings\":\"AAAAA\"}";
+  private static final UploadMetadata KEY = UploadMetadata.builder()
+      .appVersion("1.0.0").versionCode("1").platform("android").type("JS").build();
+
+  @Mock
+  SymbolFileService symbolFileService;
+
+  private Vertx vertx;
+  private MetricRegistry metricRegistry;
+  private SourceMapCache sourceMapCache;
+
+  @BeforeEach
+  void setUp() {
+    vertx = Vertx.vertx();
+    metricRegistry = new MetricRegistry();
+    sourceMapCache = new SourceMapCache(vertx, symbolFileService, new ApplicationConfig(), metricRegistry,
+        new GroupingWorkerPool(new ApplicationConfig(), metricRegistry));
+  }
+
+  @AfterEach
+  void tearDown() {
+    vertx.close();
+  }
+
+  @Test
+  void shouldLoadOnceForConcurrentMisses() {
+    when(symbolFileService.readFileAsString(any()))
+        .thenReturn(Single.timer(100, TimeUnit.MILLISECONDS).map(tick -> SOURCE_MAP));
+
+    Single<SourceMapConsumerV3> first = sourceMapCache.getSourceMap(KEY);
+    Single<SourceMapConsumerV3> second = sourceMapCache.getSourceMap(UploadMetadata.builder()
+        .appVersion("1.0.0").versionCode("1").platform("android").type("JS").build());
+
+    assertThat(Single.zip(first, second, (a, b) -> a == b).blockingGet()).isTrue();
+    verify(symbolFileService, times(1)).readFileAsString(any());
+  }
+
+  @Test
+  void shouldParseOnGroupingWorkers() {
+    when(symbolFileService.readFileAsString(any()))
+        .thenReturn(Single.timer(100, TimeUnit.MILLISECONDS).map(tick -> SOURCE_MAP));
+
+    String thread = sourceMapCache.getSourceMap(KEY).map(sourceMap -> Thread.currentThread().getName()).blockingGet();
+
+    assertThat(thread).startsWith("grouping-worker-");
+  }
+
+  @Test
+  void shouldWeighEntriesByEstimatedRetainedSize() {
+    assertThat(SourceMapCache.weightKb(50L * 1024 * 1024, 3)).isEqualTo(150 * 1024);
+    assertThat(SourceMapCache.weightKb(10, 4)).isEqualTo(1);
+    assertThat(SourceMapCache.weightKb(Long.MAX_VALUE / 4, 4)).isEqualTo(Integer.MAX_VALUE);
+  }
+}
@@ -0,0 +1,69 @@
+package org.dreamhorizon.pulseserver.errorgrouping.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SymbolFileStoreTest {
+
+  private static final String MAPPING = "com.example.Foo -> a:\n    1:1:void bar():10:10 -> a\n";
+
+  @TempDir
+  Path dir;
+
+  private SymbolFileStore.StoredFile write(SymbolFileStore store, String content) throws IOException {
+    return store.write(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void shouldStoreFileUnderItsSha256() throws IOException {
+    SymbolFileStore store = new SymbolFileStore(dir);
+
+    SymbolFileStore.StoredFile stored = write(store, MAPPING);
+
+    assertThat(stored.checksum()).hasSize(64);
+    assertThat(stored.size()).isEqualTo(MAPPING.length());
+    assertThat(store.find(stored.checksum()))
+        .hasValueSatisfying(path -> {
+          assertThat(path.getParent().getFileName().toString()).isEqualTo(stored.checksum().substring(0, 2));
+          assertThat(path).hasContent(MAPPING);
+        });
+  }
+
+  @Test
+  void shouldDeduplicateIdenticalContentAndCleanUpTempFiles() throws IOException {
+    SymbolFileStore store = new SymbolFileStore(dir);
+
+    SymbolFileStore.StoredFile first = write(store, MAPPING);
+    SymbolFileStore.StoredFile second = write(store, MAPPING);
+
+    assertThat(second).isEqualTo(first);
+    try (Stream<Path> files = Files.walk(dir)) {
+      assertThat(files.filter(Files::isRegularFile)).hasSize(1);
+    }
+  }
+
+  @Test
+  void shouldMapStoredFileReadOnly() throws IOException {
+    SymbolFileStore store = new SymbolFileStore(dir);
+    SymbolFileStore.StoredFile stored = write(store, MAPPING);
+
+    MappedByteBuffer buffer = SymbolFileStore.map(store.find(stored.checksum()).orElseThrow());
+
+    assertThat(buffer.isReadOnly()).isTrue();
+    assertThat(StandardCharsets.UTF_8.decode(buffer).toString()).isEqualTo(MAPPING);
+  }
+
+  @Test
+  void shouldReportMissingFiles() {
+    assertThat(new SymbolFileStore(dir).find("ab" + "0".repeat(62))).isEmpty();
+  }
+}
@@ -0,0 +1,86 @@
+package org.dreamhorizon.pulseserver.errorgrouping.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import io.reactivex.rxjava3.core.Single;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.dreamhorizon.pulseserver.config.ApplicationConfig;
+import org.dreamhorizon.pulseserver.errorgrouping.model.EventMeta;
+import org.dreamhorizon.pulseserver.errorgrouping.model.Group;
+import org.dreamhorizon.pulseserver.errorgrouping.service.ErrorGroupingService.ProcessingResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SymbolicationResultCacheTest {
+
+  private static final String TRACE = "java.lang.NullPointerException\n    at com.example.A.b(A.java:1)";
+
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+  private final AtomicInteger loads = new AtomicInteger();
+  private SymbolicationResultCache cache;
+
+  @BeforeEach
+  void setUp() {
+    cache = new SymbolicationResultCache(new ApplicationConfig(), metricRegistry);
+  }
+
+  private static EventMeta meta(String appVersion) {
+    return EventMeta.builder().platform("android").appVersion(appVersion).appVersionCode("1").build();
+  }
+
+  private Single<ProcessingResult> load() {
+    return Single.fromCallable(() -> {
+      loads.incrementAndGet();
+      return new ProcessingResult(Group.builder().groupId("EXC-" + loads.get()).build(), null);
+    });
+  }
+
+  @Test
+  void shouldLoadOncePerTraceAndVersion() {
+    ProcessingResult first = cache.get(TRACE, meta("1.0.0"), this::load).blockingGet();
+    ProcessingResult second = cache.get(TRACE, meta("1.0.0"), this::load).blockingGet();
+
+    assertThat(second).isSameAs(first);
+    assertThat(loads).hasValue(1);
+    assertThat(((Gauge<?>) metricRegistry.getGauges().get("errorgrouping.symbolication_cache.hits")).getValue())
+        .isEqualTo(1L);
+  }
+
+  @Test
+  void shouldNotShareResultsAcrossVersions() {
+    cache.get(TRACE, meta("1.0.0"), this::load).blockingGet();
+    cache.get(TRACE, meta("1.0.1"), this::load).blockingGet();
+
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void shouldReloadAfterInvalidate() {
+    cache.get(TRACE, meta("1.0.0"), this::load).blockingGet();
+    cache.get(TRACE, meta("2.0.0"), this::load).blockingGet();
+
+    cache.invalidate("android", "1.0.0", "1");
+    cache.get(TRACE, meta("1.0.0"), this::load).blockingGet();
+    cache.get(TRACE, meta("2.0.0"), this::load).blockingGet();
+
+    assertThat(loads).hasValue(3);
+  }
+
+  @Test
+  void shouldInvalidateEventPlatformWhenUploadUsesEnumCasing() {
+    // Events carry os.name, the mapping file upload the symbol_files ENUM
+    EventMeta android = EventMeta.builder().platform("Android").appVersion("1.0.0").appVersionCode("1").build();
+    EventMeta ios = EventMeta.builder().platform("iOS").appVersion("1.0.0").appVersionCode("1").build();
+    cache.get(TRACE, android, this::load).blockingGet();
+    cache.get(TRACE, ios, this::load).blockingGet();
+
+    cache.invalidate("android", "1.0.0", "1");
+    cache.invalidate("ios", "1.0.0", "1");
+    cache.get(TRACE, android, this::load).blockingGet();
+    cache.get(TRACE, ios, this::load).blockingGet();
+
+    assertThat(loads).hasValue(4);
+  }
+}
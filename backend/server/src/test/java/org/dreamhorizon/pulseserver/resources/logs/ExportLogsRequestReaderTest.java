@@ -0,0 +1,82 @@
+package org.dreamhorizon.pulseserver.resources.logs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.proto.collector.logs.v1.ExportLogsServiceRequest;
+import io.opentelemetry.proto.common.v1.AnyValue;
+import io.opentelemetry.proto.common.v1.KeyValue;
+import io.opentelemetry.proto.logs.v1.LogRecord;
+import io.opentelemetry.proto.logs.v1.ResourceLogs;
+import io.opentelemetry.proto.logs.v1.ScopeLogs;
+import io.opentelemetry.proto.resource.v1.Resource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ExportLogsRequestReaderTest {
+
+  private static ResourceLogs resourceLogs(String appVersion, int records) {
+    ScopeLogs.Builder scopeLogs = ScopeLogs.newBuilder();
+    for (int i = 0; i < records; i++) {
+      scopeLogs.addLogRecords(LogRecord.newBuilder()
+          .setObservedTimeUnixNano(i)
+          .addAttributes(KeyValue.newBuilder()
+              .setKey("exception.stacktrace")
+              .setValue(AnyValue.newBuilder().setStringValue("java.lang.IllegalStateException: boom " + i))));
+    }
+    return ResourceLogs.newBuilder()
+        .setResource(Resource.newBuilder()
+            .addAttributes(KeyValue.newBuilder()
+                .setKey("app.build_name")
+                .setValue(AnyValue.newBuilder().setStringValue(appVersion))))
+        .addScopeLogs(scopeLogs)
+        .build();
+  }
+
+  @Test
+  void shouldEmitEveryResourceLogsInOrder() {
+    ExportLogsServiceRequest request = ExportLogsServiceRequest.newBuilder()
+        .addResourceLogs(resourceLogs("1.0.0", 2))
+        .addResourceLogs(resourceLogs("1.0.1", 3))
+        .addResourceLogs(resourceLogs("1.0.2", 1))
+        .build();
+    byte[] body = request.toByteArray();
+
+    List<ResourceLogs> result = ExportLogsRequestReader.read(() -> new ByteArrayInputStream(body), body.length)
+        .toList()
+        .blockingGet();
+
+    assertThat(result).containsExactlyElementsOf(request.getResourceLogsList());
+  }
+
+  @Test
+  void shouldCompleteEmptyForEmptyBody() {
+    List<ResourceLogs> result = ExportLogsRequestReader.read(() -> new ByteArrayInputStream(new byte[0]), 1024)
+        .toList()
+        .blockingGet();
+
+    assertThat(result).isEmpty();
+  }
+
+  @Test
+  void shouldFailWithPayloadTooLargeWhenBodyExceedsLimit() {
+    byte[] body = ExportLogsServiceRequest.newBuilder()
+        .addResourceLogs(resourceLogs("1.0.0", 50))
+        .build()
+        .toByteArray();
+
+    ExportLogsRequestReader.read(() -> new ByteArrayInputStream(body), body.length - 1)
+        .test()
+        .assertError(ExportLogsRequestReader.PayloadTooLargeException.class);
+  }
+
+  @Test
+  void shouldFailOnMalformedBody() {
+    byte[] body = {0x0A, 0x7F, 0x01};
+
+    ExportLogsRequestReader.read(() -> new ByteArrayInputStream(body), 1024)
+        .test()
+        .assertError(IOException.class);
+  }
+}
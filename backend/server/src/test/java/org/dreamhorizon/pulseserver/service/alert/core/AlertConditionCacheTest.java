@@ -0,0 +1,70 @@
+package org.dreamhorizon.pulseserver.service.alert.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.dreamhorizon.pulseserver.service.alert.core.util.CompiledExpression;
+import org.junit.jupiter.api.Test;
+
+class AlertConditionCacheTest {
+  private final AlertConditionCache cache = new AlertConditionCache();
+  private final AtomicInteger parses = new AtomicInteger();
+  private final Function<String, List<Map<String, Object>>> parser = json -> {
+    parses.incrementAndGet();
+    return List.of(Map.of("alias", json));
+  };
+
+  @Test
+  void shouldCompileExpressionOncePerAlert() {
+    CompiledExpression first = cache.expression(1, "A && B");
+
+    assertThat(cache.expression(1, "A && B")).isSameAs(first);
+    assertThat(cache.expression(2, "A && B")).isNotSameAs(first);
+  }
+
+  @Test
+  void shouldRecompileWhenExpressionChanged() {
+    CompiledExpression first = cache.expression(1, "A && B");
+
+    CompiledExpression changed = cache.expression(1, "A || C");
+
+    assertThat(changed).isNotSameAs(first);
+    assertThat(changed.variables()).containsExactly("A", "C");
+  }
+
+  @Test
+  void shouldParseScopeConditionsOnceUntilTheyChange() {
+    cache.conditions(1, 10, "A", parser);
+    cache.conditions(1, 10, "A", parser);
+    assertThat(parses).hasValue(1);
+
+    assertThat(cache.conditions(1, 10, "B", parser)).containsExactly(Map.of("alias", "B"));
+    assertThat(parses).hasValue(2);
+  }
+
+  @Test
+  void shouldDropEntriesOfInvalidatedAlert() {
+    CompiledExpression expression = cache.expression(1, "A");
+    cache.conditions(1, 10, "A", parser);
+    cache.conditions(2, 20, "A", parser);
+
+    cache.invalidate(1);
+
+    assertThat(cache.expression(1, "A")).isNotSameAs(expression);
+    cache.conditions(1, 10, "A", parser);
+    cache.conditions(2, 20, "A", parser);
+    assertThat(parses).hasValue(3);
+  }
+
+  @Test
+  void shouldNotCacheWithoutIds() {
+    cache.conditions(null, 10, "A", parser);
+    cache.conditions(null, 10, "A", parser);
+
+    assertThat(parses).hasValue(2);
+    assertThat(cache.expression(null, "A")).isNotSameAs(cache.expression(null, "A"));
+  }
+}
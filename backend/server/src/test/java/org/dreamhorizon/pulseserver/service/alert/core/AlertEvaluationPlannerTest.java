@@ -0,0 +1,47 @@
+package org.dreamhorizon.pulseserver.service.alert.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.dreamhorizon.pulseserver.dao.AlertsDao;
+import org.dreamhorizon.pulseserver.service.alert.core.AlertEvaluationPlanner.AlertToEvaluate;
+import org.junit.jupiter.api.Test;
+
+class AlertEvaluationPlannerTest {
+
+  private static AlertToEvaluate alert(int id, String scope, int evaluationPeriod, String dimensionFilter) {
+    AlertsDao.AlertDetails details = AlertsDao.AlertDetails.builder()
+        .id(id)
+        .scope(scope)
+        .evaluationPeriod(evaluationPeriod)
+        .dimensionFilter(dimensionFilter)
+        .build();
+    return new AlertToEvaluate(details, List.of(AlertsDao.AlertScopeDetails.builder().id(id).name("s" + id).build()));
+  }
+
+  @Test
+  void shouldGroupAlertsBySameScopeWindowAndFilter() {
+    AlertToEvaluate first = alert(1, "INTERACTION", 300, null);
+    AlertToEvaluate second = alert(2, "INTERACTION", 300, "");
+    AlertToEvaluate otherWindow = alert(3, "INTERACTION", 600, null);
+    AlertToEvaluate otherScope = alert(4, "SCREEN", 300, null);
+    AlertToEvaluate otherFilter = alert(5, "INTERACTION", 300, "{\"platform\":\"android\"}");
+
+    List<List<AlertToEvaluate>> groups =
+        AlertEvaluationPlanner.plan(List.of(first, otherWindow, second, otherScope, otherFilter));
+
+    assertThat(groups).containsExactly(
+        List.of(first, second),
+        List.of(otherWindow),
+        List.of(otherScope),
+        List.of(otherFilter));
+  }
+
+  @Test
+  void shouldLeaveOutAlertsWithoutScopes() {
+    AlertsDao.AlertDetails details = AlertsDao.AlertDetails.builder().id(1).scope("INTERACTION").evaluationPeriod(60)
+        .build();
+
+    assertThat(AlertEvaluationPlanner.plan(List.of(new AlertToEvaluate(details, List.of())))).isEmpty();
+  }
+}
@@ -4,49 +4,62 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Single;
 import io.vertx.core.json.JsonObject;
 import io.vertx.rxjava3.core.Vertx;
 import io.vertx.rxjava3.core.eventbus.EventBus;
 import io.vertx.rxjava3.core.eventbus.Message;
 import io.vertx.rxjava3.core.eventbus.MessageConsumer;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 import org.dreamhorizon.pulseserver.config.ApplicationConfig;
 import org.dreamhorizon.pulseserver.constant.Constants;
 import org.dreamhorizon.pulseserver.dao.AlertsDao;
+import org.dreamhorizon.pulseserver.model.QueryLane;
 import org.dreamhorizon.pulseserver.resources.alert.enums.AlertState;
 import org.dreamhorizon.pulseserver.resources.alert.models.AlertEvaluationResponseDto;
 import org.dreamhorizon.pulseserver.resources.alert.models.EvaluateAlertResponseDto;
+import org.dreamhorizon.pulseserver.resources.alert.models.EvaluateAlertsResponseDto;
 import org.dreamhorizon.pulseserver.resources.performance.models.PerformanceMetricDistributionRes;
 import org.dreamhorizon.pulseserver.resources.performance.models.QueryRequest;
 import org.dreamhorizon.pulseserver.service.alert.core.models.MetricOperator;
 import org.dreamhorizon.pulseserver.service.alert.core.operatror.MetricOperatorFactory;
 import org.dreamhorizon.pulseserver.service.alert.core.operatror.MetricOperatorProcessor;
 import org.dreamhorizon.pulseserver.service.interaction.ClickhouseMetricService;
+import org.dreamhorizon.pulseserver.service.interaction.query.MetricRollup;
 import org.dreamhorizon.pulseserver.util.RxObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -85,10 +98,12 @@ class AlertEvaluationServiceTest {
 
   // Use real ObjectMapper for coverage
   private ObjectMapper realObjectMapper = new ObjectMapper();
+  private AlertStateStore alertStateStore;
   private AlertEvaluationService alertEvaluationService;
 
   @BeforeEach
   void setUp() {
+    alertStateStore = new AlertStateStore(vertx, alertsDao, applicationConfig, new MetricRegistry());
     // Create service with real ObjectMapper to allow actual JSON parsing
     // Pass null for rxObjectMapper since we're testing private methods that don't use it
     alertEvaluationService = new AlertEvaluationService(
@@ -98,7 +113,9 @@ class AlertEvaluationServiceTest {
         metricOperatorFactory,
         realObjectMapper,
         vertx,
-        null  // RxObjectMapper - cannot mock due to static initializer
+        null,  // RxObjectMapper - cannot mock due to static initializer
+        new AlertConditionCache(),
+        alertStateStore
     );
   }
 
@@ -688,11 +705,12 @@ class AlertEvaluationServiceTest {
 
   @Nested
   class BuildQueryRequestTests {
+    private static final ZonedDateTime WINDOW_END = ZonedDateTime.of(2026, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
 
     @Test
     void shouldBuildQueryRequestForInteractionScope() throws Exception {
       Method method = AlertEvaluationService.class.getDeclaredMethod(
-          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class);
+          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class, ZonedDateTime.class);
       method.setAccessible(true);
       
       AlertsDao.AlertDetails alertDetails = AlertsDao.AlertDetails.builder()
@@ -709,15 +727,65 @@ class AlertEvaluationServiceTest {
               .build()
       );
       
-      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes);
+      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes, WINDOW_END);
       assertNotNull(result);
       assertEquals(QueryRequest.DataType.TRACES, result.getDataType());
     }
 
+    @Test
+    void shouldAlignWholeMinuteWindowSoItIsAnsweredFromRollup() throws Exception {
+      when(applicationConfig.getMetricRollupEnabled()).thenReturn(true);
+      Method evaluationWindowEnd = AlertEvaluationService.class.getDeclaredMethod("evaluationWindowEnd", Integer.class);
+      evaluationWindowEnd.setAccessible(true);
+      Method method = AlertEvaluationService.class.getDeclaredMethod(
+          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class, ZonedDateTime.class);
+      method.setAccessible(true);
+
+      AlertsDao.AlertDetails alertDetails = AlertsDao.AlertDetails.builder()
+          .id(1)
+          .scope("INTERACTION")
+          .evaluationPeriod(300)
+          .build();
+
+      List<AlertsDao.AlertScopeDetails> scopes = List.of(
+          AlertsDao.AlertScopeDetails.builder()
+              .id(1)
+              .name("TestInteraction")
+              .conditions("[{\"metric\":\"ERROR_RATE\",\"alias\":\"A\"}]")
+              .build()
+      );
+
+      ZonedDateTime windowEnd = (ZonedDateTime) evaluationWindowEnd.invoke(alertEvaluationService, 300);
+      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes, windowEnd);
+      ZonedDateTime start = ZonedDateTime.parse(result.getTimeRange().getStart());
+      ZonedDateTime end = ZonedDateTime.parse(result.getTimeRange().getEnd());
+
+      assertEquals(windowEnd.toInstant(), end.toInstant());
+      assertEquals(0, end.getSecond());
+      assertEquals(0, end.getNano());
+      assertEquals(Duration.ofSeconds(300), Duration.between(start, end));
+      // Ends on the last complete minute, so the whole period lies in the past
+      assertFalse(end.isAfter(ZonedDateTime.now(ZoneOffset.UTC)));
+      assertTrue(Duration.between(end, ZonedDateTime.now(ZoneOffset.UTC)).compareTo(Duration.ofMinutes(1)) < 0);
+      assertTrue(MetricRollup.route(result).isPresent());
+    }
+
+    @Test
+    void shouldEndWindowNowWhileRollupIsDisabled() throws Exception {
+      Method evaluationWindowEnd = AlertEvaluationService.class.getDeclaredMethod("evaluationWindowEnd", Integer.class);
+      evaluationWindowEnd.setAccessible(true);
+
+      ZonedDateTime before = ZonedDateTime.now(ZoneOffset.UTC);
+      ZonedDateTime windowEnd = (ZonedDateTime) evaluationWindowEnd.invoke(alertEvaluationService, 300);
+
+      assertFalse(windowEnd.isBefore(before));
+      assertFalse(windowEnd.isAfter(ZonedDateTime.now(ZoneOffset.UTC)));
+    }
+
     @Test
     void shouldBuildQueryRequestForScreenScope() throws Exception {
       Method method = AlertEvaluationService.class.getDeclaredMethod(
-          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class);
+          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class, ZonedDateTime.class);
       method.setAccessible(true);
       
       AlertsDao.AlertDetails alertDetails = AlertsDao.AlertDetails.builder()
@@ -734,14 +802,14 @@ class AlertEvaluationServiceTest {
               .build()
       );
       
-      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes);
+      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes, WINDOW_END);
       assertNotNull(result);
     }
 
     @Test
     void shouldBuildQueryRequestForNetworkApiScope() throws Exception {
       Method method = AlertEvaluationService.class.getDeclaredMethod(
-          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class);
+          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class, ZonedDateTime.class);
       method.setAccessible(true);
       
       AlertsDao.AlertDetails alertDetails = AlertsDao.AlertDetails.builder()
@@ -758,14 +826,14 @@ class AlertEvaluationServiceTest {
               .build()
       );
       
-      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes);
+      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes, WINDOW_END);
       assertNotNull(result);
     }
 
     @Test
     void shouldBuildQueryRequestForAppVitalsScope() throws Exception {
       Method method = AlertEvaluationService.class.getDeclaredMethod(
-          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class);
+          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class, ZonedDateTime.class);
       method.setAccessible(true);
       
       AlertsDao.AlertDetails alertDetails = AlertsDao.AlertDetails.builder()
@@ -782,7 +850,7 @@ class AlertEvaluationServiceTest {
               .build()
       );
       
-      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes);
+      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes, WINDOW_END);
       assertNotNull(result);
       assertEquals(QueryRequest.DataType.EXCEPTIONS, result.getDataType());
     }
@@ -790,7 +858,7 @@ class AlertEvaluationServiceTest {
     @Test
     void shouldBuildQueryRequestWithDimensionFilter() throws Exception {
       Method method = AlertEvaluationService.class.getDeclaredMethod(
-          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class);
+          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class, ZonedDateTime.class);
       method.setAccessible(true);
       
       AlertsDao.AlertDetails alertDetails = AlertsDao.AlertDetails.builder()
@@ -808,14 +876,14 @@ class AlertEvaluationServiceTest {
               .build()
       );
       
-      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes);
+      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes, WINDOW_END);
       assertNotNull(result);
     }
 
     @Test
     void shouldBuildQueryRequestWithMultipleScopes() throws Exception {
       Method method = AlertEvaluationService.class.getDeclaredMethod(
-          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class);
+          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class, ZonedDateTime.class);
       method.setAccessible(true);
       
       AlertsDao.AlertDetails alertDetails = AlertsDao.AlertDetails.builder()
@@ -829,7 +897,7 @@ class AlertEvaluationServiceTest {
           AlertsDao.AlertScopeDetails.builder().id(2).name("Screen2").conditions("[{\"metric\":\"SCREEN_TIME\",\"alias\":\"B\"}]").build()
       );
       
-      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes);
+      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes, WINDOW_END);
       assertNotNull(result);
       // Should use IN operator for multiple scopes
       assertTrue(result.getFilters().stream().anyMatch(f -> f.getOperator() == QueryRequest.Operator.IN));
@@ -838,7 +906,7 @@ class AlertEvaluationServiceTest {
     @Test
     void shouldHandleNullScopeName() throws Exception {
       Method method = AlertEvaluationService.class.getDeclaredMethod(
-          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class);
+          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class, ZonedDateTime.class);
       method.setAccessible(true);
       
       AlertsDao.AlertDetails alertDetails = AlertsDao.AlertDetails.builder()
@@ -855,14 +923,14 @@ class AlertEvaluationServiceTest {
               .build()
       );
       
-      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes);
+      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes, WINDOW_END);
       assertNotNull(result);
     }
 
     @Test
     void shouldHandleEmptyScopeName() throws Exception {
       Method method = AlertEvaluationService.class.getDeclaredMethod(
-          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class);
+          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class, ZonedDateTime.class);
       method.setAccessible(true);
       
       AlertsDao.AlertDetails alertDetails = AlertsDao.AlertDetails.builder()
@@ -879,14 +947,14 @@ class AlertEvaluationServiceTest {
               .build()
       );
       
-      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes);
+      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes, WINDOW_END);
       assertNotNull(result);
     }
 
     @Test
     void shouldHandleNullConditions() throws Exception {
       Method method = AlertEvaluationService.class.getDeclaredMethod(
-          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class);
+          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class, ZonedDateTime.class);
       method.setAccessible(true);
       
       AlertsDao.AlertDetails alertDetails = AlertsDao.AlertDetails.builder()
@@ -903,14 +971,14 @@ class AlertEvaluationServiceTest {
               .build()
       );
       
-      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes);
+      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes, WINDOW_END);
       assertNotNull(result);
     }
 
     @Test
     void shouldHandleNullMetricInConditions() throws Exception {
       Method method = AlertEvaluationService.class.getDeclaredMethod(
-          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class);
+          "buildQueryRequest", AlertsDao.AlertDetails.class, List.class, ZonedDateTime.class);
       method.setAccessible(true);
       
       AlertsDao.AlertDetails alertDetails = AlertsDao.AlertDetails.builder()
@@ -927,7 +995,7 @@ class AlertEvaluationServiceTest {
               .build()
       );
       
-      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes);
+      QueryRequest result = (QueryRequest) method.invoke(alertEvaluationService, alertDetails, scopes, WINDOW_END);
       assertNotNull(result);
     }
   }
@@ -1425,6 +1493,22 @@ class AlertEvaluationServiceTest {
 
       verify(eventBus, times(2)).consumer(anyString(), any());
     }
+
+    @Test
+    void shouldShareOneHistoryBatcherAcrossVerticles() throws Exception {
+      when(vertx.eventBus()).thenReturn(eventBus);
+      when(eventBus.consumer(anyString(), any())).thenReturn(messageConsumer);
+      Field field = AlertEvaluationService.class.getDeclaredField("evaluationHistoryBatcher");
+      field.setAccessible(true);
+
+      alertEvaluationService.registerConsumers();
+      Object first = ((AtomicReference<?>) field.get(alertEvaluationService)).get();
+      alertEvaluationService.registerConsumers();
+
+      assertNotNull(first);
+      assertSame(first, ((AtomicReference<?>) field.get(alertEvaluationService)).get());
+      verify(eventBus, times(4)).consumer(anyString(), any());
+    }
   }
 
   @Nested
@@ -1452,6 +1536,68 @@ class AlertEvaluationServiceTest {
     }
   }
 
+  @Nested
+  class EvaluateAlertsByIdsTests {
+
+    private AlertsDao.AlertDetails alert(Integer id, String scope) {
+      return AlertsDao.AlertDetails.builder()
+          .id(id)
+          .name("Alert " + id)
+          .scope(scope)
+          .evaluationPeriod(60)
+          .build();
+    }
+
+    private List<AlertsDao.AlertScopeDetails> scopes(Integer alertId, String name, String metric) {
+      return List.of(AlertsDao.AlertScopeDetails.builder()
+          .id(alertId * 10)
+          .alertId(alertId)
+          .name(name)
+          .conditions("[{\"metric\":\"" + metric + "\",\"alias\":\"A\"}]")
+          .build());
+    }
+
+    @Test
+    void shouldRunOneQueryForAlertsSharingScopeAndWindow() {
+      when(alertsDao.getAlertDetailsForEvaluation(1)).thenReturn(Single.just(alert(1, "INTERACTION")));
+      when(alertsDao.getAlertDetailsForEvaluation(2)).thenReturn(Single.just(alert(2, "INTERACTION")));
+      when(alertsDao.getAlertScopesForEvaluation(1)).thenReturn(Single.just(scopes(1, "Checkout", "ERROR_RATE")));
+      when(alertsDao.getAlertScopesForEvaluation(2)).thenReturn(Single.just(scopes(2, "Login", "DURATION_P99")));
+      when(clickhouseMetricService.getMetricDistribution(any(QueryRequest.class), eq(QueryLane.BATCH)))
+          .thenReturn(Single.never());
+
+      EvaluateAlertsResponseDto dto = alertEvaluationService.evaluateAlertsByIds(List.of(1, 2, 1)).blockingGet();
+
+      assertEquals(List.of("1", "2"), dto.getAlertIds());
+      assertEquals(1, dto.getQueryCount());
+      ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+      verify(clickhouseMetricService, times(1)).getMetricDistribution(captor.capture(), eq(QueryLane.BATCH));
+      QueryRequest query = captor.getValue();
+      assertEquals(2000, query.getLimit());
+      assertTrue(query.getFilters().stream()
+          .anyMatch(filter -> filter.getValue().containsAll(List.of("Checkout", "Login"))));
+      assertTrue(query.getSelect().stream().anyMatch(item -> "error_rate".equals(item.getAlias())));
+      assertTrue(query.getSelect().stream().anyMatch(item -> "duration_p99".equals(item.getAlias())));
+    }
+
+    @Test
+    void shouldRunOneQueryPerScopeAndSkipAlertsThatFailToLoad() {
+      when(alertsDao.getAlertDetailsForEvaluation(1)).thenReturn(Single.just(alert(1, "INTERACTION")));
+      when(alertsDao.getAlertDetailsForEvaluation(2)).thenReturn(Single.just(alert(2, "SCREEN")));
+      when(alertsDao.getAlertDetailsForEvaluation(3)).thenReturn(Single.error(new RuntimeException("Alert not found")));
+      when(alertsDao.getAlertScopesForEvaluation(1)).thenReturn(Single.just(scopes(1, "Checkout", "ERROR_RATE")));
+      when(alertsDao.getAlertScopesForEvaluation(2)).thenReturn(Single.just(scopes(2, "Home", "LOAD_TIME")));
+      when(clickhouseMetricService.getMetricDistribution(any(QueryRequest.class), eq(QueryLane.BATCH)))
+          .thenReturn(Single.never());
+
+      EvaluateAlertsResponseDto dto = alertEvaluationService.evaluateAlertsByIds(List.of(1, 2, 3)).blockingGet();
+
+      assertEquals(List.of("1", "2"), dto.getAlertIds());
+      assertEquals(2, dto.getQueryCount());
+      verify(clickhouseMetricService, times(2)).getMetricDistribution(any(QueryRequest.class), eq(QueryLane.BATCH));
+    }
+  }
+
   @Nested
   class UpdateScopeStateTests {
 
@@ -1740,7 +1886,7 @@ class AlertEvaluationServiceTest {
     @Test
     void shouldLogErrorWhileUpdatingScopeState() throws Exception {
       Method method = AlertEvaluationService.class.getDeclaredMethod(
-          "logErrorWhileUpdatingScopeState", Throwable.class, AlertEvaluationResponseDto.class);
+          "logErrorWhileUpdatingScopeState", Throwable.class, List.class);
       method.setAccessible(true);
 
       AlertsDao.AlertDetails alertDetails = AlertsDao.AlertDetails.builder()
@@ -1753,13 +1899,13 @@ class AlertEvaluationServiceTest {
           .build();
 
       // Should not throw exception
-      method.invoke(alertEvaluationService, new RuntimeException("Test error"), responseDto);
+      method.invoke(alertEvaluationService, new RuntimeException("Test error"), List.of(responseDto));
     }
 
     @Test
     void shouldLogErrorWhileUpdatingEvaluationHistory() throws Exception {
       Method method = AlertEvaluationService.class.getDeclaredMethod(
-          "logErrorWhileUpdatingEvaluationHistory", Throwable.class, AlertEvaluationResponseDto.class);
+          "logErrorWhileUpdatingEvaluationHistory", Throwable.class, List.class);
       method.setAccessible(true);
 
       AlertsDao.AlertDetails alertDetails = AlertsDao.AlertDetails.builder()
@@ -1772,7 +1918,7 @@ class AlertEvaluationServiceTest {
           .build();
 
       // Should not throw exception
-      method.invoke(alertEvaluationService, new RuntimeException("Test error"), responseDto);
+      method.invoke(alertEvaluationService, new RuntimeException("Test error"), List.of(responseDto));
     }
 
     @Test
@@ -1853,38 +1999,110 @@ class AlertEvaluationServiceTest {
   }
 
   @Nested
-  class CreateEvaluationHistoryTests {
+  class TransitionScopeTests {
 
-    @Test
-    void shouldCreateEvaluationHistory() throws Exception {
-      Method method = AlertEvaluationService.class.getDeclaredMethod(
-          "createEvaluationHistory", Integer.class, String.class, AlertState.class);
+    private void invokeUpdateScopeState(AlertEvaluationResponseDto responseDto) throws Exception {
+      Method method = AlertEvaluationService.class.getDeclaredMethod("updateScopeState", Message.class);
       method.setAccessible(true);
+      @SuppressWarnings("unchecked")
+      Message<Object> message = mock(Message.class);
+      when(message.body()).thenReturn(realObjectMapper.writeValueAsString(responseDto));
+      method.invoke(alertEvaluationService, message);
+    }
 
-      when(alertsDao.createEvaluationHistory(eq(100), eq("result"), eq(AlertState.FIRING)))
-          .thenReturn(Single.just(true));
+    private AlertEvaluationResponseDto result(Integer scopeId, String status, AlertState state) {
+      return AlertEvaluationResponseDto.builder()
+          .alert(AlertsDao.AlertDetails.builder().id(1).name("Test Alert").build())
+          .scopeId(scopeId)
+          .status(status)
+          .state(state)
+          .build();
+    }
 
-      Object result = method.invoke(alertEvaluationService, 100, "result", AlertState.FIRING);
-      assertNotNull(result);
-      assertTrue(result instanceof Single);
+    private AlertsDao.ScopeStateRow row(Integer scopeId, AlertState state) {
+      return new AlertsDao.ScopeStateRow(scopeId, 1, "scope", state, 3, null, null);
     }
-  }
 
-  @Nested
-  class UpdateScopeStateOverloadTests {
+    @Test
+    void shouldMoveHeldScopeWithoutReadingMysql() throws Exception {
+      when(alertsDao.getScopeStates()).thenReturn(Single.just(List.of(row(100, AlertState.NORMAL))));
+      alertStateStore.refresh().blockingAwait();
+
+      invokeUpdateScopeState(result(100, Constants.QUERY_COMPLETED_STATUS, AlertState.NO_DATA));
+
+      verify(alertsDao, never()).getScopeStates(any());
+      verify(alertsDao, never()).getScopeState(anyInt());
+      verify(alertsDao, never()).getAlertScopesForEvaluation(anyInt());
+      assertEquals(AlertState.NO_DATA,
+          alertStateStore.transition(100, AlertState.NO_DATA).previousState());
+    }
 
     @Test
-    void shouldUpdateScopeStateWithScopeIdAndState() throws Exception {
-      Method method = AlertEvaluationService.class.getDeclaredMethod(
-          "updateScopeState", Integer.class, AlertState.class);
+    void shouldReadScopeOnceWhenNotHeld() throws Exception {
+      when(alertsDao.getScopeStates(any())).thenReturn(Single.just(List.of(row(100, AlertState.NORMAL))));
+
+      invokeUpdateScopeState(result(100, "ERROR", null));
+      invokeUpdateScopeState(result(100, Constants.QUERY_COMPLETED_STATUS, AlertState.NORMAL));
+
+      verify(alertsDao, times(1)).getScopeStates(eq(List.of(100)));
+      assertEquals(AlertState.NORMAL,
+          alertStateStore.transition(100, AlertState.NORMAL).previousState());
+    }
+
+    @Test
+    void shouldIgnoreResultForInactiveScope() throws Exception {
+      when(alertsDao.getScopeStates(any())).thenReturn(Single.just(List.of()));
+
+      invokeUpdateScopeState(result(100, Constants.QUERY_COMPLETED_STATUS, AlertState.FIRING));
+
+      assertNull(alertStateStore.transition(100, AlertState.FIRING).scopeName());
+      verify(vertx, never()).setTimer(anyLong(), any());
+    }
+
+    @Test
+    void shouldPreferSnoozeWindowFromStore() throws Exception {
+      Method method = AlertEvaluationService.class.getDeclaredMethod("isAlertSnoozed", AlertsDao.AlertDetails.class);
       method.setAccessible(true);
+      AlertsDao.AlertDetails alert = AlertsDao.AlertDetails.builder().id(1).build();
 
-      when(alertsDao.updateScopeState(eq(100), eq(AlertState.FIRING)))
-          .thenReturn(Single.just(true));
+      alertStateStore.setSnoozeWindow(1, LocalDateTime.now(ZoneOffset.UTC).minusHours(1),
+          LocalDateTime.now(ZoneOffset.UTC).plusHours(1));
 
-      Object result = method.invoke(alertEvaluationService, 100, AlertState.FIRING);
-      assertNotNull(result);
-      assertTrue(result instanceof Single);
+      assertTrue((Boolean) method.invoke(alertEvaluationService, alert));
+    }
+  }
+
+  @Nested
+  class CreateEvaluationHistoriesTests {
+
+    @Test
+    void shouldInsertOneRowPerResult() throws Exception {
+      Method method = AlertEvaluationService.class.getDeclaredMethod("createEvaluationHistories", List.class);
+      method.setAccessible(true);
+      when(alertsDao.createEvaluationHistories(any())).thenReturn(Single.just(2));
+
+      AlertsDao.AlertDetails alertDetails = AlertsDao.AlertDetails.builder().id(1).build();
+      List<AlertEvaluationResponseDto> batch = List.of(
+          AlertEvaluationResponseDto.builder()
+              .alert(alertDetails)
+              .scopeId(100)
+              .status(Constants.QUERY_COMPLETED_STATUS)
+              .state(AlertState.FIRING)
+              .evaluationResult("")
+              .build(),
+          AlertEvaluationResponseDto.builder()
+              .alert(alertDetails)
+              .scopeId(200)
+              .status("ERROR")
+              .build());
+
+      Completable completable = (Completable) method.invoke(alertEvaluationService, batch);
+      completable.blockingAwait();
+
+      verify(alertsDao).createEvaluationHistories(eq(List.of(
+          new AlertsDao.EvaluationHistoryRow(100, "{}", AlertState.FIRING),
+          new AlertsDao.EvaluationHistoryRow(200, "", AlertState.ERRORED))));
+      verify(alertsDao, never()).createEvaluationHistory(anyInt(), any(), any());
     }
   }
 
@@ -65,11 +65,15 @@ class AlertServiceTest {
   @Mock
   ApplicationConfig applicationConfig;
 
+  @Mock
+  AlertStateStore alertStateStore;
+
   AlertService alertService;
 
   @BeforeEach
   void setup() {
-    alertService = new AlertService(alertsDao, alertCronService, applicationConfig);
+    alertService = new AlertService(alertsDao, alertCronService, applicationConfig, new AlertConditionCache(),
+        alertStateStore);
     when(applicationConfig.getServiceUrl()).thenReturn("http://localhost:8080");
   }
 
@@ -208,6 +212,7 @@ class AlertServiceTest {
 
       assertNotNull(result);
       assertEquals(1, result.getAlertId());
+      verify(alertStateStore).invalidate(1);
     }
 
     @Test
@@ -249,6 +254,7 @@ class AlertServiceTest {
       Boolean result = alertService.deleteAlert(1).blockingGet();
 
       assertTrue(result);
+      verify(alertStateStore).invalidate(1);
     }
 
     @Test
@@ -291,6 +297,7 @@ class AlertServiceTest {
       assertEquals(true, resp.getIsSnoozed());
       assertEquals(snoozeFrom, resp.getSnoozedFrom());
       assertEquals(snoozeUntil, resp.getSnoozedUntil());
+      verify(alertStateStore).setSnoozeWindow(1, snoozeFrom, snoozeUntil);
     }
 
     @Test
@@ -391,6 +398,7 @@ class AlertServiceTest {
       EmptyResponse resp = alertService.deleteSnooze(request).blockingGet();
 
       assertNotNull(resp);
+      verify(alertStateStore).setSnoozeWindow(1, null, null);
     }
 
     @Test
@@ -0,0 +1,247 @@
+package org.dreamhorizon.pulseserver.service.alert.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import io.reactivex.rxjava3.core.Single;
+import io.vertx.rxjava3.core.Vertx;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import org.dreamhorizon.pulseserver.config.ApplicationConfig;
+import org.dreamhorizon.pulseserver.dao.AlertsDao;
+import org.dreamhorizon.pulseserver.resources.alert.enums.AlertState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AlertStateStoreTest {
+  private static final LocalDateTime SNOOZED_FROM = LocalDateTime.of(2026, 1, 1, 0, 0);
+  private static final LocalDateTime SNOOZED_UNTIL = LocalDateTime.of(2026, 1, 2, 0, 0);
+
+  @Mock
+  private Vertx vertx;
+
+  @Mock
+  private AlertsDao alertsDao;
+
+  @Mock
+  private ApplicationConfig applicationConfig;
+
+  private AlertStateStore store;
+
+  @BeforeEach
+  void setUp() {
+    // Write every transition as soon as it is made
+    when(applicationConfig.getAlertResultBatchMaxSize()).thenReturn(1);
+    when(alertsDao.updateScopeStates(any())).thenAnswer(invocation -> {
+      List<AlertsDao.ScopeStateWrite> writes = invocation.getArgument(0);
+      return Single.just(writes.stream().map(AlertsDao.ScopeStateWrite::scopeId).collect(Collectors.toSet()));
+    });
+    store = new AlertStateStore(vertx, alertsDao, applicationConfig, new MetricRegistry());
+  }
+
+  private static AlertsDao.ScopeStateRow row(Integer scopeId, Integer alertId, AlertState state, Integer version) {
+    return new AlertsDao.ScopeStateRow(scopeId, alertId, "scope-" + scopeId, state, version, SNOOZED_FROM,
+        SNOOZED_UNTIL);
+  }
+
+  @Test
+  void shouldReturnPreviousStateAndWriteItWithItsVersion() {
+    when(alertsDao.getScopeStates()).thenReturn(Single.just(List.of(row(10, 1, AlertState.NORMAL, 4))));
+    store.refresh().blockingAwait();
+
+    AlertStateStore.Transition transition = store.transition(10, AlertState.FIRING);
+
+    assertThat(transition.scopeName()).isEqualTo("scope-10");
+    assertThat(transition.previousState()).isEqualTo(AlertState.NORMAL);
+    assertThat(transition.written().blockingGet()).isTrue();
+    verify(alertsDao).updateScopeStates(List.of(new AlertsDao.ScopeStateWrite(10, AlertState.FIRING, 4)));
+    assertThat(store.snoozeWindow(1)).isEqualTo(new AlertStateStore.SnoozeWindow(SNOOZED_FROM, SNOOZED_UNTIL));
+  }
+
+  @Test
+  void shouldNotWriteUnchangedState() {
+    when(alertsDao.getScopeStates()).thenReturn(Single.just(List.of(row(10, 1, AlertState.FIRING, 4))));
+    store.refresh().blockingAwait();
+
+    AlertStateStore.Transition transition = store.transition(10, AlertState.FIRING);
+
+    assertThat(transition.written().blockingGet()).isFalse();
+    verify(alertsDao, never()).updateScopeStates(any());
+  }
+
+  @Test
+  void shouldWriteNextTransitionWithIncrementedVersion() {
+    when(alertsDao.getScopeStates()).thenReturn(Single.just(List.of(row(10, 1, AlertState.NORMAL, 4))));
+    store.refresh().blockingAwait();
+
+    store.transition(10, AlertState.FIRING);
+    store.transition(10, AlertState.NORMAL);
+
+    verify(alertsDao).updateScopeStates(List.of(new AlertsDao.ScopeStateWrite(10, AlertState.NORMAL, 5)));
+  }
+
+  @Test
+  void shouldReadOnlyScopesNotHeld() {
+    when(alertsDao.getScopeStates()).thenReturn(Single.just(List.of(row(10, 1, AlertState.NORMAL, 0))));
+    when(alertsDao.getScopeStates(any())).thenReturn(Single.just(List.of(row(20, 2, AlertState.FIRING, 0))));
+    store.refresh().blockingAwait();
+
+    store.load(List.of(10, 20)).blockingAwait();
+    store.load(List.of(10, 20)).blockingAwait();
+
+    verify(alertsDao, times(1)).getScopeStates(List.of(20));
+    assertThat(store.transition(20, AlertState.FIRING).previousState()).isEqualTo(AlertState.FIRING);
+  }
+
+  @Test
+  void shouldNotMoveScopeNotHeld() {
+    AlertStateStore.Transition transition = store.transition(10, AlertState.FIRING);
+
+    assertThat(transition.scopeName()).isNull();
+    assertThat(transition.previousState()).isNull();
+    assertThat(transition.written().blockingGet()).isFalse();
+    verify(vertx, never()).setTimer(anyLong(), any());
+  }
+
+  @Test
+  void shouldTakeStoredStateWhenWriteWasLostToAnotherInstance() {
+    when(alertsDao.getScopeStates()).thenReturn(Single.just(List.of(row(10, 1, AlertState.NORMAL, 4))));
+    when(alertsDao.updateScopeStates(any())).thenReturn(Single.just(Set.of()));
+    when(alertsDao.getScopeStates(any())).thenReturn(Single.just(List.of(row(10, 1, AlertState.NO_DATA, 5))));
+    store.refresh().blockingAwait();
+
+    AlertStateStore.Transition transition = store.transition(10, AlertState.FIRING);
+
+    assertThat(transition.written().blockingGet()).isFalse();
+    assertThat(store.transition(10, AlertState.NO_DATA).previousState()).isEqualTo(AlertState.NO_DATA);
+  }
+
+  @Test
+  void shouldLetOnlyOneOfTwoInstancesWriteTheSameTransition() {
+    // Two instances over the same alert_scope row, both loaded while it was NORMAL
+    AtomicReference<AlertsDao.ScopeStateRow> stored = new AtomicReference<>(row(10, 1, AlertState.NORMAL, 4));
+    when(alertsDao.getScopeStates()).thenAnswer(invocation -> Single.just(List.of(stored.get())));
+    when(alertsDao.getScopeStates(any())).thenAnswer(invocation -> Single.just(List.of(stored.get())));
+    when(alertsDao.updateScopeStates(any())).thenAnswer(invocation -> {
+      List<AlertsDao.ScopeStateWrite> writes = invocation.getArgument(0);
+      Set<Integer> written = new HashSet<>();
+      for (AlertsDao.ScopeStateWrite write : writes) {
+        if (write.version().equals(stored.get().version())) {
+          stored.set(row(10, 1, write.state(), write.version() + 1));
+          written.add(write.scopeId());
+        }
+      }
+      return Single.just(written);
+    });
+    AlertStateStore other = new AlertStateStore(vertx, alertsDao, applicationConfig, new MetricRegistry());
+    store.refresh().blockingAwait();
+    other.refresh().blockingAwait();
+
+    AlertStateStore.Transition first = store.transition(10, AlertState.FIRING);
+    AlertStateStore.Transition second = other.transition(10, AlertState.FIRING);
+
+    // Both moved from NORMAL in memory, but only the first write landed
+    assertThat(first.previousState()).isEqualTo(AlertState.NORMAL);
+    assertThat(second.previousState()).isEqualTo(AlertState.NORMAL);
+    assertThat(first.written().blockingGet()).isTrue();
+    assertThat(second.written().blockingGet()).isFalse();
+    assertThat(stored.get().version()).isEqualTo(5);
+    // The losing instance holds the stored state again, so the same result is no longer a transition there
+    assertThat(other.transition(10, AlertState.FIRING).previousState()).isEqualTo(AlertState.FIRING);
+  }
+
+  @Test
+  void shouldReportLostWriteWhenScopeIsInvalidatedBeforeIt() {
+    when(applicationConfig.getAlertResultBatchMaxSize()).thenReturn(10);
+    store = new AlertStateStore(vertx, alertsDao, applicationConfig, new MetricRegistry());
+    when(alertsDao.getScopeStates()).thenReturn(Single.just(List.of(row(10, 1, AlertState.NORMAL, 4))));
+    store.refresh().blockingAwait();
+    AlertStateStore.Transition transition = store.transition(10, AlertState.FIRING);
+
+    store.invalidate(1);
+
+    assertThat(transition.written().blockingGet()).isFalse();
+  }
+
+  @Test
+  void shouldKeepNewerStateOnRefresh() {
+    when(alertsDao.getScopeStates()).thenReturn(Single.just(List.of(row(10, 1, AlertState.NORMAL, 4))));
+    store.refresh().blockingAwait();
+    store.transition(10, AlertState.FIRING);
+
+    store.refresh().blockingAwait();
+
+    assertThat(store.transition(10, AlertState.FIRING).previousState()).isEqualTo(AlertState.FIRING);
+  }
+
+  @Test
+  void shouldDropScopesNoLongerActiveOnRefresh() {
+    when(alertsDao.getScopeStates())
+        .thenReturn(Single.just(List.of(row(10, 1, AlertState.NORMAL, 0))), Single.just(List.of()));
+    store.refresh().blockingAwait();
+
+    store.refresh().blockingAwait();
+
+    assertThat(store.size()).isZero();
+    assertThat(store.snoozeWindow(1)).isNull();
+  }
+
+  @Test
+  void shouldDropAlertOnInvalidate() {
+    when(alertsDao.getScopeStates()).thenReturn(Single.just(List.of(
+        row(10, 1, AlertState.NORMAL, 0),
+        row(11, 1, AlertState.NORMAL, 0),
+        row(20, 2, AlertState.NORMAL, 0))));
+    store.refresh().blockingAwait();
+
+    store.invalidate(1);
+
+    assertThat(store.size()).isEqualTo(1);
+    assertThat(store.snoozeWindow(1)).isNull();
+    assertThat(store.snoozeWindow(2)).isNotNull();
+  }
+
+  @Test
+  void shouldCompleteLoadedOnceStartLoadSucceeds() {
+    when(alertsDao.getScopeStates()).thenReturn(Single.just(List.of(row(10, 1, AlertState.NORMAL, 0))));
+
+    store.start();
+
+    store.loaded().test().assertComplete();
+    assertThat(store.size()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldFailLoadedWhenStartLoadFails() {
+    when(alertsDao.getScopeStates()).thenReturn(Single.error(new RuntimeException("Unknown column 'S.version'")));
+
+    store.start();
+
+    store.loaded().test().assertError(RuntimeException.class);
+  }
+
+  @Test
+  void shouldUseSnoozeWindowSetAfterLoad() {
+    store.setSnoozeWindow(1, null, null);
+
+    assertThat(store.snoozeWindow(1)).isEqualTo(new AlertStateStore.SnoozeWindow(null, null));
+    assertThat(store.snoozeWindow(null)).isNull();
+  }
+}
@@ -0,0 +1,127 @@
+package org.dreamhorizon.pulseserver.service.alert.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.subjects.CompletableSubject;
+import io.vertx.core.Handler;
+import io.vertx.rxjava3.core.Vertx;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ResultBatcherTest {
+  private static final long MAX_DELAY_MS = 500;
+
+  @Mock
+  private Vertx vertx;
+
+  private final List<List<Integer>> flushed = new ArrayList<>();
+  private final List<CompletableSubject> flushes = new ArrayList<>();
+  private ResultBatcher<Integer> batcher;
+
+  @BeforeEach
+  void setUp() {
+    when(vertx.setTimer(anyLong(), any())).thenReturn(1L, 2L, 3L);
+    batcher = new ResultBatcher<>(vertx, "results", 3, MAX_DELAY_MS, batch -> {
+      flushed.add(batch);
+      CompletableSubject flush = CompletableSubject.create();
+      flushes.add(flush);
+      return flush;
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private Handler<Long> armedTimer(int count) {
+    ArgumentCaptor<Handler<Long>> handler = ArgumentCaptor.forClass(Handler.class);
+    verify(vertx, times(count)).setTimer(eq(MAX_DELAY_MS), handler.capture());
+    return handler.getValue();
+  }
+
+  @Test
+  void shouldFlushOnceFull() {
+    batcher.add(1);
+    batcher.add(2);
+    batcher.add(3);
+
+    assertThat(flushed).containsExactly(List.of(1, 2, 3));
+    assertThat(batcher.pendingSize()).isZero();
+    verify(vertx).cancelTimer(1L);
+  }
+
+  @Test
+  void shouldFlushWhenOldestItemIsDue() {
+    batcher.add(1);
+    batcher.add(2);
+    assertThat(flushed).isEmpty();
+
+    armedTimer(1).handle(1L);
+
+    assertThat(flushed).containsExactly(List.of(1, 2));
+  }
+
+  @Test
+  void shouldIgnoreTimerOfBatchAlreadyFlushedBySize() {
+    batcher.add(1);
+    Handler<Long> timer = armedTimer(1);
+    batcher.add(2);
+    batcher.add(3);
+
+    timer.handle(1L);
+
+    assertThat(flushed).hasSize(1);
+  }
+
+  @Test
+  void shouldHoldItemsUntilRunningFlushCompletes() {
+    batcher.add(1);
+    batcher.add(2);
+    batcher.add(3);
+    batcher.add(4);
+    armedTimer(2).handle(2L);
+
+    assertThat(flushed).hasSize(1);
+    assertThat(batcher.pendingSize()).isEqualTo(1);
+
+    flushes.get(0).onComplete();
+
+    assertThat(flushed).containsExactly(List.of(1, 2, 3), List.of(4));
+  }
+
+  @Test
+  void shouldKeepFlushingAfterFailedFlush() {
+    batcher.add(1);
+    batcher.add(2);
+    batcher.add(3);
+    batcher.add(4);
+
+    flushes.get(0).onError(new RuntimeException("DB Error"));
+    armedTimer(2).handle(2L);
+
+    assertThat(flushed).containsExactly(List.of(1, 2, 3), List.of(4));
+  }
+
+  @Test
+  void shouldNotFlushWithoutItems() {
+    ResultBatcher<Integer> idle = new ResultBatcher<>(vertx, "results", 3, MAX_DELAY_MS, batch -> Completable.complete());
+
+    assertThat(idle.pendingSize()).isZero();
+    verify(vertx, never()).setTimer(anyLong(), any());
+  }
+}
@@ -0,0 +1,85 @@
+package org.dreamhorizon.pulseserver.service.alert.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.EmptyStackException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+class CompiledExpressionTest {
+  private static final String[] TOKENS = {"A", "B", "C", "D", "&&", "||", "!", "(", ")", " "};
+
+  @Test
+  void shouldNumberVariablesInOrderOfFirstUse() {
+    CompiledExpression expression = CompiledExpression.compile("(B && A) || C_1 || B");
+
+    assertThat(expression.variables()).containsExactly("B", "A", "C_1");
+    assertThat(expression.slot("A")).isEqualTo(1);
+    assertThat(expression.slot("Z")).isEqualTo(-1);
+  }
+
+  @Test
+  void shouldEvaluateAgainstSlotValues() {
+    CompiledExpression expression = CompiledExpression.compile("(A || B) && C");
+
+    assertThat(expression.evaluate(new boolean[] {false, true, true})).isTrue();
+    assertThat(expression.evaluate(new boolean[] {true, false, false})).isFalse();
+  }
+
+  @Test
+  void shouldGroupMixedOperatorsToTheRightLikeBefore() {
+    CompiledExpression expression = CompiledExpression.compile("A && B || C");
+
+    // A && (B || C)
+    assertThat(expression.evaluate(new boolean[] {false, false, true})).isFalse();
+    assertThat(expression.evaluate(new boolean[] {true, false, true})).isTrue();
+  }
+
+  @Test
+  void shouldBeFalseForEmptyExpression() {
+    assertThat(CompiledExpression.compile(null).evaluate(new boolean[0])).isFalse();
+    assertThat(CompiledExpression.compile(" () ").evaluate(new boolean[0])).isFalse();
+  }
+
+  @Test
+  void shouldAgreeWithLegacyEvaluatorOnRandomExpressions() {
+    Random random = new Random(42);
+    for (int i = 0; i < 5_000; i++) {
+      StringBuilder text = new StringBuilder();
+      int length = 1 + random.nextInt(12);
+      for (int t = 0; t < length; t++) {
+        text.append(TOKENS[random.nextInt(TOKENS.length)]);
+      }
+      Map<String, Boolean> values = new HashMap<>();
+      for (String variable : List.of("A", "B", "C")) {
+        values.put(variable, random.nextBoolean());
+      }
+      String expression = text.toString();
+
+      Object expected = outcome(() -> LegacyExpressionEvaluator.evaluate(expression, values));
+      Object actual = outcome(() -> CompiledExpression.compile(expression).evaluate(values));
+
+      assertThat(actual).as(expression + " with " + values).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  void shouldFailToCompileFormsTheLegacyEvaluatorCouldNotEvaluate() {
+    assertThatThrownBy(() -> CompiledExpression.compile("!A && B"))
+        .isInstanceOf(EmptyStackException.class);
+  }
+
+  // The result, or the type of the exception thrown
+  private static Object outcome(BooleanSupplier evaluation) {
+    try {
+      return evaluation.getAsBoolean();
+    } catch (RuntimeException e) {
+      return e.getClass();
+    }
+  }
+}
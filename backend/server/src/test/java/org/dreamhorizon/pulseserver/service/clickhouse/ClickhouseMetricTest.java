@@ -2,20 +2,28 @@ package org.dreamhorizon.pulseserver.service.clickhouse;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Single;
 import io.reactivex.rxjava3.observers.TestObserver;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.dreamhorizon.pulseserver.client.chclient.ClickhouseQueryService;
+import org.dreamhorizon.pulseserver.client.chclient.QueryJob;
+import org.dreamhorizon.pulseserver.client.chclient.QueryResultBudget;
+import org.dreamhorizon.pulseserver.config.ApplicationConfig;
 import org.dreamhorizon.pulseserver.dto.response.GetRawUserEventsResponseDto;
 import org.dreamhorizon.pulseserver.dto.response.universalquerying.GetQueryDataResponseDto;
 import org.dreamhorizon.pulseserver.model.JobCreationMode;
 import org.dreamhorizon.pulseserver.model.QueryConfiguration;
+import org.dreamhorizon.pulseserver.model.QueryLane;
 import org.dreamhorizon.pulseserver.resources.performance.models.Functions;
 import org.dreamhorizon.pulseserver.resources.performance.models.PerformanceMetricDistributionRes;
 import org.dreamhorizon.pulseserver.resources.performance.models.QueryRequest;
@@ -38,7 +46,7 @@ class ClickhouseMetricServiceTest {
 
     @BeforeEach
     void setUp() {
-        clickhouseMetricService = new ClickhouseMetricService(clickhouseQueryService);
+        clickhouseMetricService = new ClickhouseMetricService(clickhouseQueryService, new ApplicationConfig());
     }
 
     private QueryRequest createBasicRequest() {
@@ -417,7 +425,8 @@ class ClickhouseMetricServiceTest {
             verify(clickhouseQueryService).executeQueryOrCreateJob(configCaptor.capture());
 
             String query = configCaptor.getValue().getQuery();
-            assertThat(query).contains("span.name like 'test%'");
+            assertThat(query).contains("span.name like :p0");
+            assertThat(configCaptor.getValue().getParameters()).containsEntry("p0", "test%");
         }
 
         @Test
@@ -443,7 +452,11 @@ class ClickhouseMetricServiceTest {
             verify(clickhouseQueryService).executeQueryOrCreateJob(configCaptor.capture());
 
             String query = configCaptor.getValue().getQuery();
-            assertThat(query).contains("appVersion In ('1.0.0','1.1.0','1.2.0')");
+            assertThat(query).contains("appVersion In (:p0,:p1,:p2)");
+            assertThat(configCaptor.getValue().getParameters())
+                    .containsEntry("p0", "1.0.0")
+                    .containsEntry("p1", "1.1.0")
+                    .containsEntry("p2", "1.2.0");
         }
 
         @Test
@@ -469,7 +482,8 @@ class ClickhouseMetricServiceTest {
             verify(clickhouseQueryService).executeQueryOrCreateJob(configCaptor.capture());
 
             String query = configCaptor.getValue().getQuery();
-            assertThat(query).contains("status = 'success'");
+            assertThat(query).contains("status = :p0");
+            assertThat(configCaptor.getValue().getParameters()).containsEntry("p0", "success");
         }
 
         @Test
@@ -526,12 +540,15 @@ class ClickhouseMetricServiceTest {
             verify(clickhouseQueryService).executeQueryOrCreateJob(configCaptor.capture());
 
             String query = configCaptor.getValue().getQuery();
-            assertThat(query).contains("span.name like 'test%'");
-            assertThat(query).contains("status = 'success'");
+            assertThat(query).contains("span.name like :p0");
+            assertThat(query).contains("status = :p1");
+            assertThat(configCaptor.getValue().getParameters())
+                    .containsEntry("p0", "test%")
+                    .containsEntry("p1", "success");
         }
 
         @Test
-        void shouldFormatNumericFilterValuesWithoutQuotes() {
+        void shouldBindNumericFilterValuesAsNumbers() {
             QueryRequest request = createBasicRequest();
             QueryRequest.Filter filter = new QueryRequest.Filter();
             filter.setField("duration");
@@ -553,7 +570,11 @@ class ClickhouseMetricServiceTest {
             verify(clickhouseQueryService).executeQueryOrCreateJob(configCaptor.capture());
 
             String query = configCaptor.getValue().getQuery();
-            assertThat(query).contains("duration In (100,200,300)");
+            assertThat(query).contains("duration In (:p0,:p1,:p2)");
+            assertThat(configCaptor.getValue().getParameters())
+                    .containsEntry("p0", 100)
+                    .containsEntry("p1", 200)
+                    .containsEntry("p2", 300);
         }
     }
 
@@ -753,7 +774,7 @@ class ClickhouseMetricServiceTest {
     class TestQueryConfiguration {
 
         @Test
-        void shouldSetCorrectQueryConfiguration() {
+        void shouldWaitForInternalQueries() {
             QueryRequest request = createBasicRequest();
 
             GetQueryDataResponseDto<GetRawUserEventsResponseDto> mockResponse = createMockResponse(
@@ -769,9 +790,46 @@ class ClickhouseMetricServiceTest {
                     ArgumentCaptor.forClass(QueryConfiguration.class);
             verify(clickhouseQueryService).executeQueryOrCreateJob(configCaptor.capture());
 
+            assertThat(configCaptor.getValue().getJobCreationMode()).isNull();
+            assertThat(configCaptor.getValue().getSettings()).isEmpty();
+            assertThat(configCaptor.getValue().getLane()).isEqualTo(QueryLane.INTERACTIVE);
+        }
+
+        @Test
+        void shouldRunAlertQueriesInGivenLane() {
+            GetQueryDataResponseDto<GetRawUserEventsResponseDto> mockResponse = createMockResponse(
+                    List.of("field1"),
+                    List.of(List.of("value1")));
+            when(clickhouseQueryService.executeQueryOrCreateJob(any(QueryConfiguration.class)))
+                    .thenReturn(Single.just(mockResponse));
+
+            clickhouseMetricService.getMetricDistribution(createBasicRequest(), QueryLane.BATCH)
+                    .test()
+                    .assertComplete();
+
+            ArgumentCaptor<QueryConfiguration> configCaptor =
+                    ArgumentCaptor.forClass(QueryConfiguration.class);
+            verify(clickhouseQueryService).executeQueryOrCreateJob(configCaptor.capture());
+            assertThat(configCaptor.getValue().getLane()).isEqualTo(QueryLane.BATCH);
+        }
+
+        @Test
+        void shouldRunEndpointQueriesAsJobsWhenAllowed() {
+            QueryJob job = mock(QueryJob.class);
+            when(job.getRows()).thenReturn(List.of());
+            when(clickhouseQueryService.executeAsJob(any(QueryConfiguration.class))).thenReturn(Single.just(job));
+            QueryRequest request = createBasicRequest();
+            request.setAllowJob(true);
+
+            clickhouseMetricService.getMetricDistributionJson(request).test().assertComplete();
+
+            ArgumentCaptor<QueryConfiguration> configCaptor =
+                    ArgumentCaptor.forClass(QueryConfiguration.class);
+            verify(clickhouseQueryService).executeAsJob(configCaptor.capture());
             QueryConfiguration config = configCaptor.getValue();
             assertThat(config.getTimeoutMs()).isEqualTo(2000);
             assertThat(config.getJobCreationMode()).isEqualTo(JobCreationMode.JOB_CREATION_OPTIONAL);
+            assertThat(config.getSettings()).containsEntry("max_execution_time", 600);
         }
     }
 
@@ -822,7 +880,7 @@ class ClickhouseMetricServiceTest {
 
             String query = configCaptor.getValue().getQuery();
             assertThat(query).contains("as apdexScore");
-            assertThat(query).contains("span.name like 'test%'");
+            assertThat(query).contains("span.name like :p0");
             assertThat(query).contains("group by span.name");
             assertThat(query).contains("order by apdexScore DESC");
             assertThat(query).contains("limit 25");
@@ -872,8 +930,11 @@ class ClickhouseMetricServiceTest {
             verify(clickhouseQueryService).executeQueryOrCreateJob(configCaptor.capture());
 
             String query = configCaptor.getValue().getQuery();
-            assertThat(query).contains("Timestamp >= toDateTime64('2024-01-15 10:30:00',9,'UTC')");
-            assertThat(query).contains("Timestamp <= toDateTime64('2024-01-15 11:45:00',9,'UTC')");
+            assertThat(query).contains("Timestamp >= toDateTime64(:start,9,'UTC')");
+            assertThat(query).contains("Timestamp <= toDateTime64(:end,9,'UTC')");
+            assertThat(configCaptor.getValue().getParameters())
+                    .containsEntry("start", "2024-01-15 10:30:00")
+                    .containsEntry("end", "2024-01-15 11:45:00");
         }
     }
 
@@ -1139,4 +1200,141 @@ class ClickhouseMetricServiceTest {
             assertThat(query).contains("limit 100");
         }
     }
+
+    @Nested
+    class TestStreamedJson {
+
+        @SuppressWarnings("unchecked")
+        private void givenStreamedRows(List<String> columns, List<Object[]> rows) {
+            when(clickhouseQueryService.streamQuery(any(QueryConfiguration.class), any()))
+                    .thenAnswer(invocation -> {
+                        ClickhouseQueryService.RowMapper<Object> mapper = invocation.getArgument(1);
+                        return Flowable.fromIterable(rows).map(values -> mapper.map(columns, values));
+                    });
+        }
+
+        private QueryRequest jobRequest() {
+            QueryRequest request = createBasicRequest();
+            request.setAllowJob(true);
+            return request;
+        }
+
+        @Test
+        void shouldEncodeRowsInResponseEnvelope() {
+            givenStreamedRows(List.of("app_version", "count"),
+                    List.of(new Object[] {"1.0", 10L}, new Object[] {null, 3L}));
+
+            byte[] body = clickhouseMetricService.getMetricDistributionJson(createBasicRequest()).blockingGet();
+
+            assertThat(new String(body, StandardCharsets.UTF_8)).isEqualTo(
+                    "{\"data\":{\"fields\":[\"app_version\",\"count\"],"
+                            + "\"rows\":[[\"1.0\",\"10\"],[\"\",\"3\"]]}}");
+        }
+
+        @Test
+        void shouldEncodeEmptyResult() {
+            givenStreamedRows(List.of("count"), List.of());
+
+            byte[] body = clickhouseMetricService.getMetricDistributionJson(createBasicRequest()).blockingGet();
+
+            assertThat(new String(body, StandardCharsets.UTF_8)).isEqualTo("{\"data\":{\"fields\":[],\"rows\":[]}}");
+        }
+
+        @Test
+        void shouldUseSameQueryAsMaterializedPath() {
+            givenStreamedRows(List.of("count"), List.of());
+            QueryRequest request = createBasicRequest();
+            request.setLimit(5);
+
+            clickhouseMetricService.getMetricDistributionJson(request).test().assertComplete();
+
+            ArgumentCaptor<QueryConfiguration> configCaptor =
+                    ArgumentCaptor.forClass(QueryConfiguration.class);
+            verify(clickhouseQueryService).streamQuery(configCaptor.capture(), any());
+            assertThat(configCaptor.getValue().getQuery()).contains("from otel_traces").contains("limit 5");
+            assertThat(configCaptor.getValue().getJobCreationMode()).isNull();
+            verify(clickhouseQueryService, never()).executeAsJob(any(QueryConfiguration.class));
+        }
+
+        @Test
+        void shouldEncodeRowsOfJobThatFinishedInTime() {
+            QueryJob job = mock(QueryJob.class);
+            when(job.getColumns()).thenReturn(List.of("app_version", "count"));
+            when(job.getRows()).thenReturn(List.of(new Object[] {"1.0", 10L}, new Object[] {null, 3L}));
+            when(clickhouseQueryService.executeAsJob(any(QueryConfiguration.class))).thenReturn(Single.just(job));
+
+            byte[] body = clickhouseMetricService.getMetricDistributionJson(jobRequest()).blockingGet();
+
+            assertThat(new String(body, StandardCharsets.UTF_8)).isEqualTo(
+                    "{\"data\":{\"fields\":[\"app_version\",\"count\"],"
+                            + "\"rows\":[[\"1.0\",\"10\"],[\"\",\"3\"]]}}");
+        }
+
+        @Test
+        void shouldAnswerWithJobReferenceWhenJobIsSpooled() {
+            QueryJob job = mock(QueryJob.class);
+            when(job.isSpooled()).thenReturn(true);
+            when(job.getId()).thenReturn("job-1");
+            when(clickhouseQueryService.executeAsJob(any(QueryConfiguration.class))).thenReturn(Single.just(job));
+
+            byte[] body = clickhouseMetricService.getMetricDistributionJson(jobRequest()).blockingGet();
+
+            assertThat(new String(body, StandardCharsets.UTF_8)).isEqualTo(
+                    "{\"data\":{\"jobComplete\":false,\"jobReference\":{\"jobId\":\"job-1\"}}}");
+        }
+
+        @Test
+        void shouldWrapStreamErrors() {
+            when(clickhouseQueryService.streamQuery(any(QueryConfiguration.class), any()))
+                    .thenReturn(Flowable.error(new QueryResultBudget.ResultTooLargeException("too large")));
+
+            clickhouseMetricService.getMetricDistributionJson(createBasicRequest()).test()
+                    .assertError(e -> e.getCause() instanceof QueryResultBudget.ResultTooLargeException);
+        }
+    }
+
+    @Nested
+    class TestRollupRouting {
+
+        @BeforeEach
+        void enableRollup() {
+            ApplicationConfig applicationConfig = new ApplicationConfig();
+            applicationConfig.metricRollupEnabled = true;
+            clickhouseMetricService = new ClickhouseMetricService(clickhouseQueryService, applicationConfig);
+            when(clickhouseQueryService.executeQueryOrCreateJob(any(QueryConfiguration.class)))
+                    .thenReturn(Single.just(createMockResponse(List.of("crashRate"), List.of())));
+        }
+
+        private String executedQuery(QueryRequest request) {
+            clickhouseMetricService.getMetricDistribution(request).test().assertComplete();
+            ArgumentCaptor<QueryConfiguration> configCaptor =
+                    ArgumentCaptor.forClass(QueryConfiguration.class);
+            verify(clickhouseQueryService).executeQueryOrCreateJob(configCaptor.capture());
+            return configCaptor.getValue().getQuery();
+        }
+
+        private QueryRequest crashRateRequest(String end) {
+            QueryRequest request = createBasicRequest();
+            request.getTimeRange().setEnd(end);
+            QueryRequest.SelectItem item = new QueryRequest.SelectItem();
+            item.setFunction(Functions.CRASH_RATE);
+            request.setSelect(List.of(item));
+            return request;
+        }
+
+        @Test
+        void shouldReadEligibleQueryFromRollup() {
+            String query = executedQuery(crashRateRequest("2024-01-08T00:00:00Z"));
+
+            assertThat(query).startsWith("Select (sum(CrashSpans)/sum(Spans)) * 100 as crashRate from otel_traces_1m")
+                    .contains("Bucket >= toDateTime(:start,'UTC') AND Bucket < toDateTime(:end,'UTC')");
+        }
+
+        @Test
+        void shouldReadRawTracesWhenRangeIsNotOnWholeMinutes() {
+            String query = executedQuery(crashRateRequest("2024-01-01T23:59:59Z"));
+
+            assertThat(query).contains("from otel_traces where Timestamp >=");
+        }
+    }
 }
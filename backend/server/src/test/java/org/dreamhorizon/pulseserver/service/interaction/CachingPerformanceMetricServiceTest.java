@@ -0,0 +1,220 @@
+package org.dreamhorizon.pulseserver.service.interaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import io.reactivex.rxjava3.core.Single;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.dreamhorizon.pulseserver.config.ApplicationConfig;
+import org.dreamhorizon.pulseserver.resources.performance.models.Functions;
+import org.dreamhorizon.pulseserver.resources.performance.models.PerformanceMetricDistributionRes;
+import org.dreamhorizon.pulseserver.resources.performance.models.QueryRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CachingPerformanceMetricServiceTest {
+  private static final long HOUR = 3600;
+  private static final long DAY_START = Instant.parse("2024-01-01T00:00:00Z").getEpochSecond();
+
+  @Mock
+  private ClickhouseMetricService delegate;
+
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+  private CachingPerformanceMetricService service;
+
+  @BeforeEach
+  void setUp() {
+    Clock clock = Clock.fixed(Instant.parse("2024-01-02T00:00:00Z"), ZoneOffset.UTC);
+    service = new CachingPerformanceMetricService(delegate, new ApplicationConfig(), metricRegistry, clock);
+  }
+
+  @Test
+  void shouldServeClosedBucketsFromCacheAndQueryOnlyTheEdges() {
+    answerWithHourlyCounts();
+    QueryRequest request = hourlyRequest("2024-01-01T00:30:00Z", "2024-01-01T03:30:00Z", QueryRequest.Direction.ASC);
+
+    PerformanceMetricDistributionRes first = service.getMetricDistribution(request).blockingGet();
+    PerformanceMetricDistributionRes second = service.getMetricDistribution(request).blockingGet();
+
+    assertThat(first.getFields()).containsExactly("bucket", "count");
+    assertThat(first.getRows()).extracting(row -> row.get(0)).containsExactly(
+        "2024-01-01 00:00:00", "2024-01-01 01:00:00", "2024-01-01 02:00:00", "2024-01-01 03:00:00");
+    assertThat(second).usingRecursiveComparison().isEqualTo(first);
+
+    ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+    verify(delegate, times(3)).getMetricDistribution(captor.capture());
+    assertThat(captor.getAllValues()).extracting(QueryRequest::getTimeRange)
+        .extracting(QueryRequest.TimeRange::getStart, QueryRequest.TimeRange::getEnd)
+        .containsExactly(
+            tuple("2024-01-01T00:30:00Z", "2024-01-01T03:30:00Z"),
+            tuple("2024-01-01T00:30:00Z", "2024-01-01T01:00:00Z"),
+            tuple("2024-01-01T03:00:00Z", "2024-01-01T03:30:00Z"));
+    assertThat(gauge("hits")).isEqualTo(2L);
+  }
+
+  @Test
+  void shouldReuseBucketsForSlidingRanges() {
+    answerWithHourlyCounts();
+    service.getMetricDistribution(
+        hourlyRequest("2024-01-01T00:00:00Z", "2024-01-01T05:00:00Z", QueryRequest.Direction.ASC)).blockingGet();
+
+    PerformanceMetricDistributionRes slid = service.getMetricDistribution(
+        hourlyRequest("2024-01-01T01:00:00Z", "2024-01-01T06:30:00Z", QueryRequest.Direction.ASC)).blockingGet();
+
+    assertThat(slid.getRows()).extracting(row -> row.get(1)).containsExactly("1", "2", "3", "4", "5", "6");
+    ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+    verify(delegate, times(2)).getMetricDistribution(captor.capture());
+    assertThat(captor.getAllValues().get(1).getTimeRange().getStart()).isEqualTo("2024-01-01T05:00:00Z");
+  }
+
+  @Test
+  void shouldMergeBucketsInDescendingOrder() {
+    answerWithHourlyCounts();
+    QueryRequest request = hourlyRequest("2024-01-01T00:00:00Z", "2024-01-01T03:00:00Z", QueryRequest.Direction.DESC);
+
+    service.getMetricDistribution(request).blockingGet();
+    PerformanceMetricDistributionRes cached = service.getMetricDistribution(request).blockingGet();
+
+    assertThat(cached.getRows()).extracting(row -> row.get(1)).containsExactly("3", "2", "1", "0");
+  }
+
+  @Test
+  void shouldFallBackToFullQueryWhenLimitTruncatesARun() {
+    answerWithHourlyCounts();
+    QueryRequest request = hourlyRequest("2024-01-01T00:00:00Z", "2024-01-01T05:00:00Z", QueryRequest.Direction.ASC);
+    request.setLimit(3);
+
+    PerformanceMetricDistributionRes result = service.getMetricDistribution(request).blockingGet();
+
+    assertThat(result.getRows()).extracting(row -> row.get(1)).containsExactly("0", "1", "2");
+    ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+    verify(delegate, times(2)).getMetricDistribution(captor.capture());
+    assertThat(captor.getAllValues().get(1)).isSameAs(request);
+    assertThat(gauge("size")).isEqualTo(0L);
+  }
+
+  @Test
+  void shouldPassThroughRangesThatHaveNotSettled() {
+    QueryRequest request = hourlyRequest("2024-01-01T23:30:00Z", "2024-01-02T00:00:00Z", QueryRequest.Direction.ASC);
+    when(delegate.getMetricDistributionJson(request)).thenReturn(Single.just(new byte[0]));
+
+    service.getMetricDistributionJson(request).test().assertComplete();
+
+    verify(delegate).getMetricDistributionJson(request);
+  }
+
+  @Test
+  void shouldCacheSettledUnbucketedQueriesAsAWhole() {
+    QueryRequest request = countRequest("2024-01-01T00:00:00Z", "2024-01-01T12:00:00Z");
+    when(delegate.getMetricDistribution(request)).thenReturn(Single.just(PerformanceMetricDistributionRes.builder()
+        .fields(List.of("count"))
+        .rows(List.of(List.of("42")))
+        .build()));
+
+    service.getMetricDistribution(request).blockingGet();
+    PerformanceMetricDistributionRes cached = service.getMetricDistribution(countRequest(
+        "2024-01-01T00:00:00Z", "2024-01-01T12:00:00Z")).blockingGet();
+
+    assertThat(cached.getRows()).containsExactly(List.of("42"));
+    verify(delegate, times(1)).getMetricDistribution(any());
+  }
+
+  @Test
+  void shouldEncodeCachedResultsAsJson() {
+    answerWithHourlyCounts();
+    QueryRequest request = hourlyRequest("2024-01-01T00:00:00Z", "2024-01-01T02:00:00Z", QueryRequest.Direction.ASC);
+
+    byte[] body = service.getMetricDistributionJson(request).blockingGet();
+
+    assertThat(new String(body)).isEqualTo("{\"data\":{\"fields\":[\"bucket\",\"count\"],\"rows\":["
+        + "[\"2024-01-01 00:00:00\",\"0\"],[\"2024-01-01 01:00:00\",\"1\"],[\"2024-01-01 02:00:00\",\"2\"]]}}");
+  }
+
+  @Test
+  void shouldParseBucketValues() {
+    long expected = DAY_START + HOUR;
+    assertThat(CachingPerformanceMetricService.parseBucket("2024-01-01 01:00:00")).isEqualTo(expected);
+    assertThat(CachingPerformanceMetricService.parseBucket("2024-01-01T01:00")).isEqualTo(expected);
+    assertThat(CachingPerformanceMetricService.parseBucket("2024-01-01T01:00Z[UTC]")).isEqualTo(expected);
+    assertThat(CachingPerformanceMetricService.parseBucket("2024-01-01T02:00+01:00")).isEqualTo(expected);
+    assertThat(CachingPerformanceMetricService.parseBucket(String.valueOf(expected))).isEqualTo(expected);
+    assertThat(CachingPerformanceMetricService.parseBucket("not a date")).isNull();
+  }
+
+  // One row per hour from 2024-01-01 00:00, with count = hours since midnight; honours the range and the limit
+  private void answerWithHourlyCounts() {
+    when(delegate.getMetricDistribution(any())).thenAnswer(invocation -> {
+      QueryRequest request = invocation.getArgument(0);
+      long start = ZonedDateTime.parse(request.getTimeRange().getStart()).toEpochSecond();
+      long end = ZonedDateTime.parse(request.getTimeRange().getEnd()).toEpochSecond();
+      List<List<String>> rows = new ArrayList<>();
+      for (long bucket = DAY_START; bucket < DAY_START + 24 * HOUR; bucket += HOUR) {
+        if (bucket + HOUR > start && bucket <= end && rows.size() < request.getLimit()) {
+          rows.add(List.of(
+              Instant.ofEpochSecond(bucket).toString().replace('T', ' ').replace("Z", ""),
+              String.valueOf((bucket - DAY_START) / HOUR)));
+        }
+      }
+      if (request.getOrderBy().get(0).getDirection() == QueryRequest.Direction.DESC) {
+        Collections.reverse(rows);
+      }
+      return Single.just(PerformanceMetricDistributionRes.builder()
+          .fields(rows.isEmpty() ? List.of() : List.of("bucket", "count"))
+          .rows(rows)
+          .build());
+    });
+  }
+
+  private static QueryRequest hourlyRequest(String start, String end, QueryRequest.Direction direction) {
+    QueryRequest request = countRequest(start, end);
+    QueryRequest.SelectItem bucket = new QueryRequest.SelectItem();
+    bucket.setFunction(Functions.TIME_BUCKET);
+    bucket.setParam(Map.of("field", "Timestamp", "bucket", "1h"));
+    bucket.setAlias("bucket");
+    request.setSelect(List.of(bucket, request.getSelect().get(0)));
+    request.setGroupBy(List.of("bucket"));
+    QueryRequest.OrderBy orderBy = new QueryRequest.OrderBy();
+    orderBy.setField("bucket");
+    orderBy.setDirection(direction);
+    request.setOrderBy(List.of(orderBy));
+    request.setLimit(100);
+    return request;
+  }
+
+  private static QueryRequest countRequest(String start, String end) {
+    QueryRequest request = new QueryRequest();
+    QueryRequest.TimeRange timeRange = new QueryRequest.TimeRange();
+    timeRange.setStart(start);
+    timeRange.setEnd(end);
+    request.setTimeRange(timeRange);
+    request.setDataType(QueryRequest.DataType.TRACES);
+    QueryRequest.SelectItem count = new QueryRequest.SelectItem();
+    count.setFunction(Functions.CUSTOM);
+    count.setParam(Map.of("expression", "count()"));
+    count.setAlias("count");
+    request.setSelect(List.of(count));
+    return request;
+  }
+
+  private Object gauge(String name) {
+    return ((Gauge<?>) metricRegistry.getGauges().get("interaction.metric_query_cache." + name)).getValue();
+  }
+}
@@ -0,0 +1,20 @@
+package org.dreamhorizon.pulseserver.service.interaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class DistributionJsonWriterTest {
+  private static final List<String> COLUMNS = List.of("app_version", "count");
+
+  @Test
+  void shouldEncodeRowsAsTheyAreAdded() {
+    DistributionJsonWriter writer = new DistributionJsonWriter();
+    writer.writeRow(COLUMNS, new Object[] {"1.0", 10L});
+    writer.writeRow(COLUMNS, new Object[] {null, 3L});
+
+    assertThat(new String(writer.finish()))
+        .isEqualTo("{\"data\":{\"fields\":[\"app_version\",\"count\"],\"rows\":[[\"1.0\",\"10\"],[\"\",\"3\"]]}}");
+  }
+}
@@ -0,0 +1,144 @@
+package org.dreamhorizon.pulseserver.service.interaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.subjects.SingleSubject;
+import io.vertx.core.Vertx;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.dreamhorizon.pulseserver.dao.interaction.InteractionDao;
+import org.dreamhorizon.pulseserver.resources.interaction.models.TelemetryFilterOptionsResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class TelemetryFilterValuesCacheTest {
+
+  @Mock
+  Vertx vertx;
+
+  @Mock
+  InteractionDao interactionDao;
+
+  private TelemetryFilterValuesCache cache;
+
+  @BeforeEach
+  void setUp() {
+    cache = new TelemetryFilterValuesCache(vertx, interactionDao, new MetricRegistry());
+  }
+
+  private static TelemetryFilterOptionsResponse values(List<String> appVersions, List<String> platforms) {
+    return TelemetryFilterOptionsResponse.builder()
+        .appVersionCodes(appVersions)
+        .deviceModels(List.of())
+        .networkProviders(List.of())
+        .platforms(platforms)
+        .osVersions(List.of())
+        .states(List.of())
+        .build();
+  }
+
+  @Test
+  void shouldSeedFromRecentSpansThenReadOnlyNewOnes() {
+    when(interactionDao.getTelemetryFilterOptions(any(Instant.class)))
+        .thenReturn(Single.just(values(List.of("1.0.0"), List.of("android"))));
+    Instant beforeSeed = Instant.now();
+    cache.refresh().blockingGet();
+    Instant afterSeed = Instant.now();
+    cache.refresh().blockingGet();
+
+    ArgumentCaptor<Instant> since = ArgumentCaptor.forClass(Instant.class);
+    verify(interactionDao, times(2)).getTelemetryFilterOptions(since.capture());
+    assertThat(since.getAllValues().get(0))
+        .isBetween(beforeSeed.minus(TelemetryFilterValuesCache.SEED_WINDOW),
+            afterSeed.minus(TelemetryFilterValuesCache.SEED_WINDOW));
+    assertThat(since.getAllValues().get(1))
+        .isBetween(beforeSeed.minus(TelemetryFilterValuesCache.LATE_SPAN_OVERLAP),
+            afterSeed.minus(TelemetryFilterValuesCache.LATE_SPAN_OVERLAP));
+  }
+
+  @Test
+  void shouldMergeRefreshesIntoSortedSnapshot() {
+    when(interactionDao.getTelemetryFilterOptions(any(Instant.class)))
+        .thenReturn(Single.just(values(List.of("1.0.0", "1.2.0"), List.of("android"))))
+        .thenReturn(Single.just(values(List.of("1.1.0", "1.2.0"), null)));
+
+    cache.refresh().blockingGet();
+    cache.refresh().blockingGet();
+    TelemetryFilterOptionsResponse response = cache.get().blockingGet();
+
+    assertThat(response.getAppVersionCodes()).containsExactly("1.0.0", "1.1.0", "1.2.0");
+    assertThat(response.getPlatforms()).containsExactly("android");
+    assertThat(response.getStates()).isEmpty();
+    verify(interactionDao, times(2)).getTelemetryFilterOptions(any(Instant.class));
+  }
+
+  @Test
+  void shouldServeSnapshotWithoutQuerying() {
+    when(interactionDao.getTelemetryFilterOptions(any(Instant.class)))
+        .thenReturn(Single.just(values(List.of("1.0.0"), List.of("ios"))));
+    cache.refresh().blockingGet();
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(cache.get().blockingGet().getPlatforms()).containsExactly("ios");
+    }
+    verify(interactionDao, times(1)).getTelemetryFilterOptions(any(Instant.class));
+    verifyNoMoreInteractions(interactionDao);
+  }
+
+  @Test
+  void shouldShareOneSeedLoadBetweenConcurrentRequests() {
+    SingleSubject<TelemetryFilterOptionsResponse> load = SingleSubject.create();
+    when(interactionDao.getTelemetryFilterOptions(any(Instant.class))).thenReturn(load);
+
+    TestObserver<TelemetryFilterOptionsResponse> first = cache.get().test();
+    TestObserver<TelemetryFilterOptionsResponse> second = cache.get().test();
+    load.onSuccess(values(List.of("1.0.0"), List.of("android")));
+
+    first.assertValue(response -> response.getAppVersionCodes().equals(List.of("1.0.0")));
+    second.assertValue(response -> response.getAppVersionCodes().equals(List.of("1.0.0")));
+    verify(interactionDao, times(1)).getTelemetryFilterOptions(any(Instant.class));
+  }
+
+  @Test
+  void shouldNotStartSecondSeedLoadOnTickWhileSeedRuns() {
+    SingleSubject<TelemetryFilterOptionsResponse> load = SingleSubject.create();
+    when(interactionDao.getTelemetryFilterOptions(any(Instant.class))).thenReturn(load);
+
+    TestObserver<TelemetryFilterOptionsResponse> request = cache.get().test();
+    TestObserver<TelemetryFilterOptionsResponse> tick = cache.tick().test();
+    load.onSuccess(values(List.of("1.0.0"), List.of("android")));
+
+    request.assertComplete();
+    tick.assertComplete();
+    verify(interactionDao, times(1)).getTelemetryFilterOptions(any(Instant.class));
+  }
+
+  @Test
+  void shouldLoadOnRequestUntilFirstLoadSucceeds() {
+    when(interactionDao.getTelemetryFilterOptions(any(Instant.class)))
+        .thenReturn(Single.error(new RuntimeException("ClickHouse connection failed")))
+        .thenReturn(Single.just(values(List.of("1.0.0"), List.of("android"))));
+
+    cache.get().test().assertError(RuntimeException.class);
+    assertThat(cache.get().blockingGet().getAppVersionCodes()).containsExactly("1.0.0");
+
+    ArgumentCaptor<Instant> since = ArgumentCaptor.forClass(Instant.class);
+    verify(interactionDao, times(2)).getTelemetryFilterOptions(since.capture());
+    assertThat(Duration.between(since.getAllValues().get(1), Instant.now()))
+        .isGreaterThanOrEqualTo(TelemetryFilterValuesCache.SEED_WINDOW);
+  }
+}
@@ -29,6 +29,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.dreamhorizon.pulseserver.service.interaction.TelemetryFilterValuesCache;
 import org.dreamhorizon.pulseserver.service.interaction.UploadInteractionDetailService;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
@@ -45,11 +46,15 @@ class InteractionServiceImplTest {
         @Mock
         UploadInteractionDetailService uploadInteractionDetailService;
 
+        @Mock
+        TelemetryFilterValuesCache telemetryFilterValuesCache;
+
         @BeforeEach
         void setUp() {
                 Mockito.lenient().when(uploadInteractionDetailService.pushInteractionDetailsToObjectStore())
                         .thenReturn(Single.just(EmptyResponse.emptyResponse));
-                interactionService = new InteractionServiceImpl(interactionDao, uploadInteractionDetailService);
+                interactionService = new InteractionServiceImpl(interactionDao, uploadInteractionDetailService,
+                        telemetryFilterValuesCache);
         }
 
         @Nested
@@ -1103,7 +1108,7 @@ class InteractionServiceImplTest {
                                         .states(states)
                                         .build();
 
-                        Mockito.when(interactionDao.getTelemetryFilterOptions())
+                        Mockito.when(telemetryFilterValuesCache.get())
                                         .thenReturn(Single.just(expectedResponse));
 
                         TestObserver<TelemetryFilterOptionsResponse> actual = interactionService
@@ -1126,8 +1131,8 @@ class InteractionServiceImplTest {
                                                 }
                                         });
 
-                        Mockito.verify(interactionDao, Mockito.times(1)).getTelemetryFilterOptions();
-                        verifyNoMoreInteractions(interactionDao);
+                        Mockito.verify(telemetryFilterValuesCache, Mockito.times(1)).get();
+                        verifyNoMoreInteractions(telemetryFilterValuesCache, interactionDao);
                 }
 
                 @Test
@@ -1141,7 +1146,7 @@ class InteractionServiceImplTest {
                                         .states(List.of())
                                         .build();
 
-                        Mockito.when(interactionDao.getTelemetryFilterOptions())
+                        Mockito.when(telemetryFilterValuesCache.get())
                                         .thenReturn(Single.just(expectedResponse));
 
                         TestObserver<TelemetryFilterOptionsResponse> actual = interactionService
@@ -1162,15 +1167,15 @@ class InteractionServiceImplTest {
                                                 }
                                         });
 
-                        Mockito.verify(interactionDao, Mockito.times(1)).getTelemetryFilterOptions();
-                        verifyNoMoreInteractions(interactionDao);
+                        Mockito.verify(telemetryFilterValuesCache, Mockito.times(1)).get();
+                        verifyNoMoreInteractions(telemetryFilterValuesCache, interactionDao);
                 }
 
                 @Test
-                void shouldHandleErrorWhenDaoFails() {
+                void shouldHandleErrorWhenCacheLoadFails() {
                         RuntimeException expectedException = new RuntimeException("ClickHouse query failed");
 
-                        Mockito.when(interactionDao.getTelemetryFilterOptions())
+                        Mockito.when(telemetryFilterValuesCache.get())
                                         .thenReturn(Single.error(expectedException));
 
                         TestObserver<TelemetryFilterOptionsResponse> actual = interactionService
@@ -1180,8 +1185,8 @@ class InteractionServiceImplTest {
                                         .assertError(throwable -> throwable.getMessage()
                                                         .equals("ClickHouse query failed"));
 
-                        Mockito.verify(interactionDao, Mockito.times(1)).getTelemetryFilterOptions();
-                        verifyNoMoreInteractions(interactionDao);
+                        Mockito.verify(telemetryFilterValuesCache, Mockito.times(1)).get();
+                        verifyNoMoreInteractions(telemetryFilterValuesCache, interactionDao);
                 }
 
                 @Test
@@ -1198,7 +1203,7 @@ class InteractionServiceImplTest {
                                         .states(List.of())
                                         .build();
 
-                        Mockito.when(interactionDao.getTelemetryFilterOptions())
+                        Mockito.when(telemetryFilterValuesCache.get())
                                         .thenReturn(Single.just(expectedResponse));
 
                         TestObserver<TelemetryFilterOptionsResponse> actual = interactionService
@@ -1217,8 +1222,8 @@ class InteractionServiceImplTest {
                                                 }
                                         });
 
-                        Mockito.verify(interactionDao, Mockito.times(1)).getTelemetryFilterOptions();
-                        verifyNoMoreInteractions(interactionDao);
+                        Mockito.verify(telemetryFilterValuesCache, Mockito.times(1)).get();
+                        verifyNoMoreInteractions(telemetryFilterValuesCache, interactionDao);
                 }
         }
 
@@ -0,0 +1,146 @@
+package org.dreamhorizon.pulseserver.service.interaction.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.dreamhorizon.pulseserver.resources.performance.models.Functions;
+import org.dreamhorizon.pulseserver.resources.performance.models.QueryRequest;
+import org.junit.jupiter.api.Test;
+
+class MetricQueryCompilerTest {
+  private static final Pattern PARAMETER = Pattern.compile(":(\\w+)");
+
+  private final MetricQueryCompiler compiler = new MetricQueryCompiler();
+
+  @Test
+  void shouldMatchLegacyBuilderForEveryFunction() {
+    for (Functions function : Functions.values()) {
+      QueryRequest request = request(QueryRequest.DataType.TRACES);
+      request.setSelect(List.of(select(function, null)));
+
+      assertMatchesLegacy(request);
+    }
+  }
+
+  @Test
+  void shouldMatchLegacyBuilderForEveryDataType() {
+    for (QueryRequest.DataType dataType : QueryRequest.DataType.values()) {
+      assertMatchesLegacy(request(dataType));
+    }
+  }
+
+  @Test
+  void shouldMatchLegacyBuilderForAllClauses() {
+    QueryRequest request = request(QueryRequest.DataType.EXCEPTIONS);
+    request.setSelect(List.of(select(Functions.APDEX, "apdexScore"), select(Functions.TIME_BUCKET, "bucket"),
+        select(Functions.COL, "spanName")));
+    request.setFilters(List.of(
+        filter("span.name", QueryRequest.Operator.LIKE, "test%"),
+        filter("appVersion", QueryRequest.Operator.IN, "1.0.0", "1.1.0"),
+        filter("duration", QueryRequest.Operator.IN, 100, 200L, 2.5),
+        filter("status", QueryRequest.Operator.EQ, "success"),
+        filter(null, QueryRequest.Operator.ADDITIONAL, "customCondition = true")));
+    request.setGroupBy(List.of("bucket", "spanName"));
+    request.setOrderBy(List.of(orderBy("bucket", QueryRequest.Direction.ASC),
+        orderBy("apdexScore", QueryRequest.Direction.DESC)));
+    request.setLimit(25);
+
+    assertMatchesLegacy(request);
+  }
+
+  @Test
+  void shouldBindValuesInsteadOfInliningThem() {
+    QueryRequest request = request(QueryRequest.DataType.LOGS);
+    request.setFilters(List.of(filter("UserId", QueryRequest.Operator.EQ, "x' OR 1=1 --")));
+
+    CompiledQuery compiled = compiler.compile(MetricQuery.from(request));
+
+    assertThat(compiled.sql()).doesNotContain("OR 1=1").contains("UserId = :p0");
+    assertThat(compiled.parameters())
+        .containsEntry("start", "2024-01-15 10:30:00")
+        .containsEntry("end", "2024-01-15 11:45:00")
+        .containsEntry("p0", "x' OR 1=1 --");
+  }
+
+  @Test
+  void shouldReuseTemplateForSameShape() {
+    QueryRequest first = request(QueryRequest.DataType.TRACES);
+    first.setFilters(List.of(filter("appVersion", QueryRequest.Operator.IN, "1.0.0", "1.1.0")));
+    QueryRequest second = request(QueryRequest.DataType.TRACES);
+    second.getTimeRange().setStart("2024-02-01T00:00:00Z");
+    second.setFilters(List.of(filter("appVersion", QueryRequest.Operator.IN, "2.0.0", "2.1.0")));
+
+    CompiledQuery a = compiler.compile(MetricQuery.from(first));
+    CompiledQuery b = compiler.compile(MetricQuery.from(second));
+
+    assertThat(b.sql()).isSameAs(a.sql());
+    assertThat(b.parameters()).containsEntry("start", "2024-02-01 00:00:00").containsEntry("p1", "2.1.0");
+  }
+
+  @Test
+  void shouldRenderSeparateTemplatesForDifferentShapes() {
+    QueryRequest two = request(QueryRequest.DataType.TRACES);
+    two.setFilters(List.of(filter("appVersion", QueryRequest.Operator.IN, "1.0.0", "1.1.0")));
+    QueryRequest three = request(QueryRequest.DataType.TRACES);
+    three.setFilters(List.of(filter("appVersion", QueryRequest.Operator.IN, "1.0.0", "1.1.0", "1.2.0")));
+
+    assertThat(compiler.compile(MetricQuery.from(two)).sql()).contains("In (:p0,:p1)");
+    assertThat(compiler.compile(MetricQuery.from(three)).sql()).contains("In (:p0,:p1,:p2)");
+  }
+
+  private void assertMatchesLegacy(QueryRequest request) {
+    CompiledQuery compiled = compiler.compile(MetricQuery.from(request));
+
+    assertThat(inline(compiled)).isEqualTo(LegacyMetricQueryBuilder.build(request));
+  }
+
+  // Renders bound values the way the legacy builder inlined them
+  private static String inline(CompiledQuery compiled) {
+    Matcher matcher = PARAMETER.matcher(compiled.sql());
+    StringBuilder sql = new StringBuilder();
+    while (matcher.find()) {
+      Object value = compiled.parameters().get(matcher.group(1));
+      String literal = value instanceof String ? "'" + value + "'" : String.valueOf(value);
+      matcher.appendReplacement(sql, Matcher.quoteReplacement(literal));
+    }
+    matcher.appendTail(sql);
+    return sql.toString();
+  }
+
+  private static QueryRequest request(QueryRequest.DataType dataType) {
+    QueryRequest request = new QueryRequest();
+    QueryRequest.TimeRange timeRange = new QueryRequest.TimeRange();
+    timeRange.setStart("2024-01-15T10:30:00Z");
+    timeRange.setEnd("2024-01-15T11:45:00Z");
+    request.setTimeRange(timeRange);
+    request.setDataType(dataType);
+    return request;
+  }
+
+  private static QueryRequest.SelectItem select(Functions function, String alias) {
+    QueryRequest.SelectItem item = new QueryRequest.SelectItem();
+    item.setFunction(function);
+    item.setAlias(alias);
+    item.setParam(Map.of("field", "Timestamp", "bucket", "1h", "expression", "count(*)"));
+    return item;
+  }
+
+  private static QueryRequest.Filter filter(String field, QueryRequest.Operator operator, Object... values) {
+    QueryRequest.Filter filter = new QueryRequest.Filter();
+    filter.setField(field);
+    filter.setOperator(operator);
+    filter.setValue(new ArrayList<>(List.of(values)));
+    return filter;
+  }
+
+  private static QueryRequest.OrderBy orderBy(String field, QueryRequest.Direction direction) {
+    QueryRequest.OrderBy orderBy = new QueryRequest.OrderBy();
+    orderBy.setField(field);
+    orderBy.setDirection(direction);
+    return orderBy;
+  }
+}
@@ -0,0 +1,128 @@
+package org.dreamhorizon.pulseserver.service.interaction.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.dreamhorizon.pulseserver.resources.performance.models.Functions;
+import org.dreamhorizon.pulseserver.resources.performance.models.QueryRequest;
+import org.junit.jupiter.api.Test;
+
+class MetricRollupTest {
+  private final MetricQueryCompiler compiler = new MetricQueryCompiler();
+
+  @Test
+  void shouldRouteDashboardQueryToRollup() {
+    QueryRequest request = request("2024-01-08T00:00:00Z", "2024-01-15T00:00:00Z");
+    request.setSelect(List.of(
+        select(Functions.TIME_BUCKET, "bucket", Map.of("field", "Timestamp", "bucket", "1h")),
+        select(Functions.COL, "screen", Map.of("field", "SpanName")),
+        select(Functions.DURATION_P95, null, Map.of()),
+        select(Functions.CRASH_FREE_USERS_PERCENTAGE, null, Map.of())));
+    request.setFilters(List.of(filter("AppVersion", QueryRequest.Operator.IN, "5.1.0", "5.2.0"),
+        filter("Platform", QueryRequest.Operator.EQ, "android")));
+    request.setGroupBy(List.of("bucket", "screen"));
+    request.setOrderBy(List.of(orderBy("bucket")));
+
+    CompiledQuery compiled = compiler.compile(MetricRollup.route(request).orElseThrow());
+
+    assertThat(compiled.sql()).isEqualTo("Select toDateTime(intDiv(toUnixTimestamp(Bucket, 'UTC'), 3600) * 3600,'UTC')"
+        + " as bucket,SpanName as screen,quantileTDigestIfMerge(0.95)(DurationMs) as duration_p95,"
+        + Functions.CRASH_FREE_USERS_PERCENTAGE.getRollupSelectClause() + " as crashFreeUsersPercentage"
+        + " from otel_traces_1m where Bucket >= toDateTime(:start,'UTC') AND Bucket < toDateTime(:end,'UTC')"
+        + " And AppVersion In (:p0,:p1) And Platform = :p2 group by bucket,screen order by bucket ASC limit 100");
+    assertThat(compiled.parameters())
+        .containsEntry("start", "2024-01-08 00:00:00")
+        .containsEntry("end", "2024-01-15 00:00:00")
+        .containsEntry("p2", "android");
+  }
+
+  @Test
+  void shouldNotRouteRangeThatIsNotOnWholeMinutes() {
+    QueryRequest request = request("2024-01-08T00:00:30Z", "2024-01-15T00:00:00Z");
+    request.setSelect(List.of(select(Functions.ERROR_RATE, null, Map.of())));
+
+    assertThat(MetricRollup.route(request)).isEmpty();
+  }
+
+  @Test
+  void shouldNotRouteOtherDataTypes() {
+    QueryRequest request = request("2024-01-08T00:00:00Z", "2024-01-15T00:00:00Z");
+    request.setDataType(QueryRequest.DataType.LOGS);
+    request.setSelect(List.of(select(Functions.ERROR_RATE, null, Map.of())));
+
+    assertThat(MetricRollup.route(request)).isEmpty();
+  }
+
+  @Test
+  void shouldNotRouteSelectsTheRollupCannotAnswer() {
+    for (QueryRequest.SelectItem item : List.of(
+        select(Functions.CUSTOM, "c", Map.of("expression", "count(*)")),
+        select(Functions.COL, "traceId", Map.of("field", "TraceId")),
+        select(Functions.TIME_BUCKET, "bucket", Map.of("field", "Timestamp", "bucket", "30s")),
+        select(Functions.INTERACTION_ERROR_DISTINCT_USERS, null, Map.of()),
+        select(Functions.ARR_TO_STR, "events", Map.of("field", "Events.Name")),
+        select(Functions.ERROR_RATE, "Spans", Map.of()))) {
+      QueryRequest request = request("2024-01-08T00:00:00Z", "2024-01-15T00:00:00Z");
+      request.setSelect(List.of(item));
+
+      assertThat(MetricRollup.route(request)).as(item.getFunction().name()).isEmpty();
+    }
+  }
+
+  @Test
+  void shouldNotRouteFiltersOutsideRollupDimensions() {
+    QueryRequest additional = request("2024-01-08T00:00:00Z", "2024-01-15T00:00:00Z");
+    additional.setSelect(List.of(select(Functions.ERROR_RATE, null, Map.of())));
+    additional.setFilters(List.of(filter(null, QueryRequest.Operator.ADDITIONAL, "PulseType = 'network.0'")));
+    QueryRequest attribute = request("2024-01-08T00:00:00Z", "2024-01-15T00:00:00Z");
+    attribute.setSelect(List.of(select(Functions.ERROR_RATE, null, Map.of())));
+    attribute.setFilters(List.of(filter("SpanAttributes['screen.name']", QueryRequest.Operator.EQ, "Home")));
+
+    assertThat(MetricRollup.route(additional)).isEmpty();
+    assertThat(MetricRollup.route(attribute)).isEmpty();
+  }
+
+  @Test
+  void shouldNotRouteGroupingOnOtherColumns() {
+    QueryRequest request = request("2024-01-08T00:00:00Z", "2024-01-15T00:00:00Z");
+    request.setSelect(List.of(select(Functions.ERROR_RATE, null, Map.of())));
+    request.setGroupBy(List.of("UserId"));
+
+    assertThat(MetricRollup.route(request)).isEmpty();
+  }
+
+  private static QueryRequest request(String start, String end) {
+    QueryRequest request = new QueryRequest();
+    QueryRequest.TimeRange timeRange = new QueryRequest.TimeRange();
+    timeRange.setStart(start);
+    timeRange.setEnd(end);
+    request.setTimeRange(timeRange);
+    request.setDataType(QueryRequest.DataType.TRACES);
+    return request;
+  }
+
+  private static QueryRequest.SelectItem select(Functions function, String alias, Map<String, String> param) {
+    QueryRequest.SelectItem item = new QueryRequest.SelectItem();
+    item.setFunction(function);
+    item.setAlias(alias);
+    item.setParam(param);
+    return item;
+  }
+
+  private static QueryRequest.Filter filter(String field, QueryRequest.Operator operator, Object... values) {
+    QueryRequest.Filter filter = new QueryRequest.Filter();
+    filter.setField(field);
+    filter.setOperator(operator);
+    filter.setValue(new ArrayList<>(List.of(values)));
+    return filter;
+  }
+
+  private static QueryRequest.OrderBy orderBy(String field) {
+    QueryRequest.OrderBy orderBy = new QueryRequest.OrderBy();
+    orderBy.setField(field);
+    orderBy.setDirection(QueryRequest.Direction.ASC);
+    return orderBy;
+  }
+}
@@ -0,0 +1,104 @@
+package org.dreamhorizon.pulseserver.service.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.reactivex.rxjava3.core.Single;
+import java.util.List;
+import org.dreamhorizon.pulseserver.client.chclient.ClickhouseQueryService;
+import org.dreamhorizon.pulseserver.model.QueryConfiguration;
+import org.dreamhorizon.pulseserver.model.QueryResultResponse;
+import org.dreamhorizon.pulseserver.resources.session.models.GetSessionRequest;
+import org.dreamhorizon.pulseserver.resources.session.models.GetSessionResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class SessionServiceTest {
+
+  @Mock
+  private ClickhouseQueryService clickhouseQueryService;
+
+  private SessionService sessionService;
+
+  @BeforeEach
+  void setUp() {
+    sessionService = new SessionService(clickhouseQueryService);
+    when(clickhouseQueryService.executeQueryOrCreateJob(any(QueryConfiguration.class),
+        eq(GetSessionResponse.Session.class)))
+        .thenReturn(Single.just(QueryResultResponse.<GetSessionResponse.Session>builder()
+            .rows(List.of(GetSessionResponse.Session.builder().sessionId("s1").build()))
+            .jobComplete(true)
+            .build()));
+  }
+
+  private QueryConfiguration executedQuery() {
+    ArgumentCaptor<QueryConfiguration> captor = ArgumentCaptor.forClass(QueryConfiguration.class);
+    verify(clickhouseQueryService).executeQueryOrCreateJob(captor.capture(), eq(GetSessionResponse.Session.class));
+    return captor.getValue();
+  }
+
+  @Test
+  void shouldBoundSessionSubqueryToRequestedWindow() {
+    GetSessionResponse response = sessionService.getSessions(GetSessionRequest.builder()
+        .startTime("2024-01-15T10:30:00Z")
+        .endTime("2024-01-15T11:45:00Z")
+        .spanName("checkout")
+        .filters(new GetSessionRequest.Filters())
+        .build()).blockingGet();
+
+    QueryConfiguration config = executedQuery();
+    assertThat(response.getSessions()).extracting(GetSessionResponse.Session::getSessionId).containsExactly("s1");
+    assertThat(config.getQuery())
+        .doesNotContain("groupUniqArray")
+        .contains("SessionId IN (")
+        .contains("WHERE SpanName = :span_name");
+    assertThat(config.getQuery().split("Timestamp >= toDateTime64\\(:start_time, 9, 'UTC'\\)", -1)).hasSize(3);
+    assertThat(config.getParameters())
+        .containsEntry("start_time", "2024-01-15 10:30:00")
+        .containsEntry("end_time", "2024-01-15 11:45:00")
+        .containsEntry("span_name", "checkout");
+  }
+
+  @Test
+  void shouldBindFilterValues() {
+    sessionService.getSessions(GetSessionRequest.builder()
+        .startTime("2024-01-15T10:30:00Z")
+        .endTime("2024-01-15T11:45:00Z")
+        .spanName("checkout")
+        .filters(GetSessionRequest.Filters.builder()
+            .appVersionFilters(List.of("5.1.0", "5.2.0"))
+            .stateFilters(List.of("KA"))
+            .build())
+        .build()).blockingGet();
+
+    QueryConfiguration config = executedQuery();
+    assertThat(config.getQuery())
+        .contains("AND AppVersion in (:app_version_0,:app_version_1)")
+        .contains("AND GeoState in (:state_0)")
+        .doesNotContain("5.1.0")
+        .doesNotContain("Platform in");
+    assertThat(config.getParameters())
+        .containsEntry("app_version_0", "5.1.0")
+        .containsEntry("app_version_1", "5.2.0")
+        .containsEntry("state_0", "KA");
+  }
+
+  @Test
+  void shouldAllowMissingFilters() {
+    sessionService.getSessions(GetSessionRequest.builder()
+        .startTime("2024-01-15T10:30:00Z")
+        .endTime("2024-01-15T11:45:00Z")
+        .spanName("checkout")
+        .build()).test().assertComplete();
+
+    assertThat(executedQuery().getQuery()).doesNotContain("${").doesNotContain(" in (");
+  }
+}
@@ -0,0 +1,9 @@
+-- Migration script to add the version column to alert_scope
+-- This script should be run on existing databases that don't have the version column.
+-- Scope state writes only apply while the version is the one the server last read, so that when several server
+-- instances evaluate the same scope only one of them notifies. The server does not start without this column.
+
+USE pulse_db;
+
+ALTER TABLE alert_scope
+ADD COLUMN version INT NOT NULL DEFAULT 0 AFTER state;
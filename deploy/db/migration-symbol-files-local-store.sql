@@ -0,0 +1,10 @@
+-- Migration script to move symbol file contents out of MySQL
+-- Files are now stored in the server's local content-addressed store; symbol_files keeps metadata and a checksum.
+-- Existing rows keep their file_content and are copied into the store the first time they are read.
+
+USE pulse_db;
+
+ALTER TABLE symbol_files
+ADD COLUMN checksum CHAR(64) NULL,
+ADD COLUMN file_size BIGINT NULL,
+MODIFY COLUMN file_content LONGBLOB NULL;
@@ -24,7 +24,11 @@ CREATE TABLE symbol_files (
   app_version_code  INT                 NOT NULL,
   platform          ENUM('ios','android') NOT NULL,
   framework         ENUM('java','js')   NOT NULL,
-  file_content      LONGBLOB            NOT NULL,
+  -- SHA-256 of the file in the server's local symbol file store; NULL only for rows uploaded before the store existed
+  checksum          CHAR(64)            NULL,
+  file_size         BIGINT              NULL,
+  -- Legacy inline content, read once and moved into the local store
+  file_content      LONGBLOB            NULL,
   PRIMARY KEY (app_version, app_version_code, platform, framework)
 );
 
@@ -86,6 +90,7 @@ CREATE TABLE alert_scope (
   name                   VARCHAR(255) NOT NULL,
   conditions             JSON NULL,
   state                  VARCHAR(50) NOT NULL DEFAULT 'NORMAL',
+  version                INT NOT NULL DEFAULT 0,
   is_active              BOOLEAN NOT NULL DEFAULT TRUE,
   created_at             TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
   updated_at             TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,